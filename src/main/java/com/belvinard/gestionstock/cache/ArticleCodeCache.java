@@ -0,0 +1,99 @@
+package com.belvinard.gestionstock.cache;
+
+import com.belvinard.gestionstock.dto.ArticleDTO;
+import com.belvinard.gestionstock.events.ArticleChangedEvent;
+import com.belvinard.gestionstock.events.PrixArticlesChangedEvent;
+import com.belvinard.gestionstock.events.StockChangedEvent;
+import com.belvinard.gestionstock.utils.BoundedLruCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Cache des recherches d'article par code (scan en caisse), clé {@code (entreprise, code normalisé)}.
+ * <p>
+ * Le DTO mis en cache contient le stock : toute transaction publiant un {@link StockChangedEvent}
+ * ou un {@link ArticleChangedEvent} invalide l'article après validation. Un compteur de générations
+ * empêche qu'une lecture commencée avant une invalidation ne réinsère une valeur périmée. La durée
+ * de vie des entrées borne l'écart en cas de modification faite hors de l'application.
+ * <p>
+ * L'index inverse (article vers clé) ne garde que les articles présents dans le cache : une entrée
+ * évincée ou expirée y est retirée aussitôt, il reste donc borné par {@code max-entries}.
+ */
+@Component
+public class ArticleCodeCache {
+
+    private final BoundedLruCache<String, ArticleDTO> cache;
+    // Article -> clé en cache, pour invalider sans connaître le code (article supprimé) ; suit les évictions
+    private final Map<Long, String> clesParArticle = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+
+    public ArticleCodeCache(@Value("${article.code-cache.max-entries:20000}") int maxEntries,
+                            @Value("${article.code-cache.ttl-minutes:10}") long ttlMinutes) {
+        this.cache = new BoundedLruCache<>(maxEntries, Duration.ofMinutes(ttlMinutes),
+                (cle, article) -> clesParArticle.remove(article.getId(), cle));
+    }
+
+    /**
+     * Article du cache, sinon chargé par {@code loader} puis mis en cache.
+     */
+    public ArticleDTO get(Long entrepriseId, String codeArticle, Supplier<ArticleDTO> loader) {
+        String cle = entrepriseId + ":" + normaliser(codeArticle);
+        ArticleDTO cached = cache.get(cle);
+        if (cached != null) {
+            return cached;
+        }
+
+        long avant = generation.get();
+        ArticleDTO article = loader.get();
+        clesParArticle.put(article.getId(), cle);
+        // Une invalidation pendant la lecture peut concerner cet article : la valeur n'est pas conservée
+        if (generation.get() == avant) {
+            cache.put(cle, article);
+        } else {
+            clesParArticle.remove(article.getId(), cle);
+        }
+        return article;
+    }
+
+    public void invalidate(Collection<Long> articleIds) {
+        generation.incrementAndGet();
+        for (Long articleId : articleIds) {
+            String cle = clesParArticle.remove(articleId);
+            if (cle != null) {
+                cache.remove(cle);
+            }
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onStockChanged(StockChangedEvent event) {
+        invalidate(event.articleIds());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onArticleChanged(ArticleChangedEvent event) {
+        invalidate(event.articleIds());
+    }
+
+    // Mise à jour en masse : les articles ne sont pas connus, tout le catalogue de l'entreprise est retiré
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onPrixArticlesChanged(PrixArticlesChangedEvent event) {
+        generation.incrementAndGet();
+        String prefixe = event.entrepriseId() + ":";
+        cache.removeIf(cle -> cle.startsWith(prefixe));
+    }
+
+    public static String normaliser(String codeArticle) {
+        return codeArticle == null ? "" : codeArticle.trim().toLowerCase(Locale.ROOT);
+    }
+}
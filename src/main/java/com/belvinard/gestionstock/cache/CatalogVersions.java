@@ -0,0 +1,353 @@
+package com.belvinard.gestionstock.cache;
+
+import com.belvinard.gestionstock.events.ArticleChangedEvent;
+import com.belvinard.gestionstock.events.CategoryChangedEvent;
+import com.belvinard.gestionstock.events.ClientChangedEvent;
+import com.belvinard.gestionstock.events.PrixArticlesChangedEvent;
+import com.belvinard.gestionstock.events.StockChangedEvent;
+import com.belvinard.gestionstock.service.MinioService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.context.request.WebRequest;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Timestamp;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Validateurs HTTP (ETag, Last-Modified) des lectures du catalogue, sans sérialiser la réponse.
+ * <p>
+ * La version d'une réponse est l'empreinte, pour chaque table dont des lignes apparaissent dans le
+ * corps, du nombre de lignes et du plus grand {@code last_modified_date} du périmètre : une création,
+ * une modification ou une suppression logique avance la date, l'archivage d'une ligne change le nombre. Toutes les tables d'une
+ * version sont interrogées en un seul aller-retour. Les entreprises sont prises sur leur contenu
+ * (table courte) car leur date de modification n'est pas tenue par l'entité.
+ * <p>
+ * Les versions des listes complètes (articles, clients) parcourent des tables entières : elles sont
+ * gardées en mémoire et retirées après validation de toute transaction publiant un événement de
+ * modification. Leur durée de vie ({@code catalog.versions.ttl-seconds}) borne l'écart pour les
+ * écritures qui n'en publient pas (autre instance, SQL direct).
+ * <p>
+ * Les corps des articles portent des URL signées ({@code photo}, {@code imageVariants}) : leur version
+ * comprend le début de la fenêtre de signature en cours ({@link MinioService#presignedUrlWindowStart()}).
+ * L'ETag change donc avant que les URL détenues par le client n'expirent, et le client recharge le
+ * corps au lieu de recevoir un 304. Les réponses restent en {@code no-cache} : aucune durée de
+ * fraîcheur ne dépasse la fenêtre.
+ */
+@Component
+public class CatalogVersions {
+
+    // Authentifié et variable : le client garde la réponse mais la revalide à chaque lecture
+    private static final CacheControl REVALIDER = CacheControl.noCache().cachePrivate();
+
+    private static final String ARTICLES = "art";
+    private static final String CLIENTS = "cli";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final MinioService minioService;
+    private final long ttlNanos;
+    private final Map<String, Memorisee> memorisees = new ConcurrentHashMap<>();
+    // Empêche qu'un calcul commencé avant une invalidation ne remette en mémoire une version périmée
+    private final AtomicLong generation = new AtomicLong();
+
+    public CatalogVersions(JdbcTemplate jdbcTemplate,
+                           MinioService minioService,
+                           @Value("${catalog.versions.ttl-seconds:30}") long ttlSeconds) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.minioService = minioService;
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+    }
+
+    /**
+     * @param etag         ETag fort, guillemets compris
+     * @param lastModified date de dernière modification en millisecondes, {@code -1} si inconnue
+     * @param parDate      {@code true} si {@code If-Modified-Since} suffit à valider (une seule ligne,
+     *                     une suppression donnant un 404) ; pour une liste, seul l'ETag fait foi
+     */
+    public record Version(String etag, long lastModified, boolean parDate) {
+    }
+
+    private record Memorisee(Version version, long expireA) {
+    }
+
+    private record Source(String table, String filtre, Object parametre, boolean contenu) {
+
+        static Source toutes(String table) {
+            return new Source(table, null, null, false);
+        }
+
+        static Source ou(String table, String filtre, Object parametre) {
+            return new Source(table, filtre, parametre, false);
+        }
+
+        static Source contenu(String table, String filtre, Object parametre) {
+            return new Source(table, filtre, parametre, true);
+        }
+    }
+
+    /* ================== ARTICLES ================== */
+
+    public Version articles() {
+        return signee(memoriser(ARTICLES, () -> version("art", false, Source.toutes("article"),
+                Source.toutes("categories"), Source.contenu("entreprise", null, null))));
+    }
+
+    public Version articlesCategory(Long categoryId) {
+        return signee(version("art-c" + categoryId, false,
+                Source.ou("article", "idcategory = ?", categoryId),
+                Source.ou("categories", "id = ?", categoryId),
+                Source.contenu("entreprise", "id = (SELECT entreprisei_id FROM categories WHERE id = ?)", categoryId)));
+    }
+
+    public Version article(Long articleId) {
+        return signee(version("art-" + articleId, true,
+                Source.ou("article", "id = ?", articleId),
+                Source.ou("categories", "id = (SELECT idcategory FROM article WHERE id = ?)", articleId),
+                Source.contenu("entreprise", "id = (SELECT entreprise_id FROM article WHERE id = ?)", articleId)));
+    }
+
+    /**
+     * Version d'une réponse déjà produite, prise sur son contenu : aucune requête. Pour les lectures
+     * servies depuis un cache applicatif (scan en caisse), dont le contenu suit les modifications.
+     */
+    public Version contenu(String prefixe, Object corps) {
+        return new Version('"' + prefixe + "-" + empreinte(String.valueOf(corps)) + '"', -1, false);
+    }
+
+    /* ================== CATÉGORIES ================== */
+
+    public Version categories() {
+        return version("cat", false, Source.toutes("categories"), Source.contenu("entreprise", null, null));
+    }
+
+    // L'arborescence porte les agrégats de stock : les articles de l'entreprise en font partie
+    public Version categoryTree(Long entrepriseId) {
+        return version("cat-t" + entrepriseId, false,
+                Source.ou("categories", "entreprisei_id = ?", entrepriseId),
+                Source.ou("article", "entreprise_id = ?", entrepriseId),
+                Source.contenu("entreprise", "id = ?", entrepriseId));
+    }
+
+    /* ================== ENTREPRISES ================== */
+
+    public Version entreprises() {
+        return version("ent", false, Source.contenu("entreprise", null, null), Source.toutes("utilisateur"));
+    }
+
+    public Version entreprise(Long entrepriseId) {
+        return version("ent-" + entrepriseId, false,
+                Source.contenu("entreprise", "id = ?", entrepriseId),
+                Source.ou("utilisateur", "identreprise = ?", entrepriseId));
+    }
+
+    /* ================== CLIENTS ================== */
+
+    public Version clients() {
+        return memoriser(CLIENTS, () -> version("cli", false, Source.toutes("client"),
+                Source.toutes("commandeclient"), Source.contenu("entreprise", null, null)));
+    }
+
+    public Version clientsEntreprise(Long entrepriseId) {
+        return version("cli-e" + entrepriseId, false,
+                Source.ou("client", "entreprise_id = ?", entrepriseId),
+                Source.ou("commandeclient", "idclient IN (SELECT id FROM client WHERE entreprise_id = ?)", entrepriseId),
+                Source.contenu("entreprise", "id = ?", entrepriseId));
+    }
+
+    public Version client(Long clientId) {
+        return version("cli-" + clientId, true,
+                Source.ou("client", "id = ?", clientId),
+                Source.ou("commandeclient", "idclient = ?", clientId),
+                Source.contenu("entreprise", "id = (SELECT entreprise_id FROM client WHERE id = ?)", clientId));
+    }
+
+    /* ================== FOURNISSEURS ================== */
+
+    public Version fournisseurs() {
+        return version("fou", false, Source.toutes("fournisseur"), Source.toutes("commandefournisseur"),
+                Source.contenu("entreprise", null, null));
+    }
+
+    public Version fournisseur(Long fournisseurId) {
+        return version("fou-" + fournisseurId, true,
+                Source.ou("fournisseur", "id = ?", fournisseurId),
+                Source.ou("commandefournisseur", "fournisseur_id = ?", fournisseurId),
+                Source.contenu("entreprise", "id = (SELECT entreprise_id FROM fournisseur WHERE id = ?)", fournisseurId));
+    }
+
+    /* ================== INVALIDATION ================== */
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onArticleChanged(ArticleChangedEvent event) {
+        invalider(ARTICLES);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onPrixArticlesChanged(PrixArticlesChangedEvent event) {
+        invalider(ARTICLES);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        invalider(ARTICLES);
+    }
+
+    // Stock des articles, mais aussi état des commandes clients validées ou livrées
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onStockChanged(StockChangedEvent event) {
+        invalider(ARTICLES, CLIENTS);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onClientChanged(ClientChangedEvent event) {
+        invalider(CLIENTS);
+    }
+
+    // Écritures en masse sans événement (import d'articles)
+    public void invaliderArticles() {
+        invalider(ARTICLES);
+    }
+
+    private void invalider(String... cles) {
+        generation.incrementAndGet();
+        for (String cle : cles) {
+            memorisees.remove(cle);
+        }
+    }
+
+    private Version memoriser(String cle, Supplier<Version> calcul) {
+        long maintenant = System.nanoTime();
+        Memorisee memorisee = memorisees.get(cle);
+        if (memorisee != null && memorisee.expireA() - maintenant > 0) {
+            return memorisee.version();
+        }
+        long avant = generation.get();
+        Version version = calcul.get();
+        if (generation.get() == avant) {
+            memorisees.put(cle, new Memorisee(version, maintenant + ttlNanos));
+        }
+        return version;
+    }
+
+    /**
+     * Réponse 304 si le client détient déjà cette version, sinon 200 avec le corps produit par
+     * {@code corps} ; dans les deux cas avec l'ETag et la politique de revalidation.
+     */
+    public <T> ResponseEntity<T> repondre(WebRequest request, Version version, Supplier<T> corps) {
+        if (nonModifie(request, version)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(version.etag())
+                    .cacheControl(REVALIDER)
+                    .build();
+        }
+        ResponseEntity.BodyBuilder reponse = ResponseEntity.ok()
+                .eTag(version.etag())
+                .cacheControl(REVALIDER);
+        if (version.lastModified() >= 0) {
+            reponse.lastModified(version.lastModified());
+        }
+        return reponse.body(corps.get());
+    }
+
+    private boolean nonModifie(WebRequest request, Version version) {
+        String[] ifNoneMatch = request.getHeaderValues(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch != null && ifNoneMatch.length > 0) {
+            // If-None-Match prime sur If-Modified-Since ; comparaison faible, admise pour un GET
+            String attendu = sansPrefixeFaible(version.etag());
+            for (String valeur : ifNoneMatch) {
+                for (String etag : valeur.split(",")) {
+                    String candidat = sansPrefixeFaible(etag.trim());
+                    if (candidat.equals("*") || candidat.equals(attendu)) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+
+        String ifModifiedSince = request.getHeader(HttpHeaders.IF_MODIFIED_SINCE);
+        if (!version.parDate() || version.lastModified() < 0 || ifModifiedSince == null) {
+            return false;
+        }
+        try {
+            long depuis = ZonedDateTime.parse(ifModifiedSince, DateTimeFormatter.RFC_1123_DATE_TIME)
+                    .toInstant().toEpochMilli();
+            // Last-Modified est transmis à la seconde
+            return version.lastModified() / 1000 <= depuis / 1000;
+        } catch (DateTimeParseException e) {
+            return false;
+        }
+    }
+
+    // Fenêtre de signature ajoutée à l'ETag ; Last-Modified n'est jamais antérieur à son début, pour
+    // que If-Modified-Since ne valide pas un corps signé dans une fenêtre précédente
+    private Version signee(Version version) {
+        long fenetre = minioService.presignedUrlWindowStart();
+        String etag = version.etag();
+        return new Version(etag.substring(0, etag.length() - 1) + "-" + Long.toString(fenetre, 36) + '"',
+                Math.max(version.lastModified(), fenetre), version.parDate());
+    }
+
+    private static String sansPrefixeFaible(String etag) {
+        return etag.startsWith("W/") ? etag.substring(2) : etag;
+    }
+
+    private Version version(String prefixe, boolean parDate, Source... sources) {
+        StringBuilder sql = new StringBuilder();
+        List<Object> parametres = new ArrayList<>();
+        for (int i = 0; i < sources.length; i++) {
+            Source source = sources[i];
+            if (i > 0) {
+                sql.append(" UNION ALL ");
+            }
+            sql.append("SELECT ").append(i).append(", COUNT(*), MAX(t.last_modified_date), ")
+                    .append(source.contenu() ? "md5(string_agg(t::text, ',' ORDER BY t.id))" : "NULL")
+                    .append(" FROM ").append(source.table()).append(" t");
+            if (source.filtre() != null) {
+                sql.append(" WHERE ").append(source.filtre());
+                parametres.add(source.parametre());
+            }
+        }
+
+        String[] parties = new String[sources.length];
+        long[] lastModified = {-1};
+        jdbcTemplate.query(sql.toString(), rs -> {
+            Timestamp maximum = rs.getTimestamp(3);
+            parties[rs.getInt(1)] = rs.getLong(2) + ":" + maximum + ":" + rs.getString(4);
+            if (maximum != null) {
+                lastModified[0] = Math.max(lastModified[0], maximum.getTime());
+            }
+        }, parametres.toArray());
+
+        return new Version('"' + prefixe + "-" + empreinte(String.join("|", parties)) + '"',
+                lastModified[0], parDate);
+    }
+
+    private static String empreinte(String texte) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(texte.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash, 0, 12);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponible", e);
+        }
+    }
+}
@@ -0,0 +1,324 @@
+package com.belvinard.gestionstock.cache;
+
+import com.belvinard.gestionstock.exceptions.ResourceNotFoundException;
+import com.belvinard.gestionstock.service.MinioService;
+import com.belvinard.gestionstock.storage.ObjectContent;
+import com.belvinard.gestionstock.storage.ObjectInfo;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Copie locale des objets téléchargés depuis MinIO, dans un répertoire borné en octets.
+ * <p>
+ * Chaque fichier est nommé d'après le SHA-256 du nom d'objet et l'ETag de la version copiée. Une
+ * copie vérifiée depuis moins de {@code revalidate-after-seconds} est servie telle quelle ; au-delà,
+ * un {@code statObject} (sans contenu) confirme l'ETag ou provoque un nouveau téléchargement. Si
+ * MinIO ne répond pas, la copie existante est servie. Les copies les moins récemment lues sont
+ * supprimées dès que le total dépasse {@code max-bytes} ; un lecteur en cours garde son canal
+ * ouvert, le fichier supprimé reste donc lisible jusqu'à la fin de sa copie.
+ * <p>
+ * Un objet n'est téléchargé qu'une fois à la fois : les lectures concurrentes d'un objet absent ou
+ * modifié attendent la copie en cours.
+ */
+@Slf4j
+@Component
+public class ObjectDiskCache {
+
+    private final MinioService minioService;
+    private final boolean enabled;
+    private final Path repertoire;
+    private final long maxBytes;
+    private final long maxObjectBytes;
+    private final long revalidationNanos;
+
+    // Ordre d'accès : la tête est la copie la moins récemment lue ; protégé par son propre verrou
+    private final LinkedHashMap<String, Entree> index = new LinkedHashMap<>(256, 0.75f, true);
+    private long totalBytes;
+    // Téléchargements en cours par clé, partagés par les lectures concurrentes
+    private final Map<String, CompletableFuture<Entree>> telechargements = new ConcurrentHashMap<>();
+
+    private static final class Entree {
+        final Path fichier;
+        final long taille;
+        final String etag;
+        volatile String contentType;
+        volatile long verifieeLe;
+
+        Entree(Path fichier, long taille, String etag, String contentType, long verifieeLe) {
+            this.fichier = fichier;
+            this.taille = taille;
+            this.etag = etag;
+            this.contentType = contentType;
+            this.verifieeLe = verifieeLe;
+        }
+    }
+
+    public ObjectDiskCache(MinioService minioService,
+                           @Value("${storage.disk-cache.enabled:true}") boolean enabled,
+                           @Value("${storage.disk-cache.directory:${java.io.tmpdir}/gestionstock-object-cache}") String repertoire,
+                           @Value("${storage.disk-cache.max-bytes:1073741824}") long maxBytes,
+                           @Value("${storage.disk-cache.max-object-bytes:52428800}") long maxObjectBytes,
+                           @Value("${storage.disk-cache.revalidate-after-seconds:60}") long revalidateAfterSeconds) {
+        this.minioService = minioService;
+        this.enabled = enabled;
+        this.repertoire = Paths.get(repertoire);
+        this.maxBytes = maxBytes;
+        this.maxObjectBytes = maxObjectBytes;
+        this.revalidationNanos = TimeUnit.SECONDS.toNanos(revalidateAfterSeconds);
+    }
+
+    // Les copies d'une exécution précédente sont reprises, à revalider avant leur premier service
+    @PostConstruct
+    public void charger() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        Files.createDirectories(repertoire);
+        List<Path> fichiers = new ArrayList<>();
+        try (DirectoryStream<Path> contenu = Files.newDirectoryStream(repertoire)) {
+            for (Path fichier : contenu) {
+                if (fichier.getFileName().toString().endsWith(".tmp")) {
+                    Files.deleteIfExists(fichier);
+                } else {
+                    fichiers.add(fichier);
+                }
+            }
+        }
+        // Ordre d'accès perdu au redémarrage : les copies les plus anciennes seront évincées en premier
+        fichiers.sort(Comparator.comparingLong(ObjectDiskCache::dateCopie));
+
+        synchronized (index) {
+            for (Path fichier : fichiers) {
+                String nom = fichier.getFileName().toString();
+                int point = nom.indexOf('.');
+                if (point <= 0) {
+                    Files.deleteIfExists(fichier);
+                    continue;
+                }
+                long taille = Files.size(fichier);
+                index.put(nom.substring(0, point), new Entree(fichier, taille, nom.substring(point + 1), null, 0));
+                totalBytes += taille;
+            }
+            evincer();
+        }
+        log.info("Cache disque des fichiers : {} copie(s), {} Mo dans {}", index.size(), totalBytes >> 20, repertoire);
+    }
+
+    /**
+     * Contenu de l'objet depuis la copie locale, créée ou rafraîchie si nécessaire ; {@code null} si
+     * le cache est désactivé, l'objet trop volumineux pour y être conservé ou sa copie déjà évincée.
+     *
+     * @throws ResourceNotFoundException si l'objet n'existe plus dans le stockage
+     */
+    public ObjectContent open(String objectName) {
+        if (!enabled) {
+            return null;
+        }
+        String cle = cle(objectName);
+        Entree entree;
+        synchronized (index) {
+            entree = index.get(cle);
+        }
+
+        long maintenant = System.nanoTime();
+        if (entree != null && entree.contentType != null && maintenant - entree.verifieeLe < revalidationNanos) {
+            ObjectContent contenu = ouvrir(objectName, entree);
+            if (contenu != null) {
+                return contenu;
+            }
+            entree = null;
+        }
+
+        ObjectInfo info;
+        try {
+            info = minioService.statObject(objectName);
+        } catch (ResourceNotFoundException e) {
+            retirer(cle);
+            throw e;
+        } catch (RuntimeException e) {
+            ObjectContent perime = entree != null ? ouvrir(objectName, entree) : null;
+            if (perime == null) {
+                throw e;
+            }
+            log.warn("MinIO injoignable, copie locale de '{}' servie sans revalidation : {}", objectName, e.getMessage());
+            return perime;
+        }
+
+        if (entree != null && entree.etag.equals(nomSur(info.etag()))) {
+            entree.contentType = info.contentType();
+            entree.verifieeLe = maintenant;
+            ObjectContent contenu = ouvrir(objectName, entree);
+            if (contenu != null) {
+                return contenu;
+            }
+        }
+        if (info.size() > maxObjectBytes) {
+            return null;
+        }
+        return ouvrir(objectName, copier(cle, info, maintenant));
+    }
+
+    public void evict(String objectName) {
+        if (enabled) {
+            retirer(cle(objectName));
+        }
+    }
+
+    // Rejoint le téléchargement en cours de cet objet, ou le lance
+    private Entree copier(String cle, ObjectInfo info, long maintenant) {
+        CompletableFuture<Entree> copie = new CompletableFuture<>();
+        CompletableFuture<Entree> enCours = telechargements.putIfAbsent(cle, copie);
+        if (enCours != null) {
+            try {
+                return enCours.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException cause ? cause : e;
+            }
+        }
+        try {
+            Entree entree;
+            synchronized (index) {
+                entree = index.get(cle);
+            }
+            // Copie de cette version terminée par une autre lecture juste avant : pas de second téléchargement
+            if (entree == null || !entree.etag.equals(nomSur(info.etag()))) {
+                entree = telecharger(cle, info, maintenant);
+            }
+            copie.complete(entree);
+            return entree;
+        } catch (RuntimeException e) {
+            copie.completeExceptionally(e);
+            throw e;
+        } finally {
+            telechargements.remove(cle, copie);
+        }
+    }
+
+    private Entree telecharger(String cle, ObjectInfo info, long maintenant) {
+        Path temporaire = null;
+        try {
+            temporaire = Files.createTempFile(repertoire, cle, ".tmp");
+            try (InputStream flux = minioService.downloadFile(info.objectName())) {
+                Files.copy(flux, temporaire, StandardCopyOption.REPLACE_EXISTING);
+            }
+            // Le nom définitif n'apparaît qu'une fois le contenu complet
+            Path fichier = repertoire.resolve(cle + "." + nomSur(info.etag()));
+            Files.move(temporaire, fichier, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+
+            Entree entree = new Entree(fichier, Files.size(fichier), nomSur(info.etag()), info.contentType(), maintenant);
+            synchronized (index) {
+                Entree ancienne = index.put(cle, entree);
+                if (ancienne != null) {
+                    totalBytes -= ancienne.taille;
+                    if (!ancienne.fichier.equals(fichier)) {
+                        supprimer(ancienne.fichier);
+                    }
+                }
+                totalBytes += entree.taille;
+                evincer();
+            }
+            return entree;
+        } catch (IOException e) {
+            if (temporaire != null) {
+                supprimer(temporaire);
+            }
+            throw new UncheckedIOException("Copie locale de '" + info.objectName() + "' impossible", e);
+        }
+    }
+
+    // null si la copie a été évincée entre-temps
+    private ObjectContent ouvrir(String objectName, Entree entree) {
+        try {
+            FileChannel canal = FileChannel.open(entree.fichier, StandardOpenOption.READ);
+            try {
+                return ObjectContent.fromFile(new ObjectInfo(objectName, entree.taille, entree.etag, entree.contentType), canal);
+            } catch (IOException e) {
+                canal.close();
+                throw e;
+            }
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void retirer(String cle) {
+        synchronized (index) {
+            Entree entree = index.remove(cle);
+            if (entree != null) {
+                totalBytes -= entree.taille;
+                supprimer(entree.fichier);
+            }
+        }
+    }
+
+    // Appelé sous le verrou de l'index
+    private void evincer() {
+        Iterator<Map.Entry<String, Entree>> iterateur = index.entrySet().iterator();
+        while (totalBytes > maxBytes && iterateur.hasNext()) {
+            Entree entree = iterateur.next().getValue();
+            iterateur.remove();
+            totalBytes -= entree.taille;
+            supprimer(entree.fichier);
+        }
+    }
+
+    private static void supprimer(Path fichier) {
+        try {
+            Files.deleteIfExists(fichier);
+        } catch (IOException e) {
+            log.warn("Suppression de la copie locale {} impossible : {}", fichier, e.getMessage());
+        }
+    }
+
+    private static long dateCopie(Path fichier) {
+        try {
+            return Files.getLastModifiedTime(fichier).toMillis();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    // Les ETag MinIO sont hexadécimaux (suffixe "-N" en multipart) ; tout autre caractère est neutralisé
+    private static String nomSur(String etag) {
+        return etag == null ? "sans-etag" : etag.replaceAll("[^A-Za-z0-9-]", "_");
+    }
+
+    private static String cle(String objectName) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(objectName.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponible", e);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.belvinard.gestionstock.concurrency;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Rejoue les méthodes {@link RetryOnConflict} en cas de conflit optimiste, avec un délai
+ * exponentiel borné et aléatoire ("full jitter") pour désynchroniser les transactions concurrentes.
+ * <p>
+ * L'aspect s'exécute autour de l'intercepteur transactionnel : chaque tentative dispose
+ * d'une transaction neuve. Métriques exposées (tag {@code operation}) :
+ * <ul>
+ *     <li>{@code gestionstock.optimistic_lock.attempts} : exécutions tentées</li>
+ *     <li>{@code gestionstock.optimistic_lock.conflicts} : conflits détectés</li>
+ *     <li>{@code gestionstock.optimistic_lock.exhausted} : échecs après la dernière tentative</li>
+ * </ul>
+ * Le taux de conflit se lit comme {@code conflicts / attempts}.
+ */
+@Slf4j
+@Aspect
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE - 1)
+@RequiredArgsConstructor
+public class OptimisticRetryAspect {
+
+    private static final String METRIC_PREFIX = "gestionstock.optimistic_lock.";
+
+    private final MeterRegistry meterRegistry;
+
+    @Around("@annotation(retryOnConflict)")
+    public Object retry(ProceedingJoinPoint joinPoint, RetryOnConflict retryOnConflict) throws Throwable {
+        // Dans une transaction englobante, rejouer ne relirait pas des données plus fraîches
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return joinPoint.proceed();
+        }
+
+        String operation = joinPoint.getSignature().getDeclaringType().getSimpleName()
+                + "." + joinPoint.getSignature().getName();
+        int maxAttempts = Math.max(1, retryOnConflict.maxAttempts());
+
+        for (int attempt = 1; ; attempt++) {
+            meterRegistry.counter(METRIC_PREFIX + "attempts", "operation", operation).increment();
+            try {
+                return joinPoint.proceed();
+            } catch (OptimisticLockingFailureException e) {
+                meterRegistry.counter(METRIC_PREFIX + "conflicts", "operation", operation).increment();
+
+                if (attempt >= maxAttempts) {
+                    meterRegistry.counter(METRIC_PREFIX + "exhausted", "operation", operation).increment();
+                    log.warn("Conflit de concurrence persistant sur {} après {} tentative(s)", operation, attempt);
+                    throw e;
+                }
+
+                long delay = backoff(retryOnConflict, attempt);
+                log.debug("Conflit optimiste sur {} (tentative {}/{}), nouvel essai dans {} ms",
+                        operation, attempt, maxAttempts, delay);
+                Thread.sleep(delay);
+            }
+        }
+    }
+
+    private long backoff(RetryOnConflict retryOnConflict, int attempt) {
+        long ceiling = Math.min(retryOnConflict.maxBackoffMs(),
+                retryOnConflict.backoffMs() << Math.min(attempt - 1, 20));
+        return ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+}
@@ -0,0 +1,29 @@
+package com.belvinard.gestionstock.concurrency;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Ré-exécute la méthode annotée lorsqu'un conflit de verrouillage optimiste survient.
+ * <p>
+ * La méthode doit ouvrir sa propre transaction ({@code @Transactional}) : chaque tentative
+ * relit alors les entités à jour. Appelée depuis une transaction déjà active, la méthode
+ * n'est pas rejouée et le conflit remonte à l'appelant.
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface RetryOnConflict {
+
+    // Nombre maximal de tentatives (première exécution comprise)
+    int maxAttempts() default 3;
+
+    // Délai de base avant la première nouvelle tentative, doublé à chaque essai
+    long backoffMs() default 25;
+
+    // Plafond du délai entre deux tentatives
+    long maxBackoffMs() default 400;
+}
@@ -0,0 +1,129 @@
+package com.belvinard.gestionstock.concurrency;
+
+import com.belvinard.gestionstock.exceptions.InvalidOperationException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Verrous applicatifs par article, répartis sur un tableau fixe de verrous ("lock striping").
+ * <p>
+ * Deux articles peuvent partager le même verrou, mais la mémoire reste constante quel que soit
+ * le catalogue. Pour les opérations multi-articles, les verrous sont toujours pris dans l'ordre
+ * croissant des indices de bande puis relâchés en ordre inverse, ce qui exclut tout interblocage
+ * entre deux opérations concurrentes.
+ */
+@Component
+public class StripedLockManager {
+
+    private final ReentrantLock[] stripes;
+    private final int mask;
+    private final long timeoutMs;
+
+    public StripedLockManager(@Value("${stock.lock.stripes:1024}") int stripeCount,
+                              @Value("${stock.lock.timeout-ms:5000}") long timeoutMs) {
+        // Arrondi à la puissance de deux supérieure pour remplacer le modulo par un masque
+        int size = 1;
+        while (size < stripeCount) {
+            size <<= 1;
+        }
+        this.stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        this.mask = size - 1;
+        this.timeoutMs = timeoutMs;
+    }
+
+    /**
+     * Verrouille les articles jusqu'à la fin de la transaction courante (commit ou rollback).
+     * Le verrou doit couvrir la validation : le relâcher avant le commit laisserait une autre
+     * transaction lire un stock pas encore mis à jour.
+     */
+    public void lockArticlesForTransaction(Collection<Long> articleIds) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Le verrouillage d'articles requiert une transaction active");
+        }
+
+        int[] acquired = acquire(articleIds);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                release(acquired);
+            }
+        });
+    }
+
+    public void lockArticleForTransaction(Long articleId) {
+        lockArticlesForTransaction(List.of(articleId));
+    }
+
+    /**
+     * Exécute une section critique sous le verrou des articles donnés, hors transaction.
+     */
+    public <T> T withArticleLocks(Collection<Long> articleIds, Supplier<T> action) {
+        int[] acquired = acquire(articleIds);
+        try {
+            return action.get();
+        } finally {
+            release(acquired);
+        }
+    }
+
+    public int stripeCount() {
+        return stripes.length;
+    }
+
+    private int[] acquire(Collection<Long> articleIds) {
+        // Indices distincts triés : ordre global identique pour toutes les opérations
+        TreeSet<Integer> indices = new TreeSet<>();
+        for (Long articleId : articleIds) {
+            indices.add(stripeFor(Objects.requireNonNull(articleId, "L'identifiant de l'article est obligatoire")));
+        }
+
+        int[] acquired = new int[indices.size()];
+        int count = 0;
+        try {
+            for (int index : indices) {
+                if (!stripes[index].tryLock(timeoutMs, TimeUnit.MILLISECONDS)) {
+                    throw new InvalidOperationException(
+                            "Article momentanément verrouillé par une autre opération, veuillez réessayer");
+                }
+                acquired[count++] = index;
+            }
+            return acquired;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InvalidOperationException("Opération interrompue pendant l'attente du verrou article");
+        } finally {
+            if (count < acquired.length) {
+                release(Arrays.copyOf(acquired, count));
+            }
+        }
+    }
+
+    private void release(int[] acquired) {
+        for (int i = acquired.length - 1; i >= 0; i--) {
+            stripes[acquired[i]].unlock();
+        }
+    }
+
+    private int stripeFor(long articleId) {
+        // Mélange des bits (Long.hashCode puis diffusion) pour répartir les identifiants séquentiels
+        int h = Long.hashCode(articleId);
+        h ^= (h >>> 16);
+        h *= 0x45d9f3b;
+        h ^= (h >>> 16);
+        return h & mask;
+    }
+}
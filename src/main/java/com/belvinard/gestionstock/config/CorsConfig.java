@@ -48,7 +48,10 @@ public class CorsConfig {
         configuration.setExposedHeaders(Arrays.asList(
             "Access-Control-Allow-Origin",
             "Access-Control-Allow-Credentials",
-            "Authorization"
+            "Authorization",
+            "Idempotent-Replayed",
+            "ETag",
+            "Last-Modified"
         ));
         
         // Autoriser les credentials
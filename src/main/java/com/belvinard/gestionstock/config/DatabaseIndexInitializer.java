@@ -0,0 +1,99 @@
+package com.belvinard.gestionstock.config;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Index PostgreSQL que {@code ddl-auto=update} ne sait pas créer (expressions, GIN, trigrammes,
+ * index partiels) et déclencheurs de la synchronisation des caisses.
+ * <p>
+ * Chaque instruction est idempotente ({@code IF NOT EXISTS}, déclencheur posé seulement s'il manque)
+ * et exécutée séparément : un échec (extension non autorisée, base non PostgreSQL) est journalisé
+ * sans empêcher le démarrage, les requêtes restant correctes mais sans l'index correspondant.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class DatabaseIndexInitializer implements ApplicationRunner {
+
+    private static final List<String> STATEMENTS = List.of(
+            // Recherche d'articles : préfixes (tsvector) et fautes de frappe (trigrammes)
+            "CREATE EXTENSION IF NOT EXISTS pg_trgm",
+            "CREATE INDEX IF NOT EXISTS idx_article_search_vector ON article USING GIN ("
+                    + "to_tsvector('simple', coalesce(code_article, '') || ' ' || coalesce(designation, '')))",
+            "CREATE INDEX IF NOT EXISTS idx_article_designation_trgm ON article USING GIN (lower(designation) gin_trgm_ops)",
+            "CREATE INDEX IF NOT EXISTS idx_article_code_trgm ON article USING GIN (lower(code_article) gin_trgm_ops)",
+            // upper() : forme générée par les requêtes dérivées ...ContainingIgnoreCase
+            "CREATE INDEX IF NOT EXISTS idx_categories_designation_trgm ON categories USING GIN (upper(designation) gin_trgm_ops)",
+            // Lignes vivantes seulement (deleted_at IS NULL, ajouté par @SQLRestriction) : les lignes
+            // supprimées logiquement n'alourdissent pas les index des lectures courantes
+            "CREATE INDEX IF NOT EXISTS idx_article_live_entreprise ON article (entreprise_id) WHERE deleted_at IS NULL",
+            // Scan en caisse : égalité sur le code insensible à la casse, dans une entreprise ; unique pour
+            // qu'une création concurrente ne puisse pas doubler un code que la recherche confondrait
+            "CREATE UNIQUE INDEX IF NOT EXISTS uk_article_live_entreprise_code_lower "
+                    + "ON article (entreprise_id, lower(code_article)) WHERE deleted_at IS NULL",
+            // Agrégats par catégorie et sous-arbres par préfixe de chemin matérialisé
+            "CREATE INDEX IF NOT EXISTS idx_article_live_category ON article (idcategory) WHERE deleted_at IS NULL",
+            "CREATE INDEX IF NOT EXISTS idx_categories_chemin ON categories (chemin text_pattern_ops)",
+            "CREATE INDEX IF NOT EXISTS idx_categories_live_entreprise ON categories (entreprisei_id) WHERE deleted_at IS NULL",
+            "CREATE INDEX IF NOT EXISTS idx_client_live_entreprise ON client (entreprise_id) WHERE deleted_at IS NULL",
+            "CREATE INDEX IF NOT EXISTS idx_fournisseur_live_entreprise ON fournisseur (entreprise_id) WHERE deleted_at IS NULL",
+            // Lignes supprimées à archiver, par ancienneté de suppression
+            "CREATE INDEX IF NOT EXISTS idx_article_deleted ON article (deleted_at) WHERE deleted_at IS NOT NULL",
+            "CREATE INDEX IF NOT EXISTS idx_categories_deleted ON categories (deleted_at) WHERE deleted_at IS NOT NULL",
+            "CREATE INDEX IF NOT EXISTS idx_client_deleted ON client (deleted_at) WHERE deleted_at IS NOT NULL",
+            "CREATE INDEX IF NOT EXISTS idx_fournisseur_deleted ON fournisseur (deleted_at) WHERE deleted_at IS NOT NULL",
+            // Synchronisation des caisses : transaction de la dernière écriture, posée par la base quel que
+            // soit le chemin d'écriture (JPA, JDBC, UPDATE en masse, suppression logique)
+            "CREATE OR REPLACE FUNCTION sync_change_xid() RETURNS trigger LANGUAGE plpgsql AS "
+                    + "$$ BEGIN NEW.change_xid := pg_current_xact_id(); RETURN NEW; END $$",
+            declencheurSynchronisation("article"),
+            declencheurSynchronisation("categories"),
+            declencheurSynchronisation("client"),
+            "CREATE INDEX IF NOT EXISTS idx_article_change_xid ON article (entreprise_id, change_xid)",
+            "CREATE INDEX IF NOT EXISTS idx_categories_change_xid ON categories (entreprisei_id, change_xid)",
+            "CREATE INDEX IF NOT EXISTS idx_client_change_xid ON client (entreprise_id, change_xid)",
+            // Validateurs HTTP du catalogue : MAX(last_modified_date) lu dans l'index
+            "CREATE INDEX IF NOT EXISTS idx_article_entreprise_modif ON article (entreprise_id, last_modified_date)",
+            "CREATE INDEX IF NOT EXISTS idx_article_modif ON article (last_modified_date)",
+            // Stockage adressé par contenu : candidats du ramasse-miettes et photos encore référencées
+            "CREATE INDEX IF NOT EXISTS idx_file_unreferenced ON file (released_at) WHERE reference_count <= 0",
+            "CREATE INDEX IF NOT EXISTS idx_file_file_name ON file (file_name)",
+            // Liste paginée des fichiers : préfixe et reprise par nom dans l'ordre du stockage
+            "CREATE INDEX IF NOT EXISTS idx_file_file_name_c ON file ((file_name COLLATE \"C\"))",
+            "CREATE INDEX IF NOT EXISTS idx_article_photo ON article (photo) WHERE photo IS NOT NULL"
+    );
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        int created = 0;
+        for (String statement : STATEMENTS) {
+            try {
+                jdbcTemplate.execute(statement);
+                created++;
+            } catch (DataAccessException e) {
+                log.warn("Index non créé ({}) : {}", statement, e.getMostSpecificCause().getMessage());
+            }
+        }
+        log.info("Index de base de données vérifiés : {}/{}", created, STATEMENTS.size());
+    }
+
+    // Colonne change_xid et déclencheur d'une table, créés une seule fois (pas de verrou à chaque démarrage)
+    private static String declencheurSynchronisation(String table) {
+        return "DO $$ BEGIN "
+                + "IF NOT EXISTS (SELECT 1 FROM pg_trigger WHERE tgname = 'trg_" + table + "_change_xid') THEN "
+                + "ALTER TABLE " + table + " ADD COLUMN IF NOT EXISTS change_xid xid8; "
+                + "CREATE TRIGGER trg_" + table + "_change_xid BEFORE INSERT OR UPDATE ON " + table
+                + " FOR EACH ROW EXECUTE FUNCTION sync_change_xid(); "
+                + "END IF; END $$";
+    }
+}
@@ -1,11 +1,15 @@
 package com.belvinard.gestionstock.config;
 
+import io.minio.MinioAsyncClient;
 import io.minio.MinioClient;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
 
+// Clients MinIO, inutiles (et sans configuration requise) avec le stockage local
 @Configuration
+@Profile("!local-storage")
 public class MinioConfig {
 
     @Value("${minio.url}")
@@ -17,11 +21,33 @@ public class MinioConfig {
     @Value("${minio.secret-key}")
     private String secretKey;
 
+    @Value("${minio.timeout.connect-ms:5000}")
+    private long connectTimeoutMs;
+
+    @Value("${minio.timeout.write-ms:30000}")
+    private long writeTimeoutMs;
+
+    @Value("${minio.timeout.read-ms:30000}")
+    private long readTimeoutMs;
+
     @Bean
     public MinioClient minioClient() {
-        return MinioClient.builder()
+        MinioClient client = MinioClient.builder()
+                .endpoint(minioUrl)
+                .credentials(accessKey, secretKey)
+                .build();
+        client.setTimeout(connectTimeoutMs, writeTimeoutMs, readTimeoutMs);
+        return client;
+    }
+
+    // Même stockage, appels non bloquants : les réponses sont traitées par les threads du client HTTP
+    @Bean
+    public MinioAsyncClient minioAsyncClient() {
+        MinioAsyncClient client = MinioAsyncClient.builder()
                 .endpoint(minioUrl)
                 .credentials(accessKey, secretKey)
                 .build();
+        client.setTimeout(connectTimeoutMs, writeTimeoutMs, readTimeoutMs);
+        return client;
     }
-}
\ No newline at end of file
+}
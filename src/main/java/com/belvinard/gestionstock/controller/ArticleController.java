@@ -1,10 +1,22 @@
 package com.belvinard.gestionstock.controller;
 
+import com.belvinard.gestionstock.cache.CatalogVersions;
 import com.belvinard.gestionstock.dto.ArticleDTO;
+import com.belvinard.gestionstock.dto.ArticleImageImportReportDTO;
+import com.belvinard.gestionstock.dto.ArticleImportReportDTO;
+import com.belvinard.gestionstock.dto.ArticleSuggestionDTO;
 import com.belvinard.gestionstock.dto.LigneCommandeClientDTO;
+import com.belvinard.gestionstock.dto.PageQuery;
+import com.belvinard.gestionstock.dto.PrixBulkRequest;
+import com.belvinard.gestionstock.dto.PrixBulkResultDTO;
 import com.belvinard.gestionstock.models.Article;
+import com.belvinard.gestionstock.responses.PageResponse;
+import com.belvinard.gestionstock.service.ArticleImageImportService;
+import com.belvinard.gestionstock.service.ArticleImportService;
 import com.belvinard.gestionstock.service.ArticleService;
+import com.belvinard.gestionstock.service.ArticleSuggestService;
 import com.belvinard.gestionstock.service.LigneCommandeClientService;
+import com.belvinard.gestionstock.service.PricingService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
@@ -13,13 +25,16 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springdoc.core.annotations.ParameterObject;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
@@ -33,7 +48,12 @@ import java.util.List;
 public class ArticleController {
 
     private final ArticleService articleService;
+    private final ArticleSuggestService articleSuggestService;
+    private final ArticleImportService articleImportService;
+    private final ArticleImageImportService articleImageImportService;
+    private final PricingService pricingService;
     private final LigneCommandeClientService ligneCommandeClientService;
+    private final CatalogVersions catalogVersions;
 
     /* ================== CREATE ARTICLE ================== */
     @Operation(summary = "ADMIN: Créer un nouvel article")
@@ -51,6 +71,58 @@ public class ArticleController {
         return new ResponseEntity<>(created, HttpStatus.CREATED);
     }
 
+    /* ================== IMPORT ARTICLES ================== */
+    @Operation(summary = "ADMIN ou MANAGER: Importer un catalogue d'articles (CSV)",
+            description = "Colonnes : codeArticle, designation, prixUnitaireHt, tauxTva, categorie (id, code ou "
+                    + "désignation), quantiteEnStock (facultative). Séparateur ',' ou ';'. Un code déjà présent "
+                    + "dans l'entreprise met l'article à jour (hors stock).")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Import terminé, avec le détail des lignes rejetées"),
+            @ApiResponse(responseCode = "400", description = "Fichier vide ou en-tête invalide"),
+            @ApiResponse(responseCode = "404", description = "Entreprise non trouvée"),
+            @ApiResponse(responseCode = "409", description = "Un import est déjà en cours pour cette entreprise")
+    })
+    @PreAuthorize("hasAnyAuthority('ROLE_ADMIN', 'ROLE_STOCK_MANAGER')")
+    @PostMapping(value = "/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<ArticleImportReportDTO> importArticles(
+            @RequestParam Long entrepriseId,
+            @RequestParam("file") MultipartFile file) {
+        return ResponseEntity.ok(articleImportService.importCsv(entrepriseId, file));
+    }
+
+    /* ================== IMPORT PHOTOS ================== */
+    @Operation(summary = "ADMIN ou MANAGER: Importer en masse les photos d'articles (ZIP)",
+            description = "Le corps de la requête est l'archive ZIP brute (pas de multipart), lue en flux. Chaque "
+                    + "image est nommée d'après le code de son article (ART-001.jpg) ; jpg, jpeg, png, gif, webp et "
+                    + "bmp sont acceptés. La photo précédente de l'article est remplacée.")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Import terminé, avec le détail des entrées rejetées"),
+            @ApiResponse(responseCode = "400", description = "Archive vide ou illisible"),
+            @ApiResponse(responseCode = "404", description = "Entreprise non trouvée"),
+            @ApiResponse(responseCode = "409", description = "Un import de photos est déjà en cours pour cette entreprise")
+    })
+    @PreAuthorize("hasAnyAuthority('ROLE_ADMIN', 'ROLE_STOCK_MANAGER')")
+    @PostMapping(value = "/images/import", consumes = {"application/zip", MediaType.APPLICATION_OCTET_STREAM_VALUE})
+    public ResponseEntity<ArticleImageImportReportDTO> importArticleImages(
+            @RequestParam Long entrepriseId,
+            HttpServletRequest request) throws IOException {
+        return ResponseEntity.ok(articleImageImportService.importZip(entrepriseId, request.getInputStream()));
+    }
+
+    /* ================== BULK PRICE UPDATE ================== */
+    @Operation(summary = "ADMIN ou MANAGER: Modifier en masse les prix ou la TVA",
+            description = "Par catégories ou liste d'articles d'une entreprise ; le TTC est recalculé")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Prix mis à jour"),
+            @ApiResponse(responseCode = "400", description = "Périmètre ou modification invalide"),
+            @ApiResponse(responseCode = "404", description = "Entreprise non trouvée")
+    })
+    @PreAuthorize("hasAnyAuthority('ROLE_ADMIN', 'ROLE_STOCK_MANAGER')")
+    @PutMapping("/prix/bulk")
+    public ResponseEntity<PrixBulkResultDTO> updatePrixEnMasse(@Valid @RequestBody PrixBulkRequest request) {
+        return ResponseEntity.ok(pricingService.updatePrixEnMasse(request));
+    }
+
     /* ================== GET ALL ARTICLES ================== */
     @Operation(summary = "USER, MANAGER ou ADMIN: Récupérer tous les articles")
     @ApiResponses({
@@ -58,9 +130,45 @@ public class ArticleController {
     })
     @PreAuthorize("hasAnyAuthority('ROLE_ADMIN', 'ROLE_STOCK_MANAGER', 'ROLE_SALES_MANAGER')")
     @GetMapping("/all")
-    public ResponseEntity<List<ArticleDTO>> getAllArticles() {
-        List<ArticleDTO> articles = articleService.getAllArticles();
-        return ResponseEntity.ok(articles);
+    public ResponseEntity<PageResponse<ArticleDTO>> getAllArticles(@ParameterObject @Valid PageQuery pageQuery,
+                                                                   WebRequest request) {
+        return catalogVersions.repondre(request, catalogVersions.articles(),
+                () -> articleService.getAllArticles(pageQuery));
+    }
+
+    /* ================== SEARCH ARTICLES ================== */
+    @Operation(summary = "USER, MANAGER ou ADMIN: Rechercher des articles d'une entreprise",
+            description = "Recherche par préfixe et approximative sur le code, la désignation et la catégorie, "
+                    + "résultats classés par pertinence")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Résultats de la recherche"),
+            @ApiResponse(responseCode = "400", description = "Terme de recherche invalide")
+    })
+    @PreAuthorize("hasAnyAuthority('ROLE_ADMIN', 'ROLE_STOCK_MANAGER', 'ROLE_SALES_MANAGER')")
+    @GetMapping("/search")
+    public ResponseEntity<PageResponse<ArticleDTO>> searchArticles(
+            @Parameter(description = "ID de l'entreprise", required = true) @RequestParam Long entrepriseId,
+            @Parameter(description = "Terme recherché", required = true) @RequestParam("q") String terme,
+            @ParameterObject @Valid PageQuery pageQuery) {
+        return ResponseEntity.ok(articleService.searchArticles(entrepriseId, terme, pageQuery));
+    }
+
+    /* ================== SUGGEST ARTICLES ================== */
+    @Operation(summary = "USER, MANAGER ou ADMIN: Suggestions de saisie sur le code et la désignation",
+            description = "Servi depuis un index en mémoire : un mot du code ou de la désignation "
+                    + "doit commencer par le texte saisi (casse et accents ignorés)")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Suggestions (liste vide si aucune)")
+    })
+    @PreAuthorize("hasAnyAuthority('ROLE_ADMIN', 'ROLE_STOCK_MANAGER', 'ROLE_SALES_MANAGER')")
+    @GetMapping("/suggest")
+    public ResponseEntity<List<ArticleSuggestionDTO>> suggestArticles(
+            @Parameter(description = "ID de l'entreprise", required = true) @RequestParam Long entrepriseId,
+            @Parameter(description = "Début du code ou d'un mot de la désignation", required = true)
+            @RequestParam("q") String saisie,
+            @Parameter(description = "Nombre maximal de suggestions (50 au plus)")
+            @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(articleSuggestService.suggest(entrepriseId, saisie, limit));
     }
 
     /* ================== GET ARTICLE BY ID ================== */
@@ -71,9 +179,9 @@ public class ArticleController {
     })
     @PreAuthorize("hasAnyAuthority('ROLE_ADMIN', 'ROLE_STOCK_MANAGER', 'ROLE_SALES_MANAGER')")
     @GetMapping("/{id}")
-    public ResponseEntity<ArticleDTO> getArticleById(@PathVariable Long id) {
-        ArticleDTO articleDTO = articleService.findAllByArticleId(id);
-        return ResponseEntity.ok(articleDTO);
+    public ResponseEntity<ArticleDTO> getArticleById(@PathVariable Long id, WebRequest request) {
+        return catalogVersions.repondre(request, catalogVersions.article(id),
+                () -> articleService.findAllByArticleId(id));
     }
 
     /* ================== DELETE ARTICLE ================== */
@@ -93,18 +201,23 @@ public class ArticleController {
     @Operation(summary = "USER, SALES MANAGER, MANAGER ou ADMIN: Rechercher un article par code")
     @PreAuthorize("hasAnyAuthority('ROLE_ADMIN', 'ROLE_STOCK_MANAGER', 'ROLE_SALES_MANAGER')")
     @GetMapping("/manager/code/{codeArticle}")
-    public ResponseEntity<ArticleDTO> findByCodeArticle(@PathVariable String codeArticle) {
-        ArticleDTO articleDTO = articleService.findByCodeArticle(codeArticle);
-        return ResponseEntity.ok(articleDTO);
+    public ResponseEntity<ArticleDTO> findByCodeArticle(
+            @PathVariable String codeArticle,
+            @Parameter(description = "ID de l'entreprise", required = true) @RequestParam Long entrepriseId,
+            WebRequest request) {
+        // Servi par le cache des codes : l'ETag est pris sur l'article lu, sans requête de version
+        ArticleDTO article = articleService.findByCodeArticle(entrepriseId, codeArticle);
+        return catalogVersions.repondre(request, catalogVersions.contenu("art-" + article.getId(), article),
+                () -> article);
     }
 
     /* ================== GET BY CATEGORY ================== */
     @Operation(summary = "USER, SALES MANAGER, MANAGER ou ADMIN: Lister les articles d'une catégorie")
     @PreAuthorize("hasAnyAuthority('ROLE_ADMIN', 'ROLE_STOCK_MANAGER', 'ROLE_SALES_MANAGER')")
     @GetMapping("/category/{idCategory}")
-    public ResponseEntity<List<ArticleDTO>> findAllByCategory(@PathVariable Long idCategory) {
-        List<ArticleDTO> articles = articleService.findAllArticleByIdCategory(idCategory);
-        return ResponseEntity.ok(articles);
+    public ResponseEntity<List<ArticleDTO>> findAllByCategory(@PathVariable Long idCategory, WebRequest request) {
+        return catalogVersions.repondre(request, catalogVersions.articlesCategory(idCategory),
+                () -> articleService.findAllArticleByIdCategory(idCategory));
     }
 
     /* ================== HISTORIQUE DES COMMANDES ================== */
@@ -0,0 +1,37 @@
+package com.belvinard.gestionstock.controller;
+
+import com.belvinard.gestionstock.dto.AtpBatchRequest;
+import com.belvinard.gestionstock.dto.AtpDTO;
+import com.belvinard.gestionstock.service.AtpService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("${api.prefix}/atp")
+@RequiredArgsConstructor
+@Tag(name = "ATP-Controller", description = "API du disponible à promettre (stock, réservations, commandes)")
+public class AtpController {
+
+    private final AtpService atpService;
+
+    @GetMapping("/article/{articleId}")
+    @PreAuthorize("hasAnyAuthority('ROLE_ADMIN', 'ROLE_STOCK_MANAGER', 'ROLE_SALES_MANAGER')")
+    @Operation(summary = "Disponible à promettre d'un article (ADMIN, STOCK_MANAGER ou SALES_MANAGER)")
+    public ResponseEntity<AtpDTO> findByArticleId(@PathVariable Long articleId) {
+        return ResponseEntity.ok(atpService.findByArticleId(articleId));
+    }
+
+    @PostMapping("/batch")
+    @PreAuthorize("hasAnyAuthority('ROLE_ADMIN', 'ROLE_STOCK_MANAGER', 'ROLE_SALES_MANAGER')")
+    @Operation(summary = "Disponible à promettre d'une liste d'articles en un seul appel (ADMIN, STOCK_MANAGER ou SALES_MANAGER)")
+    public ResponseEntity<List<AtpDTO>> findByArticleIds(@Valid @RequestBody AtpBatchRequest request) {
+        return ResponseEntity.ok(atpService.findByArticleIds(request.getArticleIds()));
+    }
+}
@@ -1,7 +1,12 @@
 package com.belvinard.gestionstock.controller;
 
+import com.belvinard.gestionstock.cache.CatalogVersions;
 import com.belvinard.gestionstock.dto.CategoryDTO;
+import com.belvinard.gestionstock.dto.CategoryTreeDTO;
+import com.belvinard.gestionstock.dto.PageQuery;
+import com.belvinard.gestionstock.responses.CategoryResponse;
 import com.belvinard.gestionstock.service.CategoryService;
+import com.belvinard.gestionstock.service.CategoryTreeService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -9,10 +14,12 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springdoc.core.annotations.ParameterObject;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 
@@ -23,6 +30,8 @@ import java.util.List;
 public class CategoryController {
 
         private final CategoryService categoryService;
+        private final CategoryTreeService categoryTreeService;
+        private final CatalogVersions catalogVersions;
 
         @Operation(summary = "PUBLIC: Rechercher une catégorie par désignation", description = "Accessible à tous sans authentification.")
         @ApiResponses({
@@ -30,9 +39,10 @@ public class CategoryController {
                         @ApiResponse(responseCode = "404", description = "Aucune catégorie trouvée")
         })
         @GetMapping("/public/{designation}")
-        public ResponseEntity<List<CategoryDTO>> getCategoryByDesignation(@PathVariable String designation) {
-                List<CategoryDTO> categories = categoryService.findByDesignation(designation);
-                return ResponseEntity.ok(categories);
+        public ResponseEntity<List<CategoryDTO>> getCategoryByDesignation(@PathVariable String designation,
+                        WebRequest request) {
+                return catalogVersions.repondre(request, catalogVersions.categories(),
+                                () -> categoryService.findByDesignation(designation));
         }
 
         @Operation(summary = "ADMIN, ROLE_SALES_MANAGER, ROLE_STOCK_MANAGER: Créer une nouvelle catégorie", description = "Ajoute une catégorie à une entreprise existante. Accessible uniquement aux ADMIN.")
@@ -51,16 +61,17 @@ public class CategoryController {
                 return new ResponseEntity<>(created, HttpStatus.CREATED);
         }
 
-        @Operation(summary = "MANAGER, ROLE_SALES_MANAGER ou ADMIN: Lister toutes les catégories avec leur entreprise", description = "Accessible aux rôles ADMIN ou MANAGER.")
+        @Operation(summary = "MANAGER, ROLE_SALES_MANAGER ou ADMIN: Lister toutes les catégories avec leur entreprise", description = "Liste paginée (200 éléments par page au maximum). Accessible aux rôles ADMIN ou MANAGER.")
         @ApiResponses(value = {
                         @ApiResponse(responseCode = "200", description = "Liste retournée avec succès"),
                         @ApiResponse(responseCode = "500", description = "Erreur interne du serveur")
         })
         @PreAuthorize("hasAnyAuthority('ROLE_ADMIN', 'ROLE_STOCK_MANAGER', 'ROLE_SALES_MANAGER')")
         @GetMapping("/manager/with-entreprise")
-        public ResponseEntity<List<CategoryDTO>> getAllWithEntreprise() {
-                List<CategoryDTO> categories = categoryService.getAllCategoriesWithEntreprise();
-                return ResponseEntity.ok(categories);
+        public ResponseEntity<CategoryResponse> getAllWithEntreprise(@ParameterObject @Valid PageQuery pageQuery,
+                        WebRequest request) {
+                return catalogVersions.repondre(request, catalogVersions.categories(),
+                                () -> categoryService.getAllCategoriesWithEntreprise(pageQuery));
         }
 
         @Operation(summary = "ADMIN: Supprimer une catégorie", description = "Supprime une catégorie à partir de son ID. Accessible uniquement aux ADMIN.")
@@ -75,14 +86,42 @@ public class CategoryController {
                 return ResponseEntity.ok(deleted);
         }
 
+        @Operation(summary = "MANAGER, ROLE_SALES_MANAGER ou ADMIN: Arborescence des catégories d'une entreprise", description = "Chaque nœud porte le nombre d'articles, les unités en stock et la valeur de stock HT de son sous-arbre.")
+        @ApiResponses(value = {
+                        @ApiResponse(responseCode = "200", description = "Arborescence retournée avec succès"),
+                        @ApiResponse(responseCode = "404", description = "Entreprise non trouvée")
+        })
+        @PreAuthorize("hasAnyAuthority('ROLE_ADMIN', 'ROLE_STOCK_MANAGER', 'ROLE_SALES_MANAGER')")
+        @GetMapping("/manager/tree")
+        public ResponseEntity<List<CategoryTreeDTO>> getCategoryTree(
+                        @Parameter(description = "ID de l'entreprise") @RequestParam Long entrepriseId,
+                        WebRequest request) {
+                return catalogVersions.repondre(request, catalogVersions.categoryTree(entrepriseId),
+                                () -> categoryTreeService.getTree(entrepriseId));
+        }
+
+        @Operation(summary = "ADMIN, ROLE_STOCK_MANAGER: Déplacer une catégorie", description = "Rattache la catégorie et son sous-arbre à un nouveau parent (sans parentId : la catégorie devient racine).")
+        @ApiResponses({
+                        @ApiResponse(responseCode = "200", description = "Catégorie déplacée"),
+                        @ApiResponse(responseCode = "404", description = "Catégorie non trouvée"),
+                        @ApiResponse(responseCode = "409", description = "Le parent est la catégorie elle-même ou l'un de ses descendants")
+        })
+        @PreAuthorize("hasAnyAuthority('ROLE_ADMIN', 'ROLE_STOCK_MANAGER')")
+        @PutMapping("/admin/category/{categoryId}/parent")
+        public ResponseEntity<CategoryDTO> moveCategory(
+                        @PathVariable Long categoryId,
+                        @Parameter(description = "ID de la nouvelle catégorie parente") @RequestParam(required = false) Long parentId) {
+                return ResponseEntity.ok(categoryService.move(categoryId, parentId));
+        }
+
         @Operation(summary = "PUBLIC: Rechercher une catégorie par code", description = "Accessible à tous sans authentification.")
         @ApiResponses(value = {
                         @ApiResponse(responseCode = "200", description = "Catégorie trouvée avec succès"),
                         @ApiResponse(responseCode = "404", description = "Catégorie non trouvée pour ce code")
         })
         @GetMapping("/public/code/{code}")
-        public ResponseEntity<CategoryDTO> getCategoryByCode(@PathVariable String code) {
-                CategoryDTO categoryDTO = categoryService.findByCode(code);
-                return ResponseEntity.ok(categoryDTO);
+        public ResponseEntity<CategoryDTO> getCategoryByCode(@PathVariable String code, WebRequest request) {
+                return catalogVersions.repondre(request, catalogVersions.categories(),
+                                () -> categoryService.findByCode(code));
         }
 }
@@ -1,6 +1,9 @@
 package com.belvinard.gestionstock.controller;
 
+import com.belvinard.gestionstock.cache.CatalogVersions;
 import com.belvinard.gestionstock.dto.ClientDTO;
+import com.belvinard.gestionstock.dto.PageQuery;
+import com.belvinard.gestionstock.responses.PageResponse;
 import com.belvinard.gestionstock.service.ClientService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -11,10 +14,12 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springdoc.core.annotations.ParameterObject;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 
@@ -25,6 +30,7 @@ import java.util.List;
 public class ClientController {
 
         private final ClientService clientService;
+        private final CatalogVersions catalogVersions;
 
         @Operation(summary = "ADMIN, ROLE_SALES_MANAGER ou MANAGERS: Créer un client", description = "Permet d'enregistrer un nouveau client pour une entreprise donnée. Accessible aux ADMIN et MANAGERS.", parameters = {
                         @Parameter(name = "entrepriseId", description = "Identifiant de l'entreprise à laquelle le client sera rattaché", required = true, example = "1")
@@ -65,9 +71,9 @@ public class ClientController {
         })
         @PreAuthorize("hasAnyAuthority('ROLE_ADMIN', 'ROLE_STOCK_MANAGER', 'ROLE_SALES_MANAGER')")
         @GetMapping("/{id}")
-        public ResponseEntity<ClientDTO> getClientById(@PathVariable Long id) {
-                ClientDTO clientDTO = clientService.findByClientId(id);
-                return ResponseEntity.ok(clientDTO);
+        public ResponseEntity<ClientDTO> getClientById(@PathVariable Long id, WebRequest request) {
+                return catalogVersions.repondre(request, catalogVersions.client(id),
+                                () -> clientService.findByClientId(id));
         }
 
         @Operation(summary = "MANAGERS, ROLE_STOCK_MANAGER ou ADMIN: Liste des clients", description = "Retourne tous les clients enregistrés. Accessible aux MANAGERS ou ADMIN.")
@@ -76,9 +82,10 @@ public class ClientController {
         })
         @PreAuthorize("hasAnyAuthority('ROLE_ADMIN', 'ROLE_STOCK_MANAGER', 'ROLE_SALES_MANAGER')")
         @GetMapping("/all")
-        public ResponseEntity<List<ClientDTO>> getAllClients() {
-                List<ClientDTO> clients = clientService.getAllClients();
-                return ResponseEntity.ok(clients);
+        public ResponseEntity<PageResponse<ClientDTO>> getAllClients(@ParameterObject @Valid PageQuery pageQuery,
+                        WebRequest request) {
+                return catalogVersions.repondre(request, catalogVersions.clients(),
+                                () -> clientService.getAllClients(pageQuery));
         }
 
         @Operation(summary = "ADMIN ou MANAGERS: Supprimer un client", description = "Permet de supprimer un client grâce à son ID. Accessible aux ADMIN et MANAGERS.")
@@ -115,8 +122,9 @@ public class ClientController {
         })
         @PreAuthorize("hasAnyAuthority('ROLE_ADMIN', 'ROLE_STOCK_MANAGER', 'ROLE_SALES_MANAGER')")
         @GetMapping("/entreprise/{entrepriseId}")
-        public ResponseEntity<List<ClientDTO>> getClientsByEntreprise(@PathVariable Long entrepriseId) {
-                List<ClientDTO> clients = clientService.findByEntreprise(entrepriseId);
-                return ResponseEntity.ok(clients);
+        public ResponseEntity<List<ClientDTO>> getClientsByEntreprise(@PathVariable Long entrepriseId,
+                        WebRequest request) {
+                return catalogVersions.repondre(request, catalogVersions.clientsEntreprise(entrepriseId),
+                                () -> clientService.findByEntreprise(entrepriseId));
         }
 }
@@ -2,7 +2,9 @@ package com.belvinard.gestionstock.controller;
 
 import com.belvinard.gestionstock.dto.CommandeClientDTO;
 import com.belvinard.gestionstock.dto.LigneCommandeClientDTO;
+import com.belvinard.gestionstock.dto.PageQuery;
 import com.belvinard.gestionstock.models.EtatCommande;
+import com.belvinard.gestionstock.responses.PageResponse;
 import com.belvinard.gestionstock.service.CommandeClientService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -13,6 +15,7 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springdoc.core.annotations.ParameterObject;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -76,8 +79,8 @@ public class CommandeClientController {
         @Operation(summary = "MANAGER ou ADMIN: Lister toutes les commandes clients", description = "Retourne toutes les commandes clients enregistrées. Accessible aux MANAGER ou ADMIN.")
         @PreAuthorize("hasAnyAuthority('ROLE_ADMIN', 'ROLE_STOCK_MANAGER', 'ROLE_SALES_MANAGER')")
         @GetMapping
-        public ResponseEntity<List<CommandeClientDTO>> findAll() {
-                return ResponseEntity.ok(commandeClientService.findAll());
+        public ResponseEntity<PageResponse<CommandeClientDTO>> findAll(@ParameterObject @Valid PageQuery pageQuery) {
+                return ResponseEntity.ok(commandeClientService.findAll(pageQuery));
         }
 
         @Operation(summary = "MANAGER ou ADMIN: Rechercher une commande client par ID", description = "Retourne une commande client à partir de son identifiant. Accessible aux MANAGER ou ADMIN.")
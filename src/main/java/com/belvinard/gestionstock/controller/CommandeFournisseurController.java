@@ -1,8 +1,10 @@
 package com.belvinard.gestionstock.controller;
 
 import com.belvinard.gestionstock.dto.CommandeFournisseurDTO;
+import com.belvinard.gestionstock.dto.PageQuery;
 import com.belvinard.gestionstock.models.EtatCommande;
 import com.belvinard.gestionstock.responses.ErrorResponse;
+import com.belvinard.gestionstock.responses.PageResponse;
 import com.belvinard.gestionstock.service.CommandeFournisseurService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -13,12 +15,12 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springdoc.core.annotations.ParameterObject;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
 
 @RestController
 @RequestMapping("${api.prefix}/commandes-fournisseurs")
@@ -52,8 +54,8 @@ public class CommandeFournisseurController {
         @GetMapping
         @PreAuthorize("hasAnyAuthority('ROLE_ADMIN', 'ROLE_STOCK_MANAGER', 'ROLE_SALES_MANAGER')")
         @Operation(summary = "MANAGER, ROLE_STOCK_MANAGER ou ADMIN: Lister toutes les commandes fournisseurs", description = "Retourne la liste de toutes les commandes fournisseurs. Accès réservé aux MANAGER ou ADMIN.")
-        public ResponseEntity<List<CommandeFournisseurDTO>> getAllCommandesFournisseurs() {
-                List<CommandeFournisseurDTO> commandes = commandeFournisseurService.findAll();
+        public ResponseEntity<PageResponse<CommandeFournisseurDTO>> getAllCommandesFournisseurs(@ParameterObject @Valid PageQuery pageQuery) {
+                PageResponse<CommandeFournisseurDTO> commandes = commandeFournisseurService.findAll(pageQuery);
                 return ResponseEntity.ok(commandes);
         }
 
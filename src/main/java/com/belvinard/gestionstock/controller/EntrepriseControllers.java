@@ -1,6 +1,8 @@
 package com.belvinard.gestionstock.controller;
 
+import com.belvinard.gestionstock.cache.CatalogVersions;
 import com.belvinard.gestionstock.dto.EntrepriseDTO;
+import com.belvinard.gestionstock.dto.PageQuery;
 import com.belvinard.gestionstock.exceptions.ResourceNotFoundException;
 import com.belvinard.gestionstock.models.Entreprise;
 import com.belvinard.gestionstock.responses.EntrepriseResponse;
@@ -16,11 +18,13 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springdoc.core.annotations.ParameterObject;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
@@ -33,6 +37,7 @@ public class EntrepriseControllers {
 
         private final EntrepriseService entrepriseService;
         private final MinioService minioService;
+        private final CatalogVersions catalogVersions;
 
         @PostMapping("/create")
         @PreAuthorize("hasAuthority('ROLE_ADMIN')")
@@ -48,13 +53,14 @@ public class EntrepriseControllers {
         }
 
         @GetMapping("/all")
-        @Operation(summary = "PUBLIC: Retourne la liste des entreprises", description = "Retourne la liste complète des entreprises")
+        @Operation(summary = "PUBLIC: Retourne la liste des entreprises", description = "Retourne la liste paginée des entreprises")
         @ApiResponses(value = {
                         @ApiResponse(responseCode = "200", description = "Liste des entreprises récupérée avec succès", content = @Content(mediaType = "application/json", schema = @Schema(implementation = EntrepriseResponse.class)))
         })
-        public ResponseEntity<EntrepriseResponse> getAllEntreprises() {
-                EntrepriseResponse entreprises = entrepriseService.getAllEntreprises();
-                return ResponseEntity.ok(entreprises);
+        public ResponseEntity<EntrepriseResponse> getAllEntreprises(@ParameterObject @Valid PageQuery pageQuery,
+                        WebRequest request) {
+                return catalogVersions.repondre(request, catalogVersions.entreprises(),
+                                () -> entrepriseService.getAllEntreprises(pageQuery));
         }
 
         @GetMapping("/{id}")
@@ -65,9 +71,10 @@ public class EntrepriseControllers {
                         @ApiResponse(responseCode = "500", description = "Erreur interne du serveur")
         })
         public ResponseEntity<EntrepriseDTO> getEntrepriseById(
-                        @Parameter(description = "ID de l'entreprise à récupérer", required = true) @PathVariable Long id) {
-                EntrepriseDTO entreprise = entrepriseService.findEntrepriseById(id);
-                return ResponseEntity.ok(entreprise);
+                        @Parameter(description = "ID de l'entreprise à récupérer", required = true) @PathVariable Long id,
+                        WebRequest request) {
+                return catalogVersions.repondre(request, catalogVersions.entreprise(id),
+                                () -> entrepriseService.findEntrepriseById(id));
         }
 
         @PutMapping("/{id}")
@@ -1,106 +1,246 @@
-//package com.belvinard.gestionstock.controller;
-//
-//import com.belvinard.gestionstock.dto.FileDTO;
-//import com.belvinard.gestionstock.service.FileService;
-//import io.swagger.v3.oas.annotations.Operation;
-//import io.swagger.v3.oas.annotations.Parameter;
-//import io.swagger.v3.oas.annotations.media.Content;
-//import io.swagger.v3.oas.annotations.media.Schema;
-//import io.swagger.v3.oas.annotations.responses.ApiResponse;
-//import io.swagger.v3.oas.annotations.responses.ApiResponses;
-//import io.swagger.v3.oas.annotations.tags.Tag;
-//import lombok.RequiredArgsConstructor;
-//import org.springframework.core.io.InputStreamResource;
-//import org.springframework.http.HttpHeaders;
-//import org.springframework.http.MediaType;
-//import org.springframework.http.ResponseEntity;
-//import org.springframework.security.access.prepost.PreAuthorize;
-//import org.springframework.web.bind.annotation.*;
-//import org.springframework.web.multipart.MultipartFile;
-//
-//import java.io.InputStream;
-//import java.util.List;
-//import java.util.Map;
-//
-//@RestController
-//@RequestMapping("${api.prefix}/files")
-//@RequiredArgsConstructor
-//@Tag(name = "File-Controller", description = "API de gestion des fichiers (via MinIO)")
-//public class FileController {
-//
-//    private final FileService fileService;
-//
-//    @PostMapping(value = "/upload", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
-//    @PreAuthorize("hasAnyAuthority('ROLE_ADMIN', 'ROLE_STOCK_MANAGER', 'ROLE_SALES_MANAGER')")
-//    @Operation(summary = "Uploader une image (ADMIN ou MANAGER)")
-//    @ApiResponses(value = {
-//            @ApiResponse(responseCode = "200", description = "Fichier uploadé avec succès", content = @Content(schema = @Schema(implementation = FileDTO.class))),
-//            @ApiResponse(responseCode = "400", description = "Erreur lors de l'upload", content = @Content)
-//    })
-//    public ResponseEntity<FileDTO> uploadFile(
-//            @Parameter(description = "Image à uploader") @RequestParam("file") MultipartFile file) {
-//        try {
-//            FileDTO result = fileService.uploadFile(file);
-//            return ResponseEntity.ok(result);
-//        } catch (Exception e) {
-//            return ResponseEntity.badRequest().body(
-//                    FileDTO.builder()
-//                            .message("Erreur lors de l'upload : " + e.getMessage())
-//                            .build());
-//        }
-//    }
-//
-//    @GetMapping("/download/{fileName}")
-//    @PreAuthorize("hasAnyAuthority('ROLE_ADMIN', 'ROLE_STOCK_MANAGER', 'ROLE_SALES_MANAGER')")
-//    @Operation(summary = "Télécharger un fichier (ADMIN ou MANAGERS)")
-//    public ResponseEntity<InputStreamResource> downloadFile(
-//            @Parameter(description = "Nom du fichier") @PathVariable String fileName) {
-//        try {
-//            InputStream inputStream = fileService.downloadFile(fileName);
-//            return ResponseEntity.ok()
-//                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"")
-//                    .contentType(MediaType.APPLICATION_OCTET_STREAM)
-//                    .body(new InputStreamResource(inputStream));
-//        } catch (Exception e) {
-//            return ResponseEntity.notFound().build();
-//        }
-//    }
-//
-//    @DeleteMapping("/{fileName}")
-//    @PreAuthorize("hasRole('ADMIN')")
-//    @Operation(summary = "Supprimer un fichier (ADMIN)")
-//    public ResponseEntity<Map<String, String>> deleteFile(
-//            @Parameter(description = "Nom du fichier") @PathVariable String fileName) {
-//        try {
-//            fileService.deleteFile(fileName);
-//            return ResponseEntity.ok(Map.of("message", "Fichier supprimé avec succès"));
-//        } catch (Exception e) {
-//            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
-//        }
-//    }
-//
-//    @GetMapping("/list")
-//    @PreAuthorize("hasAnyAuthority('ROLE_ADMIN', 'ROLE_STOCK_MANAGER', 'ROLE_SALES_MANAGER')")
-//    @Operation(summary = "Lister tous les fichiers (ADMIN ou MANAGERS)")
-//    public ResponseEntity<List<String>> listFiles() {
-//        try {
-//            return ResponseEntity.ok(fileService.listFiles());
-//        } catch (Exception e) {
-//            return ResponseEntity.badRequest().build();
-//        }
-//    }
-//
-//    @GetMapping("/url/{fileName}")
-//    @PreAuthorize("hasAnyAuthority('ROLE_ADMIN', 'ROLE_STOCK_MANAGER', 'ROLE_SALES_MANAGER')")
-//    @Operation(summary = "Obtenir l'URL pré-signée d'un fichier (ADMIN ou MANAGERS)")
-//    public ResponseEntity<Map<String, String>> getPreSignedUrl(
-//            @Parameter(description = "Nom du fichier") @PathVariable String fileName,
-//            @Parameter(description = "Durée d'expiration en minutes") @RequestParam(defaultValue = "60") Integer expiryInMinutes) {
-//        try {
-//            String url = fileService.getPreSignedUrl(fileName, expiryInMinutes);
-//            return ResponseEntity.ok(Map.of("url", url));
-//        } catch (Exception e) {
-//            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
-//        }
-//    }
-//}
+package com.belvinard.gestionstock.controller;
+
+import com.belvinard.gestionstock.dto.FileDTO;
+import com.belvinard.gestionstock.responses.ObjectListingResponse;
+import com.belvinard.gestionstock.service.FileService;
+import com.belvinard.gestionstock.storage.ObjectContent;
+import com.belvinard.gestionstock.storage.ObjectInfo;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+@RestController
+@RequestMapping("${api.prefix}/files")
+@RequiredArgsConstructor
+@Tag(name = "File-Controller", description = "API de gestion des fichiers (via MinIO)")
+public class FileController {
+
+    private final FileService fileService;
+
+    @Value("${storage.download.cache-max-age-seconds:3600}")
+    private long downloadCacheMaxAgeSeconds;
+
+    @PostMapping(value = "/upload", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @PreAuthorize("hasAnyAuthority('ROLE_ADMIN', 'ROLE_STOCK_MANAGER', 'ROLE_SALES_MANAGER')")
+    @Operation(summary = "Uploader une image (ADMIN ou MANAGER)")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Fichier uploadé avec succès", content = @Content(schema = @Schema(implementation = FileDTO.class))),
+            @ApiResponse(responseCode = "400", description = "Erreur lors de l'upload", content = @Content)
+    })
+    public ResponseEntity<FileDTO> uploadFile(
+            @Parameter(description = "Image à uploader") @RequestParam("file") MultipartFile file) {
+        try {
+            FileDTO result = fileService.uploadFile(file);
+            return ResponseEntity.ok(result);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(
+                    FileDTO.builder()
+                            .message("Erreur lors de l'upload : " + e.getMessage())
+                            .build());
+        }
+    }
+
+    /**
+     * Sans en-tête conditionnel, une seule lecture du stockage fournit contenu et métadonnées. Avec
+     * {@code Range} ou {@code If-None-Match}, les métadonnées sont lues d'abord : réponse 304, 416, ou
+     * lecture partielle de la seule plage demandée. Une requête à plusieurs plages reçoit le fichier
+     * entier, ce que la norme autorise.
+     */
+    @GetMapping("/download/{fileName}")
+    @PreAuthorize("hasAnyAuthority('ROLE_ADMIN', 'ROLE_STOCK_MANAGER', 'ROLE_SALES_MANAGER')")
+    @Operation(summary = "Télécharger un fichier (ADMIN ou MANAGERS)",
+            description = "Accepte une plage d'octets (en-tête Range, réponse 206) pour reprendre un "
+                    + "téléchargement ou lire une partie d'un fichier, et If-None-Match (réponse 304).")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Fichier entier", content = @Content),
+            @ApiResponse(responseCode = "206", description = "Plage demandée", content = @Content),
+            @ApiResponse(responseCode = "304", description = "Copie du client toujours à jour", content = @Content),
+            @ApiResponse(responseCode = "416", description = "Plage hors du fichier", content = @Content)
+    })
+    public CompletableFuture<ResponseEntity<StreamingResponseBody>> downloadFile(
+            @Parameter(description = "Nom du fichier") @PathVariable String fileName,
+            @RequestHeader(value = HttpHeaders.RANGE, required = false) String range,
+            @RequestHeader(value = HttpHeaders.IF_RANGE, required = false) String ifRange,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        // Le thread de la requête est rendu pendant l'attente du stockage
+        if (range == null && ifNoneMatch == null) {
+            return fileService.openFile(fileName).thenApply(contenu -> reponse(fileName, contenu));
+        }
+        return fileService.statFile(fileName).thenCompose(info -> {
+            if (ifNoneMatch != null && correspond(ifNoneMatch, info.etag())) {
+                return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                        .eTag(info.etag())
+                        .cacheControl(cacheControl())
+                        .<StreamingResponseBody>build());
+            }
+            HttpRange plage = plageDemandee(range, ifRange, info);
+            if (plage == null) {
+                return fileService.openFile(fileName).thenApply(contenu -> reponse(fileName, contenu));
+            }
+            long debut;
+            long fin;
+            try {
+                debut = plage.getRangeStart(info.size());
+                fin = plage.getRangeEnd(info.size());
+            } catch (IllegalArgumentException e) {
+                debut = -1;
+                fin = -1;
+            }
+            // Début au-delà de la fin du fichier (HttpRange le ramène sans le signaler)
+            if (debut < 0 || debut >= info.size() || fin < debut) {
+                return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE)
+                        .header(HttpHeaders.CONTENT_RANGE, "bytes */" + info.size())
+                        .<StreamingResponseBody>build());
+            }
+            return fileService.openFile(fileName, debut, fin - debut + 1).thenApply(contenu -> reponse(fileName, contenu));
+        });
+    }
+
+    private ResponseEntity<StreamingResponseBody> reponse(String fileName, ObjectContent contenu) {
+        ObjectInfo info = contenu.info();
+        // Recopie directe vers la réponse, sans tampon intermédiaire au-delà de celui du conteneur
+        StreamingResponseBody corps = sortie -> {
+            try (contenu) {
+                contenu.writeTo(sortie);
+            }
+        };
+        ResponseEntity.BodyBuilder reponse = ResponseEntity.status(contenu.isPartial() ? HttpStatus.PARTIAL_CONTENT : HttpStatus.OK)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"")
+                .header(HttpHeaders.ACCEPT_RANGES, "bytes")
+                .contentType(info.contentType() != null
+                        ? MediaType.parseMediaType(info.contentType())
+                        : MediaType.APPLICATION_OCTET_STREAM)
+                .eTag(info.etag())
+                .cacheControl(cacheControl());
+        if (contenu.isPartial()) {
+            reponse.header(HttpHeaders.CONTENT_RANGE, "bytes " + contenu.offset() + "-"
+                    + (contenu.offset() + contenu.length() - 1) + "/" + (info.size() >= 0 ? info.size() : "*"));
+        }
+        if (contenu.length() >= 0) {
+            reponse.contentLength(contenu.length());
+        }
+        return reponse.body(corps);
+    }
+
+    // Fichier derrière authentification : cache du navigateur seulement, revalidé ensuite par ETag
+    private CacheControl cacheControl() {
+        return CacheControl.maxAge(Duration.ofSeconds(downloadCacheMaxAgeSeconds)).cachePrivate();
+    }
+
+    /**
+     * Plage unique à servir, ou {@code null} pour le fichier entier : en-tête absent, illisible, à
+     * plusieurs plages, ou {@code If-Range} ne désignant plus la version actuelle du fichier.
+     */
+    private static HttpRange plageDemandee(String range, String ifRange, ObjectInfo info) {
+        if (range == null || info.size() < 0) {
+            return null;
+        }
+        if (ifRange != null && (info.etag() == null || !ifRange.trim().equals("\"" + info.etag() + "\""))) {
+            return null;
+        }
+        try {
+            List<HttpRange> plages = HttpRange.parseRanges(range);
+            return plages.size() == 1 ? plages.get(0) : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    // If-None-Match : liste d'ETag, faibles (W/) ou forts, ou *
+    private static boolean correspond(String ifNoneMatch, String etag) {
+        if (etag == null) {
+            return false;
+        }
+        for (String candidat : ifNoneMatch.split(",")) {
+            String valeur = candidat.trim();
+            if (valeur.startsWith("W/")) {
+                valeur = valeur.substring(2);
+            }
+            if (valeur.equals("*") || valeur.replace("\"", "").equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @PutMapping("/stream")
+    @PreAuthorize("hasAnyAuthority('ROLE_ADMIN', 'ROLE_STOCK_MANAGER', 'ROLE_SALES_MANAGER')")
+    @Operation(summary = "Uploader un fichier volumineux en flux (ADMIN ou MANAGER)",
+            description = "Le corps de la requête est le contenu brut du fichier (pas de multipart) : il est "
+                    + "transmis au stockage par parties au fil de sa réception, sans copie en mémoire ni sur disque. "
+                    + "L'en-tête X-Checksum-SHA256 facultatif permet de vérifier l'intégrité du contenu reçu.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Fichier uploadé avec succès", content = @Content(schema = @Schema(implementation = FileDTO.class))),
+            @ApiResponse(responseCode = "400", description = "Taille dépassée ou empreinte différente", content = @Content)
+    })
+    public ResponseEntity<FileDTO> uploadStream(
+            @Parameter(description = "SHA-256 attendu, en hexadécimal") @RequestHeader(value = "X-Checksum-SHA256", required = false) String sha256,
+            HttpServletRequest request) throws IOException {
+        FileDTO result = fileService.uploadStream(request.getInputStream(), request.getContentLengthLong(),
+                request.getContentType(), sha256);
+        return ResponseEntity.ok(result);
+    }
+
+    @DeleteMapping("/{fileName}")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Supprimer un fichier (ADMIN)")
+    public ResponseEntity<Map<String, String>> deleteFile(
+            @Parameter(description = "Nom du fichier") @PathVariable String fileName) {
+        try {
+            fileService.deleteFile(fileName);
+            return ResponseEntity.ok(Map.of("message", "Fichier supprimé avec succès"));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/list")
+    @PreAuthorize("hasAnyAuthority('ROLE_ADMIN', 'ROLE_STOCK_MANAGER', 'ROLE_SALES_MANAGER')")
+    @Operation(summary = "Lister les fichiers par page, triés par nom (ADMIN ou MANAGERS)",
+            description = "Passer la valeur nextStartAfter de la réponse dans startAfter pour obtenir la page suivante")
+    public ResponseEntity<ObjectListingResponse> listFiles(
+            @Parameter(description = "Préfixe des noms de fichiers") @RequestParam(required = false) String prefix,
+            @Parameter(description = "Reprendre après ce nom (exclu)") @RequestParam(required = false) String startAfter,
+            @Parameter(description = "Taille de la page (1 à 1000)") @RequestParam(defaultValue = "100") int maxKeys,
+            @Parameter(description = "Lister le bucket MinIO plutôt que les fichiers enregistrés")
+            @RequestParam(defaultValue = "false") boolean fromStorage) {
+        return ResponseEntity.ok(fileService.listFiles(prefix, startAfter, maxKeys, fromStorage));
+    }
+
+    @GetMapping("/url/{fileName}")
+    @PreAuthorize("hasAnyAuthority('ROLE_ADMIN', 'ROLE_STOCK_MANAGER', 'ROLE_SALES_MANAGER')")
+    @Operation(summary = "Obtenir l'URL pré-signée d'un fichier (ADMIN ou MANAGERS)")
+    public ResponseEntity<Map<String, String>> getPreSignedUrl(
+            @Parameter(description = "Nom du fichier") @PathVariable String fileName,
+            @Parameter(description = "Durée d'expiration en minutes") @RequestParam(defaultValue = "60") Integer expiryInMinutes) {
+        try {
+            String url = fileService.getPreSignedUrl(fileName, expiryInMinutes);
+            return ResponseEntity.ok(Map.of("url", url));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+}
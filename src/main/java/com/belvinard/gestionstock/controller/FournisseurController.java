@@ -1,11 +1,13 @@
 package com.belvinard.gestionstock.controller;
 
+import com.belvinard.gestionstock.cache.CatalogVersions;
 import com.belvinard.gestionstock.dto.FournisseurDTO;
+import com.belvinard.gestionstock.dto.PageQuery;
 import com.belvinard.gestionstock.responses.ErrorResponse;
+import com.belvinard.gestionstock.responses.PageResponse;
 import com.belvinard.gestionstock.service.FournisseurService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
-import io.swagger.v3.oas.annotations.media.ArraySchema;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -13,12 +15,13 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springdoc.core.annotations.ParameterObject;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
-import java.util.List;
 
 @RestController
 @RequestMapping("${api.prefix}/fournisseurs")
@@ -27,6 +30,7 @@ import java.util.List;
 public class FournisseurController {
 
         private final FournisseurService fournisseurService;
+        private final CatalogVersions catalogVersions;
 
         @PostMapping("/entreprise/{entrepriseId}")
         @PreAuthorize("hasAnyAuthority('ROLE_ADMIN', 'ROLE_STOCK_MANAGER')")
@@ -46,12 +50,13 @@ public class FournisseurController {
         @GetMapping
         @PreAuthorize("hasAnyAuthority('ROLE_ADMIN', 'ROLE_STOCK_MANAGER', ROLE_SALES_MANAGER)")
         @Operation(summary = "Récupérer tous les fournisseurs (ADMIN, ROLE_SALES_MANAGER ou MANAGER)", description = "Récupère la liste complète des fournisseurs avec leurs informations d'entreprise", responses = {
-                        @ApiResponse(responseCode = "200", description = "Liste des fournisseurs récupérée avec succès", content = @Content(mediaType = "application/json", array = @ArraySchema(schema = @Schema(implementation = FournisseurDTO.class)))),
+                        @ApiResponse(responseCode = "200", description = "Liste des fournisseurs récupérée avec succès", content = @Content(mediaType = "application/json", schema = @Schema(implementation = PageResponse.class))),
                         @ApiResponse(responseCode = "404", description = "Aucun fournisseur trouvé", content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class)))
         })
-        public ResponseEntity<List<FournisseurDTO>> getAllFournisseurs() {
-                List<FournisseurDTO> fournisseurs = fournisseurService.getAllFournisseur();
-                return ResponseEntity.ok(fournisseurs);
+        public ResponseEntity<PageResponse<FournisseurDTO>> getAllFournisseurs(@ParameterObject @Valid PageQuery pageQuery,
+                        WebRequest request) {
+                return catalogVersions.repondre(request, catalogVersions.fournisseurs(),
+                                () -> fournisseurService.getAllFournisseur(pageQuery));
         }
 
         @GetMapping("/{fournisseurId}")
@@ -62,8 +67,10 @@ public class FournisseurController {
                         @ApiResponse(responseCode = "404", description = "Fournisseur non trouvé")
         })
         public ResponseEntity<FournisseurDTO> findById(
-                        @Parameter(description = "ID du fournisseur à récupérer", required = true) @PathVariable Long fournisseurId) {
-                return ResponseEntity.ok(fournisseurService.findFournisseurById(fournisseurId));
+                        @Parameter(description = "ID du fournisseur à récupérer", required = true) @PathVariable Long fournisseurId,
+                        WebRequest request) {
+                return catalogVersions.repondre(request, catalogVersions.fournisseur(fournisseurId),
+                                () -> fournisseurService.findFournisseurById(fournisseurId));
         }
 
         @DeleteMapping("/{fournisseurId}")
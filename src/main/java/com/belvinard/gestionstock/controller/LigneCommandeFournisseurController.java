@@ -1,7 +1,9 @@
 package com.belvinard.gestionstock.controller;
 
 import com.belvinard.gestionstock.dto.LigneCommandeFournisseurDTO;
+import com.belvinard.gestionstock.dto.PageQuery;
 import com.belvinard.gestionstock.responses.ErrorResponse;
+import com.belvinard.gestionstock.responses.PageResponse;
 import com.belvinard.gestionstock.service.LigneCommandeFournisseurService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -14,6 +16,7 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotNull;
 import lombok.RequiredArgsConstructor;
+import org.springdoc.core.annotations.ParameterObject;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -63,8 +66,8 @@ public class LigneCommandeFournisseurController {
         @GetMapping
         @PreAuthorize("hasAnyAuthority('ROLE_ADMIN', 'ROLE_STOCK_MANAGER')")
         @Operation(summary = "Récupérer toutes les lignes de commande fournisseur (ADMIN ou STOCK_MANAGER)", description = "Cette méthode permet de récupérer la liste de toutes les lignes de commande fournisseur")
-        public ResponseEntity<java.util.List<LigneCommandeFournisseurDTO>> getAll() {
-                java.util.List<LigneCommandeFournisseurDTO> lignes = ligneCommandeFournisseurService.getAll();
+        public ResponseEntity<PageResponse<LigneCommandeFournisseurDTO>> getAll(@ParameterObject @Valid PageQuery pageQuery) {
+                PageResponse<LigneCommandeFournisseurDTO> lignes = ligneCommandeFournisseurService.getAll(pageQuery);
                 return ResponseEntity.ok(lignes);
         }
 
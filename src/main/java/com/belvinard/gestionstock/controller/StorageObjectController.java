@@ -0,0 +1,64 @@
+package com.belvinard.gestionstock.controller;
+
+import com.belvinard.gestionstock.service.impl.LocalStorageBackend;
+import com.belvinard.gestionstock.storage.ObjectInfo;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Cible des URL signées du stockage local : rôle que joue MinIO lui-même pour ses propres URL.
+ * Public, l'accès est accordé par la signature et non par le jeton de l'utilisateur.
+ */
+@RestController
+@RequestMapping("${api.prefix}/storage")
+@RequiredArgsConstructor
+@Profile("local-storage")
+@Tag(name = "Storage-Controller", description = "Lecture des fichiers du stockage local par URL signée")
+public class StorageObjectController {
+
+    private final LocalStorageBackend localStorageBackend;
+
+    @GetMapping("/objects")
+    @Operation(summary = "Lire un fichier par URL signée (public)")
+    public CompletableFuture<ResponseEntity<StreamingResponseBody>> getObject(
+            @Parameter(description = "Nom de l'objet") @RequestParam String name,
+            @Parameter(description = "Expiration (secondes depuis l'epoch)") @RequestParam(defaultValue = "0") long expires,
+            @Parameter(description = "Signature HMAC-SHA256") @RequestParam(required = false) String signature) {
+        if (!localStorageBackend.verifierSignature(name, expires, signature)) {
+            throw new AccessDeniedException("Lien expiré ou signature invalide");
+        }
+
+        return localStorageBackend.getObject(name).thenApply(contenu -> {
+            ObjectInfo info = contenu.info();
+            StreamingResponseBody corps = sortie -> {
+                try (contenu) {
+                    contenu.writeTo(sortie);
+                }
+            };
+            // Réutilisable par le navigateur tant que la signature reste valable
+            long restantes = Math.max(0, expires - Instant.now().getEpochSecond());
+            return ResponseEntity.ok()
+                    .contentType(MediaType.parseMediaType(info.contentType()))
+                    .contentLength(info.size())
+                    .eTag(info.etag())
+                    .cacheControl(CacheControl.maxAge(Duration.ofSeconds(restantes)).cachePrivate())
+                    .body(corps);
+        });
+    }
+}
@@ -0,0 +1,49 @@
+package com.belvinard.gestionstock.controller;
+
+import com.belvinard.gestionstock.service.SyncService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+@RestController
+@RequestMapping("${api.prefix}/sync")
+@RequiredArgsConstructor
+@Tag(name = "Sync-Controller", description = "Synchronisation différentielle du catalogue pour les caisses hors ligne")
+public class SyncController {
+
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
+    private final SyncService syncService;
+
+    @GetMapping(value = "/changes", produces = "application/x-ndjson")
+    @PreAuthorize("hasAnyAuthority('ROLE_ADMIN', 'ROLE_STOCK_MANAGER', 'ROLE_SALES_MANAGER')")
+    @Operation(summary = "Changements du catalogue depuis un jeton (ADMIN, STOCK_MANAGER ou SALES_MANAGER)",
+            description = "Flux NDJSON : une ligne par catégorie, article (prix compris) ou client créé ou modifié "
+                    + "({\"op\":\"upsert\"}), une ligne par suppression ({\"op\":\"delete\"}), puis une ligne "
+                    + "{\"type\":\"end\"} portant le jeton à renvoyer. Sans jeton, ou jeton trop ancien, le flux "
+                    + "commence par {\"type\":\"reset\"} et contient le catalogue complet. Un flux sans ligne "
+                    + "de fin est incomplet : rejouer la demande avec le même jeton. Une ligne déjà reçue peut "
+                    + "être renvoyée par la synchronisation suivante : l'appliquer à nouveau est sans effet.")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Flux des changements"),
+            @ApiResponse(responseCode = "400", description = "Jeton invalide"),
+            @ApiResponse(responseCode = "404", description = "Entreprise non trouvée")
+    })
+    public ResponseEntity<StreamingResponseBody> getChanges(
+            @Parameter(description = "ID de l'entreprise", required = true) @RequestParam Long entrepriseId,
+            @Parameter(description = "Jeton renvoyé par la synchronisation précédente") @RequestParam(required = false) String since) {
+        return ResponseEntity.ok()
+                .contentType(NDJSON)
+                .cacheControl(CacheControl.noStore())
+                .body(syncService.streamChanges(entrepriseId, since));
+    }
+}
@@ -1,14 +1,17 @@
 package com.belvinard.gestionstock.controller;
 
 import com.belvinard.gestionstock.dto.ChangerMotDePasseUtilisateurDTO;
+import com.belvinard.gestionstock.dto.PageQuery;
 import com.belvinard.gestionstock.dto.UtilisateurDTO;
 import com.belvinard.gestionstock.models.RoleType;
+import com.belvinard.gestionstock.responses.PageResponse;
 import com.belvinard.gestionstock.service.UtilisateurService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springdoc.core.annotations.ParameterObject;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -44,8 +47,8 @@ public class UtilisateurController {
     @PreAuthorize("hasAuthority('ROLE_ADMIN')")
     @GetMapping("/all")
     @Operation(summary = "[ADMIN] Récupérer tous les utilisateurs")
-    public ResponseEntity<List<UtilisateurDTO>> findAll() {
-        return ResponseEntity.ok(utilisateurService.findAll());
+    public ResponseEntity<PageResponse<UtilisateurDTO>> findAll(@ParameterObject @Valid PageQuery pageQuery) {
+        return ResponseEntity.ok(utilisateurService.findAll(pageQuery));
     }
 
     @PreAuthorize("hasAuthority('ROLE_ADMIN')")
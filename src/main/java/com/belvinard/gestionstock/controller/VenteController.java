@@ -1,13 +1,16 @@
 package com.belvinard.gestionstock.controller;
 
 import com.belvinard.gestionstock.dto.LigneVenteDTO;
+import com.belvinard.gestionstock.dto.PageQuery;
 import com.belvinard.gestionstock.dto.VenteDTO;
 import com.belvinard.gestionstock.models.EtatVente;
+import com.belvinard.gestionstock.responses.VenteResponse;
 import com.belvinard.gestionstock.service.VenteService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springdoc.core.annotations.ParameterObject;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -70,8 +73,8 @@ public class VenteController {
     @PreAuthorize("hasAnyAuthority('ROLE_ADMIN', 'ROLE_SALES_REP', 'ROLE_SALES_MANAGER')")
     @GetMapping("/all")
     @Operation(summary = "[ 'ADMIN', 'SALES_REP', 'SALES_MANAGER'] Récupérer toutes les ventes")
-    public ResponseEntity<List<VenteDTO>> findAll() {
-        return ResponseEntity.ok(venteService.findAll());
+    public ResponseEntity<VenteResponse> findAll(@ParameterObject @Valid PageQuery pageQuery) {
+        return ResponseEntity.ok(venteService.findAll(pageQuery));
     }
 
     @PreAuthorize("hasAnyAuthority('ROLE_ADMIN', 'ROLE_SALES_REP', 'ROLE_SALES_MANAGER')")
@@ -11,6 +11,7 @@ import lombok.NoArgsConstructor;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Map;
 
 @Data
 @AllArgsConstructor
@@ -47,6 +48,10 @@ public class ArticleDTO {
 
     private String photo;
 
+    // URL signées des déclinaisons de la photo (thumb, medium, full), produites après le téléversement
+    @Schema(hidden = true)
+    private Map<String, String> imageVariants;
+
     // Rendre visible dans Swagger et JSON
     // @Schema(hidden = true) -> supprimer ou commenter
     private Long categoryId;
@@ -0,0 +1,21 @@
+package com.belvinard.gestionstock.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ArticleImageImportErrorDTO {
+
+    @Schema(description = "Chemin de l'entrée dans l'archive", example = "photos/ART-001.jpg")
+    private String fichier;
+
+    @Schema(description = "Code article déduit du nom de fichier", example = "ART-001")
+    private String codeArticle;
+
+    @Schema(description = "Motif du rejet", example = "Aucun article avec ce code dans l'entreprise")
+    private String message;
+}
@@ -0,0 +1,34 @@
+package com.belvinard.gestionstock.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+public class ArticleImageImportReportDTO {
+
+    @Schema(description = "Entrées de fichier lues dans l'archive", example = "25000")
+    private int entreesLues;
+
+    @Schema(description = "Articles dont la photo a été remplacée", example = "24950")
+    private int importees;
+
+    @Schema(description = "Parmi les photos importées, contenus déjà présents dans le stockage (non renvoyés)", example = "310")
+    private int dedupliquees;
+
+    @Schema(description = "Entrées rejetées", example = "50")
+    private int rejetees;
+
+    @Schema(description = "Durée de l'import en millisecondes", example = "180000")
+    private long dureeMs;
+
+    @Schema(description = "Débit moyen (photos importées par seconde)", example = "138.6")
+    private double imagesParSeconde;
+
+    @Schema(description = "Détail des entrées rejetées (limité aux 1000 premières)")
+    private List<ArticleImageImportErrorDTO> erreurs = new ArrayList<>();
+}
@@ -0,0 +1,21 @@
+package com.belvinard.gestionstock.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ArticleImportErrorDTO {
+
+    @Schema(description = "Numéro de ligne dans le fichier (l'en-tête est la ligne 1)", example = "42")
+    private int ligne;
+
+    @Schema(description = "Code article de la ligne, s'il a pu être lu", example = "ART-001")
+    private String codeArticle;
+
+    @Schema(description = "Motif du rejet", example = "Catégorie inconnue : BOISSONS")
+    private String message;
+}
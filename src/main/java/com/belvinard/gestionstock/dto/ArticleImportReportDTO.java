@@ -0,0 +1,31 @@
+package com.belvinard.gestionstock.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+public class ArticleImportReportDTO {
+
+    @Schema(description = "Nombre de lignes de données lues", example = "200000")
+    private int lignesLues;
+
+    @Schema(description = "Articles créés", example = "199500")
+    private int crees;
+
+    @Schema(description = "Articles existants mis à jour (même code dans l'entreprise)", example = "480")
+    private int misAJour;
+
+    @Schema(description = "Lignes rejetées", example = "20")
+    private int rejetees;
+
+    @Schema(description = "Durée de l'import en millisecondes", example = "35000")
+    private long dureeMs;
+
+    @Schema(description = "Détail des lignes rejetées (limité aux 1000 premières)")
+    private List<ArticleImportErrorDTO> erreurs = new ArrayList<>();
+}
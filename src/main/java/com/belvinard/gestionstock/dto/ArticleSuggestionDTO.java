@@ -0,0 +1,21 @@
+package com.belvinard.gestionstock.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ArticleSuggestionDTO {
+
+    @Schema(description = "Identifiant de l'article", example = "1")
+    private Long id;
+
+    @Schema(description = "Code de l'article", example = "ART-001")
+    private String codeArticle;
+
+    @Schema(description = "Désignation de l'article", example = "Yaourt nature 125 g")
+    private String designation;
+}
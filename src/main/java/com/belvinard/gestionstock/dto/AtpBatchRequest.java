@@ -0,0 +1,15 @@
+package com.belvinard.gestionstock.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class AtpBatchRequest {
+
+    @NotEmpty(message = "La liste des articles est obligatoire")
+    @Size(max = 5000, message = "5000 articles au maximum par requête")
+    private List<Long> articleIds;
+}
@@ -0,0 +1,36 @@
+package com.belvinard.gestionstock.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AtpDTO {
+
+    @Schema(description = "Identifiant de l'article", example = "1")
+    private Long articleId;
+
+    @Schema(description = "Identifiant de l'entreprise de l'article", example = "1")
+    private Long entrepriseId;
+
+    @Schema(description = "Stock physique", example = "120")
+    private long quantiteEnStock;
+
+    @Schema(description = "Quantité réservée (paniers en cours)", example = "10")
+    private long quantiteReservee;
+
+    @Schema(description = "Quantité engagée sur des commandes clients validées non livrées", example = "25")
+    private long quantiteEngagee;
+
+    @Schema(description = "Quantité attendue des commandes fournisseurs en cours", example = "50")
+    private long quantiteEntrante;
+
+    @Schema(description = "Disponible immédiatement : stock - réservé - engagé", example = "85")
+    private long quantiteDisponible;
+
+    @Schema(description = "Disponible à promettre : disponible + entrant", example = "135")
+    private long quantiteAPromettre;
+}
@@ -31,6 +31,9 @@ public class CategoryDTO {
     )
     private String code;
 
+    @Schema(description = "Catégorie parente (facultative, même entreprise)", example = "3")
+    private Long parentId;
+
     @Schema(hidden = true)
     private String entrepriseName;
 
@@ -0,0 +1,41 @@
+package com.belvinard.gestionstock.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+public class CategoryTreeDTO {
+
+    @Schema(description = "Identifiant de la catégorie", example = "3")
+    private Long id;
+
+    @Schema(description = "Code de la catégorie", example = "CAT-BOI")
+    private String code;
+
+    @Schema(description = "Désignation de la catégorie", example = "Boissons")
+    private String designation;
+
+    @Schema(description = "Catégorie parente, absente pour une racine", example = "1")
+    private Long parentId;
+
+    @Schema(description = "Articles rattachés directement à la catégorie", example = "120")
+    private long nombreArticlesDirects;
+
+    @Schema(description = "Articles de la catégorie et de ses sous-catégories", example = "450")
+    private long nombreArticles;
+
+    @Schema(description = "Unités en stock, sous-catégories comprises", example = "12800")
+    private long quantiteEnStock;
+
+    @Schema(description = "Valeur du stock au prix HT, sous-catégories comprises", example = "5320000.00")
+    private BigDecimal valeurStockHt;
+
+    @Schema(description = "Sous-catégories")
+    private List<CategoryTreeDTO> children = new ArrayList<>();
+}
@@ -21,5 +21,7 @@ public class FileDTO {
 
     private Long size;
 
+    private String checksumSha256;
+
     private String message; // Optionnel pour les réponses de succès
 }
@@ -0,0 +1,22 @@
+package com.belvinard.gestionstock.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Réponse HTTP mémorisée pour une clé d'idempotence, rejouée telle quelle en cas de nouvel envoi.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class IdempotentResponse {
+
+    private String requestFingerprint;
+
+    private int status;
+
+    private String contentType;
+
+    private byte[] body;
+}
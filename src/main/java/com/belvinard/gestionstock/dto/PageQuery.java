@@ -0,0 +1,69 @@
+package com.belvinard.gestionstock.dto;
+
+import com.belvinard.gestionstock.exceptions.APIException;
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import lombok.Data;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Paramètres de pagination communs aux endpoints de liste ({@code ?page=0&size=20&sort=designation,asc}).
+ */
+@Data
+public class PageQuery {
+
+    public static final int DEFAULT_SIZE = 20;
+    public static final int MAX_SIZE = 200;
+
+    @Min(value = 0, message = "Le numéro de page doit être positif ou nul")
+    @Schema(description = "Numéro de page (commence à 0)", example = "0")
+    private int page = 0;
+
+    @Min(value = 1, message = "La taille de page doit être au moins 1")
+    @Max(value = MAX_SIZE, message = "La taille de page ne peut pas dépasser " + MAX_SIZE)
+    @Schema(description = "Nombre d'éléments par page (200 au maximum)", example = "20")
+    private int size = DEFAULT_SIZE;
+
+    @Schema(description = "Tri : champ[,asc|desc], répétable (ex. designation,asc)", example = "id,desc")
+    private List<String> sort = new ArrayList<>();
+
+    @Schema(description = "Calculer le nombre total d'éléments (requête COUNT supplémentaire)", example = "false")
+    private boolean withTotal = false;
+
+    /**
+     * Construit le {@link Pageable} en n'acceptant que les champs de tri autorisés :
+     * un tri sur une colonne non indexée ou une association ferait un tri complet côté base.
+     */
+    public Pageable toPageable(Set<String> champsTriables, Sort triParDefaut) {
+        List<Sort.Order> orders = new ArrayList<>();
+        for (String critere : sort) {
+            if (critere == null || critere.isBlank()) {
+                continue;
+            }
+            String[] parts = critere.split(",");
+            String champ = parts[0].trim();
+            if (!champsTriables.contains(champ)) {
+                throw new APIException("Tri non autorisé sur '" + champ + "'. Champs acceptés : " + champsTriables);
+            }
+            Sort.Direction direction = parts.length > 1
+                    ? Sort.Direction.fromOptionalString(parts[1].trim()).orElseThrow(() ->
+                            new APIException("Sens de tri invalide : '" + parts[1].trim() + "' (asc ou desc)"))
+                    : Sort.Direction.ASC;
+            orders.add(new Sort.Order(direction, champ));
+        }
+
+        // L'identifiant en dernier critère garantit un ordre stable d'une page à l'autre
+        Sort tri = orders.isEmpty() ? triParDefaut : Sort.by(orders);
+        if (tri.getOrderFor("id") == null) {
+            tri = tri.and(Sort.by("id"));
+        }
+        return PageRequest.of(page, Math.min(size, MAX_SIZE), tri);
+    }
+}
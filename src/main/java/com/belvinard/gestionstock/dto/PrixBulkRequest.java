@@ -0,0 +1,41 @@
+package com.belvinard.gestionstock.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Data
+public class PrixBulkRequest {
+
+    @NotNull(message = "L'identifiant de l'entreprise est obligatoire")
+    @Schema(description = "Entreprise dont les articles sont modifiés", example = "1")
+    private Long entrepriseId;
+
+    @Size(max = 1000, message = "1000 catégories au maximum par requête")
+    @Schema(description = "Articles de ces catégories (exclusif avec articleIds)")
+    private List<Long> categoryIds;
+
+    @Size(max = 10000, message = "10000 articles au maximum par requête")
+    @Schema(description = "Articles désignés un par un (exclusif avec categoryIds)")
+    private List<Long> articleIds;
+
+    @DecimalMin(value = "0.0", message = "Le taux de TVA ne peut pas être négatif")
+    @DecimalMax(value = "100.0", message = "Le taux de TVA ne peut pas dépasser 100 %")
+    @Schema(description = "Nouveau taux de TVA en pourcentage", example = "19.25")
+    private BigDecimal tauxTva;
+
+    @DecimalMin(value = "0.0", inclusive = false, message = "Le prix HT doit être positif")
+    @Schema(description = "Nouveau prix HT, identique pour tous les articles visés", example = "1500")
+    private BigDecimal prixUnitaireHt;
+
+    @DecimalMin(value = "-99.99", message = "La baisse de prix ne peut pas atteindre 100 %")
+    @DecimalMax(value = "1000.0", message = "La hausse de prix ne peut pas dépasser 1000 %")
+    @Schema(description = "Variation du prix HT en pourcentage (exclusif avec prixUnitaireHt)", example = "5")
+    private BigDecimal variationPrixHtPourcent;
+}
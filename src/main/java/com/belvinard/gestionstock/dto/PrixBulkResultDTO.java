@@ -0,0 +1,21 @@
+package com.belvinard.gestionstock.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PrixBulkResultDTO {
+
+    @Schema(description = "Nombre d'articles modifiés", example = "300000")
+    private int articlesModifies;
+
+    @Schema(description = "Articles laissés inchangés : la variation aurait ramené leur prix HT à 0 ou moins", example = "0")
+    private int articlesIgnores;
+
+    @Schema(description = "Durée de la mise à jour en millisecondes", example = "2400")
+    private long dureeMs;
+}
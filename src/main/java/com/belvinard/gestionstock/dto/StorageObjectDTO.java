@@ -0,0 +1,35 @@
+package com.belvinard.gestionstock.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.ZonedDateTime;
+
+/**
+ * Objet du stockage dans une liste ; les champs renseignés dépendent de la source de la liste
+ * (table des fichiers ou parcours du bucket).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class StorageObjectDTO {
+
+    private String name;
+
+    private Long size;
+
+    private String contentType;
+
+    private String etag;
+
+    private ZonedDateTime lastModified;
+
+    private String checksumSha256;
+
+    private Integer referenceCount;
+}
@@ -0,0 +1,15 @@
+package com.belvinard.gestionstock.events;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Publié lorsqu'un article est créé, modifié ou supprimé (code, désignation, prix...).
+ * Les index et caches du catalogue se mettent à jour après validation de la transaction.
+ */
+public record ArticleChangedEvent(Collection<Long> articleIds) {
+
+    public static ArticleChangedEvent of(Long articleId) {
+        return new ArticleChangedEvent(List.of(articleId));
+    }
+}
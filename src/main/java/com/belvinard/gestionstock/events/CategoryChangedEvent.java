@@ -0,0 +1,7 @@
+package com.belvinard.gestionstock.events;
+
+/**
+ * Publié lorsqu'une catégorie est créée, déplacée dans l'arborescence ou supprimée.
+ */
+public record CategoryChangedEvent(Long categoryId) {
+}
@@ -0,0 +1,7 @@
+package com.belvinard.gestionstock.events;
+
+/**
+ * Publié lorsqu'un client est créé, modifié ou supprimé.
+ */
+public record ClientChangedEvent(Long clientId) {
+}
@@ -0,0 +1,8 @@
+package com.belvinard.gestionstock.events;
+
+/**
+ * Publié après une mise à jour de prix en masse : les articles touchés ne sont pas énumérés,
+ * les caches invalident tout le catalogue de l'entreprise.
+ */
+public record PrixArticlesChangedEvent(Long entrepriseId) {
+}
@@ -0,0 +1,16 @@
+package com.belvinard.gestionstock.events;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Publié lorsqu'une opération modifie le stock, les réservations ou les commandes
+ * d'un ensemble d'articles. Les projections en mémoire (ATP, ...) se rafraîchissent
+ * après validation de la transaction.
+ */
+public record StockChangedEvent(Collection<Long> articleIds) {
+
+    public static StockChangedEvent of(Long articleId) {
+        return new StockChangedEvent(List.of(articleId));
+    }
+}
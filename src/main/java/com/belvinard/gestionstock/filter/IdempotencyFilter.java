@@ -0,0 +1,290 @@
+package com.belvinard.gestionstock.filter;
+
+import com.belvinard.gestionstock.dto.IdempotentResponse;
+import com.belvinard.gestionstock.responses.ErrorResponse;
+import com.belvinard.gestionstock.service.IdempotencyService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Filtre gérant l'en-tête {@code Idempotency-Key} sur les requêtes POST des ventes,
+ * commandes et mouvements de stock.
+ * <p>
+ * Une requête rejouée avec la même clé (et le même contenu) reçoit la réponse mémorisée
+ * sans ré-exécuter la transaction. Une clé réutilisée avec un contenu différent est rejetée
+ * (422), et un renvoi pendant que la requête d'origine est encore en cours, sur cette instance ou
+ * une autre, reçoit un 409 : la clé est réservée en base avant l'exécution.
+ * Le corps étant gardé en mémoire pour l'empreinte, il est limité à {@code maxBodyBytes} (413 au-delà).
+ */
+public class IdempotencyFilter extends OncePerRequestFilter {
+
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private static final Logger logger = LoggerFactory.getLogger(IdempotencyFilter.class);
+    private static final int MAX_KEY_LENGTH = 200;
+
+    private final IdempotencyService idempotencyService;
+    private final ObjectMapper objectMapper;
+    private final List<String> protectedPaths;
+    private final long maxBodyBytes;
+
+    public IdempotencyFilter(IdempotencyService idempotencyService, ObjectMapper objectMapper,
+                             List<String> protectedPaths, long maxBodyBytes) {
+        this.idempotencyService = idempotencyService;
+        this.objectMapper = objectMapper;
+        this.protectedPaths = protectedPaths;
+        this.maxBodyBytes = maxBodyBytes;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        if (!HttpMethod.POST.matches(request.getMethod()) || request.getHeader(IDEMPOTENCY_KEY_HEADER) == null) {
+            return true;
+        }
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return protectedPaths.stream().noneMatch(path::startsWith);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        String clientKey = request.getHeader(IDEMPOTENCY_KEY_HEADER).trim();
+        if (clientKey.isEmpty() || clientKey.length() > MAX_KEY_LENGTH) {
+            writeError(response, HttpStatus.BAD_REQUEST,
+                    "L'en-tête " + IDEMPOTENCY_KEY_HEADER + " doit contenir entre 1 et " + MAX_KEY_LENGTH + " caractères");
+            return;
+        }
+
+        // Taille annoncée vérifiée d'emblée, taille réelle comptée à la lecture (corps envoyé par morceaux)
+        byte[] body = request.getContentLengthLong() > maxBodyBytes ? null : readBody(request.getInputStream());
+        if (body == null) {
+            logger.warn("Corps de requête trop volumineux pour l'idempotence : {}", request.getRequestURI());
+            writeError(response, HttpStatus.PAYLOAD_TOO_LARGE,
+                    "Le corps d'une requête avec " + IDEMPOTENCY_KEY_HEADER + " ne peut dépasser " + maxBodyBytes + " octets");
+            return;
+        }
+
+        // La clé est propre à chaque utilisateur pour éviter toute collision entre clients
+        String key = currentPrincipal() + ":" + clientKey;
+        String fingerprint = fingerprint(request, body);
+
+        var stored = idempotencyService.findResponse(key);
+        if (stored.isPresent()) {
+            replay(stored.get(), fingerprint, response);
+            return;
+        }
+
+        // Réservation de la clé en base : un renvoi arrivé sur une autre instance ne ré-exécute rien
+        var jeton = idempotencyService.acquire(key, fingerprint, request.getMethod(), request.getRequestURI());
+        if (jeton.isEmpty()) {
+            // La requête d'origine a pu se terminer entre-temps
+            stored = idempotencyService.findResponse(key);
+            if (stored.isPresent()) {
+                replay(stored.get(), fingerprint, response);
+            } else {
+                writeError(response, HttpStatus.CONFLICT,
+                        "Une requête avec cette clé d'idempotence est déjà en cours de traitement");
+            }
+            return;
+        }
+
+        boolean enregistree = false;
+        try {
+            ContentCachingResponseWrapper responseWrapper = new ContentCachingResponseWrapper(response);
+            filterChain.doFilter(new CachedBodyRequest(request, body), responseWrapper);
+
+            int status = responseWrapper.getStatus();
+            if (isReplayable(status)) {
+                idempotencyService.saveResponse(key, jeton.get(), new IdempotentResponse(fingerprint, status,
+                        responseWrapper.getContentType(), responseWrapper.getContentAsByteArray()));
+                enregistree = true;
+            }
+            responseWrapper.copyBodyToResponse();
+        } finally {
+            // Sans réponse mémorisée, la clé est rendue pour que le client puisse réessayer réellement
+            if (!enregistree) {
+                idempotencyService.release(key, jeton.get());
+            }
+        }
+    }
+
+    /**
+     * Corps complet en mémoire, ou {@code null} dès que {@code maxBodyBytes} est dépassé : la lecture
+     * s'arrête alors sans charger le reste.
+     */
+    private byte[] readBody(InputStream input) throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        long total = 0;
+        int read;
+        while ((read = input.read(buffer)) != -1) {
+            total += read;
+            if (total > maxBodyBytes) {
+                return null;
+            }
+            body.write(buffer, 0, read);
+        }
+        return body.toByteArray();
+    }
+
+    /**
+     * Les erreurs serveur et les conflits transitoires ne sont pas mémorisés afin que le client
+     * puisse réessayer réellement.
+     */
+    private boolean isReplayable(int status) {
+        return status >= 200 && status < 500
+                && status != HttpStatus.CONFLICT.value()
+                && status != HttpStatus.REQUEST_TIMEOUT.value()
+                && status != HttpStatus.TOO_MANY_REQUESTS.value();
+    }
+
+    private void replay(IdempotentResponse stored, String fingerprint, HttpServletResponse response) throws IOException {
+        if (!stored.getRequestFingerprint().equals(fingerprint)) {
+            writeError(response, HttpStatus.UNPROCESSABLE_ENTITY,
+                    "La clé d'idempotence a déjà été utilisée pour une requête différente");
+            return;
+        }
+
+        response.setStatus(stored.getStatus());
+        response.setHeader(REPLAYED_HEADER, "true");
+        if (stored.getContentType() != null) {
+            response.setContentType(stored.getContentType());
+        }
+        byte[] body = stored.getBody() != null ? stored.getBody() : new byte[0];
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+    }
+
+    private void writeError(HttpServletResponse response, HttpStatus status, String message) throws IOException {
+        response.setStatus(status.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        objectMapper.writeValue(response.getOutputStream(), new ErrorResponse(
+                LocalDateTime.now(),
+                status.value(),
+                status.getReasonPhrase(),
+                Map.of("error", message)));
+    }
+
+    private String currentPrincipal() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null ? authentication.getName() : "anonymous";
+    }
+
+    private String fingerprint(HttpServletRequest request, byte[] body) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(request.getMethod().getBytes(StandardCharsets.UTF_8));
+            digest.update(request.getRequestURI().getBytes(StandardCharsets.UTF_8));
+            if (request.getQueryString() != null) {
+                digest.update(request.getQueryString().getBytes(StandardCharsets.UTF_8));
+            }
+            digest.update(body);
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponible", e);
+        }
+    }
+
+    /**
+     * Requête dont le corps, déjà lu pour calculer l'empreinte, peut être relu par les contrôleurs.
+     */
+    private static class CachedBodyRequest extends HttpServletRequestWrapper {
+
+        private final byte[] body;
+
+        CachedBodyRequest(HttpServletRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream source = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public boolean isFinished() {
+                    return source.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                // Lecture non bloquante : tout le corps est déjà en mémoire, donc immédiatement disponible
+                @Override
+                public void setReadListener(ReadListener readListener) {
+                    try {
+                        if (!isFinished()) {
+                            readListener.onDataAvailable();
+                        }
+                        if (isFinished()) {
+                            readListener.onAllDataRead();
+                        }
+                    } catch (IOException e) {
+                        readListener.onError(e);
+                    }
+                }
+
+                @Override
+                public int read() {
+                    return source.read();
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    return source.read(b, off, len);
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            String encoding = getCharacterEncoding() != null ? getCharacterEncoding() : StandardCharsets.UTF_8.name();
+            return new BufferedReader(new InputStreamReader(getInputStream(), Charset.forName(encoding)));
+        }
+
+        @Override
+        public int getContentLength() {
+            return body.length;
+        }
+
+        @Override
+        public long getContentLengthLong() {
+            return body.length;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.belvinard.gestionstock.images;
+
+/**
+ * Déclinaisons d'une image téléversée, de la plus grande à la plus petite.
+ * <p>
+ * Chaque déclinaison est rangée sous une clé déduite du nom de l'original
+ * ({@code variants/<original sans extension>/<nom>.jpg}) : son URL se calcule sans lecture en
+ * base ni dans le stockage.
+ */
+public enum ImageVariant {
+
+    FULL("full", 1600),
+    MEDIUM("medium", 640),
+    THUMB("thumb", 160);
+
+    public static final String PREFIXE = "variants/";
+    public static final String CONTENT_TYPE = "image/jpeg";
+
+    private final String nom;
+    private final int cotePixels;
+
+    ImageVariant(String nom, int cotePixels) {
+        this.nom = nom;
+        this.cotePixels = cotePixels;
+    }
+
+    public String nom() {
+        return nom;
+    }
+
+    // Plus grand côté de la déclinaison ; une image plus petite n'est jamais agrandie
+    public int cotePixels() {
+        return cotePixels;
+    }
+
+    public String cle(String objetOriginal) {
+        int point = objetOriginal.lastIndexOf('.');
+        String base = point > 0 ? objetOriginal.substring(0, point) : objetOriginal;
+        return PREFIXE + base + "/" + nom + ".jpg";
+    }
+}
@@ -0,0 +1,31 @@
+package com.belvinard.gestionstock.jobs;
+
+import com.belvinard.gestionstock.service.ContentStoreService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Supprime périodiquement, par lots, les contenus stockés qui ne sont plus référencés.
+ */
+@Component
+public class ContentGarbageCollectorJob {
+
+    private final ContentStoreService contentStoreService;
+    private final int batchSize;
+    private final int maxBatches;
+
+    public ContentGarbageCollectorJob(ContentStoreService contentStoreService,
+                                      @Value("${storage.content.gc-batch-size:100}") int batchSize,
+                                      @Value("${storage.content.gc-max-batches:20}") int maxBatches) {
+        this.contentStoreService = contentStoreService;
+        this.batchSize = batchSize;
+        this.maxBatches = maxBatches;
+    }
+
+    @Scheduled(fixedDelayString = "${storage.content.gc-interval-ms:3600000}",
+            initialDelayString = "${storage.content.gc-interval-ms:3600000}")
+    public void collectGarbage() {
+        contentStoreService.collectGarbage(batchSize, maxBatches);
+    }
+}
@@ -0,0 +1,22 @@
+package com.belvinard.gestionstock.jobs;
+
+import com.belvinard.gestionstock.service.IdempotencyService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Purge périodique des réponses idempotentes au-delà de la durée de rétention.
+ */
+@Component
+@RequiredArgsConstructor
+public class IdempotencyPurgeJob {
+
+    private final IdempotencyService idempotencyService;
+
+    @Scheduled(fixedDelayString = "${idempotency.purge-interval-ms:3600000}",
+            initialDelayString = "${idempotency.purge-interval-ms:3600000}")
+    public void purgeExpiredRecords() {
+        idempotencyService.purgeExpired();
+    }
+}
@@ -0,0 +1,46 @@
+package com.belvinard.gestionstock.jobs;
+
+import com.belvinard.gestionstock.service.ReservationStockService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Libère périodiquement les réservations de stock expirées, par lots.
+ * <p>
+ * Chaque lot est traité dans sa propre transaction et sélectionné avec {@code SKIP LOCKED} :
+ * plusieurs instances de l'application peuvent balayer en parallèle sans se bloquer.
+ */
+@Slf4j
+@Component
+public class ReservationExpirySweeper {
+
+    private final ReservationStockService reservationStockService;
+    private final int batchSize;
+    private final int maxBatches;
+
+    public ReservationExpirySweeper(ReservationStockService reservationStockService,
+                                    @Value("${stock.reservation.sweep-batch-size:500}") int batchSize,
+                                    @Value("${stock.reservation.sweep-max-batches:20}") int maxBatches) {
+        this.reservationStockService = reservationStockService;
+        this.batchSize = batchSize;
+        this.maxBatches = maxBatches;
+    }
+
+    @Scheduled(fixedDelayString = "${stock.reservation.sweep-interval-ms:60000}")
+    public void releaseExpiredReservations() {
+        int batches = 0;
+        int released;
+        do {
+            try {
+                released = reservationStockService.libererReservationsExpirees(batchSize);
+            } catch (RuntimeException e) {
+                // Conflit avec une finalisation concurrente : le lot sera repris au prochain passage
+                log.warn("Échec de libération d'un lot de réservations expirées : {}", e.getMessage());
+                return;
+            }
+            batches++;
+        } while (released == batchSize && batches < maxBatches);
+    }
+}
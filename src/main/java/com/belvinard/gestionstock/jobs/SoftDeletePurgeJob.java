@@ -0,0 +1,31 @@
+package com.belvinard.gestionstock.jobs;
+
+import com.belvinard.gestionstock.service.SoftDeletePurgeService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Archive périodiquement, par lots, les lignes supprimées logiquement au-delà de la rétention.
+ */
+@Component
+public class SoftDeletePurgeJob {
+
+    private final SoftDeletePurgeService softDeletePurgeService;
+    private final int batchSize;
+    private final int maxBatches;
+
+    public SoftDeletePurgeJob(SoftDeletePurgeService softDeletePurgeService,
+                              @Value("${stock.soft-delete.purge-batch-size:500}") int batchSize,
+                              @Value("${stock.soft-delete.purge-max-batches:20}") int maxBatches) {
+        this.softDeletePurgeService = softDeletePurgeService;
+        this.batchSize = batchSize;
+        this.maxBatches = maxBatches;
+    }
+
+    @Scheduled(fixedDelayString = "${stock.soft-delete.purge-interval-ms:3600000}",
+            initialDelayString = "${stock.soft-delete.purge-interval-ms:3600000}")
+    public void archiveExpired() {
+        softDeletePurgeService.archiveExpired(batchSize, maxBatches);
+    }
+}
@@ -10,8 +10,12 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.SQLDelete;
+import org.hibernate.annotations.SQLRestriction;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Data
@@ -20,6 +24,10 @@ import java.util.List;
 @Entity
 @EqualsAndHashCode(callSuper = true)
 @Table(name = "article")
+// Suppression logique : la ligne reste référencée par l'historique (mouvements, ventes, commandes)
+@SQLDelete(sql = "UPDATE article SET deleted_at = LOCALTIMESTAMP, last_modified_date = LOCALTIMESTAMP, "
+        + "version = version + 1 WHERE id = ? AND version = ?")
+@SQLRestriction("deleted_at IS NULL")
 public class Article extends AbstractEntity {
 
   @NotBlank(message = "Le code article est obligatoire")
@@ -74,5 +82,14 @@ public class Article extends AbstractEntity {
   @OneToMany(mappedBy = "article")
   private List<LigneCommandeFournisseur> ligneCommandeFournisseurs;
 
+  // Verrouillage optimiste : deux mises à jour concurrentes du stock ne peuvent plus s'écraser
+  @Version
+  @ColumnDefault("0")
+  @Column(name = "version", nullable = false)
+  private Long version;
+
+  // Renseignée uniquement par la suppression logique (@SQLDelete)
+  @Column(name = "deleted_at", insertable = false, updatable = false)
+  private LocalDateTime deletedAt;
 
 }
@@ -8,7 +8,11 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
+import org.hibernate.annotations.SQLDelete;
+import org.hibernate.annotations.SQLRestriction;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Data
@@ -17,6 +21,8 @@ import java.util.List;
 @Entity
 @EqualsAndHashCode(callSuper = true)
 @Table(name = "categories")
+@SQLDelete(sql = "UPDATE categories SET deleted_at = LOCALTIMESTAMP, last_modified_date = LOCALTIMESTAMP WHERE id = ?")
+@SQLRestriction("deleted_at IS NULL")
 public class Category extends AbstractEntity {
 
     @NotBlank(message = "La désignation de la catégorie est obligatoire")
@@ -36,6 +42,20 @@ public class Category extends AbstractEntity {
     @JoinColumn(name = "entrepriseiId")
     private Entreprise entreprise;
 
+    // Catégorie parente, null pour une catégorie racine
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "parent_id")
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private Category parent;
+
+    // Chemin matérialisé des identifiants depuis la racine ("/3/12/40/") : un sous-arbre est un préfixe
+    @Column(name = "chemin", length = 1000)
+    private String chemin;
+
     @OneToMany(mappedBy = "category")
     private List<Article> articles;
+
+    @Column(name = "deleted_at", insertable = false, updatable = false)
+    private LocalDateTime deletedAt;
 }
\ No newline at end of file
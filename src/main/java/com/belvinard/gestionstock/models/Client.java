@@ -9,7 +9,10 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.SQLDelete;
+import org.hibernate.annotations.SQLRestriction;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Data
@@ -18,6 +21,8 @@ import java.util.List;
 @Entity
 @EqualsAndHashCode(callSuper = true)
 @Table(name = "client")
+@SQLDelete(sql = "UPDATE client SET deleted_at = LOCALTIMESTAMP, last_modified_date = LOCALTIMESTAMP WHERE id = ?")
+@SQLRestriction("deleted_at IS NULL")
 public class Client extends AbstractEntity {
 
   @NotBlank(message = "Le nom du client est obligatoire")
@@ -55,4 +60,7 @@ public class Client extends AbstractEntity {
   @OneToMany(mappedBy = "client")
   private List<CommandeClient> commandeClients;
 
+  @Column(name = "deleted_at", insertable = false, updatable = false)
+  private LocalDateTime deletedAt;
+
 }
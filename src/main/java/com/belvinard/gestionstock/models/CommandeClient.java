@@ -7,6 +7,7 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.time.LocalDate;
 import java.util.List;
@@ -46,4 +47,9 @@ public class CommandeClient extends AbstractEntity {
   @OneToMany(mappedBy = "commandeClient")
   private List<LigneCommandeClient> ligneCommandeClients;
 
+  @Version
+  @ColumnDefault("0")
+  @Column(name = "version", nullable = false)
+  private Long version;
+
 }
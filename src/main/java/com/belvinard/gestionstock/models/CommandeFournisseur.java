@@ -8,6 +8,7 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.time.LocalDateTime;
 
@@ -33,5 +34,9 @@ public class CommandeFournisseur extends AbstractEntity {
   @JoinColumn(name = "fournisseur_id")
   private Fournisseur fournisseur;
 
+  @Version
+  @ColumnDefault("0")
+  @Column(name = "version", nullable = false)
+  private Long version;
 
 }
\ No newline at end of file
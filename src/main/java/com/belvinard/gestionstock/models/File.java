@@ -3,6 +3,8 @@ package com.belvinard.gestionstock.models;
 import jakarta.persistence.*;
 import lombok.*;
 
+import java.time.LocalDateTime;
+
 @Entity
 @Data
 @NoArgsConstructor
@@ -21,4 +23,20 @@ public class File {
     private String contentType;
 
     private Long size;
+
+    // SHA-256 du contenu calculé pendant l'envoi (absent pour les fichiers antérieurs)
+    @Column(length = 64, unique = true)
+    private String checksumSha256;
+
+    // Nombre de références au contenu (articles, entreprises, téléversements) ; null hors stockage adressé par contenu
+    private Integer referenceCount;
+
+    // Passage à zéro référence : point de départ du délai avant suppression du contenu
+    private LocalDateTime releasedAt;
+
+    // Suppression du contenu engagée par le ramasse-miettes ; la ligne disparaît une fois l'objet supprimé
+    private LocalDateTime purgeStartedAt;
+
+    // Fin de la génération des déclinaisons (image) ; null tant que seul l'original est servi
+    private LocalDateTime variantsGeneratedAt;
 }
\ No newline at end of file
@@ -8,8 +8,11 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.SQLDelete;
+import org.hibernate.annotations.SQLRestriction;
 import org.hibernate.validator.constraints.Email;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 
@@ -19,6 +22,8 @@ import java.util.List;
 @EqualsAndHashCode(callSuper = true)
 @Entity
 @Table(name = "fournisseur")
+@SQLDelete(sql = "UPDATE fournisseur SET deleted_at = LOCALTIMESTAMP, last_modified_date = LOCALTIMESTAMP WHERE id = ?")
+@SQLRestriction("deleted_at IS NULL")
 public class Fournisseur extends AbstractEntity {
 
   @NotBlank(message = "Le nom du client est obligatoire")
@@ -57,5 +62,8 @@ public class Fournisseur extends AbstractEntity {
   @OneToMany(mappedBy = "fournisseur")
   private List<CommandeFournisseur> commandeFournisseurs;
 
+  @Column(name = "deleted_at", insertable = false, updatable = false)
+  private LocalDateTime deletedAt;
+
 
 }
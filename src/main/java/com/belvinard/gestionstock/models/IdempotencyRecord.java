@@ -0,0 +1,55 @@
+package com.belvinard.gestionstock.models;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+
+/**
+ * Réponse mémorisée pour une requête POST portant un en-tête {@code Idempotency-Key}.
+ * Permet de rejouer la réponse d'origine lorsqu'un client renvoie la même requête.
+ * <p>
+ * La ligne est insérée {@link StatutIdempotence#EN_COURS EN_COURS} avant le traitement : la contrainte
+ * d'unicité sur la clé réserve la requête pour toutes les instances, la réponse est complétée ensuite.
+ * Le jeton de réservation désigne le traitement qui la détient : une réservation reprise après le
+ * délai d'attente ne peut plus être libérée ni complétée par le traitement d'origine.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode(callSuper = true)
+@Entity
+@Table(name = "idempotency_record", indexes = {
+        @Index(name = "idx_idempotency_record_creation_date", columnList = "creationDate")
+})
+public class IdempotencyRecord extends AbstractEntity {
+
+    @Column(name = "idempotency_key", nullable = false, unique = true, length = 255)
+    private String idempotencyKey;
+
+    @Column(name = "request_fingerprint", nullable = false, length = 64)
+    private String requestFingerprint;
+
+    @Column(name = "http_method", nullable = false, length = 10)
+    private String httpMethod;
+
+    @Column(name = "request_path", nullable = false, length = 512)
+    private String requestPath;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "statut", nullable = false, length = 20)
+    private StatutIdempotence statut;
+
+    @Column(name = "claim_token", length = 36)
+    private String claimToken;
+
+    @Column(name = "response_status")
+    private Integer responseStatus;
+
+    @Column(name = "content_type", length = 255)
+    private String contentType;
+
+    @Column(name = "response_body")
+    private byte[] responseBody;
+}
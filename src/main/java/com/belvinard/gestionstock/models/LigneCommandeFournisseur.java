@@ -1,5 +1,6 @@
 package com.belvinard.gestionstock.models;
 
+import com.belvinard.gestionstock.pricing.PrixCalculator;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.NotNull;
@@ -52,7 +53,7 @@ public class LigneCommandeFournisseur extends AbstractEntity {
     @PreUpdate
     public void calculerPrixTtc() {
         if (prixUnitaireHt != null && tauxTva != null) {
-            this.prixUnitaireTtc = prixUnitaireHt.add(prixUnitaireHt.multiply(tauxTva).divide(BigDecimal.valueOf(100)));
+            this.prixUnitaireTtc = PrixCalculator.prixTtc(prixUnitaireHt, tauxTva);
         }
     }
 
@@ -0,0 +1,56 @@
+package com.belvinard.gestionstock.models;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
+
+import java.time.LocalDateTime;
+
+/**
+ * Réservation de stock limitée dans le temps. Tant qu'elle est ACTIVE, sa quantité est
+ * comptée dans {@link Article#getQuantiteReservee()} ; à expiration, le balayeur la libère.
+ */
+@Data
+@NoArgsConstructor
+@Entity
+@EqualsAndHashCode(callSuper = true)
+@Table(name = "reservation_stock", indexes = {
+        @Index(name = "idx_reservation_stock_statut_expiration", columnList = "statut, expires_at"),
+        @Index(name = "idx_reservation_stock_vente", columnList = "idvente"),
+        @Index(name = "idx_reservation_stock_article", columnList = "idarticle")
+})
+public class ReservationStock extends AbstractEntity {
+
+  @NotNull(message = "L'article est obligatoire")
+  @ManyToOne(fetch = FetchType.LAZY)
+  @JoinColumn(name = "idarticle", nullable = false)
+  private Article article;
+
+  @ManyToOne(fetch = FetchType.LAZY)
+  @JoinColumn(name = "idvente")
+  private Vente vente;
+
+  @NotNull(message = "L'entreprise est obligatoire")
+  @Column(name = "identreprise", nullable = false)
+  private Long entrepriseId;
+
+  @Min(value = 1, message = "La quantité réservée doit être positive")
+  @Column(name = "quantite", nullable = false)
+  private Long quantite;
+
+  @Enumerated(EnumType.STRING)
+  @Column(name = "statut", nullable = false, length = 20)
+  private StatutReservation statut = StatutReservation.ACTIVE;
+
+  @Column(name = "expires_at", nullable = false)
+  private LocalDateTime expiresAt;
+
+  @Version
+  @ColumnDefault("0")
+  @Column(name = "version", nullable = false)
+  private Long version;
+}
@@ -0,0 +1,36 @@
+package com.belvinard.gestionstock.models;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Ligne supprimée logiquement puis retirée de sa table après la période de rétention.
+ * Le contenu d'origine est conservé en JSON ; la date d'archivage est la date de création.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode(callSuper = true)
+@Entity
+@Table(name = "soft_delete_archive", indexes = {
+        @Index(name = "idx_soft_delete_archive_table_entity", columnList = "table_name, entity_id")
+})
+public class SoftDeleteArchive extends AbstractEntity {
+
+    @Column(name = "table_name", nullable = false, length = 64)
+    private String tableName;
+
+    @Column(name = "entity_id", nullable = false)
+    private Long entityId;
+
+    @Column(name = "deleted_at", nullable = false)
+    private LocalDateTime deletedAt;
+
+    @Column(name = "payload", nullable = false, columnDefinition = "text")
+    private String payload;
+}
@@ -0,0 +1,6 @@
+package com.belvinard.gestionstock.models;
+
+public enum StatutIdempotence {
+    EN_COURS,
+    TERMINEE
+}
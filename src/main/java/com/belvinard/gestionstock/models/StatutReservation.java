@@ -0,0 +1,8 @@
+package com.belvinard.gestionstock.models;
+
+public enum StatutReservation {
+    ACTIVE,
+    CONSOMMEE,
+    ANNULEE,
+    EXPIREE
+}
@@ -7,6 +7,7 @@ import jakarta.validation.constraints.Size;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -42,4 +43,10 @@ public class Vente extends AbstractEntity {
   @OneToMany(mappedBy = "vente")
   private List<LigneVente> ligneVentes;
 
+  // Verrouillage optimiste (finalisation concurrente d'une même vente)
+  @Version
+  @ColumnDefault("0")
+  @Column(name = "version", nullable = false)
+  private Long version;
+
 }
\ No newline at end of file
@@ -0,0 +1,39 @@
+package com.belvinard.gestionstock.pricing;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Règle unique de calcul des prix : TTC = HT × (1 + TVA / 100), arrondi au centime (demi supérieur).
+ * <p>
+ * Les colonnes de prix sont en {@code numeric(38,2)} : un TTC non arrondi côté Java serait arrondi
+ * par PostgreSQL à l'écriture mais resterait faux dans la réponse renvoyée. La même règle existe en
+ * SQL ({@link #TTC_SQL}) pour les mises à jour ensemblistes ; {@code round()} de PostgreSQL arrondit
+ * lui aussi les demis en s'éloignant de zéro.
+ */
+public final class PrixCalculator {
+
+    public static final int ECHELLE = 2;
+
+    /**
+     * Expression SQL du TTC ; {@code %1$s} et {@code %2$s} sont remplacés par les expressions du HT
+     * et du taux de TVA.
+     */
+    public static final String TTC_SQL = "ROUND((%1$s) * (1 + (%2$s) / 100), " + ECHELLE + ")";
+
+    private static final BigDecimal CENT = BigDecimal.valueOf(100);
+
+    private PrixCalculator() {
+    }
+
+    public static BigDecimal prixTtc(BigDecimal prixHt, BigDecimal tauxTva) {
+        if (prixHt == null || tauxTva == null) {
+            return null;
+        }
+        return arrondir(prixHt.add(prixHt.multiply(tauxTva).divide(CENT)));
+    }
+
+    public static BigDecimal arrondir(BigDecimal montant) {
+        return montant == null ? null : montant.setScale(ECHELLE, RoundingMode.HALF_UP);
+    }
+}
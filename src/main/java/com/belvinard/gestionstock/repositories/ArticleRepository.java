@@ -4,7 +4,15 @@ import com.belvinard.gestionstock.models.Article;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -14,8 +22,94 @@ public interface ArticleRepository extends JpaRepository<Article, Long> {
 
   List<Article> findAllByCategoryId(Long idCategory);
 
+  boolean existsByCategoryId(Long categoryId);
+
   Optional<Article> findByCodeArticleIgnoreCase(String codeArticle);
 
 
   List<Article> findByCodeArticleAndEntrepriseId(String codeArticle, Long entrepriseId);
-}
\ No newline at end of file
+
+  // Recherche par code dans une entreprise ; lower() correspond à l'index unique uk_article_live_entreprise_code_lower
+  @Query("SELECT a FROM Article a JOIN FETCH a.entreprise LEFT JOIN FETCH a.category " +
+          "WHERE a.entreprise.id = :entrepriseId AND lower(a.codeArticle) = :codeNormalise ORDER BY a.id")
+  List<Article> findByEntrepriseIdAndCodeNormalise(@Param("entrepriseId") Long entrepriseId,
+                                                   @Param("codeNormalise") String codeNormalise);
+
+  // Articles affichant cette photo (index idx_article_photo)
+  @Query("SELECT a.id FROM Article a WHERE a.photo = :photo")
+  List<Long> findIdsByPhoto(@Param("photo") String photo);
+
+  // Déclinaisons prêtes : la date avance pour que la version du catalogue (ETag) change
+  @Modifying
+  @Query("UPDATE Article a SET a.lastModifiedDate = local datetime WHERE a.photo = :photo")
+  int touchByPhoto(@Param("photo") String photo);
+
+  // Projection ATP : [id, entrepriseId, quantiteEnStock, quantiteReservee]
+  @Query("SELECT a.id, a.entreprise.id, a.quantiteEnStock, a.quantiteReservee FROM Article a")
+  List<Object[]> findStockProjection();
+
+  @Query("SELECT a.id, a.entreprise.id, a.quantiteEnStock, a.quantiteReservee FROM Article a WHERE a.id IN :ids")
+  List<Object[]> findStockProjection(@Param("ids") Collection<Long> ids);
+
+  // Agrégats par catégorie : [id, categoryId, quantiteEnStock, prixUnitaireHt]
+  @Query("SELECT a.id, a.category.id, a.quantiteEnStock, a.prixUnitaireHt FROM Article a")
+  List<Object[]> findCategoryContributions();
+
+  @Query("SELECT a.id, a.category.id, a.quantiteEnStock, a.prixUnitaireHt FROM Article a WHERE a.id IN :ids")
+  List<Object[]> findCategoryContributions(@Param("ids") Collection<Long> ids);
+
+  // Projection de l'index de suggestions : [id, entrepriseId, codeArticle, designation]
+  @Query("SELECT a.id, a.entreprise.id, a.codeArticle, a.designation FROM Article a")
+  List<Object[]> findSuggestionProjection();
+
+  @Query("SELECT a.id, a.entreprise.id, a.codeArticle, a.designation FROM Article a WHERE a.id IN :ids")
+  List<Object[]> findSuggestionProjection(@Param("ids") Collection<Long> ids);
+
+  /*
+   * Recherche classée dans le catalogue d'une entreprise : [id, score].
+   * L'expression tsvector et les lower()/upper() reprennent à l'identique celles des index
+   * créés par DatabaseIndexInitializer, sans quoi PostgreSQL ne les utiliserait pas.
+   */
+  @Query(value = "SELECT a.id, " +
+          "ts_rank(to_tsvector('simple', coalesce(a.code_article, '') || ' ' || coalesce(a.designation, '')), " +
+          "        to_tsquery('simple', :tsQuery)) * 2 " +
+          "+ similarity(lower(a.designation), :terme) " +
+          "+ CASE WHEN lower(a.code_article) = :terme THEN 10 " +
+          "       WHEN lower(a.code_article) LIKE :prefixe THEN 5 ELSE 0 END AS score " +
+          "FROM article a " +
+          "WHERE a.entreprise_id = :entrepriseId AND a.deleted_at IS NULL AND (" +
+          "  to_tsvector('simple', coalesce(a.code_article, '') || ' ' || coalesce(a.designation, '')) " +
+          "      @@ to_tsquery('simple', :tsQuery) " +
+          "  OR lower(a.designation) % :terme " +
+          "  OR lower(a.code_article) LIKE :prefixe " +
+          "  OR a.idcategory IN (SELECT c.id FROM categories c WHERE c.deleted_at IS NULL " +
+          "                      AND (upper(c.designation) LIKE upper(:contient) OR upper(c.designation) % upper(:terme)))) " +
+          "ORDER BY score DESC, a.id " +
+          "LIMIT :limit OFFSET :offset",
+          nativeQuery = true)
+  List<Object[]> searchRanked(@Param("entrepriseId") Long entrepriseId,
+                              @Param("terme") String terme,
+                              @Param("tsQuery") String tsQuery,
+                              @Param("prefixe") String prefixe,
+                              @Param("contient") String contient,
+                              @Param("limit") int limit,
+                              @Param("offset") long offset);
+
+  @EntityGraph(attributePaths = {"category", "entreprise"})
+  List<Article> findAllByIdIn(Collection<Long> ids);
+
+  // Décrément atomique de la quantité réservée (sans relire l'article), version incrémentée
+  @Modifying
+  @Query("UPDATE Article a SET a.quantiteReservee = CASE WHEN a.quantiteReservee > :quantite " +
+          "THEN a.quantiteReservee - :quantite ELSE 0 END, " +
+          "a.version = a.version + 1, a.lastModifiedDate = local datetime WHERE a.id = :articleId")
+  int decrementQuantiteReservee(@Param("articleId") Long articleId, @Param("quantite") Long quantite);
+
+  // Listes paginées : catégorie et entreprise chargées par jointure (sans N+1)
+  @EntityGraph(attributePaths = {"category", "entreprise"})
+  Page<Article> findAll(Pageable pageable);
+
+  // Même page sans requête COUNT
+  @EntityGraph(attributePaths = {"category", "entreprise"})
+  Slice<Article> findAllBy(Pageable pageable);
+}
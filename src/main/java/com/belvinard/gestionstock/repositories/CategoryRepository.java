@@ -1,7 +1,12 @@
 package com.belvinard.gestionstock.repositories;
 
 import com.belvinard.gestionstock.models.Category;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
@@ -18,11 +23,43 @@ public interface CategoryRepository extends JpaRepository<Category, Long> {
 
     Optional<Category> findByCodeIgnoreCase(String code);
 
-    @Query("SELECT c FROM Category c JOIN FETCH c.entreprise")
-    List<Category> findAllWithEntreprise();
+    // Catégories rattachées à une entreprise, chargée par jointure (sans N+1)
+    @EntityGraph(attributePaths = {"entreprise"})
+    @Query(value = "SELECT c FROM Category c WHERE c.entreprise IS NOT NULL",
+            countQuery = "SELECT COUNT(c) FROM Category c WHERE c.entreprise IS NOT NULL")
+    Page<Category> findAllWithEntreprise(Pageable pageable);
+
+    // Même page sans requête COUNT
+    @EntityGraph(attributePaths = {"entreprise"})
+    @Query("SELECT c FROM Category c WHERE c.entreprise IS NOT NULL")
+    Slice<Category> findSliceWithEntreprise(Pageable pageable);
+
+    // Catégories utilisables par une entreprise (les siennes et les catégories communes) : [id, code, designation]
+    @Query("SELECT c.id, c.code, c.designation FROM Category c LEFT JOIN c.entreprise e " +
+            "WHERE e.id = :entrepriseId OR e IS NULL")
+    List<Object[]> findReferencesForEntreprise(@Param("entrepriseId") Long entrepriseId);
 
 
     @Query("SELECT c FROM Category c JOIN FETCH c.entreprise WHERE c.id = :id")
     Optional<Category> findByIdWithEntreprise(@Param("id") Long id);
 
+    // Structure de l'arbre : [id, entrepriseId, parentId, code, designation]
+    @Query("SELECT c.id, e.id, p.id, c.code, c.designation FROM Category c " +
+            "LEFT JOIN c.entreprise e LEFT JOIN c.parent p")
+    List<Object[]> findTreeProjection();
+
+    boolean existsByParentId(Long parentId);
+
+    // Déplacement d'un sous-arbre : le préfixe de chemin de chaque descendant est remplacé
+    @Modifying
+    @Query("UPDATE Category c SET c.chemin = CONCAT(:nouveauPrefixe, SUBSTRING(c.chemin, LENGTH(:ancienPrefixe) + 1)) " +
+            "WHERE c.chemin LIKE CONCAT(:ancienPrefixe, '%')")
+    int deplacerSousArbre(@Param("ancienPrefixe") String ancienPrefixe, @Param("nouveauPrefixe") String nouveauPrefixe);
+
+    // Catégories antérieures à l'arborescence : racines dont le chemin n'a jamais été calculé
+    @Modifying
+    @Query("UPDATE Category c SET c.chemin = CONCAT('/', CAST(c.id AS String), '/') " +
+            "WHERE c.chemin IS NULL AND c.parent IS NULL")
+    int initialiserCheminsRacines();
+
 }
@@ -2,6 +2,10 @@ package com.belvinard.gestionstock.repositories;
 
 import com.belvinard.gestionstock.models.Client;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 
 import java.util.List;
 import java.util.Optional;
@@ -12,4 +16,12 @@ public interface ClientRepository extends JpaRepository<Client, Long> {
 
 
     List<Client> findByEntrepriseId(Long entrepriseId);
+
+    // Listes paginées : entreprise chargée par jointure (sans N+1)
+    @EntityGraph(attributePaths = {"entreprise"})
+    Page<Client> findAll(Pageable pageable);
+
+    // Même page sans requête COUNT
+    @EntityGraph(attributePaths = {"entreprise"})
+    Slice<Client> findAllBy(Pageable pageable);
 }
@@ -2,6 +2,10 @@ package com.belvinard.gestionstock.repositories;
 
 import com.belvinard.gestionstock.models.CommandeClient;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 
 import java.util.List;
 import java.util.Optional;
@@ -12,5 +16,15 @@ public interface CommandeClientRepository extends JpaRepository<CommandeClient,
 
   List<CommandeClient> findAllByClientId(Long id);
 
+  boolean existsByClientId(Long clientId);
+
   Optional<CommandeClient> findByCode(String code);
+
+  // Listes paginées : client et entreprise chargés par jointure (sans N+1)
+  @EntityGraph(attributePaths = {"client", "entreprise"})
+  Page<CommandeClient> findAll(Pageable pageable);
+
+  // Même page sans requête COUNT
+  @EntityGraph(attributePaths = {"client", "entreprise"})
+  Slice<CommandeClient> findAllBy(Pageable pageable);
 }
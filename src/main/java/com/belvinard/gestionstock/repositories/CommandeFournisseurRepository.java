@@ -3,6 +3,10 @@ package com.belvinard.gestionstock.repositories;
 
 import com.belvinard.gestionstock.models.CommandeFournisseur;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 
 import java.util.List;
 import java.util.Optional;
@@ -13,7 +17,17 @@ public interface CommandeFournisseurRepository extends JpaRepository<CommandeFou
 
     List<CommandeFournisseur> findAllByFournisseurId(Long fournisseurId);
 
+    boolean existsByFournisseurId(Long fournisseurId);
+
     boolean existsByCode(String code);
 
     Optional<CommandeFournisseur> findByCodeIgnoreCase(String code);
+
+    // Listes paginées : fournisseur chargé par jointure (sans N+1)
+    @EntityGraph(attributePaths = {"fournisseur"})
+    Page<CommandeFournisseur> findAll(Pageable pageable);
+
+    // Même page sans requête COUNT
+    @EntityGraph(attributePaths = {"fournisseur"})
+    Slice<CommandeFournisseur> findAllBy(Pageable pageable);
 }
@@ -2,9 +2,14 @@ package com.belvinard.gestionstock.repositories;
 
 import com.belvinard.gestionstock.models.Entreprise;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 
 public interface EntrepriseRepository extends JpaRepository<Entreprise, Long> {
     Entreprise findByNom(String nom);
 
     boolean existsByNom(String defaultCompany);
-}
\ No newline at end of file
+
+    // Liste paginée sans requête COUNT (findAll(Pageable) pour la version avec total)
+    Slice<Entreprise> findAllBy(Pageable pageable);
+}
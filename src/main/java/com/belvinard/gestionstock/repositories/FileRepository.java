@@ -2,7 +2,37 @@ package com.belvinard.gestionstock.repositories;
 
 import com.belvinard.gestionstock.models.File;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 
 public interface FileRepository extends JpaRepository<File, Long> {
     File findByFileName(String fileName);
-}
\ No newline at end of file
+
+    // Appelé depuis le pool de génération des déclinaisons, dans la transaction qui date les articles
+    @Modifying
+    @Transactional
+    @Query("UPDATE File f SET f.variantsGeneratedAt = :date WHERE f.fileName = :fileName")
+    int markVariantsGenerated(@Param("fileName") String fileName, @Param("date") LocalDateTime date);
+
+    // Parmi ces originaux, ceux dont les déclinaisons sont prêtes
+    @Query("SELECT f.fileName FROM File f WHERE f.fileName IN :fileNames AND f.variantsGeneratedAt IS NOT NULL")
+    List<String> findFileNamesWithVariants(@Param("fileNames") Collection<String> fileNames);
+
+    /**
+     * Page de fichiers par nom, après {@code apres} ; ordre octet par octet (collation "C"), celui
+     * du stockage, servi par l'index idx_file_file_name_c de DatabaseIndexInitializer.
+     */
+    @Query(value = "SELECT * FROM file f " +
+            "WHERE f.file_name COLLATE \"C\" LIKE :prefixe AND f.file_name COLLATE \"C\" > :apres " +
+            "ORDER BY f.file_name COLLATE \"C\" LIMIT :limite",
+            nativeQuery = true)
+    List<File> findPageByName(@Param("prefixe") String prefixe,
+                              @Param("apres") String apres,
+                              @Param("limite") int limite);
+}
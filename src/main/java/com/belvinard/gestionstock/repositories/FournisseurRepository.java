@@ -4,6 +4,10 @@ import com.belvinard.gestionstock.models.Fournisseur;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 
 public interface FournisseurRepository extends JpaRepository<Fournisseur, Long> {
 
@@ -16,5 +20,11 @@ public interface FournisseurRepository extends JpaRepository<Fournisseur, Long>
             Long fournisseurId
     );
 
+    // Listes paginées : entreprise chargée par jointure (sans N+1)
+    @EntityGraph(attributePaths = {"entreprise"})
+    Page<Fournisseur> findAll(Pageable pageable);
 
+    // Même page sans requête COUNT
+    @EntityGraph(attributePaths = {"entreprise"})
+    Slice<Fournisseur> findAllBy(Pageable pageable);
 }
@@ -0,0 +1,64 @@
+package com.belvinard.gestionstock.repositories;
+
+import com.belvinard.gestionstock.models.IdempotencyRecord;
+import com.belvinard.gestionstock.models.StatutIdempotence;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, Long> {
+
+    Optional<IdempotencyRecord> findByIdempotencyKeyAndStatut(String idempotencyKey, StatutIdempotence statut);
+
+    /**
+     * Réserve la clé pour toutes les instances : 0 si une ligne (en cours ou terminée) existe déjà.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO idempotency_record (idempotency_key, request_fingerprint, http_method, request_path, "
+            + "statut, claim_token, creation_date, last_modified_date) "
+            + "VALUES (:key, :fingerprint, :method, :path, 'EN_COURS', :token, :maintenant, :maintenant) "
+            + "ON CONFLICT (idempotency_key) DO NOTHING", nativeQuery = true)
+    int insertEnCours(@Param("key") String key, @Param("fingerprint") String fingerprint,
+                      @Param("method") String method, @Param("path") String path,
+                      @Param("token") String token, @Param("maintenant") LocalDateTime maintenant);
+
+    // Les deux mises à jour suivantes ne touchent que la réservation détenue par ce jeton
+
+    @Modifying
+    @Query("UPDATE IdempotencyRecord r SET r.statut = com.belvinard.gestionstock.models.StatutIdempotence.TERMINEE, "
+            + "r.responseStatus = :status, r.contentType = :contentType, r.responseBody = :body, "
+            + "r.lastModifiedDate = :maintenant "
+            + "WHERE r.idempotencyKey = :key AND r.statut = com.belvinard.gestionstock.models.StatutIdempotence.EN_COURS "
+            + "AND r.claimToken = :token")
+    int terminer(@Param("key") String key, @Param("token") String token, @Param("status") Integer status,
+                 @Param("contentType") String contentType, @Param("body") byte[] body,
+                 @Param("maintenant") LocalDateTime maintenant);
+
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.idempotencyKey = :key "
+            + "AND r.statut = com.belvinard.gestionstock.models.StatutIdempotence.EN_COURS "
+            + "AND r.claimToken = :token")
+    int deleteEnCours(@Param("key") String key, @Param("token") String token);
+
+    // Libère une clé restée en cours depuis avant la limite
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.idempotencyKey = :key "
+            + "AND r.statut = com.belvinard.gestionstock.models.StatutIdempotence.EN_COURS "
+            + "AND r.creationDate < :limite")
+    int deleteEnCoursCreatedBefore(@Param("key") String key, @Param("limite") LocalDateTime limite);
+
+    // Libère une clé dont la réponse a dépassé la rétention mais attend encore la purge
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.idempotencyKey = :key "
+            + "AND r.statut = com.belvinard.gestionstock.models.StatutIdempotence.TERMINEE "
+            + "AND r.creationDate < :limite")
+    int deleteTermineeCreatedBefore(@Param("key") String key, @Param("limite") LocalDateTime limite);
+
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.creationDate < :limite")
+    int deleteAllCreatedBefore(@Param("limite") LocalDateTime limite);
+}
@@ -2,7 +2,10 @@ package com.belvinard.gestionstock.repositories;
 
 import com.belvinard.gestionstock.models.LigneCommandeClient;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface LigneCommandeClientRepository extends JpaRepository<LigneCommandeClient, Long> {
@@ -11,4 +14,20 @@ public interface LigneCommandeClientRepository extends JpaRepository<LigneComman
   List<LigneCommandeClient> findAllByCommandeClientId(Long id);
 
   List<LigneCommandeClient> findAllByArticleId(Long id);
+
+  boolean existsByArticleId(Long articleId);
+
+  @Query("SELECT DISTINCT l.article.id FROM LigneCommandeClient l WHERE l.commandeClient.id = :commandeId")
+  List<Long> findArticleIdsByCommandeClientId(@Param("commandeId") Long commandeId);
+
+  // Quantités engagées (commandes validées, pas encore livrées) : [articleId, somme]
+  @Query("SELECT l.article.id, SUM(l.quantite) FROM LigneCommandeClient l " +
+          "WHERE l.commandeClient.etatCommande = com.belvinard.gestionstock.models.EtatCommande.VALIDEE " +
+          "GROUP BY l.article.id")
+  List<Object[]> sumQuantiteEngageeParArticle();
+
+  @Query("SELECT l.article.id, SUM(l.quantite) FROM LigneCommandeClient l " +
+          "WHERE l.commandeClient.etatCommande = com.belvinard.gestionstock.models.EtatCommande.VALIDEE " +
+          "AND l.article.id IN :ids GROUP BY l.article.id")
+  List<Object[]> sumQuantiteEngageeParArticle(@Param("ids") Collection<Long> ids);
 }
@@ -5,8 +5,13 @@ import com.belvinard.gestionstock.models.LigneCommandeFournisseur;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 
 import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 
 public interface LigneCommandeFournisseurRepository extends JpaRepository<LigneCommandeFournisseur, Long> {
@@ -16,8 +21,35 @@ public interface LigneCommandeFournisseurRepository extends JpaRepository<LigneC
     List<LigneCommandeFournisseur> findAllByCommandeFournisseurIdAndEtatLigne(Long commandeFournisseurId, com.belvinard.gestionstock.models.EtatLigneCommandeFournisseur etatLigne);
 
     List<LigneCommandeFournisseur> findByArticleId(Long articleId);
+
+    boolean existsByArticleId(Long articleId);
     
     @Query("SELECT COALESCE(SUM(l.prixUnitaireTtc * l.quantite), 0) FROM LigneCommandeFournisseur l WHERE l.commandeFournisseur.id = :commandeFournisseurId")
     BigDecimal getTotalByCommandeFournisseurId(@Param("commandeFournisseurId") Long commandeFournisseurId);
-}
 
+    @Query("SELECT DISTINCT l.article.id FROM LigneCommandeFournisseur l WHERE l.commandeFournisseur.id = :commandeId")
+    List<Long> findArticleIdsByCommandeFournisseurId(@Param("commandeId") Long commandeId);
+
+    // Quantités attendues (lignes validées des commandes ni livrées ni annulées) : [articleId, somme]
+    @Query("SELECT l.article.id, SUM(l.quantite) FROM LigneCommandeFournisseur l " +
+            "WHERE l.etatLigne = com.belvinard.gestionstock.models.EtatLigneCommandeFournisseur.VALIDEE " +
+            "AND l.commandeFournisseur.etatCommande NOT IN (com.belvinard.gestionstock.models.EtatCommande.LIVREE, " +
+            "com.belvinard.gestionstock.models.EtatCommande.ANNULEE) " +
+            "GROUP BY l.article.id")
+    List<Object[]> sumQuantiteEntranteParArticle();
+
+    @Query("SELECT l.article.id, SUM(l.quantite) FROM LigneCommandeFournisseur l " +
+            "WHERE l.etatLigne = com.belvinard.gestionstock.models.EtatLigneCommandeFournisseur.VALIDEE " +
+            "AND l.commandeFournisseur.etatCommande NOT IN (com.belvinard.gestionstock.models.EtatCommande.LIVREE, " +
+            "com.belvinard.gestionstock.models.EtatCommande.ANNULEE) " +
+            "AND l.article.id IN :ids GROUP BY l.article.id")
+    List<Object[]> sumQuantiteEntranteParArticle(@Param("ids") Collection<Long> ids);
+
+    // Listes paginées : commande et article chargés par jointure (sans N+1)
+    @EntityGraph(attributePaths = {"commandeFournisseur", "article"})
+    Page<LigneCommandeFournisseur> findAll(Pageable pageable);
+
+    // Même page sans requête COUNT
+    @EntityGraph(attributePaths = {"commandeFournisseur", "article"})
+    Slice<LigneCommandeFournisseur> findAllBy(Pageable pageable);
+}
@@ -2,12 +2,25 @@ package com.belvinard.gestionstock.repositories;
 
 import com.belvinard.gestionstock.models.LigneVente;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
 import java.util.List;
+import java.util.Optional;
 
 public interface LigneVenteRepository extends JpaRepository<LigneVente, Long> {
     List<LigneVente> findAllByVenteId(Long venteId);
 
     List<LigneVente> findAllByArticleId(Long articleId);
 
+    boolean existsByArticleId(Long articleId);
+
     void deleteAllByVenteId(Long venteId);
+
+    // Identifiants d'articles sans charger les entités (verrouillage avant lecture)
+    @Query("SELECT DISTINCT l.article.id FROM LigneVente l WHERE l.vente.id = :venteId")
+    List<Long> findArticleIdsByVenteId(@Param("venteId") Long venteId);
+
+    @Query("SELECT l.article.id FROM LigneVente l WHERE l.id = :id")
+    Optional<Long> findArticleIdById(@Param("id") Long id);
 }
\ No newline at end of file
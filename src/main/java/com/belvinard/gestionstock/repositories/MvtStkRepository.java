@@ -10,6 +10,7 @@ import java.util.List;
 
 public interface MvtStkRepository extends JpaRepository<MvtStk, Long> {
     List<MvtStk> findAllByArticleIdOrderByDateMvtDesc(Long articleId);
+    boolean existsByArticleId(Long articleId);
     List<MvtStk> findAllByEntrepriseId(Long entrepriseId);
     List<MvtStk> findByTypeMvt(TypeMvtStk typeMvt);
     List<MvtStk> findBySourceMvt(SourceMvtStk sourceMvt);
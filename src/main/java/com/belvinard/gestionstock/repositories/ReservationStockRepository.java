@@ -0,0 +1,46 @@
+package com.belvinard.gestionstock.repositories;
+
+import com.belvinard.gestionstock.models.ReservationStock;
+import com.belvinard.gestionstock.models.StatutReservation;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface ReservationStockRepository extends JpaRepository<ReservationStock, Long> {
+
+    boolean existsByArticleId(Long articleId);
+
+    /**
+     * File de travail du balayeur : verrouille un lot de réservations expirées en ignorant celles
+     * déjà prises par un autre nœud (ou par une finalisation en cours).
+     */
+    @Query(value = "SELECT id FROM reservation_stock " +
+            "WHERE statut = 'ACTIVE' AND expires_at < :now " +
+            "ORDER BY expires_at " +
+            "LIMIT :batchSize " +
+            "FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<Long> lockExpiredBatch(@Param("now") LocalDateTime now, @Param("batchSize") int batchSize);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    List<ReservationStock> findAllByVenteIdAndStatut(Long venteId, StatutReservation statut);
+
+    List<ReservationStock> findAllByVenteId(Long venteId);
+
+    // Réservations posées hors de toute vente (réservation manuelle de stock)
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    List<ReservationStock> findAllByArticleIdAndVenteIsNullAndStatutOrderByExpiresAtAsc(Long articleId,
+                                                                                         StatutReservation statut);
+
+    @Query("SELECT COALESCE(SUM(r.quantite), 0) FROM ReservationStock r " +
+            "WHERE r.article.id = :articleId AND r.statut = :statut")
+    long sumQuantiteByArticleIdAndStatut(@Param("articleId") Long articleId, @Param("statut") StatutReservation statut);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    List<ReservationStock> findAllByVenteIdAndArticleIdAndStatutOrderByExpiresAtAsc(Long venteId, Long articleId,
+                                                                                     StatutReservation statut);
+}
@@ -7,6 +7,10 @@ import jakarta.validation.constraints.Size;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 
 import java.util.List;
 import java.util.Optional;
@@ -36,4 +40,12 @@ public interface UtilisateurRepository extends JpaRepository<Utilisateur, Long>
     List<Utilisateur> findByEntrepriseIdAndActifFalse(Long entrepriseId);
 
     boolean existsByUserName(@NotBlank @Size(min = 3, max = 20) String username);
-}
\ No newline at end of file
+
+    // Listes paginées : entreprise et rôle chargés par jointure (sans N+1)
+    @EntityGraph(attributePaths = {"entreprise", "role"})
+    Page<Utilisateur> findAll(Pageable pageable);
+
+    // Même page sans requête COUNT
+    @EntityGraph(attributePaths = {"entreprise", "role"})
+    Slice<Utilisateur> findAllBy(Pageable pageable);
+}
@@ -3,6 +3,10 @@ package com.belvinard.gestionstock.repositories;
 import com.belvinard.gestionstock.models.Vente;
 import com.belvinard.gestionstock.models.EtatVente;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
@@ -20,4 +24,12 @@ public interface VenteRepository extends JpaRepository<Vente, Long> {
 
     List<Vente> findAllByEntrepriseIdAndCreationDateBetween(Long entrepriseId, LocalDateTime startDate,
             LocalDateTime endDate);
-}
\ No newline at end of file
+
+    // Listes paginées : client et entreprise chargés par jointure (sans N+1)
+    @EntityGraph(attributePaths = {"client", "entreprise"})
+    Page<Vente> findAll(Pageable pageable);
+
+    // Même page sans requête COUNT
+    @EntityGraph(attributePaths = {"client", "entreprise"})
+    Slice<Vente> findAllBy(Pageable pageable);
+}
@@ -2,15 +2,18 @@ package com.belvinard.gestionstock.responses;
 
 
 import com.belvinard.gestionstock.dto.CategoryDTO;
-import lombok.AllArgsConstructor;
-import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
 
 import java.util.List;
 
-@Data
-@AllArgsConstructor
 @NoArgsConstructor
-public class CategoryResponse {
-    List<CategoryDTO> content;
+@EqualsAndHashCode(callSuper = true)
+public class CategoryResponse extends PageResponse<CategoryDTO> {
+
+    public CategoryResponse(List<CategoryDTO> content) {
+        setContent(content);
+        setPageSize(content.size());
+        setLast(true);
+    }
 }
@@ -1,14 +1,18 @@
 package com.belvinard.gestionstock.responses;
 
 import com.belvinard.gestionstock.dto.EntrepriseDTO;
-import lombok.AllArgsConstructor;
-import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
 
 import java.util.List;
-@Data
-@AllArgsConstructor
+
 @NoArgsConstructor
-public class EntrepriseResponse {
-    List<EntrepriseDTO> content;
+@EqualsAndHashCode(callSuper = true)
+public class EntrepriseResponse extends PageResponse<EntrepriseDTO> {
+
+    public EntrepriseResponse(List<EntrepriseDTO> content) {
+        setContent(content);
+        setPageSize(content.size());
+        setLast(true);
+    }
 }
@@ -0,0 +1,36 @@
+package com.belvinard.gestionstock.responses;
+
+import com.belvinard.gestionstock.dto.StorageObjectDTO;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Page d'objets triés par nom. La page suivante s'obtient en repassant {@code nextStartAfter}
+ * comme {@code startAfter}, absent sur la dernière page.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ObjectListingResponse {
+
+    private List<StorageObjectDTO> content;
+    private String nextStartAfter;
+    private boolean last;
+
+    /**
+     * Page construite à partir de {@code maxKeys + 1} éléments lus : le surplus indique seulement
+     * qu'une page suivante existe.
+     */
+    public static ObjectListingResponse of(List<StorageObjectDTO> lus, int maxKeys) {
+        if (lus.size() <= maxKeys) {
+            return new ObjectListingResponse(lus, null, true);
+        }
+        List<StorageObjectDTO> page = lus.subList(0, maxKeys);
+        return new ObjectListingResponse(List.copyOf(page), page.get(maxKeys - 1).getName(), false);
+    }
+}
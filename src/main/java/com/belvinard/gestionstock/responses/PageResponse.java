@@ -0,0 +1,51 @@
+package com.belvinard.gestionstock.responses;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Page de résultats renvoyée par les endpoints de liste.
+ * {@code totalElements} et {@code totalPages} ne sont renseignés que si le total a été demandé.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class PageResponse<T> {
+
+    private List<T> content;
+    private int pageNumber;
+    private int pageSize;
+    private Long totalElements;
+    private Integer totalPages;
+    private boolean last;
+
+    public static <E, T> PageResponse<T> of(Slice<E> slice, Function<? super E, ? extends T> mapper) {
+        PageResponse<T> response = new PageResponse<>();
+        fill(response, slice, mapper);
+        return response;
+    }
+
+    /**
+     * Remplit une réponse existante (utilisé par les sous-classes typées pour la documentation OpenAPI).
+     */
+    public static <E, T, R extends PageResponse<T>> R fill(R response, Slice<E> slice,
+                                                          Function<? super E, ? extends T> mapper) {
+        response.setContent(slice.getContent().stream().<T>map(mapper).toList());
+        response.setPageNumber(slice.getNumber());
+        response.setPageSize(slice.getSize());
+        response.setLast(slice.isLast());
+        if (slice instanceof Page<E> page) {
+            response.setTotalElements(page.getTotalElements());
+            response.setTotalPages(page.getTotalPages());
+        }
+        return response;
+    }
+}
@@ -2,15 +2,18 @@ package com.belvinard.gestionstock.responses;
 
 
 import com.belvinard.gestionstock.dto.VenteDTO;
-import lombok.AllArgsConstructor;
-import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
 
 import java.util.List;
 
-@Data
 @NoArgsConstructor
-@AllArgsConstructor
-public class VenteResponse {
-    List<VenteDTO> content;
+@EqualsAndHashCode(callSuper = true)
+public class VenteResponse extends PageResponse<VenteDTO> {
+
+    public VenteResponse(List<VenteDTO> content) {
+        setContent(content);
+        setPageSize(content.size());
+        setLast(true);
+    }
 }
@@ -0,0 +1,263 @@
+package com.belvinard.gestionstock.search;
+
+import com.belvinard.gestionstock.dto.ArticleSuggestionDTO;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Index de préfixes immuable sur le catalogue d'une entreprise (code et désignation des articles).
+ * <p>
+ * Chaque article est réduit à un texte normalisé (minuscules, sans accents, mots séparés par une
+ * espace) : {@code "ART-001 Yaourt Nature"} devient {@code "art 001 yaourt nature"}. L'index est un
+ * tableau trié de clés {@code long} désignant chacune un début de mot dans ce texte, triées par le
+ * suffixe qui commence à cette position. Une recherche par préfixe se résume à une recherche
+ * dichotomique suivie d'un parcours contigu, sans aucune chaîne stockée en double : le coût mémoire
+ * d'un mot indexé est de 8 octets.
+ * <p>
+ * Les modifications postérieures à la construction sont passées à {@link #suggest} sous forme
+ * d'entrées de surcharge, puis intégrées par {@link #fusionner}.
+ */
+public final class ArticlePrefixIndex {
+
+    private static final Pattern MARQUES = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATEURS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    public static final ArticlePrefixIndex VIDE = build(List.of());
+
+    // Emplacements triés par identifiant d'article (recherche dichotomique dans ids)
+    private final long[] ids;
+    private final String[] codes;
+    private final String[] designations;
+    private final String[] textes;
+    // (emplacement << 32) | position d'un début de mot dans textes[emplacement]
+    private final long[] cles;
+
+    /**
+     * Article prêt à être indexé ; sans {@code article}, l'entrée marque une suppression.
+     */
+    public record Entree(ArticleSuggestionDTO article, String texte) {
+
+        public static Entree of(ArticleSuggestionDTO article) {
+            return new Entree(article, ArticlePrefixIndex.texte(article.getCodeArticle(), article.getDesignation()));
+        }
+
+        public static Entree supprime() {
+            return new Entree(null, "");
+        }
+    }
+
+    private ArticlePrefixIndex(long[] ids, String[] codes, String[] designations, String[] textes, long[] cles) {
+        this.ids = ids;
+        this.codes = codes;
+        this.designations = designations;
+        this.textes = textes;
+        this.cles = cles;
+    }
+
+    public static ArticlePrefixIndex build(Collection<ArticleSuggestionDTO> articles) {
+        return construire(articles.stream().map(Entree::of).toList());
+    }
+
+    private static ArticlePrefixIndex construire(List<Entree> entrees) {
+        Entree[] triees = entrees.stream()
+                .filter(e -> e.article() != null)
+                .sorted(Comparator.comparing(e -> e.article().getId()))
+                .toArray(Entree[]::new);
+
+        int n = triees.length;
+        long[] ids = new long[n];
+        String[] codes = new String[n];
+        String[] designations = new String[n];
+        String[] textes = new String[n];
+        int total = 0;
+        for (int s = 0; s < n; s++) {
+            ArticleSuggestionDTO article = triees[s].article();
+            ids[s] = article.getId();
+            codes[s] = article.getCodeArticle();
+            designations[s] = article.getDesignation();
+            textes[s] = triees[s].texte();
+            total += nombreDeMots(textes[s]);
+        }
+
+        // Pas de tri primitif avec comparateur : passage par des objets le temps de la construction
+        Long[] aTrier = new Long[total];
+        int k = 0;
+        for (int s = 0; s < n; s++) {
+            String texte = textes[s];
+            for (int p = 0; p < texte.length(); p++) {
+                if (p == 0 || texte.charAt(p - 1) == ' ') {
+                    aTrier[k++] = ((long) s << 32) | p;
+                }
+            }
+        }
+        Arrays.parallelSort(aTrier, (a, b) -> comparerSuffixes(textes, a, b));
+
+        long[] cles = new long[total];
+        for (int i = 0; i < total; i++) {
+            cles[i] = aTrier[i];
+        }
+        return new ArticlePrefixIndex(ids, codes, designations, textes, cles);
+    }
+
+    /**
+     * Nouvel index intégrant les modifications (ajouts, mises à jour et suppressions par identifiant).
+     */
+    public ArticlePrefixIndex fusionner(Map<Long, Entree> modifies) {
+        List<Entree> entrees = new ArrayList<>(ids.length + modifies.size());
+        for (int s = 0; s < ids.length; s++) {
+            if (!modifies.containsKey(ids[s])) {
+                entrees.add(new Entree(new ArticleSuggestionDTO(ids[s], codes[s], designations[s]), textes[s]));
+            }
+        }
+        entrees.addAll(modifies.values());
+        return construire(entrees);
+    }
+
+    /**
+     * Jusqu'à {@code limit} articles dont un mot du code ou de la désignation commence par
+     * {@code saisie}, dans l'ordre alphabétique du texte à partir du mot trouvé. Les articles
+     * présents dans {@code modifies} sont lus depuis la surcharge plutôt que depuis l'index.
+     */
+    public List<ArticleSuggestionDTO> suggest(String saisie, int limit, Map<Long, Entree> modifies) {
+        String prefixe = normaliser(saisie);
+        if (prefixe.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+
+        List<Candidat> candidats = new ArrayList<>();
+        Set<Long> vus = new HashSet<>();
+        for (int i = premiereCle(prefixe); i < cles.length && candidats.size() < limit; i++) {
+            int s = (int) (cles[i] >>> 32);
+            int p = (int) cles[i];
+            if (!textes[s].startsWith(prefixe, p)) {
+                break;
+            }
+            if (!modifies.containsKey(ids[s]) && vus.add(ids[s])) {
+                candidats.add(new Candidat(textes[s].substring(p),
+                        new ArticleSuggestionDTO(ids[s], codes[s], designations[s])));
+            }
+        }
+
+        // La surcharge reste petite (bornée par la compaction) : parcours linéaire
+        for (Entree entree : modifies.values()) {
+            if (entree.article() != null) {
+                int p = premierMot(entree.texte(), prefixe);
+                if (p >= 0) {
+                    candidats.add(new Candidat(entree.texte().substring(p), entree.article()));
+                }
+            }
+        }
+
+        return candidats.stream()
+                .sorted(Comparator.comparing(Candidat::suffixe))
+                .limit(limit)
+                .map(Candidat::article)
+                .toList();
+    }
+
+    public boolean contient(long articleId) {
+        return Arrays.binarySearch(ids, articleId) >= 0;
+    }
+
+    public int size() {
+        return ids.length;
+    }
+
+    public int nombreDeCles() {
+        return cles.length;
+    }
+
+    /**
+     * Forme de recherche : minuscules, sans accents, suite de mots alphanumériques séparés
+     * par une espace unique.
+     */
+    public static String normaliser(String valeur) {
+        if (valeur == null || valeur.isEmpty()) {
+            return "";
+        }
+        String sansAccents = MARQUES.matcher(Normalizer.normalize(valeur, Normalizer.Form.NFD)).replaceAll("");
+        return SEPARATEURS.matcher(sansAccents.toLowerCase(Locale.ROOT)).replaceAll(" ").trim();
+    }
+
+    private static String texte(String code, String designation) {
+        return (normaliser(code) + " " + normaliser(designation)).trim();
+    }
+
+    private record Candidat(String suffixe, ArticleSuggestionDTO article) {
+    }
+
+    // Première clé dont le suffixe n'est pas inférieur au préfixe
+    private int premiereCle(String prefixe) {
+        int bas = 0;
+        int haut = cles.length;
+        while (bas < haut) {
+            int milieu = (bas + haut) >>> 1;
+            if (comparerAuPrefixe(cles[milieu], prefixe) < 0) {
+                bas = milieu + 1;
+            } else {
+                haut = milieu;
+            }
+        }
+        return bas;
+    }
+
+    private int comparerAuPrefixe(long cle, String prefixe) {
+        String texte = textes[(int) (cle >>> 32)];
+        int p = (int) cle;
+        int n = Math.min(texte.length() - p, prefixe.length());
+        for (int i = 0; i < n; i++) {
+            char c = texte.charAt(p + i);
+            if (c != prefixe.charAt(i)) {
+                return c - prefixe.charAt(i);
+            }
+        }
+        // Suffixe plus court que le préfixe : il le précède ; sinon il commence par le préfixe
+        return texte.length() - p < prefixe.length() ? -1 : 0;
+    }
+
+    private static int comparerSuffixes(String[] textes, long a, long b) {
+        String ta = textes[(int) (a >>> 32)];
+        String tb = textes[(int) (b >>> 32)];
+        int pa = (int) a;
+        int pb = (int) b;
+        int n = Math.min(ta.length() - pa, tb.length() - pb);
+        for (int i = 0; i < n; i++) {
+            char ca = ta.charAt(pa + i);
+            char cb = tb.charAt(pb + i);
+            if (ca != cb) {
+                return ca - cb;
+            }
+        }
+        return (ta.length() - pa) - (tb.length() - pb);
+    }
+
+    private static int nombreDeMots(String texte) {
+        int mots = 0;
+        for (int p = 0; p < texte.length(); p++) {
+            if (p == 0 || texte.charAt(p - 1) == ' ') {
+                mots++;
+            }
+        }
+        return mots;
+    }
+
+    // Position du premier mot de texte commençant par le préfixe, -1 sinon
+    private static int premierMot(String texte, String prefixe) {
+        for (int p = 0; p < texte.length(); p++) {
+            if ((p == 0 || texte.charAt(p - 1) == ' ') && texte.startsWith(prefixe, p)) {
+                return p;
+            }
+        }
+        return -1;
+    }
+}
@@ -1,5 +1,6 @@
 package com.belvinard.gestionstock.security.service;
 
+import com.belvinard.gestionstock.filter.IdempotencyFilter;
 import com.belvinard.gestionstock.models.Entreprise;
 import com.belvinard.gestionstock.models.RoleType;
 import com.belvinard.gestionstock.models.Roles;
@@ -11,7 +12,10 @@ import com.belvinard.gestionstock.security.CustomAccessDeniedHandler;
 import com.belvinard.gestionstock.security.CustomAuthenticationEntryPoint;
 import com.belvinard.gestionstock.security.jwt.AuthEntryPointJwt;
 import com.belvinard.gestionstock.security.jwt.AuthTokenFilter;
+import com.belvinard.gestionstock.service.IdempotencyService;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -26,6 +30,7 @@ import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.access.intercept.AuthorizationFilter;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.web.cors.CorsConfigurationSource;
 
@@ -44,6 +49,14 @@ public class SecurityConfig {
     private final CustomAccessDeniedHandler customAccessDeniedHandler;
     private final CustomAuthenticationEntryPoint customAuthenticationEntryPoint;
     private final CorsConfigurationSource corsConfigurationSource;
+    private final IdempotencyService idempotencyService;
+    private final ObjectMapper objectMapper;
+
+    @Value("${idempotency.paths}")
+    private List<String> idempotentPaths;
+
+    @Value("${idempotency.max-body-bytes:1048576}")
+    private long idempotencyMaxBodyBytes;
 
     @Bean
     public AuthTokenFilter authenticationJwtTokenFilter() {
@@ -65,14 +78,20 @@ public class SecurityConfig {
                         .requestMatchers(HttpMethod.GET, "/api/v1/articles/*/image-url").permitAll()
                         .requestMatchers(HttpMethod.GET, "/api/v1/entreprise/*/image-url").permitAll()
                         .requestMatchers(HttpMethod.GET, "/api/v1/entreprise/all").permitAll()
+                        // URL signées du stockage local (profil local-storage) : la signature fait foi
+                        .requestMatchers(HttpMethod.GET, "/api/v1/storage/objects").permitAll()
                         .requestMatchers(HttpMethod.GET, "/api/v1/entreprise/*").permitAll()
+                        .requestMatchers("/actuator/health").permitAll()
 
                         // ========== ADMIN UNIQUEMENT ==========
+                        .requestMatchers("/actuator/**").hasAuthority("ROLE_ADMIN")
                         .requestMatchers("/api/v1/utilisateurs/**").hasAuthority("ROLE_ADMIN")
                         .requestMatchers("/api/v1/entreprise/create").hasAuthority("ROLE_ADMIN")
                         .requestMatchers("/api/v1/entreprise/admin/**").hasAuthority("ROLE_ADMIN")
                         .requestMatchers(HttpMethod.PUT, "/api/v1/entreprise/*/image").hasAuthority("ROLE_ADMIN")
                         .requestMatchers(HttpMethod.POST, "/api/v1/articles/create").hasAnyAuthority("ROLE_ADMIN", "ROLE_STOCK_MANAGER")
+                        .requestMatchers(HttpMethod.POST, "/api/v1/articles/import").hasAnyAuthority("ROLE_ADMIN", "ROLE_STOCK_MANAGER")
+                        .requestMatchers(HttpMethod.PUT, "/api/v1/articles/prix/bulk").hasAnyAuthority("ROLE_ADMIN", "ROLE_STOCK_MANAGER")
                         .requestMatchers(HttpMethod.DELETE, "/api/v1/articles/admin/**").hasAuthority("ROLE_ADMIN")
                         .requestMatchers("/api/v1/categories/admin/**").hasAnyAuthority("ROLE_ADMIN", "ROLE_STOCK_MANAGER", "ROLE_SALES_MANAGER")
                         .requestMatchers(HttpMethod.POST, "/api/v1/clients/create/**").hasAnyAuthority("ROLE_ADMIN", "ROLE_STOCK_MANAGER", "ROLE_SALES_MANAGER")
@@ -127,6 +146,8 @@ public class SecurityConfig {
                         // ========== ADMIN OU MANAGERS ==========
                         .requestMatchers("/api/v1/categories/manager/**")
                         .hasAnyAuthority("ROLE_ADMIN", "ROLE_STOCK_MANAGER", "ROLE_SALES_MANAGER")
+                        .requestMatchers(HttpMethod.GET, "/api/v1/sync/changes")
+                        .hasAnyAuthority("ROLE_ADMIN", "ROLE_STOCK_MANAGER", "ROLE_SALES_MANAGER")
                         .requestMatchers("/api/v1/files/upload")
                         .hasAnyAuthority("ROLE_ADMIN", "ROLE_STOCK_MANAGER", "ROLE_SALES_MANAGER")
                         .requestMatchers("/api/v1/files/download/*")
@@ -163,6 +184,10 @@ public class SecurityConfig {
                         // ========== ADMIN OU SALES ==========
                         .requestMatchers("/api/v1/ventes/sales/**").hasAnyAuthority("ROLE_ADMIN", "ROLE_SALES")
 
+                        // ========== DISPONIBLE A PROMETTRE (ADMIN, STOCK_MANAGER, SALES_MANAGER) ==========
+                        .requestMatchers("/api/v1/atp/**")
+                        .hasAnyAuthority("ROLE_ADMIN", "ROLE_STOCK_MANAGER", "ROLE_SALES_MANAGER")
+
                         // ========== CONSULTATION ARTICLES (ADMIN, STOCK_MANAGER, SALES_MANAGER)
                         // ==========
                         // IMPORTANT: Les règles spécifiques doivent être AVANT les règles générales
@@ -202,7 +227,10 @@ public class SecurityConfig {
                 .exceptionHandling(exception -> exception
                         .authenticationEntryPoint(customAuthenticationEntryPoint)
                         .accessDeniedHandler(customAccessDeniedHandler))
-                .addFilterBefore(authenticationJwtTokenFilter(), UsernamePasswordAuthenticationFilter.class);
+                .addFilterBefore(authenticationJwtTokenFilter(), UsernamePasswordAuthenticationFilter.class)
+                // Idempotence après l'autorisation : seules les requêtes autorisées sont mémorisées
+                .addFilterAfter(new IdempotencyFilter(idempotencyService, objectMapper,
+                        idempotentPaths, idempotencyMaxBodyBytes), AuthorizationFilter.class);
 
         return http.build();
     }
@@ -0,0 +1,11 @@
+package com.belvinard.gestionstock.service;
+
+import com.belvinard.gestionstock.dto.ArticleImageImportReportDTO;
+
+import java.io.InputStream;
+
+public interface ArticleImageImportService {
+
+    // Streams a ZIP of photos named after article codes and sets them as the articles' photos
+    ArticleImageImportReportDTO importZip(Long entrepriseId, InputStream zip);
+}
@@ -0,0 +1,10 @@
+package com.belvinard.gestionstock.service;
+
+import com.belvinard.gestionstock.dto.ArticleImportReportDTO;
+import org.springframework.web.multipart.MultipartFile;
+
+public interface ArticleImportService {
+
+    // Streams a CSV catalogue into one company, creating or updating articles by code
+    ArticleImportReportDTO importCsv(Long entrepriseId, MultipartFile file);
+}
@@ -3,6 +3,8 @@ package com.belvinard.gestionstock.service;
 import com.belvinard.gestionstock.dto.ArticleDTO;
 import com.belvinard.gestionstock.dto.EntrepriseDTO;
 import com.belvinard.gestionstock.dto.LigneCommandeClientDTO;
+import com.belvinard.gestionstock.dto.PageQuery;
+import com.belvinard.gestionstock.responses.PageResponse;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
@@ -11,14 +13,18 @@ import java.util.List;
 public interface ArticleService {
     ArticleDTO createArticle(Long entrepriseId, ArticleDTO articleDTO);
 
-    List<ArticleDTO> getAllArticles();
+    PageResponse<ArticleDTO> getAllArticles(PageQuery pageQuery);
+
+    // Ranked prefix/fuzzy search over code, designation and category within one company
+    PageResponse<ArticleDTO> searchArticles(Long entrepriseId, String terme, PageQuery pageQuery);
 
     ArticleDTO deleteArticle(Long id);
 
     /* ================== FIND ARTICLE BY ID ================== */
     ArticleDTO findAllByArticleId(Long id);
 
-    ArticleDTO findByCodeArticle(String codeArticle);
+    // Code lookup scoped to one company, served from the code cache when possible
+    ArticleDTO findByCodeArticle(Long entrepriseId, String codeArticle);
     List<ArticleDTO> findAllArticleByIdCategory(Long idCategory);
     ArticleDTO updateArticleImage(Long id, MultipartFile image) throws IOException;
     String getPresignedImageUrl(Long id);
@@ -0,0 +1,18 @@
+package com.belvinard.gestionstock.service;
+
+import com.belvinard.gestionstock.dto.ArticleSuggestionDTO;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface ArticleSuggestService {
+
+    // Typeahead suggestions from the in-memory prefix index of one company's catalogue
+    List<ArticleSuggestionDTO> suggest(Long entrepriseId, String saisie, int limit);
+
+    // Reload the given articles into the index (created, renamed or deleted)
+    void refresh(Collection<Long> articleIds);
+
+    // Rebuild every company's index from the database
+    void rebuild();
+}
@@ -0,0 +1,21 @@
+package com.belvinard.gestionstock.service;
+
+import com.belvinard.gestionstock.dto.AtpDTO;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface AtpService {
+
+    // Available-to-promise figures for one article, served from the in-memory projection
+    AtpDTO findByArticleId(Long articleId);
+
+    // Available-to-promise figures for many articles in one call; unknown ids are skipped
+    List<AtpDTO> findByArticleIds(Collection<Long> articleIds);
+
+    // Reload the projection of the given articles from the database
+    void refresh(Collection<Long> articleIds);
+
+    // Reload the whole projection from the database
+    void rebuild();
+}
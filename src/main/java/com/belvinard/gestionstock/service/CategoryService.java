@@ -3,6 +3,7 @@ package com.belvinard.gestionstock.service;
 
 
 import com.belvinard.gestionstock.dto.CategoryDTO;
+import com.belvinard.gestionstock.dto.PageQuery;
 import com.belvinard.gestionstock.responses.CategoryResponse;
 
 import java.util.List;
@@ -12,7 +13,7 @@ public interface CategoryService {
     List<CategoryDTO> findByDesignation(String designation);
 
 
-    List<CategoryDTO> getAllCategoriesWithEntreprise();
+    CategoryResponse getAllCategoriesWithEntreprise(PageQuery pageQuery);
 
 
     CategoryDTO findByCode(String code);
@@ -20,4 +21,7 @@ public interface CategoryService {
 
     CategoryDTO delete(Long id);
 
+    // Moves a category and its subtree under another parent (null makes it a root)
+    CategoryDTO move(Long id, Long parentId);
+
 }
\ No newline at end of file
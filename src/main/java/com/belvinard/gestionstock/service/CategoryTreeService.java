@@ -0,0 +1,18 @@
+package com.belvinard.gestionstock.service;
+
+import com.belvinard.gestionstock.dto.CategoryTreeDTO;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface CategoryTreeService {
+
+    // Category tree of one company with cached article count, stock units and stock value per node
+    List<CategoryTreeDTO> getTree(Long entrepriseId);
+
+    // Re-read the given articles and apply the difference to their categories' aggregates
+    void refresh(Collection<Long> articleIds);
+
+    // Reload the tree structure and every aggregate from the database
+    void rebuild();
+}
@@ -1,6 +1,8 @@
 package com.belvinard.gestionstock.service;
 
 import com.belvinard.gestionstock.dto.ClientDTO;
+import com.belvinard.gestionstock.dto.PageQuery;
+import com.belvinard.gestionstock.responses.PageResponse;
 
 import java.util.List;
 
@@ -9,7 +11,7 @@ public interface ClientService {
 
     ClientDTO findByClientId(Long id);
 
-    List<ClientDTO> getAllClients();
+    PageResponse<ClientDTO> getAllClients(PageQuery pageQuery);
 
     ClientDTO deleteClient(Long id);
 
@@ -2,7 +2,9 @@ package com.belvinard.gestionstock.service;
 
 import com.belvinard.gestionstock.dto.CommandeClientDTO;
 import com.belvinard.gestionstock.dto.LigneCommandeClientDTO;
+import com.belvinard.gestionstock.dto.PageQuery;
 import com.belvinard.gestionstock.models.EtatCommande;
+import com.belvinard.gestionstock.responses.PageResponse;
 
 import java.util.List;
 
@@ -11,7 +13,7 @@ public interface CommandeClientService {
 
     CommandeClientDTO updateEtatCommande(Long idCommande, EtatCommande etatCommande);
 
-    List<CommandeClientDTO> findAll();
+    PageResponse<CommandeClientDTO> findAll(PageQuery pageQuery);
 
     CommandeClientDTO findById(Long id);
 
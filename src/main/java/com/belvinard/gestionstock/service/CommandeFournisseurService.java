@@ -1,16 +1,16 @@
 package com.belvinard.gestionstock.service;
 
 import com.belvinard.gestionstock.dto.CommandeFournisseurDTO;
+import com.belvinard.gestionstock.dto.PageQuery;
 import com.belvinard.gestionstock.models.EtatCommande;
-
-import java.util.List;
+import com.belvinard.gestionstock.responses.PageResponse;
 
 public interface CommandeFournisseurService{
     CommandeFournisseurDTO saveCommandFournisseur(CommandeFournisseurDTO commandeFournisseurDTO, Long fournisseurId);
 
     CommandeFournisseurDTO findById(Long fournisseurId);
 
-    List<CommandeFournisseurDTO> findAll();
+    PageResponse<CommandeFournisseurDTO> findAll(PageQuery pageQuery);
 
     CommandeFournisseurDTO delete(Long fournisseurId);
 
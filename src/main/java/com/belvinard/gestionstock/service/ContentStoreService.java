@@ -0,0 +1,25 @@
+package com.belvinard.gestionstock.service;
+
+import com.belvinard.gestionstock.storage.StoredObject;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+public interface ContentStoreService {
+
+    // Store an uploaded file under its SHA-256 and add one reference; no PUT when the content already exists
+    StoredObject store(MultipartFile file) throws IOException;
+
+    // Same as store for content already held in memory (bulk imports)
+    StoredObject store(byte[] content, String contentType);
+
+    // Same as store for a raw stream, uploaded first under a temporary name (size -1 when unknown)
+    StoredObject storeStream(InputStream stream, long size, String contentType);
+
+    // Drop one reference to a stored content; false when the object is not managed by the content store
+    boolean release(String objectName);
+
+    // Delete unreferenced contents past the grace period, batch by batch; returns the number deleted
+    int collectGarbage(int batchSize, int maxBatches);
+}
@@ -2,6 +2,7 @@ package com.belvinard.gestionstock.service;
 
 
 import com.belvinard.gestionstock.dto.EntrepriseDTO;
+import com.belvinard.gestionstock.dto.PageQuery;
 import com.belvinard.gestionstock.responses.EntrepriseResponse;
 import org.springframework.web.multipart.MultipartFile;
 
@@ -9,7 +10,7 @@ import java.io.IOException;
 
 public interface EntrepriseService {
     EntrepriseDTO createEntreprise(EntrepriseDTO entrepriseDTO);
-    EntrepriseResponse getAllEntreprises();
+    EntrepriseResponse getAllEntreprises(PageQuery pageQuery);
     EntrepriseDTO findEntrepriseById(Long id);
     EntrepriseDTO deleteEntrepriseById(Long id);
     EntrepriseDTO updateEntrepriseImage(Long id, MultipartFile image) throws IOException;
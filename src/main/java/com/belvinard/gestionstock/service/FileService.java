@@ -1,21 +1,38 @@
 package com.belvinard.gestionstock.service;
 
 import com.belvinard.gestionstock.dto.FileDTO;
+import com.belvinard.gestionstock.responses.ObjectListingResponse;
+import com.belvinard.gestionstock.storage.ObjectContent;
+import com.belvinard.gestionstock.storage.ObjectInfo;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 public interface FileService {
 
     FileDTO uploadFile(MultipartFile file) throws IOException;
 
+    // Store a raw request body without buffering it; size is -1 when the length is unknown
+    FileDTO uploadStream(InputStream body, long size, String contentType, String expectedSha256);
+
     InputStream downloadFile(String fileName);
 
+    // Content and metadata of a stored file, from the local disk copy when possible; otherwise
+    // completes once the storage has answered, without holding the calling thread
+    CompletableFuture<ObjectContent> openFile(String fileName);
+
+    // Same for bytes [offset, offset + length) only, resolved by the caller against statFile
+    CompletableFuture<ObjectContent> openFile(String fileName, long offset, long length);
+
+    // Size, ETag and content type without reading the content
+    CompletableFuture<ObjectInfo> statFile(String fileName);
+
     void deleteFile(String fileName);
 
-    List<String> listFiles();
+    // One page of files sorted by name, from the file table (indexed) or by walking the bucket
+    ObjectListingResponse listFiles(String prefix, String startAfter, int maxKeys, boolean fromStorage);
 
     String getPreSignedUrl(String fileName, int expiryInMinutes);
 }
@@ -1,14 +1,14 @@
 package com.belvinard.gestionstock.service;
 
 import com.belvinard.gestionstock.dto.FournisseurDTO;
-
-import java.util.List;
+import com.belvinard.gestionstock.dto.PageQuery;
+import com.belvinard.gestionstock.responses.PageResponse;
 
 public interface FournisseurService {
 
   FournisseurDTO createFournisseur(Long entrepriseId, FournisseurDTO fournisseurDTO);
 
-  List<FournisseurDTO> getAllFournisseur();
+  PageResponse<FournisseurDTO> getAllFournisseur(PageQuery pageQuery);
 
   FournisseurDTO findFournisseurById(Long fournisseurId);
 
@@ -0,0 +1,23 @@
+package com.belvinard.gestionstock.service;
+
+import com.belvinard.gestionstock.dto.IdempotentResponse;
+
+import java.util.Optional;
+
+public interface IdempotencyService {
+
+    // Retrieve the stored response for a key (memory first, then database)
+    Optional<IdempotentResponse> findResponse(String key);
+
+    // Claim a key in the database before processing; the claim token, empty if in flight or already answered
+    Optional<String> acquire(String key, String fingerprint, String method, String path);
+
+    // Drop the claim of a key whose processing produced no replayable response; no-op if the claim was taken over
+    void release(String key, String token);
+
+    // Store the response produced under a claim; ignored if the claim was taken over
+    void saveResponse(String key, String token, IdempotentResponse response);
+
+    // Delete records older than the retention period
+    int purgeExpired();
+}
@@ -0,0 +1,21 @@
+package com.belvinard.gestionstock.service;
+
+import com.belvinard.gestionstock.images.ImageVariant;
+
+import java.util.Collection;
+import java.util.Map;
+
+public interface ImageVariantService {
+
+    // Queue the generation of every variant of an uploaded image (returns immediately)
+    void planifier(String objetOriginal);
+
+    // Generate and store the variants of an uploaded image in the calling thread
+    void generer(String objetOriginal);
+
+    // Signed URL of each variant of an image (the original's until the variants are generated), empty when there is no image
+    Map<ImageVariant, String> urls(String objetOriginal);
+
+    // Same for many images in one pass (list pages), keyed by original object name
+    Map<String, Map<ImageVariant, String>> urls(Collection<String> objetsOriginaux);
+}
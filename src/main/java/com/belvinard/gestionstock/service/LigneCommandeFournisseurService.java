@@ -1,11 +1,13 @@
 package com.belvinard.gestionstock.service;
 
 import com.belvinard.gestionstock.dto.LigneCommandeFournisseurDTO;
+import com.belvinard.gestionstock.dto.PageQuery;
+import com.belvinard.gestionstock.responses.PageResponse;
 import java.util.List;
 
 public interface LigneCommandeFournisseurService {
     LigneCommandeFournisseurDTO save(LigneCommandeFournisseurDTO ligneCommandeFournisseurDTO, Long commandeFournisseurId, Long articleId);
-    List<LigneCommandeFournisseurDTO> getAll();
+    PageResponse<LigneCommandeFournisseurDTO> getAll(PageQuery pageQuery);
     LigneCommandeFournisseurDTO findById(Long id);
     LigneCommandeFournisseurDTO update(Long id, LigneCommandeFournisseurDTO ligneCommandeFournisseurDTO);
     void delete(Long id);
@@ -1,17 +1,33 @@
 package com.belvinard.gestionstock.service;
 
-import org.springframework.web.multipart.MultipartFile;
+import com.belvinard.gestionstock.responses.ObjectListingResponse;
+import com.belvinard.gestionstock.storage.ObjectInfo;
+import com.belvinard.gestionstock.storage.StoredObject;
 
-import java.io.IOException;
 import java.io.InputStream;
-import java.util.List;
+import java.util.Collection;
+import java.util.Map;
 
 public interface MinioService {
-    String uploadImage(MultipartFile file) throws IOException;
+    void uploadObject(String objectName, InputStream stream, long size, String contentType);
+    // Stream straight into a multipart upload (size -1 when unknown), hashing on the fly
+    StoredObject uploadStream(InputStream stream, long size, String contentType, String extension);
     String getPreSignedUrl(String objectName, Integer expiryInMinutes);
+    // Signed with the configured expiry and served from cache until the end of the current signing window
+    String getPreSignedUrl(String objectName);
+    // Same as above for many objects at once: only the cache misses are signed
+    Map<String, String> getPreSignedUrls(Collection<String> objectNames);
+    // Start (epoch millis) of the current signing window: URLs handed out during a window stay valid
+    // for at least the cache margin after it ends
+    long presignedUrlWindowStart();
     void deleteFile(String objectName);
+    // Server-side copy within the bucket: no content goes through the application
+    void copyObject(String sourceObjectName, String targetObjectName);
     InputStream downloadFile(String objectName);
-    List<String> listFiles();
+    // One page of objects sorted by key, resuming after startAfter (null for the first page)
+    ObjectListingResponse listObjects(String prefix, String startAfter, int maxKeys);
     boolean fileExists(String objectName);
+    // Size, ETag and content type of an object; ResourceNotFoundException when it does not exist
+    ObjectInfo statObject(String objectName);
     String getFileUrl(String objectName);
 }
\ No newline at end of file
@@ -0,0 +1,10 @@
+package com.belvinard.gestionstock.service;
+
+import com.belvinard.gestionstock.dto.PrixBulkRequest;
+import com.belvinard.gestionstock.dto.PrixBulkResultDTO;
+
+public interface PricingService {
+
+    // Set-based price/VAT change over categories or an article list, TTC recomputed in SQL
+    PrixBulkResultDTO updatePrixEnMasse(PrixBulkRequest request);
+}
@@ -0,0 +1,28 @@
+package com.belvinard.gestionstock.service;
+
+import com.belvinard.gestionstock.models.Article;
+import com.belvinard.gestionstock.models.MvtStk;
+import com.belvinard.gestionstock.models.Vente;
+
+import java.util.Map;
+
+public interface ReservationStockService {
+
+    // Reserve stock for an article, optionally tied to a sale (caller holds the article lock)
+    MvtStk reserver(Article article, Long quantite, Long entrepriseId, Vente vente);
+
+    // Release reserved quantity not held by any sale, oldest reservations first
+    MvtStk annuler(Article article, Long quantite, Long entrepriseId);
+
+    // Release up to quantite of a sale's active reservations on one article (caller holds the article lock)
+    void libererPourVente(Long venteId, Article article, Long quantite);
+
+    // Mark the active reservations of a sale as consumed; returns consumed quantity per article id
+    Map<Long, Long> consommerPourVente(Long venteId);
+
+    // Cancel all active reservations of a sale and detach them from it
+    void annulerPourVente(Long venteId);
+
+    // Release one batch of expired reservations; returns the number of reservations released
+    int libererReservationsExpirees(int batchSize);
+}
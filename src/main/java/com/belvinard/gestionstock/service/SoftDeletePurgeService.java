@@ -0,0 +1,7 @@
+package com.belvinard.gestionstock.service;
+
+public interface SoftDeletePurgeService {
+
+    // Move soft-deleted rows past the retention period to the archive table, batch by batch; returns the number archived
+    int archiveExpired(int batchSize, int maxBatches);
+}
@@ -0,0 +1,45 @@
+package com.belvinard.gestionstock.service;
+
+import com.belvinard.gestionstock.dto.StorageObjectDTO;
+import com.belvinard.gestionstock.storage.ObjectContent;
+import com.belvinard.gestionstock.storage.ObjectInfo;
+
+import java.io.InputStream;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+// Where object contents live (MinIO by default, local disk with the "local-storage" profile)
+public interface StorageBackend {
+
+    // Checks (and creates) the bucket or root directory once, on first use; a failed check is retried by the next call
+    CompletableFuture<Void> ensureReady();
+
+    // size -1 when unknown; large or unknown sizes are read on the calling thread
+    CompletableFuture<Void> putObject(String objectName, InputStream stream, long size, String contentType);
+
+    // Completes with ResourceNotFoundException when the object does not exist
+    CompletableFuture<ObjectInfo> statObject(String objectName);
+
+    // Metadata and content from a single read; the caller closes the content
+    CompletableFuture<ObjectContent> getObject(String objectName);
+
+    // Only bytes [offset, offset + length), already checked against the object size by the caller
+    CompletableFuture<ObjectContent> getObject(String objectName, long offset, long length);
+
+    // false only when the object does not exist; storage failures complete exceptionally
+    CompletableFuture<Boolean> exists(String objectName);
+
+    CompletableFuture<Void> removeObject(String objectName);
+
+    // Copy inside the store: no content goes through the caller
+    CompletableFuture<Void> copyObject(String sourceObjectName, String targetObjectName);
+
+    // At most limit objects sorted by key, after startAfter (null for the first page)
+    List<StorageObjectDTO> listObjects(String prefix, String startAfter, int limit);
+
+    // Temporary read access without credentials
+    String presignedUrl(String objectName, int expiryMinutes);
+
+    // Permanent, unsigned address of an object
+    String objectUrl(String objectName);
+}
@@ -0,0 +1,13 @@
+package com.belvinard.gestionstock.service;
+
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+public interface SyncService {
+
+    String TYPE_ARTICLE = "article";
+    String TYPE_CATEGORY = "category";
+    String TYPE_CLIENT = "client";
+
+    // Validate the request, then stream the catalog changes of an entreprise since a token as NDJSON
+    StreamingResponseBody streamChanges(Long entrepriseId, String since);
+}
@@ -1,8 +1,10 @@
 package com.belvinard.gestionstock.service;
 
 import com.belvinard.gestionstock.dto.ChangerMotDePasseUtilisateurDTO;
+import com.belvinard.gestionstock.dto.PageQuery;
 import com.belvinard.gestionstock.dto.UtilisateurDTO;
 import com.belvinard.gestionstock.models.RoleType;
+import com.belvinard.gestionstock.responses.PageResponse;
 
 import java.util.List;
 
@@ -12,7 +14,7 @@ public interface UtilisateurService {
   UtilisateurDTO save(UtilisateurDTO DTO, Long entrepriseId);
   UtilisateurDTO findByIdLonge(Long id);
   UtilisateurDTO findById(Long id);
-  List<UtilisateurDTO> findAll();
+  PageResponse<UtilisateurDTO> findAll(PageQuery pageQuery);
   void delete(Long id);
   UtilisateurDTO findByEmail(String email);
   UtilisateurDTO changerMotDePasse(ChangerMotDePasseUtilisateurDTO DTO);
@@ -1,8 +1,10 @@
 package com.belvinard.gestionstock.service;
 
 import com.belvinard.gestionstock.dto.LigneVenteDTO;
+import com.belvinard.gestionstock.dto.PageQuery;
 import com.belvinard.gestionstock.dto.VenteDTO;
 import com.belvinard.gestionstock.models.EtatVente;
+import com.belvinard.gestionstock.responses.VenteResponse;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
@@ -14,7 +16,7 @@ public interface VenteService {
 
   VenteDTO findByCode(String code);
 
-  List<VenteDTO> findAll();
+  VenteResponse findAll(PageQuery pageQuery);
 
   void delete(Long id);
 
@@ -0,0 +1,336 @@
+package com.belvinard.gestionstock.service.impl;
+
+import com.belvinard.gestionstock.cache.ArticleCodeCache;
+import com.belvinard.gestionstock.dto.ArticleImageImportErrorDTO;
+import com.belvinard.gestionstock.dto.ArticleImageImportReportDTO;
+import com.belvinard.gestionstock.events.ArticleChangedEvent;
+import com.belvinard.gestionstock.exceptions.APIException;
+import com.belvinard.gestionstock.exceptions.InvalidOperationException;
+import com.belvinard.gestionstock.exceptions.ResourceNotFoundException;
+import com.belvinard.gestionstock.repositories.EntrepriseRepository;
+import com.belvinard.gestionstock.service.ArticleImageImportService;
+import com.belvinard.gestionstock.service.ContentStoreService;
+import com.belvinard.gestionstock.service.ImageVariantService;
+import com.belvinard.gestionstock.storage.StoredObject;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Import en masse des photos d'articles depuis une archive ZIP.
+ * <p>
+ * Chaque entrée est nommée d'après le code de son article ({@code ART-001.jpg}, dossiers ignorés),
+ * comparé comme à la recherche par code ({@link ArticleCodeCache#normaliser}, sans tenir compte de la casse).
+ * L'archive est lue en flux, sans rien extraire sur disque : une entrée n'est chargée en mémoire
+ * qu'au moment de son envoi, et au plus {@code max-in-flight} entrées par import attendent ou
+ * subissent leur envoi dans le pool partagé. La lecture de l'archive attend qu'une place se libère,
+ * ce qui borne la mémoire quel que soit le nombre de photos. Les photos envoyées sont affectées par
+ * lots de {@code batch-size} articles, en une transaction par lot.
+ */
+@Slf4j
+@Service
+public class ArticleImageImportServiceImpl implements ArticleImageImportService {
+
+    private static final int MAX_ERREURS = 1000;
+    private static final Map<String, String> TYPES = Map.of(
+            "jpg", "image/jpeg", "jpeg", "image/jpeg", "png", "image/png",
+            "gif", "image/gif", "webp", "image/webp", "bmp", "image/bmp");
+
+    // Verrouille les articles du lot : la photo remplacée lue ici est bien celle que l'UPDATE écrase
+    private static final String ANCIENNES_PHOTOS_SQL =
+            "SELECT id, photo FROM article WHERE id = ANY (?) AND deleted_at IS NULL FOR UPDATE";
+    private static final String UPDATE_SQL = "UPDATE article SET photo = ?, version = version + 1, "
+            + "last_modified_date = ? WHERE id = ?";
+
+    private final EntrepriseRepository entrepriseRepository;
+    private final ContentStoreService contentStoreService;
+    private final ImageVariantService imageVariantService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ThreadPoolExecutor executor;
+    private final int maxInFlight;
+    private final int batchSize;
+    private final int maxEntryBytes;
+
+    private final Set<Long> importsEnCours = ConcurrentHashMap.newKeySet();
+
+    public ArticleImageImportServiceImpl(EntrepriseRepository entrepriseRepository,
+                                         ContentStoreService contentStoreService,
+                                         ImageVariantService imageVariantService,
+                                         ApplicationEventPublisher eventPublisher,
+                                         JdbcTemplate jdbcTemplate,
+                                         TransactionTemplate transactionTemplate,
+                                         @Value("${article.image-import.pool-size:8}") int poolSize,
+                                         @Value("${article.image-import.max-in-flight:16}") int maxInFlight,
+                                         @Value("${article.image-import.batch-size:200}") int batchSize,
+                                         @Value("${article.image-import.max-entry-bytes:10485760}") int maxEntryBytes) {
+        this.entrepriseRepository = entrepriseRepository;
+        this.contentStoreService = contentStoreService;
+        this.imageVariantService = imageVariantService;
+        this.eventPublisher = eventPublisher;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.maxInFlight = maxInFlight;
+        this.batchSize = batchSize;
+        this.maxEntryBytes = maxEntryBytes;
+
+        // File non bornée : chaque import borne lui-même ses tâches en attente (max-in-flight)
+        AtomicInteger numero = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(),
+                tache -> {
+                    Thread thread = new Thread(tache, "image-import-" + numero.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    private record PhotoEnvoyee(String fichier, String code, Long articleId, StoredObject stored) {
+    }
+
+    /**
+     * État d'un import. Les compteurs d'entrées lues et importées ne sont modifiés que par le thread
+     * de la requête ; les tâches d'envoi ne touchent qu'aux files et aux compteurs atomiques.
+     */
+    private static final class Import {
+        // Identifiant par code normalisé
+        final Map<String, Long> articles;
+        final Set<String> codesVus = new HashSet<>();
+        final Semaphore places;
+        final Queue<PhotoEnvoyee> envoyees = new ConcurrentLinkedQueue<>();
+        final Queue<ArticleImageImportErrorDTO> erreurs = new ConcurrentLinkedQueue<>();
+        final AtomicInteger rejetees = new AtomicInteger();
+        int entreesLues;
+        int importees;
+        int dedupliquees;
+
+        Import(Map<String, Long> articles, int maxInFlight) {
+            this.articles = articles;
+            this.places = new Semaphore(maxInFlight);
+        }
+
+        void rejeter(String fichier, String code, String message) {
+            if (rejetees.incrementAndGet() <= MAX_ERREURS) {
+                erreurs.add(new ArticleImageImportErrorDTO(fichier, code, message));
+            }
+        }
+    }
+
+    @Override
+    public ArticleImageImportReportDTO importZip(Long entrepriseId, InputStream zip) {
+        if (zip == null) {
+            throw new APIException("L'archive d'import est vide");
+        }
+        if (!entrepriseRepository.existsById(entrepriseId)) {
+            throw new ResourceNotFoundException("Entreprise", "id", entrepriseId);
+        }
+        // Deux imports simultanés se disputeraient la photo des mêmes articles
+        if (!importsEnCours.add(entrepriseId)) {
+            throw new InvalidOperationException("Un import de photos est déjà en cours pour cette entreprise");
+        }
+
+        long debut = System.nanoTime();
+        Import courant = new Import(chargerArticles(entrepriseId), maxInFlight);
+        try {
+            try (ZipInputStream archive = new ZipInputStream(new BufferedInputStream(zip, 64 * 1024))) {
+                ZipEntry entree;
+                while ((entree = archive.getNextEntry()) != null) {
+                    if (entree.isDirectory() || ignoree(entree.getName())) {
+                        continue;
+                    }
+                    courant.entreesLues++;
+                    envoyer(courant, entree.getName(), archive);
+                    if (courant.envoyees.size() >= batchSize) {
+                        enregistrer(courant);
+                    }
+                }
+            } catch (IOException e) {
+                // Les photos déjà envoyées sont tout de même affectées : elles figurent dans le rapport
+                if (courant.entreesLues == 0) {
+                    throw new APIException("Lecture de l'archive impossible : " + e.getMessage());
+                }
+                courant.rejeter(null, null, "Lecture de l'archive interrompue après "
+                        + courant.entreesLues + " entrée(s) : " + e.getMessage());
+            } finally {
+                courant.places.acquireUninterruptibly(maxInFlight);
+            }
+            enregistrer(courant);
+        } finally {
+            importsEnCours.remove(entrepriseId);
+        }
+
+        if (courant.entreesLues == 0 && courant.rejetees.get() == 0) {
+            throw new APIException("L'archive ne contient aucun fichier, ou n'est pas une archive ZIP");
+        }
+
+        ArticleImageImportReportDTO rapport = new ArticleImageImportReportDTO();
+        rapport.setEntreesLues(courant.entreesLues);
+        rapport.setImportees(courant.importees);
+        rapport.setDedupliquees(courant.dedupliquees);
+        rapport.setRejetees(courant.rejetees.get());
+        rapport.setErreurs(new ArrayList<>(courant.erreurs));
+        rapport.setDureeMs((System.nanoTime() - debut) / 1_000_000);
+        rapport.setImagesParSeconde(Math.round(courant.importees * 10_000.0 / Math.max(rapport.getDureeMs(), 1)) / 10.0);
+
+        log.info("🖼️ Import de photos pour l'entreprise {} : {} entrée(s), {} importée(s) dont {} déjà stockée(s), "
+                        + "{} rejetée(s) en {} ms ({} photos/s)",
+                entrepriseId, rapport.getEntreesLues(), rapport.getImportees(), rapport.getDedupliquees(),
+                rapport.getRejetees(), rapport.getDureeMs(), rapport.getImagesParSeconde());
+        return rapport;
+    }
+
+    @PreDestroy
+    public void arreter() {
+        executor.shutdown();
+    }
+
+    private void envoyer(Import courant, String fichier, ZipInputStream archive) throws IOException {
+        String nom = fichier.substring(fichier.lastIndexOf('/') + 1);
+        int point = nom.lastIndexOf('.');
+        String code = (point > 0 ? nom.substring(0, point) : nom).trim();
+        String contentType = point > 0 ? TYPES.get(nom.substring(point + 1).toLowerCase(Locale.ROOT)) : null;
+
+        if (contentType == null) {
+            courant.rejeter(fichier, code, "Format non pris en charge (jpg, jpeg, png, gif, webp ou bmp attendu)");
+            return;
+        }
+        Long articleId = courant.articles.get(ArticleCodeCache.normaliser(code));
+        if (articleId == null) {
+            courant.rejeter(fichier, code, "Aucun article avec ce code dans l'entreprise");
+            return;
+        }
+        if (!courant.codesVus.add(ArticleCodeCache.normaliser(code))) {
+            courant.rejeter(fichier, code, "Plusieurs photos pour ce code article dans l'archive");
+            return;
+        }
+
+        // Le reste d'une entrée trop volumineuse est sauté par getNextEntry, sans être conservé
+        byte[] contenu = archive.readNBytes(maxEntryBytes + 1);
+        if (contenu.length == 0 || contenu.length > maxEntryBytes) {
+            courant.rejeter(fichier, code, contenu.length == 0 ? "Fichier vide"
+                    : "Photo trop volumineuse (" + (maxEntryBytes >> 20) + " Mo au plus)");
+            return;
+        }
+
+        courant.places.acquireUninterruptibly();
+        try {
+            executor.execute(() -> {
+                try {
+                    StoredObject stored = contentStoreService.store(contenu, contentType);
+                    if (!stored.deduplicated()) {
+                        imageVariantService.planifier(stored.objectName());
+                    }
+                    courant.envoyees.add(new PhotoEnvoyee(fichier, code, articleId, stored));
+                } catch (RuntimeException e) {
+                    courant.rejeter(fichier, code, "Envoi vers le stockage impossible : " + e.getMessage());
+                } finally {
+                    courant.places.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            courant.places.release();
+            courant.rejeter(fichier, code, "Import interrompu : l'application s'arrête");
+        }
+    }
+
+    /**
+     * Affecte les photos envoyées depuis le dernier lot. Une photo dont l'article a été supprimé
+     * entre-temps, ou un lot refusé par la base, rend la référence prise sur son contenu.
+     */
+    private void enregistrer(Import courant) {
+        List<PhotoEnvoyee> lot = new ArrayList<>();
+        PhotoEnvoyee photo;
+        while ((photo = courant.envoyees.poll()) != null) {
+            lot.add(photo);
+        }
+        if (lot.isEmpty()) {
+            return;
+        }
+
+        Map<Long, String> anciennes = new HashMap<>();
+        try {
+            Timestamp maintenant = Timestamp.valueOf(LocalDateTime.now());
+            transactionTemplate.executeWithoutResult(status -> {
+                Long[] ids = lot.stream().map(PhotoEnvoyee::articleId).toArray(Long[]::new);
+                jdbcTemplate.query(ANCIENNES_PHOTOS_SQL, (RowCallbackHandler) rs -> {
+                    anciennes.put(rs.getLong(1), rs.getString(2));
+                }, (Object) ids);
+
+                List<PhotoEnvoyee> presentes = lot.stream().filter(p -> anciennes.containsKey(p.articleId())).toList();
+                if (!presentes.isEmpty()) {
+                    jdbcTemplate.batchUpdate(UPDATE_SQL, presentes, presentes.size(), (ps, p) -> {
+                        ps.setString(1, p.stored().objectName());
+                        ps.setTimestamp(2, maintenant);
+                        ps.setLong(3, p.articleId());
+                    });
+                }
+            });
+        } catch (DataAccessException e) {
+            String message = "Lot refusé par la base de données : " + e.getMostSpecificCause().getMessage();
+            log.warn("Import de photos, lot de {} photo(s) : {}", lot.size(), message);
+            for (PhotoEnvoyee refusee : lot) {
+                contentStoreService.release(refusee.stored().objectName());
+                courant.rejeter(refusee.fichier(), refusee.code(), message);
+            }
+            return;
+        }
+
+        List<Long> modifies = new ArrayList<>(anciennes.size());
+        for (PhotoEnvoyee envoyee : lot) {
+            if (!anciennes.containsKey(envoyee.articleId())) {
+                contentStoreService.release(envoyee.stored().objectName());
+                courant.rejeter(envoyee.fichier(), envoyee.code(), "Article supprimé pendant l'import");
+                continue;
+            }
+            contentStoreService.release(anciennes.get(envoyee.articleId()));
+            modifies.add(envoyee.articleId());
+            courant.importees++;
+            if (envoyee.stored().deduplicated()) {
+                courant.dedupliquees++;
+            }
+        }
+        // Index de suggestions, caches et projections du catalogue voient les nouvelles photos
+        if (!modifies.isEmpty()) {
+            eventPublisher.publishEvent(new ArticleChangedEvent(modifies));
+        }
+    }
+
+    private Map<String, Long> chargerArticles(Long entrepriseId) {
+        Map<String, Long> articles = new HashMap<>();
+        jdbcTemplate.query("SELECT code_article, id FROM article WHERE entreprise_id = ? AND deleted_at IS NULL",
+                (RowCallbackHandler) rs -> {
+                    articles.putIfAbsent(ArticleCodeCache.normaliser(rs.getString(1)), rs.getLong(2));
+                }, entrepriseId);
+        return articles;
+    }
+
+    // Métadonnées ajoutées par macOS et fichiers cachés
+    private static boolean ignoree(String fichier) {
+        String nom = fichier.substring(fichier.lastIndexOf('/') + 1);
+        return fichier.startsWith("__MACOSX/") || nom.startsWith(".") || nom.isEmpty();
+    }
+}
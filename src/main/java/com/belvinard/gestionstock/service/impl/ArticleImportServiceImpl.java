@@ -0,0 +1,409 @@
+package com.belvinard.gestionstock.service.impl;
+
+import com.belvinard.gestionstock.cache.ArticleCodeCache;
+import com.belvinard.gestionstock.cache.CatalogVersions;
+import com.belvinard.gestionstock.dto.ArticleImportErrorDTO;
+import com.belvinard.gestionstock.dto.ArticleImportReportDTO;
+import com.belvinard.gestionstock.exceptions.APIException;
+import com.belvinard.gestionstock.exceptions.InvalidOperationException;
+import com.belvinard.gestionstock.exceptions.ResourceNotFoundException;
+import com.belvinard.gestionstock.pricing.PrixCalculator;
+import com.belvinard.gestionstock.repositories.CategoryRepository;
+import com.belvinard.gestionstock.repositories.EntrepriseRepository;
+import com.belvinard.gestionstock.service.ArticleImportService;
+import com.belvinard.gestionstock.service.ArticleSuggestService;
+import com.belvinard.gestionstock.service.AtpService;
+import com.belvinard.gestionstock.service.CategoryTreeService;
+import com.belvinard.gestionstock.utils.CsvReader;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Import d'un catalogue d'articles depuis un fichier CSV.
+ * <p>
+ * Le fichier est lu en flux par lots de {@code article.import.batch-size} lignes : chaque lot est
+ * validé en parallèle, puis écrit par lots JDBC (insertions et mises à jour) dans sa propre
+ * transaction. Les catégories et les codes déjà présents sont chargés une seule fois en mémoire ;
+ * aucune requête n'est faite par ligne. Un lot refusé par la base n'affecte pas les lots déjà
+ * validés, ses lignes figurant dans le rapport d'erreurs.
+ */
+@Slf4j
+@Service
+public class ArticleImportServiceImpl implements ArticleImportService {
+
+    private static final int MAX_ERREURS = 1000;
+    private static final List<String> COLONNES_OBLIGATOIRES =
+            List.of("codearticle", "designation", "prixunitaireht", "tauxtva", "categorie");
+
+    private static final String INSERT_SQL = "INSERT INTO article (code_article, designation, quantite_en_stock, "
+            + "quantite_reservee, prix_unitaire_ht, taux_tva, prix_unitaire_ttc, idcategory, entreprise_id, version, "
+            + "creation_date, last_modified_date) VALUES (?, ?, ?, 0, ?, ?, ?, ?, ?, 0, ?, ?)";
+    // Le stock d'un article existant n'est pas écrasé : il ne varie que par des mouvements de stock
+    private static final String UPDATE_SQL = "UPDATE article SET designation = ?, prix_unitaire_ht = ?, taux_tva = ?, "
+            + "prix_unitaire_ttc = ?, idcategory = ?, version = version + 1, last_modified_date = ? WHERE id = ?";
+
+    private final EntrepriseRepository entrepriseRepository;
+    private final CategoryRepository categoryRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final AtpService atpService;
+    private final ArticleSuggestService articleSuggestService;
+    private final ArticleCodeCache articleCodeCache;
+    private final CategoryTreeService categoryTreeService;
+    private final CatalogVersions catalogVersions;
+    private final int batchSize;
+
+    private final Set<Long> importsEnCours = ConcurrentHashMap.newKeySet();
+
+    public ArticleImportServiceImpl(EntrepriseRepository entrepriseRepository,
+                                    CategoryRepository categoryRepository,
+                                    JdbcTemplate jdbcTemplate,
+                                    TransactionTemplate transactionTemplate,
+                                    AtpService atpService,
+                                    ArticleSuggestService articleSuggestService,
+                                    ArticleCodeCache articleCodeCache,
+                                    CategoryTreeService categoryTreeService,
+                                    CatalogVersions catalogVersions,
+                                    @Value("${article.import.batch-size:1000}") int batchSize) {
+        this.entrepriseRepository = entrepriseRepository;
+        this.categoryRepository = categoryRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.atpService = atpService;
+        this.articleSuggestService = articleSuggestService;
+        this.articleCodeCache = articleCodeCache;
+        this.categoryTreeService = categoryTreeService;
+        this.catalogVersions = catalogVersions;
+        this.batchSize = batchSize;
+    }
+
+    private record Ligne(int numero, List<String> valeurs) {
+    }
+
+    private record ArticleImporte(int numero, String code, String designation, long quantite,
+                                  BigDecimal prixHt, BigDecimal tauxTva, BigDecimal prixTtc, Long categoryId) {
+    }
+
+    // Exactement un des deux champs est renseigné
+    private record Resultat(ArticleImporte article, ArticleImportErrorDTO erreur) {
+    }
+
+    /**
+     * État d'un import : codes connus (base et fichier) et rapport en cours de construction. Les codes
+     * y sont normalisés par {@link ArticleCodeCache#normaliser} : "ABC-1" et "abc-1" désignent le même
+     * article, comme pour la recherche par code.
+     */
+    private static final class Import {
+        final Long entrepriseId;
+        final Map<String, Integer> colonnes;
+        final char separateur;
+        final Map<String, Long> categories;
+        final Map<String, Long> existants;
+        final Set<String> codesDuFichier = new HashSet<>();
+        final List<Long> idsMisAJour = new ArrayList<>();
+        final ArticleImportReportDTO rapport = new ArticleImportReportDTO();
+
+        Import(Long entrepriseId, Map<String, Integer> colonnes, char separateur,
+               Map<String, Long> categories, Map<String, Long> existants) {
+            this.entrepriseId = entrepriseId;
+            this.colonnes = colonnes;
+            this.separateur = separateur;
+            this.categories = categories;
+            this.existants = existants;
+        }
+
+        void rejeter(ArticleImportErrorDTO erreur) {
+            rapport.setRejetees(rapport.getRejetees() + 1);
+            if (rapport.getErreurs().size() < MAX_ERREURS) {
+                rapport.getErreurs().add(erreur);
+            }
+        }
+    }
+
+    @Override
+    public ArticleImportReportDTO importCsv(Long entrepriseId, MultipartFile file) {
+        if (file == null || file.isEmpty()) {
+            throw new APIException("Le fichier d'import est vide");
+        }
+        if (!entrepriseRepository.existsById(entrepriseId)) {
+            throw new ResourceNotFoundException("Entreprise", "id", entrepriseId);
+        }
+        // Deux imports simultanés créeraient chacun les mêmes codes
+        if (!importsEnCours.add(entrepriseId)) {
+            throw new InvalidOperationException("Un import d'articles est déjà en cours pour cette entreprise");
+        }
+
+        long debut = System.nanoTime();
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(file.getInputStream(), StandardCharsets.UTF_8), 64 * 1024)) {
+            char separateur = detecterSeparateur(reader);
+            CsvReader csv = new CsvReader(reader, separateur);
+            Import courant = new Import(entrepriseId, lireEnTete(csv.next()), separateur,
+                    chargerCategories(entrepriseId), chargerCodesExistants(entrepriseId));
+
+            List<Ligne> lot = new ArrayList<>(batchSize);
+            List<String> valeurs;
+            while ((valeurs = csv.next()) != null) {
+                if (valeurs.size() == 1 && valeurs.get(0).isBlank()) {
+                    continue;
+                }
+                lot.add(new Ligne(csv.getLigneEnregistrement(), valeurs));
+                if (lot.size() == batchSize) {
+                    traiterLot(courant, lot);
+                    lot = new ArrayList<>(batchSize);
+                }
+            }
+            if (!lot.isEmpty()) {
+                traiterLot(courant, lot);
+            }
+
+            ArticleImportReportDTO rapport = courant.rapport;
+            rapport.setDureeMs((System.nanoTime() - debut) / 1_000_000);
+            if (rapport.getCrees() + rapport.getMisAJour() > 0) {
+                rafraichirProjections(courant.idsMisAJour);
+            }
+
+            log.info("📥 Import d'articles pour l'entreprise {} : {} ligne(s), {} créé(s), {} mis à jour, {} rejetée(s) en {} ms",
+                    entrepriseId, rapport.getLignesLues(), rapport.getCrees(), rapport.getMisAJour(),
+                    rapport.getRejetees(), rapport.getDureeMs());
+            return rapport;
+        } catch (IOException e) {
+            throw new APIException("Lecture du fichier d'import impossible : " + e.getMessage());
+        } finally {
+            importsEnCours.remove(entrepriseId);
+        }
+    }
+
+    private void traiterLot(Import courant, List<Ligne> lot) {
+        courant.rapport.setLignesLues(courant.rapport.getLignesLues() + lot.size());
+
+        // La validation ne dépend que de données en lecture seule : elle peut être parallélisée
+        List<Resultat> resultats = lot.parallelStream().map(ligne -> valider(courant, ligne)).toList();
+
+        List<ArticleImporte> aCreer = new ArrayList<>();
+        List<ArticleImporte> aMettreAJour = new ArrayList<>();
+        List<Long> ids = new ArrayList<>();
+        for (Resultat resultat : resultats) {
+            ArticleImporte article = resultat.article();
+            if (article == null) {
+                courant.rejeter(resultat.erreur());
+                continue;
+            }
+            String cle = ArticleCodeCache.normaliser(article.code());
+            Long existant = courant.existants.get(cle);
+            if (!courant.codesDuFichier.add(cle)) {
+                courant.rejeter(new ArticleImportErrorDTO(article.numero(), article.code(),
+                        "Code article présent plusieurs fois dans le fichier"));
+            } else if (existant != null) {
+                aMettreAJour.add(article);
+                ids.add(existant);
+            } else {
+                aCreer.add(article);
+            }
+        }
+
+        try {
+            Timestamp maintenant = Timestamp.valueOf(LocalDateTime.now());
+            transactionTemplate.executeWithoutResult(status -> {
+                if (!aCreer.isEmpty()) {
+                    jdbcTemplate.batchUpdate(INSERT_SQL, aCreer, aCreer.size(), (ps, a) -> {
+                        ps.setString(1, a.code());
+                        ps.setString(2, a.designation());
+                        ps.setLong(3, a.quantite());
+                        ps.setBigDecimal(4, a.prixHt());
+                        ps.setBigDecimal(5, a.tauxTva());
+                        ps.setBigDecimal(6, a.prixTtc());
+                        ps.setLong(7, a.categoryId());
+                        ps.setLong(8, courant.entrepriseId);
+                        ps.setTimestamp(9, maintenant);
+                        ps.setTimestamp(10, maintenant);
+                    });
+                }
+                if (!aMettreAJour.isEmpty()) {
+                    Iterator<Long> id = ids.iterator();
+                    jdbcTemplate.batchUpdate(UPDATE_SQL, aMettreAJour, aMettreAJour.size(), (ps, a) -> {
+                        ps.setString(1, a.designation());
+                        ps.setBigDecimal(2, a.prixHt());
+                        ps.setBigDecimal(3, a.tauxTva());
+                        ps.setBigDecimal(4, a.prixTtc());
+                        ps.setLong(5, a.categoryId());
+                        ps.setTimestamp(6, maintenant);
+                        ps.setLong(7, id.next());
+                    });
+                }
+            });
+        } catch (DataAccessException e) {
+            String message = "Lot refusé par la base de données : " + e.getMostSpecificCause().getMessage();
+            log.warn("Import d'articles, lignes {} à {} : {}", lot.get(0).numero(), lot.get(lot.size() - 1).numero(), message);
+            for (ArticleImporte article : aCreer) {
+                courant.codesDuFichier.remove(ArticleCodeCache.normaliser(article.code()));
+                courant.rejeter(new ArticleImportErrorDTO(article.numero(), article.code(), message));
+            }
+            for (ArticleImporte article : aMettreAJour) {
+                courant.codesDuFichier.remove(ArticleCodeCache.normaliser(article.code()));
+                courant.rejeter(new ArticleImportErrorDTO(article.numero(), article.code(), message));
+            }
+            return;
+        }
+
+        courant.rapport.setCrees(courant.rapport.getCrees() + aCreer.size());
+        courant.rapport.setMisAJour(courant.rapport.getMisAJour() + aMettreAJour.size());
+        courant.idsMisAJour.addAll(ids);
+    }
+
+    /**
+     * Mêmes règles que l'entité {@code Article} : code de 4 à 50 caractères, désignation de 4 à 100,
+     * prix HT strictement positif, TVA positive ou nulle, catégorie connue de l'entreprise.
+     */
+    private Resultat valider(Import courant, Ligne ligne) {
+        String code = valeur(courant, ligne, "codearticle");
+        try {
+            if (code == null || code.length() < 4 || code.length() > 50) {
+                throw new IllegalArgumentException("Le code article doit etre entre 4 et 50 caractères");
+            }
+            String designation = valeur(courant, ligne, "designation");
+            if (designation == null || designation.length() < 4 || designation.length() > 100) {
+                throw new IllegalArgumentException("La désignation doit etre entre 4 et 100 caractères");
+            }
+
+            BigDecimal prixHt = decimal(courant, ligne, "prixunitaireht");
+            if (prixHt == null || prixHt.signum() <= 0) {
+                throw new IllegalArgumentException("Le prix HT est obligatoire et doit être strictement positif");
+            }
+            BigDecimal tauxTva = decimal(courant, ligne, "tauxtva");
+            if (tauxTva == null || tauxTva.signum() < 0) {
+                throw new IllegalArgumentException("Le taux de TVA est obligatoire et ne peut pas être négatif");
+            }
+
+            BigDecimal quantite = decimal(courant, ligne, "quantiteenstock");
+            if (quantite != null && (quantite.signum() < 0 || quantite.stripTrailingZeros().scale() > 0)) {
+                throw new IllegalArgumentException("La quantité en stock doit être un entier positif");
+            }
+
+            String categorie = valeur(courant, ligne, "categorie");
+            Long categoryId = categorie == null ? null : courant.categories.get(categorie.toLowerCase(Locale.ROOT));
+            if (categoryId == null) {
+                throw new IllegalArgumentException("Catégorie inconnue : " + categorie);
+            }
+
+            BigDecimal prixTtc = PrixCalculator.prixTtc(prixHt, tauxTva);
+            return new Resultat(new ArticleImporte(ligne.numero(), code, designation,
+                    quantite == null ? 0L : quantite.longValueExact(), prixHt, tauxTva, prixTtc, categoryId), null);
+        } catch (IllegalArgumentException | ArithmeticException e) {
+            return new Resultat(null, new ArticleImportErrorDTO(ligne.numero(), code, e.getMessage()));
+        }
+    }
+
+    private String valeur(Import courant, Ligne ligne, String colonne) {
+        Integer index = courant.colonnes.get(colonne);
+        if (index == null || index >= ligne.valeurs().size()) {
+            return null;
+        }
+        String valeur = ligne.valeurs().get(index).trim();
+        return valeur.isEmpty() ? null : valeur;
+    }
+
+    private BigDecimal decimal(Import courant, Ligne ligne, String colonne) {
+        String valeur = valeur(courant, ligne, colonne);
+        if (valeur == null) {
+            return null;
+        }
+        // Export tableur français : "1 234,50" avec le séparateur ';'
+        String normalisee = valeur.replace(" ", "").replace("\u00A0", "");
+        if (courant.separateur == ';') {
+            normalisee = normalisee.replace(',', '.');
+        }
+        try {
+            return new BigDecimal(normalisee);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Valeur numérique invalide pour " + colonne + " : " + valeur);
+        }
+    }
+
+    private char detecterSeparateur(BufferedReader reader) throws IOException {
+        reader.mark(64 * 1024);
+        String premiereLigne = reader.readLine();
+        reader.reset();
+        if (premiereLigne == null) {
+            throw new APIException("Le fichier d'import est vide");
+        }
+        long pointsVirgules = premiereLigne.chars().filter(c -> c == ';').count();
+        long virgules = premiereLigne.chars().filter(c -> c == ',').count();
+        return pointsVirgules > virgules ? ';' : ',';
+    }
+
+    private Map<String, Integer> lireEnTete(List<String> enTete) {
+        if (enTete == null) {
+            throw new APIException("Le fichier d'import est vide");
+        }
+        Map<String, Integer> colonnes = new HashMap<>();
+        for (int i = 0; i < enTete.size(); i++) {
+            String nom = enTete.get(i).replace("\uFEFF", "").trim().toLowerCase(Locale.ROOT);
+            colonnes.putIfAbsent(nom, i);
+        }
+        List<String> manquantes = COLONNES_OBLIGATOIRES.stream().filter(c -> !colonnes.containsKey(c)).toList();
+        if (!manquantes.isEmpty()) {
+            throw new APIException("Colonnes obligatoires absentes de l'en-tête : " + manquantes
+                    + " (colonnes reconnues : codeArticle, designation, prixUnitaireHt, tauxTva, quantiteEnStock, categorie)");
+        }
+        return colonnes;
+    }
+
+    // Une catégorie se désigne par son identifiant, son code ou sa désignation (casse ignorée)
+    private Map<String, Long> chargerCategories(Long entrepriseId) {
+        Map<String, Long> categories = new HashMap<>();
+        for (Object[] row : categoryRepository.findReferencesForEntreprise(entrepriseId)) {
+            Long id = (Long) row[0];
+            categories.put(String.valueOf(id), id);
+            if (row[1] != null) {
+                categories.putIfAbsent(((String) row[1]).trim().toLowerCase(Locale.ROOT), id);
+            }
+            if (row[2] != null) {
+                categories.putIfAbsent(((String) row[2]).trim().toLowerCase(Locale.ROOT), id);
+            }
+        }
+        return categories;
+    }
+
+    private Map<String, Long> chargerCodesExistants(Long entrepriseId) {
+        Map<String, Long> existants = new HashMap<>();
+        jdbcTemplate.query("SELECT code_article, id FROM article WHERE entreprise_id = ? AND deleted_at IS NULL",
+                rs -> {
+                    existants.putIfAbsent(ArticleCodeCache.normaliser(rs.getString(1)), rs.getLong(2));
+                }, entrepriseId);
+        return existants;
+    }
+
+    /**
+     * Les écritures JDBC ne publient pas d'événement par article : les projections en mémoire sont
+     * reconstruites une seule fois en fin d'import, ce qui coûte moins cher que des milliers de
+     * rafraîchissements unitaires.
+     */
+    private void rafraichirProjections(List<Long> idsMisAJour) {
+        articleCodeCache.invalidate(idsMisAJour);
+        catalogVersions.invaliderArticles();
+        try {
+            atpService.rebuild();
+            articleSuggestService.rebuild();
+            categoryTreeService.rebuild();
+        } catch (RuntimeException e) {
+            // La reconstruction périodique rattrapera l'écart
+            log.warn("Reconstruction des projections après import impossible : {}", e.getMessage());
+        }
+    }
+}
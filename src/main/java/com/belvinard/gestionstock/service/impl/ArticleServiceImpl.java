@@ -1,27 +1,52 @@
 package com.belvinard.gestionstock.service.impl;
 
+import com.belvinard.gestionstock.cache.ArticleCodeCache;
 import com.belvinard.gestionstock.dto.ArticleDTO;
 import com.belvinard.gestionstock.dto.CategoryDTO;
 import com.belvinard.gestionstock.dto.EntrepriseDTO;
 import com.belvinard.gestionstock.dto.LigneCommandeClientDTO;
+import com.belvinard.gestionstock.dto.PageQuery;
+import com.belvinard.gestionstock.events.ArticleChangedEvent;
+import com.belvinard.gestionstock.events.StockChangedEvent;
 import com.belvinard.gestionstock.exceptions.APIException;
 import com.belvinard.gestionstock.exceptions.DuplicateEntityException;
 import com.belvinard.gestionstock.exceptions.ResourceNotFoundException;
+import com.belvinard.gestionstock.images.ImageVariant;
 import com.belvinard.gestionstock.models.Article;
 import com.belvinard.gestionstock.models.Category;
 import com.belvinard.gestionstock.models.Entreprise;
 import com.belvinard.gestionstock.models.LigneCommandeClient;
+import com.belvinard.gestionstock.pricing.PrixCalculator;
 import com.belvinard.gestionstock.repositories.*;
+import com.belvinard.gestionstock.responses.PageResponse;
 import com.belvinard.gestionstock.service.ArticleService;
+import com.belvinard.gestionstock.service.ContentStoreService;
+import com.belvinard.gestionstock.service.ImageVariantService;
 import com.belvinard.gestionstock.service.MinioService;
+import com.belvinard.gestionstock.storage.StoredObject;
 import lombok.RequiredArgsConstructor;
 import org.modelmapper.ModelMapper;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
-import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 @Service
@@ -33,8 +58,19 @@ public class ArticleServiceImpl implements ArticleService {
     private final CategoryRepository categoryRepository;
     private final ModelMapper modelMapper;
     private final LigneCommandeClientRepository ligneCommandeClientRepository;
+    private final LigneCommandeFournisseurRepository ligneCommandeFournisseurRepository;
+    private final LigneVenteRepository ligneVenteRepository;
+    private final MvtStkRepository mvtStkRepository;
+    private final ReservationStockRepository reservationStockRepository;
     private final MinioService minioService;
-    //private final LigneVenteRepository ligneVenteRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ArticleCodeCache articleCodeCache;
+    private final ImageVariantService imageVariantService;
+    private final ContentStoreService contentStoreService;
+
+    private static final Set<String> CHAMPS_TRIABLES = Set.of(
+            "id", "codeArticle", "designation", "prixUnitaireHt", "quantiteEnStock", "creationDate", "lastModifiedDate");
+    private static final Pattern NON_ALPHANUMERIQUE = Pattern.compile("[^\\p{L}\\p{N}]+");
 
     @Override
     public ArticleDTO createArticle(Long entrepriseId, ArticleDTO articleDTO) {
@@ -44,13 +80,13 @@ public class ArticleServiceImpl implements ArticleService {
             throw new IllegalArgumentException("EntrepriseId et categoryId sont obligatoires");
         }
 
-        List<Article> existingArticles = articleRepository.findByCodeArticleAndEntrepriseId(
-                articleDTO.getCodeArticle(), entrepriseId
+        // Même comparaison que la recherche par code : "ABC" et "abc" désignent le même article
+        List<Article> existingArticles = articleRepository.findByEntrepriseIdAndCodeNormalise(
+                entrepriseId, ArticleCodeCache.normaliser(articleDTO.getCodeArticle())
         );
 
         if (!existingArticles.isEmpty()) {
-            throw new DuplicateEntityException("Article avec le code '" + articleDTO.getCodeArticle()
-                    + "' existe déjà pour cette entreprise.");
+            throw articleEnDouble(articleDTO.getCodeArticle());
         }
 
         Entreprise entreprise = entrepriseRepository.findById(entrepriseId)
@@ -65,17 +101,20 @@ public class ArticleServiceImpl implements ArticleService {
             article.setQuantiteEnStock(0L);
         }
 
-        if (article.getPrixUnitaireHt() != null && article.getTauxTva() != null) {
-            BigDecimal ttc = article.getPrixUnitaireHt()
-                    .add(article.getPrixUnitaireHt()
-                            .multiply(article.getTauxTva().divide(BigDecimal.valueOf(100))));
-            article.setPrixUnitaireTtc(ttc);
-        }
+        article.setPrixUnitaireTtc(PrixCalculator.prixTtc(article.getPrixUnitaireHt(), article.getTauxTva()));
 
         article.setEntreprise(entreprise);
         article.setCategory(category);
 
-        Article articleSaved = articleRepository.save(article);
+        Article articleSaved;
+        try {
+            articleSaved = articleRepository.save(article);
+        } catch (DataIntegrityViolationException e) {
+            // Création concurrente du même code : refusée par l'index unique (entreprise_id, lower(code_article))
+            throw articleEnDouble(articleDTO.getCodeArticle());
+        }
+        eventPublisher.publishEvent(StockChangedEvent.of(articleSaved.getId()));
+        eventPublisher.publishEvent(ArticleChangedEvent.of(articleSaved.getId()));
 
         ArticleDTO responseDTO = modelMapper.map(articleSaved, ArticleDTO.class);
         responseDTO.setCategoryId(articleSaved.getCategory().getId());
@@ -86,27 +125,104 @@ public class ArticleServiceImpl implements ArticleService {
         return responseDTO;
     }
 
+    private static DuplicateEntityException articleEnDouble(String codeArticle) {
+        return new DuplicateEntityException("Article avec le code '" + codeArticle
+                + "' existe déjà pour cette entreprise.");
+    }
+
 
     /* ================== GET ALL ARTICLES ================== */
     @Override
-    public List<ArticleDTO> getAllArticles() {
-        List<Article> articles = articleRepository.findAll();
+    public PageResponse<ArticleDTO> getAllArticles(PageQuery pageQuery) {
+        Pageable pageable = pageQuery.toPageable(CHAMPS_TRIABLES, Sort.by("designation"));
+        Slice<Article> articles = pageQuery.isWithTotal()
+                ? articleRepository.findAll(pageable)
+                : articleRepository.findAllBy(pageable);
+
+        PageResponse<ArticleDTO> page = PageResponse.of(articles, this::toListItemDTO);
+        ajouterVariantes(page.getContent());
+        return page;
+    }
 
-        return articles.stream().map(article -> {
-            ArticleDTO createdArticleDTO = modelMapper.map(article, ArticleDTO.class);
 
-            if (article.getEntreprise() != null) {
-                createdArticleDTO.setEntrepriseId(article.getEntreprise().getId());
-                createdArticleDTO.setEntrepriseName(article.getEntreprise().getNom());
-            }
+    /* ================== SEARCH ARTICLES ================== */
+    @Override
+    public PageResponse<ArticleDTO> searchArticles(Long entrepriseId, String terme, PageQuery pageQuery) {
+        if (entrepriseId == null) {
+            throw new APIException("L'identifiant de l'entreprise est obligatoire pour la recherche");
+        }
 
-            if (article.getCategory() != null) {
-                createdArticleDTO.setCategoryId(article.getCategory().getId());
-                createdArticleDTO.setCategoryDesignation(article.getCategory().getDesignation());
+        String normalise = terme == null ? "" : terme.trim().toLowerCase(Locale.ROOT);
+        // Chaque mot devient un préfixe ("lait ecr" -> "lait:* & ecr:*") ; seuls lettres et chiffres
+        // sont conservés, ce qui écarte toute syntaxe tsquery venant de la saisie
+        String tsQuery = Arrays.stream(NON_ALPHANUMERIQUE.split(normalise))
+                .filter(mot -> !mot.isEmpty())
+                .map(mot -> mot + ":*")
+                .collect(Collectors.joining(" & "));
+        if (tsQuery.isEmpty()) {
+            throw new APIException("Le terme de recherche doit contenir au moins une lettre ou un chiffre");
+        }
+
+        Pageable pageable = PageRequest.of(pageQuery.getPage(), Math.min(pageQuery.getSize(), PageQuery.MAX_SIZE));
+        String motif = normalise.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+
+        // Une ligne de plus que la page demandée indique s'il existe une page suivante
+        List<Object[]> resultats = articleRepository.searchRanked(entrepriseId, normalise, tsQuery,
+                motif + "%", "%" + motif + "%", pageable.getPageSize() + 1, pageable.getOffset());
+        boolean hasNext = resultats.size() > pageable.getPageSize();
+        List<Long> ids = resultats.stream()
+                .limit(pageable.getPageSize())
+                .map(ligne -> ((Number) ligne[0]).longValue())
+                .toList();
+
+        // Rechargement des entités puis remise dans l'ordre du classement
+        Map<Long, Article> parId = articleRepository.findAllByIdIn(ids).stream()
+                .collect(Collectors.toMap(Article::getId, Function.identity()));
+        List<Article> classes = ids.stream().map(parId::get).filter(Objects::nonNull).toList();
+
+        PageResponse<ArticleDTO> page = PageResponse.of(new SliceImpl<>(classes, pageable, hasNext), this::toListItemDTO);
+        ajouterVariantes(page.getContent());
+        return page;
+    }
+
+    private ArticleDTO toListItemDTO(Article article) {
+        ArticleDTO createdArticleDTO = modelMapper.map(article, ArticleDTO.class);
+
+        if (article.getEntreprise() != null) {
+            createdArticleDTO.setEntrepriseId(article.getEntreprise().getId());
+            createdArticleDTO.setEntrepriseName(article.getEntreprise().getNom());
+        }
+
+        if (article.getCategory() != null) {
+            createdArticleDTO.setCategoryId(article.getCategory().getId());
+            createdArticleDTO.setCategoryDesignation(article.getCategory().getDesignation());
+        }
+
+        return createdArticleDTO;
+    }
+
+    private void ajouterVariantes(ArticleDTO dto, String photo) {
+        if (photo != null && !photo.isBlank()) {
+            dto.setImageVariants(parNom(imageVariantService.urls(photo)));
+        }
+    }
+
+    // Pages de liste : les URL de tous les articles sont obtenues en un appel (photo = nom d'objet)
+    private void ajouterVariantes(List<ArticleDTO> dtos) {
+        Map<String, Map<ImageVariant, String>> urls = imageVariantService.urls(
+                dtos.stream().map(ArticleDTO::getPhoto).toList());
+        for (ArticleDTO dto : dtos) {
+            Map<ImageVariant, String> variantes = dto.getPhoto() != null ? urls.get(dto.getPhoto()) : null;
+            if (variantes != null) {
+                dto.setImageVariants(parNom(variantes));
             }
+        }
+    }
 
-            return createdArticleDTO;
-        }).collect(Collectors.toList());
+    private static Map<String, String> parNom(Map<ImageVariant, String> variantes) {
+        Map<String, String> urls = new LinkedHashMap<>();
+        variantes.forEach((variante, url) -> urls.put(variante.nom(), url));
+        return urls;
     }
 
 
@@ -125,6 +241,7 @@ public class ArticleServiceImpl implements ArticleService {
 
         dto.setEntrepriseId(article.getEntreprise().getId());
         dto.setEntrepriseName(article.getEntreprise().getNom()); // ✅
+        ajouterVariantes(dto, article.getPhoto());
 
         return dto;
     }
@@ -133,33 +250,43 @@ public class ArticleServiceImpl implements ArticleService {
     /* ================== FIND ARTICLE BY CODE ================== */
 
     @Override
-    public ArticleDTO findByCodeArticle(String codeArticle) {
-        // Vérifie si l'article existe avec le code fourni
-        Article article = articleRepository.findByCodeArticleIgnoreCase(codeArticle)
-                .orElseThrow(() -> new ResourceNotFoundException("Article", "codeArticle", codeArticle));
-
-        // Mapping vers le DTO
-        ArticleDTO dto = modelMapper.map(article, ArticleDTO.class);
+    public ArticleDTO findByCodeArticle(Long entrepriseId, String codeArticle) {
+        if (entrepriseId == null) {
+            throw new APIException("L'identifiant de l'entreprise est obligatoire pour la recherche par code");
+        }
 
-        // Ajout des infos enrichies
-        if (article.getCategory() != null) {
-            dto.setCategoryId(article.getCategory().getId());
-            dto.setCategoryDesignation(article.getCategory().getDesignation());
+        // Servi depuis le cache ; sinon lecture limitée à l'entreprise (jamais l'article d'une autre)
+        return articleCodeCache.get(entrepriseId, codeArticle, () -> {
+            Article article = articleRepository
+                    .findByEntrepriseIdAndCodeNormalise(entrepriseId, ArticleCodeCache.normaliser(codeArticle))
+                    .stream()
+                    .findFirst()
+                    .orElseThrow(() -> new ResourceNotFoundException("Article", "codeArticle", codeArticle));
 
+            // Mapping vers le DTO
+            ArticleDTO dto = modelMapper.map(article, ArticleDTO.class);
 
-        }
+            // Ajout des infos enrichies
+            if (article.getCategory() != null) {
+                dto.setCategoryId(article.getCategory().getId());
+                dto.setCategoryDesignation(article.getCategory().getDesignation());
+            }
 
-        dto.setEntrepriseId(article.getEntreprise().getId());
+            dto.setEntrepriseId(article.getEntreprise().getId());
+            dto.setEntrepriseName(article.getEntreprise().getNom());
+            ajouterVariantes(dto, article.getPhoto());
 
-        return dto;
+            return dto;
+        });
     }
 
     @Override
+    @Transactional
     public ArticleDTO deleteArticle(Long id) {
         Article article = articleRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Article", "id", id));
 
-        checkIfArticleUsedElseThrow(id);
+        checkIfArticleUsedElseThrow(article);
 
         ArticleDTO dto = modelMapper.map(article, ArticleDTO.class);
 
@@ -174,18 +301,43 @@ public class ArticleServiceImpl implements ArticleService {
 
 
         articleRepository.delete(article);
+        contentStoreService.release(article.getPhoto());
+        eventPublisher.publishEvent(StockChangedEvent.of(id));
+        eventPublisher.publishEvent(ArticleChangedEvent.of(id));
 
         return dto;
     }
 
 
-    private void checkIfArticleUsedElseThrow(Long idArticle) {
-        List<LigneCommandeClient> ligneCommandeClients = ligneCommandeClientRepository.findAllByArticleId(idArticle);
-        if (!ligneCommandeClients.isEmpty()) {
+    /**
+     * Un article supprimé logiquement disparaît des lectures : il ne doit plus porter de stock ni
+     * être référencé par l'historique (mouvements, ventes, commandes, réservations).
+     */
+    private void checkIfArticleUsedElseThrow(Article article) {
+        Long idArticle = article.getId();
+        if (article.getQuantiteEnStock() != null && article.getQuantiteEnStock() != 0) {
+            throw new APIException("Impossible de supprimer un article dont le stock n'est pas nul ("
+                    + article.getQuantiteEnStock() + ")");
+        }
+        if (article.getQuantiteReservee() != null && article.getQuantiteReservee() != 0) {
+            throw new APIException("Impossible de supprimer un article dont une quantité est réservée ("
+                    + article.getQuantiteReservee() + ")");
+        }
+        if (ligneCommandeClientRepository.existsByArticleId(idArticle)) {
             throw new APIException("Impossible de supprimer un article déjà utilisé dans des commandes client");
         }
-
-
+        if (ligneCommandeFournisseurRepository.existsByArticleId(idArticle)) {
+            throw new APIException("Impossible de supprimer un article déjà utilisé dans des commandes fournisseur");
+        }
+        if (ligneVenteRepository.existsByArticleId(idArticle)) {
+            throw new APIException("Impossible de supprimer un article déjà utilisé dans des ventes");
+        }
+        if (mvtStkRepository.existsByArticleId(idArticle)) {
+            throw new APIException("Impossible de supprimer un article ayant des mouvements de stock");
+        }
+        if (reservationStockRepository.existsByArticleId(idArticle)) {
+            throw new APIException("Impossible de supprimer un article ayant des réservations de stock");
+        }
     }
 
     /* ================== FIND ARTICLE BY CATEGORY ================== */
@@ -199,13 +351,15 @@ public class ArticleServiceImpl implements ArticleService {
 
         List<Article> articles = articleRepository.findAllByCategoryId(idCategory);
 
-        return articles.stream().map(article -> {
+        List<ArticleDTO> dtos = articles.stream().map(article -> {
             ArticleDTO dto = modelMapper.map(article, ArticleDTO.class);
             dto.setCategoryId(idCategory);
             dto.setCategoryDesignation(article.getCategory().getDesignation());
             dto.setEntrepriseId(article.getEntreprise().getId());
             return dto;
         }).collect(Collectors.toList());
+        ajouterVariantes(dtos);
+        return dtos;
     }
 
     @Override
@@ -214,21 +368,38 @@ public class ArticleServiceImpl implements ArticleService {
         Article articleFromDb = articleRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Article with id " + id + " not found !!"));
 
-        // 2. Uploader l’image sur Minio
-        String fileName = minioService.uploadImage(image);
+        // 2. Uploader l’image sur Minio (contenu déjà présent : réutilisé, ses déclinaisons aussi)
+        StoredObject stored = contentStoreService.store(image);
+        String fileName = stored.objectName();
+        if (!stored.deduplicated()) {
+            // Déclinaisons produites en arrière-plan, sous des clés déduites du nom de l'original
+            imageVariantService.planifier(fileName);
+        }
 
         // 3. Sauvegarder le nom de l’image dans l’entité
+        String anciennePhoto = articleFromDb.getPhoto();
         articleFromDb.setPhoto(fileName);
 
-        // 4. Générer l’URL signée
-        String imageUrl = minioService.getPreSignedUrl(fileName, 15);
-
-        // 5. Sauvegarder l'article modifié
-        Article updatedArticle = articleRepository.save(articleFromDb);
+        String imageUrl;
+        Article updatedArticle;
+        try {
+            // 4. Générer l’URL signée
+            imageUrl = minioService.getPreSignedUrl(fileName);
+
+            // 5. Sauvegarder l'article modifié
+            updatedArticle = articleRepository.save(articleFromDb);
+        } catch (RuntimeException e) {
+            // Article inchangé : la référence prise par cet envoi est rendue
+            contentStoreService.release(fileName);
+            throw e;
+        }
+        contentStoreService.release(anciennePhoto);
+        eventPublisher.publishEvent(ArticleChangedEvent.of(id));
 
         // 6. Mapper en DTO
         ArticleDTO articleDTO = modelMapper.map(updatedArticle, ArticleDTO.class);
         articleDTO.setPhoto(imageUrl);
+        ajouterVariantes(articleDTO, fileName);
 
         return articleDTO;
     }
@@ -247,7 +418,7 @@ public class ArticleServiceImpl implements ArticleService {
         }
 
         // 3. Retourner l’URL signée
-        return minioService.getPreSignedUrl(fileName, 900); // 15 minutes
+        return minioService.getPreSignedUrl(fileName);
     }
 
 
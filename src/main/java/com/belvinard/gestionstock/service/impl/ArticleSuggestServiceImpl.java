@@ -0,0 +1,211 @@
+package com.belvinard.gestionstock.service.impl;
+
+import com.belvinard.gestionstock.dto.ArticleSuggestionDTO;
+import com.belvinard.gestionstock.events.ArticleChangedEvent;
+import com.belvinard.gestionstock.repositories.ArticleRepository;
+import com.belvinard.gestionstock.search.ArticlePrefixIndex;
+import com.belvinard.gestionstock.search.ArticlePrefixIndex.Entree;
+import com.belvinard.gestionstock.service.ArticleSuggestService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Suggestions de saisie (caisse, recherche instantanée) servies depuis un index de préfixes
+ * en mémoire par entreprise, sans aller-retour vers la base.
+ * <p>
+ * Chaque entreprise dispose d'un {@link ArticlePrefixIndex} immuable et d'une petite surcharge
+ * des articles créés, renommés ou supprimés depuis sa construction. Au-delà de
+ * {@code stock.suggest.compaction-threshold} modifications, la surcharge est intégrée dans un
+ * nouvel index. Les lectures ne prennent aucun verrou : elles lisent un {@link Etat} publié
+ * atomiquement. L'index est reconstruit au démarrage puis périodiquement, comme la projection ATP.
+ * <p>
+ * La reconstruction lit la base et construit les index sans bloquer les rafraîchissements : ceux
+ * qui arrivent pendant ce temps sont notés, puis rejoués sur les nouveaux index juste avant leur
+ * publication, seule étape faite sous le verrou d'écriture.
+ */
+@Slf4j
+@Service
+public class ArticleSuggestServiceImpl implements ArticleSuggestService {
+
+    public static final int MAX_LIMIT = 50;
+
+    private final ArticleRepository articleRepository;
+    private final int seuilCompaction;
+
+    private final Map<Long, Catalogue> catalogues = new ConcurrentHashMap<>();
+    // Sérialise les écritures : un rafraîchissement ne peut pas être écrasé par une reconstruction plus ancienne
+    private final Object verrouEcriture = new Object();
+    // Une reconstruction à la fois (périodique, après import)
+    private final Object verrouReconstruction = new Object();
+    // Articles rafraîchis pendant la reconstruction en cours, null hors reconstruction ; sous verrouEcriture
+    private Set<Long> rafraichisPendantReconstruction;
+
+    public ArticleSuggestServiceImpl(ArticleRepository articleRepository,
+                                     @Value("${stock.suggest.compaction-threshold:512}") int seuilCompaction) {
+        this.articleRepository = articleRepository;
+        this.seuilCompaction = seuilCompaction;
+    }
+
+    /**
+     * Index et surcharge publiés ensemble : une lecture ne voit jamais un nouvel index
+     * accompagné d'une surcharge déjà vidée, ni l'inverse.
+     */
+    private record Etat(ArticlePrefixIndex index, Map<Long, Entree> modifies) {
+    }
+
+    private final class Catalogue {
+
+        private volatile Etat etat;
+
+        Catalogue(ArticlePrefixIndex index) {
+            this.etat = new Etat(index, new ConcurrentHashMap<>());
+        }
+
+        List<ArticleSuggestionDTO> suggest(String saisie, int limit) {
+            Etat courant = etat;
+            return courant.index().suggest(saisie, limit, courant.modifies());
+        }
+
+        boolean contient(Long articleId) {
+            Etat courant = etat;
+            return courant.modifies().containsKey(articleId) || courant.index().contient(articleId);
+        }
+
+        // Appelé sous verrouEcriture
+        void appliquer(Long articleId, Entree entree) {
+            Etat courant = etat;
+            courant.modifies().put(articleId, entree);
+            if (courant.modifies().size() > seuilCompaction) {
+                etat = new Etat(courant.index().fusionner(courant.modifies()), new ConcurrentHashMap<>());
+            }
+        }
+    }
+
+    @Override
+    public List<ArticleSuggestionDTO> suggest(Long entrepriseId, String saisie, int limit) {
+        Catalogue catalogue = catalogues.get(entrepriseId);
+        if (catalogue == null) {
+            return List.of();
+        }
+        return catalogue.suggest(saisie, Math.min(Math.max(limit, 1), MAX_LIMIT));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void refresh(Collection<Long> articleIds) {
+        if (articleIds == null || articleIds.isEmpty()) {
+            return;
+        }
+        synchronized (verrouEcriture) {
+            if (rafraichisPendantReconstruction != null) {
+                rafraichisPendantReconstruction.addAll(articleIds);
+            }
+            appliquer(articleIds, catalogues);
+        }
+    }
+
+    // Appelé sous verrouEcriture : relit les articles et les reporte dans les catalogues donnés
+    private void appliquer(Collection<Long> articleIds, Map<Long, Catalogue> cibles) {
+        Set<Long> absents = new HashSet<>(articleIds);
+        for (Object[] row : articleRepository.findSuggestionProjection(absents)) {
+            Long articleId = (Long) row[0];
+            Long entrepriseId = (Long) row[1];
+            absents.remove(articleId);
+            if (entrepriseId != null) {
+                cibles.computeIfAbsent(entrepriseId, id -> new Catalogue(ArticlePrefixIndex.VIDE))
+                        .appliquer(articleId, Entree.of(toSuggestion(row)));
+            }
+        }
+
+        // Articles supprimés : l'entreprise n'est plus connue, chaque catalogue est vérifié
+        for (Long articleId : absents) {
+            for (Catalogue catalogue : cibles.values()) {
+                if (catalogue.contient(articleId)) {
+                    catalogue.appliquer(articleId, Entree.supprime());
+                }
+            }
+        }
+    }
+
+    /**
+     * Met l'index à jour une fois la transaction validée, dans une transaction de lecture distincte.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    @Transactional(propagation = Propagation.REQUIRES_NEW, readOnly = true)
+    public void onArticleChanged(ArticleChangedEvent event) {
+        try {
+            refresh(event.articleIds());
+        } catch (RuntimeException e) {
+            // La reconstruction périodique rattrapera l'écart
+            log.warn("Mise à jour de l'index de suggestions impossible pour {} : {}", event.articleIds(), e.getMessage());
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    @Scheduled(fixedDelayString = "${stock.suggest.rebuild-interval-ms:600000}",
+            initialDelayString = "${stock.suggest.rebuild-interval-ms:600000}")
+    public void rebuild() {
+        synchronized (verrouReconstruction) {
+            long debut = System.nanoTime();
+            synchronized (verrouEcriture) {
+                rafraichisPendantReconstruction = new HashSet<>();
+            }
+            Map<Long, Catalogue> nouveaux = new HashMap<>();
+            int cles = 0;
+            try {
+                Map<Long, List<ArticleSuggestionDTO>> parEntreprise = new HashMap<>();
+                for (Object[] row : articleRepository.findSuggestionProjection()) {
+                    if (row[1] != null) {
+                        parEntreprise.computeIfAbsent((Long) row[1], id -> new ArrayList<>()).add(toSuggestion(row));
+                    }
+                }
+                for (Map.Entry<Long, List<ArticleSuggestionDTO>> entry : parEntreprise.entrySet()) {
+                    ArticlePrefixIndex index = ArticlePrefixIndex.build(entry.getValue());
+                    cles += index.nombreDeCles();
+                    nouveaux.put(entry.getKey(), new Catalogue(index));
+                }
+            } catch (RuntimeException e) {
+                synchronized (verrouEcriture) {
+                    rafraichisPendantReconstruction = null;
+                }
+                throw e;
+            }
+
+            // Seule étape sous le verrou : les rafraîchissements survenus pendant la lecture sont
+            // rejoués, puis les nouveaux index remplacent les anciens
+            synchronized (verrouEcriture) {
+                Set<Long> aRejouer = rafraichisPendantReconstruction;
+                rafraichisPendantReconstruction = null;
+                if (!aRejouer.isEmpty()) {
+                    appliquer(aRejouer, nouveaux);
+                }
+                catalogues.putAll(nouveaux);
+                catalogues.keySet().retainAll(nouveaux.keySet());
+            }
+
+            log.info("Index de suggestions reconstruit : {} entreprise(s), {} mot(s) indexé(s) en {} ms",
+                    nouveaux.size(), cles, (System.nanoTime() - debut) / 1_000_000);
+        }
+    }
+
+    private ArticleSuggestionDTO toSuggestion(Object[] row) {
+        return new ArticleSuggestionDTO((Long) row[0], (String) row[2], (String) row[3]);
+    }
+}
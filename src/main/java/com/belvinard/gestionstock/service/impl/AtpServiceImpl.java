@@ -0,0 +1,198 @@
+package com.belvinard.gestionstock.service.impl;
+
+import com.belvinard.gestionstock.dto.AtpDTO;
+import com.belvinard.gestionstock.events.StockChangedEvent;
+import com.belvinard.gestionstock.exceptions.ResourceNotFoundException;
+import com.belvinard.gestionstock.repositories.ArticleRepository;
+import com.belvinard.gestionstock.repositories.LigneCommandeClientRepository;
+import com.belvinard.gestionstock.repositories.LigneCommandeFournisseurRepository;
+import com.belvinard.gestionstock.service.AtpService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Projection en mémoire du disponible à promettre (ATP) par article.
+ * <p>
+ * Chaque entrée regroupe le stock physique, les réservations, les quantités engagées sur les
+ * commandes clients validées et les quantités attendues des commandes fournisseurs en cours.
+ * Les lectures ne touchent jamais la base : un lot de 1 000 articles se résume à 1 000 accès
+ * à une {@link ConcurrentHashMap}. La projection est rechargée article par article après chaque
+ * transaction qui publie un {@link StockChangedEvent}, et entièrement au démarrage puis
+ * périodiquement pour rattraper les modifications faites hors de l'application.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class AtpServiceImpl implements AtpService {
+
+    private final ArticleRepository articleRepository;
+    private final LigneCommandeClientRepository ligneCommandeClientRepository;
+    private final LigneCommandeFournisseurRepository ligneCommandeFournisseurRepository;
+
+    private final Map<Long, Snapshot> projection = new ConcurrentHashMap<>();
+
+    /**
+     * Photographie d'un article. {@code lueA} (horloge monotone prise avant la lecture en base)
+     * départage une reconstruction complète et un rafraîchissement concurrents : la lecture
+     * la plus récente gagne.
+     */
+    private record Snapshot(Long entrepriseId, long enStock, long reservee, long engagee, long entrante, long lueA) {
+
+        AtpDTO toDto(Long articleId) {
+            long disponible = enStock - reservee - engagee;
+            return new AtpDTO(articleId, entrepriseId, enStock, reservee, engagee, entrante,
+                    disponible, disponible + entrante);
+        }
+    }
+
+    @Override
+    public AtpDTO findByArticleId(Long articleId) {
+        Snapshot snapshot = projection.get(articleId);
+        if (snapshot == null) {
+            // Article créé depuis la dernière reconstruction et pas encore projeté
+            load(List.of(articleId));
+            snapshot = projection.get(articleId);
+        }
+        if (snapshot == null) {
+            throw new ResourceNotFoundException("Article", "id", articleId);
+        }
+        return snapshot.toDto(articleId);
+    }
+
+    @Override
+    public List<AtpDTO> findByArticleIds(Collection<Long> articleIds) {
+        List<AtpDTO> result = new ArrayList<>(articleIds.size());
+        List<Long> absents = null;
+        for (Long articleId : articleIds) {
+            Snapshot snapshot = projection.get(articleId);
+            if (snapshot != null) {
+                result.add(snapshot.toDto(articleId));
+            } else if (articleId != null) {
+                if (absents == null) {
+                    absents = new ArrayList<>();
+                }
+                absents.add(articleId);
+            }
+        }
+
+        if (absents != null) {
+            load(absents);
+            for (Long articleId : absents) {
+                Snapshot snapshot = projection.get(articleId);
+                if (snapshot != null) {
+                    result.add(snapshot.toDto(articleId));
+                }
+            }
+        }
+        return result;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void refresh(Collection<Long> articleIds) {
+        load(articleIds);
+    }
+
+    /**
+     * Rafraîchit les articles touchés une fois la transaction validée, dans une transaction
+     * de lecture distincte (la transaction d'origine n'accepte plus de travail à ce stade).
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    @Transactional(propagation = Propagation.REQUIRES_NEW, readOnly = true)
+    public void onStockChanged(StockChangedEvent event) {
+        try {
+            load(event.articleIds());
+        } catch (RuntimeException e) {
+            // La reconstruction périodique rattrapera l'écart
+            log.warn("Rafraîchissement ATP impossible pour {} : {}", event.articleIds(), e.getMessage());
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    @Scheduled(fixedDelayString = "${stock.atp.rebuild-interval-ms:300000}",
+            initialDelayString = "${stock.atp.rebuild-interval-ms:300000}")
+    public void rebuild() {
+        long debut = System.nanoTime();
+        Map<Long, Snapshot> lus = read(articleRepository.findStockProjection(),
+                ligneCommandeClientRepository.sumQuantiteEngageeParArticle(),
+                ligneCommandeFournisseurRepository.sumQuantiteEntranteParArticle(), debut);
+
+        lus.forEach(this::merge);
+        // Articles supprimés entre-temps, sauf ceux projetés par un rafraîchissement plus récent
+        projection.entrySet().removeIf(e -> !lus.containsKey(e.getKey()) && e.getValue().lueA() < debut);
+
+        log.info("Projection ATP reconstruite : {} article(s) en {} ms", lus.size(),
+                (System.nanoTime() - debut) / 1_000_000);
+    }
+
+    private void load(Collection<Long> articleIds) {
+        if (articleIds == null || articleIds.isEmpty()) {
+            return;
+        }
+        long debut = System.nanoTime();
+        Set<Long> ids = new HashSet<>(articleIds);
+        Map<Long, Snapshot> lus = read(articleRepository.findStockProjection(ids),
+                ligneCommandeClientRepository.sumQuantiteEngageeParArticle(ids),
+                ligneCommandeFournisseurRepository.sumQuantiteEntranteParArticle(ids), debut);
+
+        lus.forEach(this::merge);
+        for (Long articleId : ids) {
+            if (!lus.containsKey(articleId)) {
+                projection.remove(articleId);
+            }
+        }
+    }
+
+    private void merge(Long articleId, Snapshot snapshot) {
+        projection.merge(articleId, snapshot, (actuel, nouveau) -> nouveau.lueA() >= actuel.lueA() ? nouveau : actuel);
+    }
+
+    private Map<Long, Snapshot> read(List<Object[]> stocks, List<Object[]> engagees, List<Object[]> entrantes,
+                                     long lueA) {
+        Map<Long, Long> engageeParArticle = toMap(engagees);
+        Map<Long, Long> entranteParArticle = toMap(entrantes);
+
+        Map<Long, Snapshot> lus = new HashMap<>(stocks.size() * 2);
+        for (Object[] row : stocks) {
+            Long articleId = (Long) row[0];
+            lus.put(articleId, new Snapshot(
+                    (Long) row[1],
+                    toLong(row[2]),
+                    toLong(row[3]),
+                    engageeParArticle.getOrDefault(articleId, 0L),
+                    entranteParArticle.getOrDefault(articleId, 0L),
+                    lueA));
+        }
+        return lus;
+    }
+
+    private Map<Long, Long> toMap(List<Object[]> rows) {
+        Map<Long, Long> map = new HashMap<>(rows.size() * 2);
+        for (Object[] row : rows) {
+            map.put((Long) row[0], toLong(row[1]));
+        }
+        return map;
+    }
+
+    // Quantités stockées en Long ou en BigDecimal selon l'entité (lignes de commande)
+    private long toLong(Object value) {
+        return value instanceof Number number ? number.longValue() : 0L;
+    }
+}
@@ -1,29 +1,52 @@
 package com.belvinard.gestionstock.service.impl;
 
 import com.belvinard.gestionstock.dto.CategoryDTO;
+import com.belvinard.gestionstock.dto.PageQuery;
+import com.belvinard.gestionstock.events.CategoryChangedEvent;
+import com.belvinard.gestionstock.exceptions.APIException;
 import com.belvinard.gestionstock.exceptions.DuplicateEntityException;
+import com.belvinard.gestionstock.exceptions.InvalidOperationException;
 import com.belvinard.gestionstock.exceptions.ResourceNotFoundException;
 import com.belvinard.gestionstock.models.Category;
 import com.belvinard.gestionstock.models.Entreprise;
+import com.belvinard.gestionstock.repositories.ArticleRepository;
 import com.belvinard.gestionstock.repositories.CategoryRepository;
 import com.belvinard.gestionstock.repositories.EntrepriseRepository;
+import com.belvinard.gestionstock.responses.CategoryResponse;
+import com.belvinard.gestionstock.responses.PageResponse;
 import com.belvinard.gestionstock.service.CategoryService;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.modelmapper.ModelMapper;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Objects;
+import java.util.Set;
 import java.util.stream.Collectors;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class CategoryServiceImpl implements CategoryService {
+    private static final Set<String> CHAMPS_TRIABLES = Set.of("id", "code", "designation", "creationDate");
+
     private final CategoryRepository categoryRepository;
 
     private final ModelMapper modelMapper;
     private final EntrepriseRepository entrepriseRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ArticleRepository articleRepository;
 
     @Override
+    @Transactional
     public CategoryDTO addCategory(Long entrepriseId, CategoryDTO categoryDTO) {
         List<Category> existing = categoryRepository.findByCode(categoryDTO.getCode());
 
@@ -34,10 +57,19 @@ public class CategoryServiceImpl implements CategoryService {
         Entreprise entreprise = entrepriseRepository.findById(entrepriseId)
                 .orElseThrow(() -> new ResourceNotFoundException("Entreprise", "id", entrepriseId));
 
+        Category parent = null;
+        if (categoryDTO.getParentId() != null) {
+            parent = findParent(categoryDTO.getParentId(), entrepriseId);
+        }
+
         Category category = modelMapper.map(categoryDTO, Category.class);
         category.setEntreprise(entreprise);
+        category.setParent(parent);
 
         Category savedCategory = categoryRepository.save(category);
+        // Le chemin contient l'identifiant : il n'est connu qu'après l'insertion
+        savedCategory.setChemin(cheminDe(parent) + savedCategory.getId() + "/");
+        eventPublisher.publishEvent(new CategoryChangedEvent(savedCategory.getId()));
 
         Category categoryWithEntreprise = categoryRepository.findByIdWithEntreprise(savedCategory.getId())
                 .orElseThrow(() -> new RuntimeException("La catégorie n'a pas pu être retrouvée après la sauvegarde."));
@@ -45,11 +77,71 @@ public class CategoryServiceImpl implements CategoryService {
         CategoryDTO resultDTO = modelMapper.map(categoryWithEntreprise, CategoryDTO.class);
         resultDTO.setEntrepriseName(categoryWithEntreprise.getEntreprise().getNom());
         resultDTO.setEntrepriseId(categoryWithEntreprise.getEntreprise().getId());
+        resultDTO.setParentId(parent != null ? parent.getId() : null);
 
         return resultDTO;
     }
 
 
+    @Override
+    @Transactional
+    public CategoryDTO move(Long id, Long parentId) {
+        Category category = categoryRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Category", "id", id));
+        Long entrepriseId = category.getEntreprise() != null ? category.getEntreprise().getId() : null;
+
+        String ancienChemin = cheminDe(category);
+        Category parent = null;
+        if (parentId != null) {
+            parent = findParent(parentId, entrepriseId);
+            // Un descendant (ou la catégorie elle-même) ne peut pas devenir parent : l'arbre aurait un cycle
+            if (cheminDe(parent).startsWith(ancienChemin)) {
+                throw new InvalidOperationException("Une catégorie ne peut pas être déplacée sous l'un de ses descendants");
+            }
+        }
+
+        category.setParent(parent);
+        categoryRepository.saveAndFlush(category);
+        categoryRepository.deplacerSousArbre(ancienChemin, cheminDe(parent) + id + "/");
+        eventPublisher.publishEvent(new CategoryChangedEvent(id));
+
+        CategoryDTO dto = modelMapper.map(category, CategoryDTO.class);
+        dto.setEntrepriseId(entrepriseId);
+        dto.setParentId(parentId);
+        return dto;
+    }
+
+    /**
+     * Les catégories créées avant l'arborescence deviennent des racines.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void initialiserChemins() {
+        int initialisees = categoryRepository.initialiserCheminsRacines();
+        if (initialisees > 0) {
+            log.info("Chemins de {} catégorie(s) racine initialisés", initialisees);
+        }
+    }
+
+    private Category findParent(Long parentId, Long entrepriseId) {
+        Category parent = categoryRepository.findById(parentId)
+                .orElseThrow(() -> new ResourceNotFoundException("Category", "id", parentId));
+        Long entrepriseParent = parent.getEntreprise() != null ? parent.getEntreprise().getId() : null;
+        if (!Objects.equals(entrepriseParent, entrepriseId)) {
+            throw new APIException("La catégorie parente doit appartenir à la même entreprise");
+        }
+        return parent;
+    }
+
+    // Chemin d'une catégorie (racine implicite pour null), recalculé si la colonne n'est pas encore renseignée
+    private String cheminDe(Category category) {
+        if (category == null) {
+            return "/";
+        }
+        return category.getChemin() != null ? category.getChemin() : "/" + category.getId() + "/";
+    }
+
+
     @Override
     public CategoryDTO findByCode(String code) {
         Category category = categoryRepository.findByCodeIgnoreCase(code)
@@ -86,10 +178,14 @@ public class CategoryServiceImpl implements CategoryService {
 
 
     @Override
-    public List<CategoryDTO> getAllCategoriesWithEntreprise() {
-        List<Category> categories = categoryRepository.findAllWithEntreprise();
-
-        return categories.stream().map(category -> {
+    @Transactional(readOnly = true)
+    public CategoryResponse getAllCategoriesWithEntreprise(PageQuery pageQuery) {
+        Pageable pageable = pageQuery.toPageable(CHAMPS_TRIABLES, Sort.by("designation"));
+        Slice<Category> categories = pageQuery.isWithTotal()
+                ? categoryRepository.findAllWithEntreprise(pageable)
+                : categoryRepository.findSliceWithEntreprise(pageable);
+
+        return PageResponse.fill(new CategoryResponse(), categories, category -> {
             CategoryDTO categoryFromDB = modelMapper.map(category, CategoryDTO.class);
 
             if (category.getEntreprise() != null) {
@@ -97,11 +193,12 @@ public class CategoryServiceImpl implements CategoryService {
             }
 
             return categoryFromDB ;
-        }).collect(Collectors.toList());
+        });
     }
 
 
     @Override
+    @Transactional
     public CategoryDTO delete(Long id) {
         Category category = categoryRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Category", "not found with id", id));
@@ -113,7 +210,16 @@ public class CategoryServiceImpl implements CategoryService {
             deletedCategory .setEntrepriseId(category.getEntreprise().getId());
         }
 
+        if (categoryRepository.existsByParentId(id)) {
+            throw new InvalidOperationException("Impossible de supprimer une catégorie qui contient des sous-catégories");
+        }
+        // La suppression logique ne bute plus sur la clé étrangère : la règle est vérifiée ici
+        if (articleRepository.existsByCategoryId(id)) {
+            throw new InvalidOperationException("Impossible de supprimer une catégorie qui contient des articles");
+        }
+
         categoryRepository.delete(category);
+        eventPublisher.publishEvent(new CategoryChangedEvent(id));
 
         return deletedCategory;
     }
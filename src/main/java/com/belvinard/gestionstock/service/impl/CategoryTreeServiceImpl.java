@@ -0,0 +1,257 @@
+package com.belvinard.gestionstock.service.impl;
+
+import com.belvinard.gestionstock.dto.CategoryTreeDTO;
+import com.belvinard.gestionstock.events.ArticleChangedEvent;
+import com.belvinard.gestionstock.events.CategoryChangedEvent;
+import com.belvinard.gestionstock.events.PrixArticlesChangedEvent;
+import com.belvinard.gestionstock.events.StockChangedEvent;
+import com.belvinard.gestionstock.exceptions.ResourceNotFoundException;
+import com.belvinard.gestionstock.repositories.ArticleRepository;
+import com.belvinard.gestionstock.repositories.CategoryRepository;
+import com.belvinard.gestionstock.repositories.EntrepriseRepository;
+import com.belvinard.gestionstock.service.CategoryTreeService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Arborescence des catégories et agrégats de stock par catégorie, tenus en mémoire.
+ * <p>
+ * La contribution de chaque article (catégorie, unités, valeur HT en centimes) est mémorisée :
+ * après un {@link StockChangedEvent} ou un {@link ArticleChangedEvent}, seuls les articles touchés
+ * sont relus et l'écart avec leur contribution précédente est reporté sur l'agrégat de leur
+ * catégorie. L'arbre est assemblé à la demande à partir de ces agrégats directs, sans requête.
+ * Comme la projection ATP, l'ensemble est reconstruit au démarrage puis périodiquement.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CategoryTreeServiceImpl implements CategoryTreeService {
+
+    private final CategoryRepository categoryRepository;
+    private final ArticleRepository articleRepository;
+    private final EntrepriseRepository entrepriseRepository;
+
+    private volatile Map<Long, Noeud> categories = Map.of();
+    private final Map<Long, Agregat> agregats = new ConcurrentHashMap<>();
+    // Écrite uniquement sous verrouEcriture
+    private final Map<Long, Contribution> contributions = new HashMap<>();
+    private final Object verrouEcriture = new Object();
+
+    private record Noeud(Long id, Long entrepriseId, Long parentId, String code, String designation) {
+    }
+
+    private record Contribution(Long categoryId, long stock, long valeurCentimes) {
+    }
+
+    private record Agregat(long articles, long stock, long valeurCentimes) {
+
+        static final Agregat VIDE = new Agregat(0, 0, 0);
+
+        Agregat plus(Contribution c, int signe) {
+            return new Agregat(articles + signe, stock + signe * c.stock(), valeurCentimes + signe * c.valeurCentimes());
+        }
+    }
+
+    @Override
+    public List<CategoryTreeDTO> getTree(Long entrepriseId) {
+        if (!entrepriseRepository.existsById(entrepriseId)) {
+            throw new ResourceNotFoundException("Entreprise", "id", entrepriseId);
+        }
+
+        Map<Long, CategoryTreeDTO> noeuds = new LinkedHashMap<>();
+        for (Noeud noeud : categories.values()) {
+            if (entrepriseId.equals(noeud.entrepriseId())) {
+                CategoryTreeDTO dto = new CategoryTreeDTO();
+                dto.setId(noeud.id());
+                dto.setCode(noeud.code());
+                dto.setDesignation(noeud.designation());
+                dto.setParentId(noeud.parentId());
+                noeuds.put(noeud.id(), dto);
+            }
+        }
+
+        List<CategoryTreeDTO> racines = new ArrayList<>();
+        for (CategoryTreeDTO dto : noeuds.values()) {
+            CategoryTreeDTO parent = dto.getParentId() != null ? noeuds.get(dto.getParentId()) : null;
+            if (parent != null) {
+                parent.getChildren().add(dto);
+            } else {
+                racines.add(dto);
+            }
+        }
+
+        Comparator<CategoryTreeDTO> parDesignation = Comparator.comparing(CategoryTreeDTO::getDesignation,
+                Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER));
+        for (CategoryTreeDTO racine : racines) {
+            cumuler(racine, parDesignation);
+        }
+        racines.sort(parDesignation);
+        return racines;
+    }
+
+    // Parcours postfixe : les totaux d'un nœud incluent ceux de ses descendants
+    private long[] cumuler(CategoryTreeDTO dto, Comparator<CategoryTreeDTO> ordre) {
+        Agregat direct = agregats.getOrDefault(dto.getId(), Agregat.VIDE);
+        long[] totaux = {direct.articles(), direct.stock(), direct.valeurCentimes()};
+        dto.getChildren().sort(ordre);
+        for (CategoryTreeDTO enfant : dto.getChildren()) {
+            long[] sousTotaux = cumuler(enfant, ordre);
+            totaux[0] += sousTotaux[0];
+            totaux[1] += sousTotaux[1];
+            totaux[2] += sousTotaux[2];
+        }
+        dto.setNombreArticlesDirects(direct.articles());
+        dto.setNombreArticles(totaux[0]);
+        dto.setQuantiteEnStock(totaux[1]);
+        dto.setValeurStockHt(BigDecimal.valueOf(totaux[2], 2));
+        return totaux;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void refresh(Collection<Long> articleIds) {
+        if (articleIds == null || articleIds.isEmpty()) {
+            return;
+        }
+        synchronized (verrouEcriture) {
+            Set<Long> absents = new HashSet<>(articleIds);
+            for (Object[] row : articleRepository.findCategoryContributions(absents)) {
+                Long articleId = (Long) row[0];
+                absents.remove(articleId);
+                appliquer(articleId, contribution(row));
+            }
+            // Articles supprimés : leur contribution est retirée
+            for (Long articleId : absents) {
+                appliquer(articleId, null);
+            }
+        }
+    }
+
+    private void appliquer(Long articleId, Contribution nouvelle) {
+        Contribution ancienne = nouvelle != null
+                ? contributions.put(articleId, nouvelle)
+                : contributions.remove(articleId);
+        if (ancienne != null) {
+            agregats.merge(ancienne.categoryId(), Agregat.VIDE.plus(ancienne, -1),
+                    (a, b) -> a.plus(ancienne, -1));
+        }
+        if (nouvelle != null) {
+            agregats.merge(nouvelle.categoryId(), Agregat.VIDE.plus(nouvelle, 1),
+                    (a, b) -> a.plus(nouvelle, 1));
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    @Transactional(propagation = Propagation.REQUIRES_NEW, readOnly = true)
+    public void onStockChanged(StockChangedEvent event) {
+        refreshQuietly(event.articleIds());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    @Transactional(propagation = Propagation.REQUIRES_NEW, readOnly = true)
+    public void onArticleChanged(ArticleChangedEvent event) {
+        refreshQuietly(event.articleIds());
+    }
+
+    // Les agrégats directs restent valables : seule la structure de l'arbre est relue
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    @Transactional(propagation = Propagation.REQUIRES_NEW, readOnly = true)
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        try {
+            synchronized (verrouEcriture) {
+                categories = chargerCategories();
+            }
+        } catch (RuntimeException e) {
+            log.warn("Rechargement des catégories impossible après modification de {} : {}",
+                    event.categoryId(), e.getMessage());
+        }
+    }
+
+    // Prix changés en masse : les articles concernés ne sont pas connus
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    @Transactional(propagation = Propagation.REQUIRES_NEW, readOnly = true)
+    public void onPrixArticlesChanged(PrixArticlesChangedEvent event) {
+        rebuildQuietly();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    @Scheduled(fixedDelayString = "${stock.category-tree.rebuild-interval-ms:600000}",
+            initialDelayString = "${stock.category-tree.rebuild-interval-ms:600000}")
+    public void rebuild() {
+        synchronized (verrouEcriture) {
+            long debut = System.nanoTime();
+            Map<Long, Noeud> lues = chargerCategories();
+
+            contributions.clear();
+            Map<Long, Agregat> recalcules = new HashMap<>();
+            for (Object[] row : articleRepository.findCategoryContributions()) {
+                Contribution contribution = contribution(row);
+                contributions.put((Long) row[0], contribution);
+                recalcules.merge(contribution.categoryId(), Agregat.VIDE.plus(contribution, 1),
+                        (a, b) -> a.plus(contribution, 1));
+            }
+
+            categories = lues;
+            agregats.putAll(recalcules);
+            agregats.keySet().retainAll(recalcules.keySet());
+
+            log.info("Arborescence des catégories reconstruite : {} catégorie(s), {} article(s) en {} ms",
+                    lues.size(), contributions.size(), (System.nanoTime() - debut) / 1_000_000);
+        }
+    }
+
+    private Map<Long, Noeud> chargerCategories() {
+        Map<Long, Noeud> lues = new HashMap<>();
+        for (Object[] row : categoryRepository.findTreeProjection()) {
+            Long id = (Long) row[0];
+            lues.put(id, new Noeud(id, (Long) row[1], (Long) row[2], (String) row[3], (String) row[4]));
+        }
+        return Map.copyOf(lues);
+    }
+
+    private void refreshQuietly(Collection<Long> articleIds) {
+        try {
+            refresh(articleIds);
+        } catch (RuntimeException e) {
+            // La reconstruction périodique rattrapera l'écart
+            log.warn("Mise à jour des agrégats de catégories impossible pour {} : {}", articleIds, e.getMessage());
+        }
+    }
+
+    private void rebuildQuietly() {
+        try {
+            rebuild();
+        } catch (RuntimeException e) {
+            log.warn("Reconstruction de l'arborescence des catégories impossible : {}", e.getMessage());
+        }
+    }
+
+    private Contribution contribution(Object[] row) {
+        long stock = row[2] instanceof Number n ? n.longValue() : 0L;
+        BigDecimal prixHt = row[3] instanceof BigDecimal p ? p : BigDecimal.ZERO;
+        long valeur = prixHt.multiply(BigDecimal.valueOf(stock))
+                .movePointRight(2)
+                .setScale(0, RoundingMode.HALF_UP)
+                .longValue();
+        return new Contribution((Long) row[1], stock, valeur);
+    }
+}
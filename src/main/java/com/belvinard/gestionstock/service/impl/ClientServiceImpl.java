@@ -1,19 +1,29 @@
 package com.belvinard.gestionstock.service.impl;
 
 import com.belvinard.gestionstock.dto.ClientDTO;
+import com.belvinard.gestionstock.dto.PageQuery;
+import com.belvinard.gestionstock.events.ClientChangedEvent;
 import com.belvinard.gestionstock.exceptions.DuplicateEntityException;
 import com.belvinard.gestionstock.exceptions.ResourceNotFoundException;
 import com.belvinard.gestionstock.models.Client;
 import com.belvinard.gestionstock.models.Entreprise;
 import com.belvinard.gestionstock.repositories.ClientRepository;
+import com.belvinard.gestionstock.repositories.CommandeClientRepository;
 import com.belvinard.gestionstock.repositories.EntrepriseRepository;
+import com.belvinard.gestionstock.responses.PageResponse;
 import com.belvinard.gestionstock.service.ClientService;
 import lombok.RequiredArgsConstructor;
 import org.modelmapper.ModelMapper;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
@@ -23,6 +33,10 @@ public class ClientServiceImpl implements ClientService {
     private final ClientRepository clientRepository;
     private final ModelMapper modelMapper;
     private final EntrepriseRepository entrepriseRepository;
+    private final CommandeClientRepository commandeClientRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private static final Set<String> CHAMPS_TRIABLES = Set.of("id", "nom", "prenom", "mail", "creationDate");
 
     @Override
     public ClientDTO createClient(Long entrepriseId, ClientDTO clientDTO) {
@@ -46,6 +60,7 @@ public class ClientServiceImpl implements ClientService {
         client.setEntreprise(entreprise);
 
         Client savedClient = clientRepository.save(client);
+        eventPublisher.publishEvent(new ClientChangedEvent(savedClient.getId()));
 
         ClientDTO savedDTO = modelMapper.map(savedClient, ClientDTO.class);
         savedDTO.setEntrepriseId(entrepriseId);
@@ -70,33 +85,36 @@ public class ClientServiceImpl implements ClientService {
     }
 
     @Override
-    public List<ClientDTO> getAllClients() {
-        List<Client> clients = clientRepository.findAll();
-
-        return clients.stream()
-                .map(client -> {
-                    ClientDTO clientDTO = modelMapper.map(client, ClientDTO.class);
-
-                    if (client.getEntreprise() != null) {
-                        clientDTO.setEntrepriseId(client.getEntreprise().getId());
-                        clientDTO.setEntrepriseName(client.getEntreprise().getNom());
-                    }
+    public PageResponse<ClientDTO> getAllClients(PageQuery pageQuery) {
+        Pageable pageable = pageQuery.toPageable(CHAMPS_TRIABLES, Sort.by("nom", "prenom"));
+        Slice<Client> clients = pageQuery.isWithTotal()
+                ? clientRepository.findAll(pageable)
+                : clientRepository.findAllBy(pageable);
+
+        return PageResponse.of(clients, client -> {
+            ClientDTO clientDTO = modelMapper.map(client, ClientDTO.class);
+
+            if (client.getEntreprise() != null) {
+                clientDTO.setEntrepriseId(client.getEntreprise().getId());
+                clientDTO.setEntrepriseName(client.getEntreprise().getNom());
+            }
 
-                    return clientDTO;
-                })
-                .collect(Collectors.toList());
+            return clientDTO;
+        });
     }
 
     @Override
+    @Transactional
     public ClientDTO deleteClient(Long id) {
         Client client = clientRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Aucun client trouvé avec l'ID : " + id));
 
-        if (client.getCommandeClients() != null && !client.getCommandeClients().isEmpty()) {
+        if (commandeClientRepository.existsByClientId(id)) {
             throw new IllegalStateException("Impossible de supprimer ce client car il est lié à des commandes.");
         }
 
         clientRepository.delete(client);
+        eventPublisher.publishEvent(new ClientChangedEvent(id));
 
         ClientDTO deletedClientDTO = modelMapper.map(client, ClientDTO.class);
         if (client.getEntreprise() != null) {
@@ -159,6 +177,7 @@ public class ClientServiceImpl implements ClientService {
 
         // Sauvegarder les modifications
         Client updatedClient = clientRepository.save(existingClient);
+        eventPublisher.publishEvent(new ClientChangedEvent(id));
 
         // Mapper vers DTO et retourner
         ClientDTO updatedDTO = modelMapper.map(updatedClient, ClientDTO.class);
@@ -1,7 +1,10 @@
 package com.belvinard.gestionstock.service.impl;
 
+import com.belvinard.gestionstock.concurrency.RetryOnConflict;
 import com.belvinard.gestionstock.dto.CommandeClientDTO;
 import com.belvinard.gestionstock.dto.LigneCommandeClientDTO;
+import com.belvinard.gestionstock.dto.PageQuery;
+import com.belvinard.gestionstock.events.StockChangedEvent;
 import com.belvinard.gestionstock.exceptions.BusinessRuleException;
 import com.belvinard.gestionstock.exceptions.ResourceNotFoundException;
 import com.belvinard.gestionstock.models.Article;
@@ -15,12 +18,18 @@ import com.belvinard.gestionstock.repositories.ClientRepository;
 import com.belvinard.gestionstock.repositories.CommandeClientRepository;
 import com.belvinard.gestionstock.repositories.EntrepriseRepository;
 import com.belvinard.gestionstock.repositories.LigneCommandeClientRepository;
+import com.belvinard.gestionstock.responses.PageResponse;
 import com.belvinard.gestionstock.service.CommandeClientService;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.modelmapper.ModelMapper;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -33,6 +42,9 @@ public class CommandeClientServiceImpl implements CommandeClientService {
     private final LigneCommandeClientRepository ligneCommandeClientRepository;
     private final ArticleRepository articleRepository;
     private final ModelMapper modelMapper;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private static final Set<String> CHAMPS_TRIABLES = Set.of("id", "code", "dateCommande", "etatCommande", "creationDate");
     private static final Logger log = LoggerFactory.getLogger(CommandeClientServiceImpl.class);
 
     @Override
@@ -88,6 +100,8 @@ public class CommandeClientServiceImpl implements CommandeClientService {
     }
 
     @Override
+    @Transactional
+    @RetryOnConflict
     public CommandeClientDTO updateEtatCommande(Long idCommande, EtatCommande etatCommande) {
 
         CommandeClient commande = commandeClientRepository.findById(idCommande)
@@ -102,11 +116,14 @@ public class CommandeClientServiceImpl implements CommandeClientService {
         commande.setEtatCommande(etatCommande);
 
         CommandeClient updatedCommande = commandeClientRepository.save(commande);
+        publishStockChanged(idCommande);
 
         return convertToDTO(updatedCommande);
     }
 
     @Override
+    @Transactional
+    @RetryOnConflict
     public CommandeClientDTO annulerCommande(Long idCommande) {
         CommandeClient commande = commandeClientRepository.findById(idCommande)
                 .orElseThrow(() -> new ResourceNotFoundException("CommandeClient", "id", idCommande));
@@ -142,6 +159,7 @@ public class CommandeClientServiceImpl implements CommandeClientService {
         // Changer l'état vers ANNULEE
         commande.setEtatCommande(EtatCommande.ANNULEE);
         CommandeClient commandeAnnulee = commandeClientRepository.save(commande);
+        publishStockChanged(idCommande);
 
         log.info("Commande {} annulée avec succès", commande.getCode());
 
@@ -165,6 +183,8 @@ public class CommandeClientServiceImpl implements CommandeClientService {
     }
 
     @Override
+    @Transactional
+    @RetryOnConflict
     public CommandeClientDTO deleteCommandeClient(Long id) {
         CommandeClient commande = commandeClientRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Commande client introuvable avec l'ID " + id));
@@ -203,6 +223,9 @@ public class CommandeClientServiceImpl implements CommandeClientService {
             }
         }
 
+        // Lu avant la suppression : les lignes disparaissent avec la commande
+        publishStockChanged(id);
+
         // Supprimer la commande
         commandeClientRepository.delete(commande);
 
@@ -224,10 +247,12 @@ public class CommandeClientServiceImpl implements CommandeClientService {
     }
 
     @Override
-    public List<CommandeClientDTO> findAll() {
-        return commandeClientRepository.findAll().stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+    public PageResponse<CommandeClientDTO> findAll(PageQuery pageQuery) {
+        Pageable pageable = pageQuery.toPageable(CHAMPS_TRIABLES, Sort.by(Sort.Direction.DESC, "dateCommande"));
+        Slice<CommandeClient> commandes = pageQuery.isWithTotal()
+                ? commandeClientRepository.findAll(pageable)
+                : commandeClientRepository.findAllBy(pageable);
+        return PageResponse.of(commandes, this::convertToDTO);
     }
 
     private CommandeClientDTO convertToDTO(CommandeClient commandeClient) {
@@ -313,4 +338,11 @@ public class CommandeClientServiceImpl implements CommandeClientService {
         }
     }
 
-}
\ No newline at end of file
+    // Les quantités engagées des articles de la commande changent avec son état
+    private void publishStockChanged(Long commandeId) {
+        List<Long> articleIds = ligneCommandeClientRepository.findArticleIdsByCommandeClientId(commandeId);
+        if (!articleIds.isEmpty()) {
+            eventPublisher.publishEvent(new StockChangedEvent(articleIds));
+        }
+    }
+}
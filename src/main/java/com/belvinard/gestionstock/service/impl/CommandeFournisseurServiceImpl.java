@@ -1,6 +1,9 @@
 package com.belvinard.gestionstock.service.impl;
 
+import com.belvinard.gestionstock.concurrency.RetryOnConflict;
 import com.belvinard.gestionstock.dto.CommandeFournisseurDTO;
+import com.belvinard.gestionstock.dto.PageQuery;
+import com.belvinard.gestionstock.events.StockChangedEvent;
 import com.belvinard.gestionstock.exceptions.APIException;
 import com.belvinard.gestionstock.exceptions.InvalidEntityException;
 import com.belvinard.gestionstock.exceptions.InvalidOperationException;
@@ -9,14 +12,19 @@ import com.belvinard.gestionstock.models.*;
 import com.belvinard.gestionstock.repositories.*;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import com.belvinard.gestionstock.responses.PageResponse;
 import com.belvinard.gestionstock.service.CommandeFournisseurService;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import org.modelmapper.ModelMapper;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Set;
 
 @Service
 @RequiredArgsConstructor
@@ -28,6 +36,9 @@ public class CommandeFournisseurServiceImpl implements CommandeFournisseurServic
     private final ArticleRepository articleRepository;
     private final MvtStkRepository mvtStkRepository;
     private final ModelMapper modelMapper;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private static final Set<String> CHAMPS_TRIABLES = Set.of("id", "code", "etatCommande", "creationDate");
 
 
     @Override
@@ -91,31 +102,32 @@ public class CommandeFournisseurServiceImpl implements CommandeFournisseurServic
 
 
     @Override
-    public List<CommandeFournisseurDTO> findAll() {
-        List<CommandeFournisseur> commandes = commandeFournisseurRepository.findAll();
-        if (commandes.isEmpty()) {
+    public PageResponse<CommandeFournisseurDTO> findAll(PageQuery pageQuery) {
+        Pageable pageable = pageQuery.toPageable(CHAMPS_TRIABLES, Sort.by(Sort.Direction.DESC, "creationDate"));
+        Slice<CommandeFournisseur> commandes = pageQuery.isWithTotal()
+                ? commandeFournisseurRepository.findAll(pageable)
+                : commandeFournisseurRepository.findAllBy(pageable);
+        if (commandes.isEmpty() && pageable.getPageNumber() == 0) {
             throw new ResourceNotFoundException("Aucune commande fournisseur trouvée");
         }
 
-        return commandes
-                .stream()
-                .map(commande -> {
-                    CommandeFournisseurDTO dto = modelMapper.map(commande, CommandeFournisseurDTO.class);
+        return PageResponse.of(commandes, commande -> {
+            CommandeFournisseurDTO dto = modelMapper.map(commande, CommandeFournisseurDTO.class);
 
-                    if (commande.getFournisseur() != null) {
-                        Fournisseur fournisseur = commande.getFournisseur();
-                        dto.setFournisseurId(fournisseur.getId());
-                        dto.setFournisseurName(fournisseur.getNom() + " " + fournisseur.getPrenom());
-                    }
+            if (commande.getFournisseur() != null) {
+                Fournisseur fournisseur = commande.getFournisseur();
+                dto.setFournisseurId(fournisseur.getId());
+                dto.setFournisseurName(fournisseur.getNom() + " " + fournisseur.getPrenom());
+            }
 
-                    return dto;
-                })
-                .collect(Collectors.toList());
+            return dto;
+        });
     }
 
 
     @Override
     @Transactional
+    @RetryOnConflict
     public CommandeFournisseurDTO delete(Long commandeId) {
         CommandeFournisseur commandeFournisseur = commandeFournisseurRepository.findById(commandeId)
                 .orElseThrow(() -> new ResourceNotFoundException(
@@ -136,6 +148,7 @@ public class CommandeFournisseurServiceImpl implements CommandeFournisseurServic
             dto.setFournisseurId(fournisseur.getId());
             dto.setFournisseurName(fournisseur.getNom() + " " + fournisseur.getPrenom());
         }
+        publishStockChanged(commandeId);
         commandeFournisseurRepository.deleteById(commandeId);
 
         return dto;
@@ -143,6 +156,7 @@ public class CommandeFournisseurServiceImpl implements CommandeFournisseurServic
 
     @Override
     @Transactional
+    @RetryOnConflict
     public CommandeFournisseurDTO updateEtatCommande(Long idCommande, EtatCommande nouvelEtat) {
         if (nouvelEtat == null) {
             throw new InvalidOperationException("L'état de la commande ne peut pas être null");
@@ -185,6 +199,7 @@ public class CommandeFournisseurServiceImpl implements CommandeFournisseurServic
         }
 
         CommandeFournisseur updatedCommande = commandeFournisseurRepository.save(commande);
+        publishStockChanged(idCommande);
         CommandeFournisseurDTO dto = modelMapper.map(updatedCommande, CommandeFournisseurDTO.class);
 
         if (updatedCommande.getFournisseur() != null) {
@@ -198,6 +213,7 @@ public class CommandeFournisseurServiceImpl implements CommandeFournisseurServic
 
     @Override
     @Transactional
+    @RetryOnConflict
     public CommandeFournisseurDTO annulerCommande(Long idCommande) {
         CommandeFournisseur commande = commandeFournisseurRepository.findById(idCommande)
                 .orElseThrow(() -> new ResourceNotFoundException("Commande fournisseur non trouvée avec l'ID: " + idCommande));
@@ -211,6 +227,7 @@ public class CommandeFournisseurServiceImpl implements CommandeFournisseurServic
 
         commande.setEtatCommande(EtatCommande.ANNULEE);
         CommandeFournisseur updatedCommande = commandeFournisseurRepository.save(commande);
+        publishStockChanged(idCommande);
         
         CommandeFournisseurDTO dto = modelMapper.map(updatedCommande, CommandeFournisseurDTO.class);
         if (updatedCommande.getFournisseur() != null) {
@@ -221,6 +238,14 @@ public class CommandeFournisseurServiceImpl implements CommandeFournisseurServic
         return dto;
     }
 
+    // Les quantités attendues (et le stock à la livraison) des articles de la commande changent
+    private void publishStockChanged(Long commandeId) {
+        List<Long> articleIds = ligneCommandeFournisseurRepository.findArticleIdsByCommandeFournisseurId(commandeId);
+        if (!articleIds.isEmpty()) {
+            eventPublisher.publishEvent(new StockChangedEvent(articleIds));
+        }
+    }
+
     private void augmenterStockArticles(Long commandeId) {
         // Récupérer toutes les lignes validées de la commande
         List<LigneCommandeFournisseur> lignesValidees = ligneCommandeFournisseurRepository
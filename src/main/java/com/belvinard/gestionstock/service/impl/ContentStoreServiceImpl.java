@@ -0,0 +1,283 @@
+package com.belvinard.gestionstock.service.impl;
+
+import com.belvinard.gestionstock.cache.ObjectDiskCache;
+import com.belvinard.gestionstock.images.ImageVariant;
+import com.belvinard.gestionstock.models.File;
+import com.belvinard.gestionstock.repositories.FileRepository;
+import com.belvinard.gestionstock.service.ContentStoreService;
+import com.belvinard.gestionstock.service.MinioService;
+import com.belvinard.gestionstock.storage.ChecksumInputStream;
+import com.belvinard.gestionstock.storage.StoredObject;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * Stockage adressé par contenu : un contenu est rangé une seule fois, sous {@code cas-<sha256>}
+ * (nom sans {@code /}, utilisable tel quel dans {@code /files/download/{fileName}}), et sa ligne
+ * {@link File} compte les références qui le désignent.
+ * <p>
+ * Les transactions ne couvrent que la base : un même hash est compté sous un verrou consultatif
+ * PostgreSQL, l'envoi vers le stockage se fait après validation. Un contenu nouveau est envoyé sous
+ * son nom définitif avant d'être enregistré : deux envois simultanés écrivent le même objet, le
+ * second trouve la ligne du premier. Le ramasse-miettes ne touche qu'aux lignes libérées depuis le
+ * délai de grâce, jamais à un contenu en cours d'envoi. Un contenu revenu de zéro référence est
+ * vérifié dans le stockage avant d'être réutilisé, au cas où une suppression aurait précédé une
+ * annulation ; un renvoi qui échoue rend la référence prise.
+ * <p>
+ * Le ramasse-miettes marque ses lignes ({@code purge_started_at}) dans une requête validée aussitôt,
+ * supprime les objets hors transaction, puis efface chaque ligne dont l'objet a bien été supprimé ;
+ * un échec laisse la ligne marquée pour le passage suivant. Un contenu renvoyé pendant ce temps ne
+ * réutilise pas l'objet en cours de suppression : sa ligne passe sous un nouveau nom.
+ */
+@Slf4j
+@Service
+public class ContentStoreServiceImpl implements ContentStoreService {
+
+    public static final String PREFIXE = "cas-";
+
+    // Article ou entreprise supprimé logiquement : sa photo reste protégée jusqu'à l'archivage de la ligne.
+    // Une ligne déjà marquée par un passage précédent est reprise, jamais une marquée par le passage en cours.
+    private static final String MARQUAGE_SQL = "UPDATE file SET purge_started_at = ? WHERE id IN ("
+            + "SELECT f.id FROM file f "
+            + "WHERE f.reference_count <= 0 AND f.released_at < ? "
+            + "AND (f.purge_started_at IS NULL OR f.purge_started_at < ?) "
+            + "AND NOT EXISTS (SELECT 1 FROM article a WHERE a.photo = f.file_name) "
+            + "AND NOT EXISTS (SELECT 1 FROM entreprise e WHERE e.photo = f.file_name) "
+            + "ORDER BY f.released_at LIMIT ? FOR UPDATE OF f SKIP LOCKED) "
+            + "RETURNING file_name";
+
+    private record Reference(String objectName, int count, boolean enPurge) {
+    }
+
+    // Écriture du contenu sous le nom donné, toujours hors transaction
+    @FunctionalInterface
+    private interface Envoi {
+        void vers(String objectName) throws IOException;
+    }
+
+    private final MinioService minioService;
+    private final ObjectDiskCache objectDiskCache;
+    private final FileRepository fileRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration delaiGrace;
+
+    public ContentStoreServiceImpl(MinioService minioService,
+                                   ObjectDiskCache objectDiskCache,
+                                   FileRepository fileRepository,
+                                   JdbcTemplate jdbcTemplate,
+                                   TransactionTemplate transactionTemplate,
+                                   @Value("${storage.content.gc-grace-minutes:60}") long delaiGraceMinutes) {
+        this.minioService = minioService;
+        this.objectDiskCache = objectDiskCache;
+        this.fileRepository = fileRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.delaiGrace = Duration.ofMinutes(delaiGraceMinutes);
+    }
+
+    @Override
+    public StoredObject store(MultipartFile file) throws IOException {
+        // Fichier déjà reçu par Spring : le relire pour le hash ne coûte pas d'envoi
+        String sha256;
+        try (InputStream flux = file.getInputStream()) {
+            ChecksumInputStream checksum = new ChecksumInputStream(flux, Long.MAX_VALUE);
+            checksum.transferTo(OutputStream.nullOutputStream());
+            sha256 = checksum.sha256Hex();
+        }
+        return stocker(sha256, file.getSize(), file.getContentType(), objectName -> {
+            try (InputStream flux = file.getInputStream()) {
+                minioService.uploadObject(objectName, flux, file.getSize(), file.getContentType());
+            }
+        });
+    }
+
+    @Override
+    public StoredObject store(byte[] content, String contentType) {
+        try {
+            String sha256 = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+            return stocker(sha256, content.length, contentType, objectName ->
+                    minioService.uploadObject(objectName, new ByteArrayInputStream(content), content.length, contentType));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponible", e);
+        }
+    }
+
+    @Override
+    public StoredObject storeStream(InputStream stream, long size, String contentType) {
+        // Le hash n'est connu qu'à la fin du flux : envoi sous un nom provisoire, puis copie côté serveur
+        StoredObject provisoire = minioService.uploadStream(stream, size, contentType, null);
+        try {
+            return stocker(provisoire.sha256(), provisoire.size(), contentType,
+                    objectName -> minioService.copyObject(provisoire.objectName(), objectName));
+        } finally {
+            minioService.deleteFile(provisoire.objectName());
+        }
+    }
+
+    // Contenu envoyé seulement s'il n'existe pas encore dans le stockage
+    private StoredObject stocker(String sha256, long size, String contentType, Envoi envoi) {
+        Reference existante = transactionTemplate.execute(status -> {
+            verrouiller(sha256);
+            Reference reference = ajouterReference(sha256);
+            return reference != null && reference.enPurge() ? renommer(reference, sha256) : reference;
+        });
+        if (existante != null) {
+            String objectName = existante.objectName();
+            if (existante.count() > 1 || minioService.fileExists(objectName)) {
+                return new StoredObject(objectName, size, sha256, true);
+            }
+            try {
+                envoyer(envoi, objectName);
+            } catch (RuntimeException e) {
+                release(objectName);
+                throw e;
+            }
+            oublierVariantes(objectName);
+            return new StoredObject(objectName, size, sha256, false);
+        }
+
+        String objectName = PREFIXE + sha256;
+        envoyer(envoi, objectName);
+        Reference concurrente = transactionTemplate.execute(status -> {
+            verrouiller(sha256);
+            Reference reference = ajouterReference(sha256);
+            if (reference == null) {
+                inserer(objectName, sha256, contentType, size);
+            }
+            return reference;
+        });
+        if (concurrente == null) {
+            return new StoredObject(objectName, size, sha256, false);
+        }
+        // Enregistré entre-temps par un autre envoi : même objet, sauf ligne antérieure sous un autre nom
+        if (!concurrente.objectName().equals(objectName)) {
+            minioService.deleteFile(objectName);
+        }
+        return new StoredObject(concurrente.objectName(), size, sha256, true);
+    }
+
+    private void envoyer(Envoi envoi, String objectName) {
+        try {
+            envoi.vers(objectName);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public boolean release(String objectName) {
+        if (objectName == null || objectName.isBlank()) {
+            return false;
+        }
+        int modifiees = jdbcTemplate.update("UPDATE file SET reference_count = reference_count - 1, "
+                        + "released_at = CASE WHEN reference_count <= 1 THEN ? END "
+                        + "WHERE file_name = ? AND reference_count > 0",
+                Timestamp.valueOf(LocalDateTime.now()), objectName);
+        return modifiees > 0;
+    }
+
+    @Override
+    public int collectGarbage(int batchSize, int maxBatches) {
+        LocalDateTime debut = LocalDateTime.now();
+        Timestamp passage = Timestamp.valueOf(debut);
+        Timestamp limite = Timestamp.valueOf(debut.minus(delaiGrace));
+        int total = 0;
+        int lots = 0;
+        List<String> lot;
+        do {
+            // Requête seule, validée aussitôt : aucun verrou n'est tenu pendant les suppressions
+            lot = jdbcTemplate.queryForList(MARQUAGE_SQL, String.class, passage, limite, passage, batchSize);
+            for (String objectName : lot) {
+                if (supprimerContenu(objectName)) {
+                    total++;
+                }
+            }
+            lots++;
+        } while (lot.size() == batchSize && lots < maxBatches);
+
+        if (total > 0) {
+            log.info("🗑️ Contenus sans référence supprimés : {}", total);
+        }
+        return total;
+    }
+
+    // Objet puis ligne ; en cas d'échec la ligne reste marquée et sera reprise au prochain passage
+    private boolean supprimerContenu(String objectName) {
+        try {
+            minioService.deleteFile(objectName);
+            for (ImageVariant variante : ImageVariant.values()) {
+                minioService.deleteFile(variante.cle(objectName));
+            }
+        } catch (RuntimeException e) {
+            log.warn("Suppression du contenu '{}' reportée au prochain passage : {}", objectName, e.getMessage());
+            return false;
+        }
+        // Ligne renommée entre-temps par un nouvel envoi : elle ne correspond plus et reste en place
+        jdbcTemplate.update("DELETE FROM file WHERE file_name = ? AND purge_started_at IS NOT NULL "
+                + "AND reference_count <= 0", objectName);
+        objectDiskCache.evict(objectName);
+        return true;
+    }
+
+    private void verrouiller(String sha256) {
+        jdbcTemplate.query("SELECT pg_advisory_xact_lock(hashtextextended(?, 0))",
+                (RowCallbackHandler) rs -> { }, sha256);
+    }
+
+    // Les fichiers envoyés avant ce stockage (compteur absent) comptent pour la référence de leur envoi
+    private Reference ajouterReference(String sha256) {
+        List<Reference> references = jdbcTemplate.query("UPDATE file "
+                        + "SET reference_count = COALESCE(reference_count, 1) + 1, released_at = NULL "
+                        + "WHERE checksum_sha256 = ? RETURNING file_name, reference_count, purge_started_at IS NOT NULL",
+                (rs, i) -> new Reference(rs.getString(1), rs.getInt(2), rs.getBoolean(3)), sha256);
+        return references.isEmpty() ? null : references.get(0);
+    }
+
+    /**
+     * Contenu repris alors que le ramasse-miettes supprime son objet : la ligne passe sous un nom neuf
+     * et n'est plus marquée. La suppression en cours ne vise que l'ancien nom ; le nouveau, absent du
+     * stockage, est envoyé par l'appelant et ses déclinaisons sont à refaire.
+     */
+    private Reference renommer(Reference reference, String sha256) {
+        String nouveauNom = PREFIXE + sha256 + "-" + Long.toString(System.currentTimeMillis(), 36);
+        jdbcTemplate.update("UPDATE file SET file_name = ?, url = ?, purge_started_at = NULL, "
+                        + "variants_generated_at = NULL WHERE file_name = ?",
+                nouveauNom, minioService.getFileUrl(nouveauNom), reference.objectName());
+        return new Reference(nouveauNom, reference.count(), false);
+    }
+
+    // Contenu renvoyé après sa suppression du stockage : ses déclinaisons sont à refaire
+    private void oublierVariantes(String objectName) {
+        jdbcTemplate.update("UPDATE file SET variants_generated_at = NULL WHERE file_name = ?", objectName);
+    }
+
+    private void inserer(String objectName, String sha256, String contentType, long size) {
+        fileRepository.save(File.builder()
+                .fileName(objectName)
+                .url(minioService.getFileUrl(objectName))
+                .contentType(contentType)
+                .size(size)
+                .checksumSha256(sha256)
+                .referenceCount(1)
+                .build());
+    }
+}
@@ -1,20 +1,28 @@
 package com.belvinard.gestionstock.service.impl;
 
 import com.belvinard.gestionstock.dto.EntrepriseDTO;
+import com.belvinard.gestionstock.dto.PageQuery;
 import com.belvinard.gestionstock.exceptions.APIException;
 import com.belvinard.gestionstock.exceptions.ResourceNotFoundException;
 import com.belvinard.gestionstock.models.Entreprise;
 import com.belvinard.gestionstock.repositories.EntrepriseRepository;
 import com.belvinard.gestionstock.responses.EntrepriseResponse;
+import com.belvinard.gestionstock.responses.PageResponse;
+import com.belvinard.gestionstock.service.ContentStoreService;
 import com.belvinard.gestionstock.service.EntrepriseService;
+import com.belvinard.gestionstock.service.ImageVariantService;
 import com.belvinard.gestionstock.service.MinioService;
+import com.belvinard.gestionstock.storage.StoredObject;
 import lombok.RequiredArgsConstructor;
 import org.modelmapper.ModelMapper;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
-import java.util.List;
+import java.util.Set;
 
 @Service
 @RequiredArgsConstructor
@@ -22,6 +30,10 @@ public class EntrepriseServiceImpl implements EntrepriseService {
     private final EntrepriseRepository entrepriseRepository;
     private final ModelMapper modelMapper;
     private final MinioService minioService;
+    private final ImageVariantService imageVariantService;
+    private final ContentStoreService contentStoreService;
+
+    private static final Set<String> CHAMPS_TRIABLES = Set.of("id", "nom", "codeFiscal", "creationDate");
 
     @Override
     public EntrepriseDTO createEntreprise(EntrepriseDTO entrepriseDTO) {
@@ -41,19 +53,17 @@ public class EntrepriseServiceImpl implements EntrepriseService {
     }
 
     @Override
-    public EntrepriseResponse getAllEntreprises() {
-        List<Entreprise> entreprises = entrepriseRepository.findAll();
-        if (entreprises.isEmpty()) {
+    public EntrepriseResponse getAllEntreprises(PageQuery pageQuery) {
+        Pageable pageable = pageQuery.toPageable(CHAMPS_TRIABLES, Sort.by("nom"));
+        Slice<Entreprise> entreprises = pageQuery.isWithTotal()
+                ? entrepriseRepository.findAll(pageable)
+                : entrepriseRepository.findAllBy(pageable);
+        if (entreprises.isEmpty() && pageable.getPageNumber() == 0) {
             throw new APIException("No Entreprises created untill now !!!");
         }
 
-        List<EntrepriseDTO> entrepriseDTOS = entreprises.stream()
-                .map(entreprise -> modelMapper.map(entreprise, EntrepriseDTO.class))
-                .toList();
-
-        EntrepriseResponse entrepriseResponse = new EntrepriseResponse();
-        entrepriseResponse.setContent(entrepriseDTOS);
-        return entrepriseResponse;
+        return PageResponse.fill(new EntrepriseResponse(), entreprises,
+                entreprise -> modelMapper.map(entreprise, EntrepriseDTO.class));
     }
 
     @Override
@@ -71,6 +81,7 @@ public class EntrepriseServiceImpl implements EntrepriseService {
         EntrepriseDTO entrepriseDTO = modelMapper.map(entreprise, EntrepriseDTO.class);
 
         entrepriseRepository.delete(entreprise);
+        contentStoreService.release(entreprise.getPhoto());
         return entrepriseDTO;
     }
 
@@ -78,10 +89,24 @@ public class EntrepriseServiceImpl implements EntrepriseService {
     public EntrepriseDTO updateEntrepriseImage(Long id, MultipartFile image) throws IOException {
         Entreprise entrepriseFromDb = entrepriseRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Entreprise with id " + id + " not found !!"));
-        String fileName = minioService.uploadImage(image);
+        StoredObject stored = contentStoreService.store(image);
+        String fileName = stored.objectName();
+        if (!stored.deduplicated()) {
+            imageVariantService.planifier(fileName);
+        }
+        String anciennePhoto = entrepriseFromDb.getPhoto();
         entrepriseFromDb.setPhoto(fileName);
-        String imageUrl = minioService.getPreSignedUrl(fileName, 15);
-        Entreprise updatedEntreprise = entrepriseRepository.save(entrepriseFromDb);
+        String imageUrl;
+        Entreprise updatedEntreprise;
+        try {
+            imageUrl = minioService.getPreSignedUrl(fileName);
+            updatedEntreprise = entrepriseRepository.save(entrepriseFromDb);
+        } catch (RuntimeException e) {
+            // Entreprise inchangée : la référence prise par cet envoi est rendue
+            contentStoreService.release(fileName);
+            throw e;
+        }
+        contentStoreService.release(anciennePhoto);
         EntrepriseDTO entrepriseDTO = modelMapper.map(updatedEntreprise, EntrepriseDTO.class);
         entrepriseDTO.setPhoto(imageUrl);
 
@@ -133,7 +158,7 @@ public class EntrepriseServiceImpl implements EntrepriseService {
             throw new APIException("No image found for this entreprise");
         }
 
-        return minioService.getPreSignedUrl(fileName, 900); // 15 minutes
+        return minioService.getPreSignedUrl(fileName);
     }
 
 }
\ No newline at end of file
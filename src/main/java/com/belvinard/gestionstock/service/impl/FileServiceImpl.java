@@ -1,10 +1,19 @@
 package com.belvinard.gestionstock.service.impl;
 
+import com.belvinard.gestionstock.cache.ObjectDiskCache;
 import com.belvinard.gestionstock.dto.FileDTO;
+import com.belvinard.gestionstock.dto.StorageObjectDTO;
+import com.belvinard.gestionstock.exceptions.APIException;
 import com.belvinard.gestionstock.models.File;
 import com.belvinard.gestionstock.repositories.FileRepository;
+import com.belvinard.gestionstock.responses.ObjectListingResponse;
+import com.belvinard.gestionstock.service.ContentStoreService;
 import com.belvinard.gestionstock.service.FileService;
 import com.belvinard.gestionstock.service.MinioService;
+import com.belvinard.gestionstock.service.StorageBackend;
+import com.belvinard.gestionstock.storage.ObjectContent;
+import com.belvinard.gestionstock.storage.ObjectInfo;
+import com.belvinard.gestionstock.storage.StoredObject;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
@@ -12,35 +21,50 @@ import org.springframework.web.multipart.MultipartFile;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 @Service
 @RequiredArgsConstructor
 public class FileServiceImpl implements FileService {
 
     private final MinioService minioService;
+    private final StorageBackend storageBackend;
     private final FileRepository fileRepository;
+    private final ObjectDiskCache objectDiskCache;
+    private final ContentStoreService contentStoreService;
+
+    private static final int MAX_KEYS = 1000;
 
     @Override
     public FileDTO uploadFile(MultipartFile file) throws IOException {
-        String fileName = minioService.uploadImage(file);
-        String url = minioService.getFileUrl(fileName);
+        return toDTO(contentStoreService.store(file));
+    }
 
-        File fileEntity = File.builder()
-                .fileName(fileName)
-                .url(url)
-                .contentType(file.getContentType())
-                .size(file.getSize())
-                .build();
+    @Override
+    public FileDTO uploadStream(InputStream body, long size, String contentType, String expectedSha256) {
+        StoredObject stored = contentStoreService.storeStream(body, size, contentType);
 
-        File savedFile = fileRepository.save(fileEntity);
+        // Contenu altéré en route : la référence prise par cet envoi est rendue
+        if (expectedSha256 != null && !expectedSha256.equalsIgnoreCase(stored.sha256())) {
+            contentStoreService.release(stored.objectName());
+            throw new APIException("Empreinte SHA-256 différente de celle annoncée : " + stored.sha256());
+        }
+        return toDTO(stored);
+    }
 
+    // Contenu partagé : la ligne décrit le contenu, quel que soit l'envoi qui l'a créé
+    private FileDTO toDTO(StoredObject stored) {
+        File file = fileRepository.findByFileName(stored.objectName());
         return FileDTO.builder()
-                .id(savedFile.getId())
-                .fileName(savedFile.getFileName())
-                .url(savedFile.getUrl())
-                .contentType(savedFile.getContentType())
-                .size(savedFile.getSize())
-                .message("Fichier uploadé avec succès")
+                .id(file.getId())
+                .fileName(file.getFileName())
+                .url(file.getUrl())
+                .contentType(file.getContentType())
+                .size(file.getSize())
+                .checksumSha256(file.getChecksumSha256())
+                .message(stored.deduplicated()
+                        ? "Fichier déjà présent : contenu existant réutilisé"
+                        : "Fichier uploadé avec succès")
                 .build();
     }
 
@@ -49,16 +73,78 @@ public class FileServiceImpl implements FileService {
         return minioService.downloadFile(fileName);
     }
 
+    @Override
+    public CompletableFuture<ObjectContent> openFile(String fileName) {
+        ObjectContent local = objectDiskCache.open(fileName);
+        if (local != null) {
+            return CompletableFuture.completedFuture(local);
+        }
+        // Cache désactivé ou fichier trop volumineux : une seule lecture, métadonnées comprises
+        return storageBackend.getObject(fileName);
+    }
+
+    @Override
+    public CompletableFuture<ObjectContent> openFile(String fileName, long offset, long length) {
+        ObjectContent local = objectDiskCache.open(fileName);
+        if (local == null) {
+            // GET partiel : seule la plage demandée quitte le stockage
+            return storageBackend.getObject(fileName, offset, length);
+        }
+        try {
+            return CompletableFuture.completedFuture(local.range(offset, length));
+        } catch (IllegalArgumentException e) {
+            // Copie locale rafraîchie depuis la lecture des métadonnées : la plage ne correspond plus
+            fermer(local);
+            return storageBackend.getObject(fileName, offset, length);
+        }
+    }
+
+    @Override
+    public CompletableFuture<ObjectInfo> statFile(String fileName) {
+        return storageBackend.statObject(fileName);
+    }
+
+    private static void fermer(ObjectContent contenu) {
+        try {
+            contenu.close();
+        } catch (IOException e) {
+            // Rien à libérer de plus : le canal est abandonné
+        }
+    }
+
     @Override
     public void deleteFile(String fileName) {
+        // Contenu partagé : seule la référence est rendue, le ramasse-miettes supprime le contenu
+        if (contentStoreService.release(fileName)) {
+            return;
+        }
         minioService.deleteFile(fileName);
+        objectDiskCache.evict(fileName);
         File file = fileRepository.findByFileName(fileName);
         if (file != null) fileRepository.delete(file);
     }
 
     @Override
-    public List<String> listFiles() {
-        return minioService.listFiles();
+    public ObjectListingResponse listFiles(String prefix, String startAfter, int maxKeys, boolean fromStorage) {
+        int taille = Math.clamp(maxKeys, 1, MAX_KEYS);
+        if (fromStorage) {
+            return minioService.listObjects(prefix, startAfter, taille);
+        }
+
+        // Fichiers enregistrés seulement : sans parcours du bucket, mais sans les objets non référencés en base
+        String motif = prefix == null ? "" : prefix.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+        List<StorageObjectDTO> lus = fileRepository
+                .findPageByName(motif + "%", startAfter == null ? "" : startAfter, taille + 1)
+                .stream()
+                .map(file -> StorageObjectDTO.builder()
+                        .name(file.getFileName())
+                        .size(file.getSize())
+                        .contentType(file.getContentType())
+                        .checksumSha256(file.getChecksumSha256())
+                        .referenceCount(file.getReferenceCount())
+                        .build())
+                .toList();
+        return ObjectListingResponse.of(lus, taille);
     }
 
     @Override
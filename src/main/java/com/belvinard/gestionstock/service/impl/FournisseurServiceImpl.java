@@ -3,23 +3,27 @@ package com.belvinard.gestionstock.service.impl;
 import com.belvinard.gestionstock.dto.ArticleDTO;
 import com.belvinard.gestionstock.dto.EntrepriseDTO;
 import com.belvinard.gestionstock.dto.FournisseurDTO;
+import com.belvinard.gestionstock.dto.PageQuery;
 import com.belvinard.gestionstock.exceptions.APIException;
 import com.belvinard.gestionstock.exceptions.DuplicateEntityException;
 import com.belvinard.gestionstock.exceptions.InvalidOperationException;
 import com.belvinard.gestionstock.exceptions.ResourceNotFoundException;
 import com.belvinard.gestionstock.models.Entreprise;
 import com.belvinard.gestionstock.models.Fournisseur;
+import com.belvinard.gestionstock.repositories.CommandeFournisseurRepository;
 import com.belvinard.gestionstock.repositories.EntrepriseRepository;
 import com.belvinard.gestionstock.repositories.FournisseurRepository;
+import com.belvinard.gestionstock.responses.PageResponse;
 import com.belvinard.gestionstock.service.FournisseurService;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import org.modelmapper.ModelMapper;
-import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 
-import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Set;
 
 @Service
 @RequiredArgsConstructor
@@ -27,6 +31,9 @@ public class FournisseurServiceImpl implements FournisseurService {
     private final FournisseurRepository fournisseurRepository;
     private final EntrepriseRepository entrepriseRepository;
     private final ModelMapper modelMapper;
+    private final CommandeFournisseurRepository commandeFournisseurRepository;
+
+    private static final Set<String> CHAMPS_TRIABLES = Set.of("id", "nom", "prenom", "mail", "creationDate");
 
     /**
      * Crée un nouveau fournisseur pour une entreprise donnée.
@@ -90,23 +97,24 @@ public class FournisseurServiceImpl implements FournisseurService {
      *    - Le nom de l'entreprise
      */
     @Override
-    public List<FournisseurDTO> getAllFournisseur() {
-        List<Fournisseur> fournisseurs = fournisseurRepository.findAll();
+    public PageResponse<FournisseurDTO> getAllFournisseur(PageQuery pageQuery) {
+        Pageable pageable = pageQuery.toPageable(CHAMPS_TRIABLES, Sort.by("nom", "prenom"));
+        Slice<Fournisseur> fournisseurs = pageQuery.isWithTotal()
+                ? fournisseurRepository.findAll(pageable)
+                : fournisseurRepository.findAllBy(pageable);
 
-        if (fournisseurs.isEmpty()) {
+        if (fournisseurs.isEmpty() && pageable.getPageNumber() == 0) {
             throw new APIException("Aucun fournisseur trouvé dans la base de données");
         }
 
-        return fournisseurs.stream()
-                .map(fournisseur -> {
-                    FournisseurDTO fournisseurDTO = modelMapper.map(fournisseur, FournisseurDTO.class);
-                    if (fournisseur.getEntreprise() != null) {
-                        fournisseurDTO.setEntrepriseId(fournisseur.getEntreprise().getId());
-                        fournisseurDTO.setEntrepriseName(fournisseur.getEntreprise().getNom());
-                    }
-                    return fournisseurDTO;
-                })
-                .collect(Collectors.toList());
+        return PageResponse.of(fournisseurs, fournisseur -> {
+            FournisseurDTO fournisseurDTO = modelMapper.map(fournisseur, FournisseurDTO.class);
+            if (fournisseur.getEntreprise() != null) {
+                fournisseurDTO.setEntrepriseId(fournisseur.getEntreprise().getId());
+                fournisseurDTO.setEntrepriseName(fournisseur.getEntreprise().getNom());
+            }
+            return fournisseurDTO;
+        });
     }
 
     /**
@@ -157,20 +165,14 @@ public class FournisseurServiceImpl implements FournisseurService {
                 .orElseThrow(() -> new ResourceNotFoundException("Fournisseur non trouvé avec l'id " + fournisseurId));
 
         // Vérifier si le fournisseur a des commandes
-        if (!fournisseur.getCommandeFournisseurs().isEmpty()) {
+        if (commandeFournisseurRepository.existsByFournisseurId(fournisseurId)) {
             throw new InvalidOperationException(
                     "Impossible de supprimer le fournisseur car il a des commandes associées"
             );
         }
 
-        try {
-            // Supprimer le fournisseur
-            fournisseurRepository.delete(fournisseur);
-        } catch (DataIntegrityViolationException e) {
-            throw new InvalidOperationException(
-                    "Impossible de supprimer le fournisseur car il est référencé par d'autres entités"
-            );
-        }
+        // Suppression logique : aucune commande ne le référence (vérifié ci-dessus), la ligne est purgée plus tard
+        fournisseurRepository.delete(fournisseur);
 
         // Convertir en DTO pour le retour
         FournisseurDTO fournisseurDTO = modelMapper.map(fournisseur, FournisseurDTO.class);
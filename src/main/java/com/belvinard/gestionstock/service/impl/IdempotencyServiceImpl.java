@@ -0,0 +1,116 @@
+package com.belvinard.gestionstock.service.impl;
+
+import com.belvinard.gestionstock.dto.IdempotentResponse;
+import com.belvinard.gestionstock.models.StatutIdempotence;
+import com.belvinard.gestionstock.repositories.IdempotencyRecordRepository;
+import com.belvinard.gestionstock.service.IdempotencyService;
+import com.belvinard.gestionstock.utils.BoundedLruCache;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Stockage des réponses idempotentes : cache LRU borné en mémoire, adossé à la table
+ * {@code idempotency_record} pour survivre aux redémarrages et être partagé entre instances.
+ * <p>
+ * La clé est réservée dans la table (ligne {@code EN_COURS} sous contrainte d'unicité) avant le
+ * traitement : un renvoi arrivant sur une autre instance trouve la réservation et n'exécute rien.
+ * Une réservation orpheline (instance arrêtée en plein traitement) est reprise après {@code pending-timeout}.
+ * Chaque réservation porte un jeton aléatoire : un traitement lent dont la réservation a été reprise
+ * ne peut ni la libérer ni y enregistrer sa réponse.
+ */
+@Slf4j
+@Service
+public class IdempotencyServiceImpl implements IdempotencyService {
+
+    private final IdempotencyRecordRepository idempotencyRecordRepository;
+    private final BoundedLruCache<String, IdempotentResponse> cache;
+    private final Duration retention;
+    private final Duration pendingTimeout;
+
+    public IdempotencyServiceImpl(IdempotencyRecordRepository idempotencyRecordRepository,
+                                  @Value("${idempotency.cache.max-entries:10000}") int maxEntries,
+                                  @Value("${idempotency.retention-hours:24}") long retentionHours,
+                                  @Value("${idempotency.pending-timeout-seconds:300}") long pendingTimeoutSeconds) {
+        this.idempotencyRecordRepository = idempotencyRecordRepository;
+        this.retention = Duration.ofHours(retentionHours);
+        this.pendingTimeout = Duration.ofSeconds(pendingTimeoutSeconds);
+        this.cache = new BoundedLruCache<>(maxEntries, retention);
+    }
+
+    @Override
+    public Optional<IdempotentResponse> findResponse(String key) {
+        IdempotentResponse cached = cache.get(key);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+
+        return idempotencyRecordRepository.findByIdempotencyKeyAndStatut(key, StatutIdempotence.TERMINEE)
+                .filter(record -> record.getCreationDate() == null
+                        || record.getCreationDate().isAfter(LocalDateTime.now().minus(retention)))
+                .map(record -> {
+                    IdempotentResponse response = new IdempotentResponse(
+                            record.getRequestFingerprint(),
+                            record.getResponseStatus(),
+                            record.getContentType(),
+                            record.getResponseBody());
+                    cache.put(key, response);
+                    return response;
+                });
+    }
+
+    @Override
+    @Transactional
+    public Optional<String> acquire(String key, String fingerprint, String method, String path) {
+        LocalDateTime maintenant = LocalDateTime.now();
+        String jeton = UUID.randomUUID().toString();
+        if (idempotencyRecordRepository.insertEnCours(key, fingerprint, method, path, jeton, maintenant) == 1) {
+            return Optional.of(jeton);
+        }
+        // Réponse expirée (findResponse ne la rend plus) que la purge horaire n'a pas encore supprimée
+        if (idempotencyRecordRepository.deleteTermineeCreatedBefore(key, maintenant.minus(retention)) == 0) {
+            // Réservation laissée par une instance tombée en cours de traitement : elle est reprise
+            if (idempotencyRecordRepository.deleteEnCoursCreatedBefore(key, maintenant.minus(pendingTimeout)) == 0) {
+                return Optional.empty();
+            }
+            log.warn("Réservation d'idempotence orpheline reprise : {}", key);
+        }
+        return idempotencyRecordRepository.insertEnCours(key, fingerprint, method, path, jeton, maintenant) == 1
+                ? Optional.of(jeton) : Optional.empty();
+    }
+
+    @Override
+    @Transactional
+    public void release(String key, String token) {
+        idempotencyRecordRepository.deleteEnCours(key, token);
+    }
+
+    @Override
+    @Transactional
+    public void saveResponse(String key, String token, IdempotentResponse response) {
+        int updated = idempotencyRecordRepository.terminer(key, token, response.getStatus(), response.getContentType(),
+                response.getBody(), LocalDateTime.now());
+        if (updated == 0) {
+            // Réservation reprise entre-temps par une autre instance : sa réponse fera foi
+            log.warn("Réservation d'idempotence perdue avant l'enregistrement de la réponse : {}", key);
+            return;
+        }
+        cache.put(key, response);
+    }
+
+    @Override
+    @Transactional
+    public int purgeExpired() {
+        int deleted = idempotencyRecordRepository.deleteAllCreatedBefore(LocalDateTime.now().minus(retention));
+        if (deleted > 0) {
+            log.info("🧹 {} enregistrement(s) d'idempotence expiré(s) supprimé(s)", deleted);
+        }
+        return deleted;
+    }
+}
@@ -0,0 +1,293 @@
+package com.belvinard.gestionstock.service.impl;
+
+import com.belvinard.gestionstock.events.ArticleChangedEvent;
+import com.belvinard.gestionstock.images.ImageVariant;
+import com.belvinard.gestionstock.repositories.ArticleRepository;
+import com.belvinard.gestionstock.repositories.FileRepository;
+import com.belvinard.gestionstock.service.StorageBackend;
+import com.belvinard.gestionstock.service.ImageVariantService;
+import com.belvinard.gestionstock.service.MinioService;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Génération des déclinaisons JPEG (full, medium, thumb) des images téléversées.
+ * <p>
+ * Le travail est confié à un pool de taille fixe dont la file est bornée : quand elle est pleine,
+ * la génération s'exécute dans le thread de l'appelant, ce qui ralentit les téléversements au lieu
+ * de perdre des déclinaisons ou d'accumuler des images décodées en mémoire. L'original n'est
+ * décodé qu'une fois, sous-échantillonné dès la lecture à peine plus que la plus grande
+ * déclinaison ; chaque déclinaison est ensuite réduite à partir de la précédente.
+ * <p>
+ * La fin de la génération est notée sur la ligne {@code file} de l'original : tant qu'elle ne l'est
+ * pas, les URL des déclinaisons désignent l'original, qui existe toujours. Dans la même transaction,
+ * la date de modification des articles qui affichent cette photo avance : la version du catalogue
+ * change et les clients rechargent les URL des déclinaisons au lieu de recevoir un 304.
+ */
+@Slf4j
+@Service
+public class ImageVariantServiceImpl implements ImageVariantService {
+
+    private final MinioService minioService;
+    private final StorageBackend storageBackend;
+    private final FileRepository fileRepository;
+    private final ArticleRepository articleRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final ThreadPoolExecutor executor;
+    private final float qualiteJpeg;
+    private final long maxPixels;
+
+    public ImageVariantServiceImpl(MinioService minioService,
+                                   StorageBackend storageBackend,
+                                   FileRepository fileRepository,
+                                   ArticleRepository articleRepository,
+                                   ApplicationEventPublisher eventPublisher,
+                                   TransactionTemplate transactionTemplate,
+                                   @Value("${image.variants.pool-size:2}") int poolSize,
+                                   @Value("${image.variants.queue-capacity:200}") int queueCapacity,
+                                   @Value("${image.variants.jpeg-quality:0.82}") float qualiteJpeg,
+                                   @Value("${image.variants.max-pixels:50000000}") long maxPixels) {
+        this.minioService = minioService;
+        this.storageBackend = storageBackend;
+        this.fileRepository = fileRepository;
+        this.articleRepository = articleRepository;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = transactionTemplate;
+        this.qualiteJpeg = qualiteJpeg;
+        this.maxPixels = maxPixels;
+
+        AtomicInteger numero = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                tache -> {
+                    Thread thread = new Thread(tache, "image-variants-" + numero.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    @Override
+    public void planifier(String objetOriginal) {
+        if (objetOriginal == null || objetOriginal.isBlank()) {
+            return;
+        }
+        executor.execute(() -> {
+            try {
+                generer(objetOriginal);
+            } catch (RuntimeException e) {
+                // L'original reste servi : les écrans retombent sur la photo d'origine
+                log.warn("Génération des déclinaisons de '{}' impossible : {}", objetOriginal, e.getMessage());
+            }
+        });
+    }
+
+    @Override
+    public void generer(String objetOriginal) {
+        long debut = System.nanoTime();
+        BufferedImage image = decoder(objetOriginal);
+        if (image == null) {
+            log.info("'{}' n'est pas une image lisible : aucune déclinaison générée", objetOriginal);
+            return;
+        }
+
+        // FULL, MEDIUM puis THUMB : chaque réduction part de la déclinaison précédente, et son envoi
+        // se fait pendant la réduction suivante
+        BufferedImage source = image;
+        List<CompletableFuture<Void>> envois = new ArrayList<>();
+        for (ImageVariant variante : ImageVariant.values()) {
+            source = reduire(source, variante.cotePixels());
+            byte[] jpeg = encoderJpeg(source);
+            envois.add(storageBackend.putObject(variante.cle(objetOriginal), new ByteArrayInputStream(jpeg),
+                    jpeg.length, ImageVariant.CONTENT_TYPE));
+        }
+        try {
+            CompletableFuture.allOf(envois.toArray(CompletableFuture[]::new)).join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+
+        transactionTemplate.executeWithoutResult(statut -> {
+            fileRepository.markVariantsGenerated(objetOriginal, LocalDateTime.now());
+            // Les articles en cache (scan en caisse) et les ETag du catalogue portent encore les URL
+            // de l'original ; l'événement part à la validation
+            List<Long> articleIds = articleRepository.findIdsByPhoto(objetOriginal);
+            if (!articleIds.isEmpty()) {
+                articleRepository.touchByPhoto(objetOriginal);
+                eventPublisher.publishEvent(new ArticleChangedEvent(articleIds));
+            }
+        });
+
+        log.info("Déclinaisons de '{}' générées en {} ms", objetOriginal, (System.nanoTime() - debut) / 1_000_000);
+    }
+
+    @Override
+    public Map<ImageVariant, String> urls(String objetOriginal) {
+        if (objetOriginal == null || objetOriginal.isBlank()) {
+            return new EnumMap<>(ImageVariant.class);
+        }
+        return urls(List.of(objetOriginal)).get(objetOriginal);
+    }
+
+    @Override
+    public Map<String, Map<ImageVariant, String>> urls(Collection<String> objetsOriginaux) {
+        Set<String> originaux = new LinkedHashSet<>();
+        for (String objet : objetsOriginaux) {
+            if (objet != null && !objet.isBlank()) {
+                originaux.add(objet);
+            }
+        }
+        Set<String> generees = originaux.isEmpty()
+                ? Set.of() : new HashSet<>(fileRepository.findFileNamesWithVariants(originaux));
+
+        List<String> cles = new ArrayList<>();
+        for (String objet : originaux) {
+            if (generees.contains(objet)) {
+                for (ImageVariant variante : ImageVariant.values()) {
+                    cles.add(variante.cle(objet));
+                }
+            } else {
+                cles.add(objet);
+            }
+        }
+
+        // Une seule passe sur le cache des URL signées pour toute la page
+        Map<String, String> signees = minioService.getPreSignedUrls(cles);
+        Map<String, Map<ImageVariant, String>> urls = new HashMap<>();
+        for (String objet : originaux) {
+            Map<ImageVariant, String> parVariante = new EnumMap<>(ImageVariant.class);
+            boolean disponibles = generees.contains(objet);
+            for (ImageVariant variante : ImageVariant.values()) {
+                parVariante.put(variante, signees.get(disponibles ? variante.cle(objet) : objet));
+            }
+            urls.put(objet, parVariante);
+        }
+        return urls;
+    }
+
+    @PreDestroy
+    public void arreter() {
+        executor.shutdown();
+    }
+
+    private BufferedImage decoder(String objetOriginal) {
+        try (InputStream flux = minioService.downloadFile(objetOriginal);
+             ImageInputStream entree = ImageIO.createImageInputStream(flux)) {
+            Iterator<ImageReader> lecteurs = entree != null ? ImageIO.getImageReaders(entree) : null;
+            if (lecteurs == null || !lecteurs.hasNext()) {
+                return null;
+            }
+            ImageReader lecteur = lecteurs.next();
+            try {
+                lecteur.setInput(entree, true, true);
+                int largeur = lecteur.getWidth(0);
+                int hauteur = lecteur.getHeight(0);
+                // Dimensions lues dans l'en-tête : une image démesurée est refusée avant d'être décodée
+                if ((long) largeur * hauteur > maxPixels) {
+                    log.warn("Image '{}' trop grande pour les déclinaisons : {}x{}", objetOriginal, largeur, hauteur);
+                    return null;
+                }
+                ImageReadParam parametres = lecteur.getDefaultReadParam();
+                int pas = Math.max(1, Math.max(largeur, hauteur) / ImageVariant.FULL.cotePixels());
+                parametres.setSourceSubsampling(pas, pas, 0, 0);
+                return lecteur.read(0, parametres);
+            } finally {
+                lecteur.dispose();
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Lecture de l'image '" + objetOriginal + "' impossible", e);
+        }
+    }
+
+    // Réductions successives par moitié puis ajustement final : plus net qu'une seule interpolation
+    private static BufferedImage reduire(BufferedImage source, int cote) {
+        int largeur = source.getWidth();
+        int hauteur = source.getHeight();
+        double echelle = Math.min(1.0, (double) cote / Math.max(largeur, hauteur));
+        int largeurCible = Math.max(1, (int) Math.round(largeur * echelle));
+        int hauteurCible = Math.max(1, (int) Math.round(hauteur * echelle));
+
+        BufferedImage courante = source;
+        while (largeur / 2 >= largeurCible && hauteur / 2 >= hauteurCible) {
+            largeur /= 2;
+            hauteur /= 2;
+            courante = redessiner(courante, largeur, hauteur);
+        }
+        // Toujours redessinée : la déclinaison est en RVB même si l'original a déjà la bonne taille
+        return redessiner(courante, largeurCible, hauteurCible);
+    }
+
+    // JPEG sans transparence : les zones transparentes sont rendues sur fond blanc
+    private static BufferedImage redessiner(BufferedImage source, int largeur, int hauteur) {
+        BufferedImage cible = new BufferedImage(largeur, hauteur, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = cible.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, largeur, hauteur);
+            g.drawImage(source, 0, 0, largeur, hauteur, null);
+        } finally {
+            g.dispose();
+        }
+        return cible;
+    }
+
+    private byte[] encoderJpeg(BufferedImage image) {
+        ImageWriter redacteur = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ByteArrayOutputStream sortie = new ByteArrayOutputStream();
+        try (ImageOutputStream flux = ImageIO.createImageOutputStream(sortie)) {
+            ImageWriteParam parametres = redacteur.getDefaultWriteParam();
+            parametres.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            parametres.setCompressionQuality(qualiteJpeg);
+            // Progressif : un aperçu s'affiche avant la fin du chargement sur les tablettes
+            parametres.setProgressiveMode(ImageWriteParam.MODE_DEFAULT);
+            redacteur.setOutput(flux);
+            redacteur.write(null, new IIOImage(image, null, null), parametres);
+        } catch (IOException e) {
+            throw new IllegalStateException("Encodage JPEG impossible", e);
+        } finally {
+            redacteur.dispose();
+        }
+        return sortie.toByteArray();
+    }
+}
@@ -1,6 +1,7 @@
 package com.belvinard.gestionstock.service.impl;
 
 import com.belvinard.gestionstock.dto.LigneCommandeClientDTO;
+import com.belvinard.gestionstock.events.StockChangedEvent;
 import com.belvinard.gestionstock.exceptions.APIException;
 import com.belvinard.gestionstock.exceptions.BusinessRuleException;
 import com.belvinard.gestionstock.exceptions.InvalidOperationException;
@@ -9,6 +10,7 @@ import com.belvinard.gestionstock.models.Article;
 import com.belvinard.gestionstock.models.CommandeClient;
 import com.belvinard.gestionstock.models.EtatCommande;
 import com.belvinard.gestionstock.models.LigneCommandeClient;
+import com.belvinard.gestionstock.pricing.PrixCalculator;
 import com.belvinard.gestionstock.repositories.ArticleRepository;
 import com.belvinard.gestionstock.repositories.CommandeClientRepository;
 import com.belvinard.gestionstock.repositories.EntrepriseRepository;
@@ -16,6 +18,7 @@ import com.belvinard.gestionstock.repositories.LigneCommandeClientRepository;
 import com.belvinard.gestionstock.service.LigneCommandeClientService;
 import lombok.RequiredArgsConstructor;
 import org.modelmapper.ModelMapper;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
@@ -32,6 +35,7 @@ public class LigneCommandeClientServiceImpl implements LigneCommandeClientServic
     private final LigneCommandeClientRepository ligneCommandeClientRepository;
     private final ArticleRepository articleRepository;
     private final ModelMapper modelMapper;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
     public LigneCommandeClientDTO createLigneCommandeClient(Long commandeId, LigneCommandeClientDTO ligneDTO) {
@@ -63,8 +67,7 @@ public class LigneCommandeClientServiceImpl implements LigneCommandeClientServic
 
         BigDecimal prixHT = article.getPrixUnitaireHt();
         BigDecimal tauxTVA = article.getTauxTva();
-        BigDecimal tva = prixHT.multiply(tauxTVA).divide(BigDecimal.valueOf(100));
-        BigDecimal prixTTC = prixHT.add(tva);
+        BigDecimal prixTTC = PrixCalculator.prixTtc(prixHT, tauxTVA);
         BigDecimal prixTotal = prixTTC.multiply(ligneDTO.getQuantite());
 
         ligne.setPrixUnitaireHt(prixHT);
@@ -72,6 +75,7 @@ public class LigneCommandeClientServiceImpl implements LigneCommandeClientServic
         ligne.setPrixUnitaireTtc(prixTTC);
 
         LigneCommandeClient ligneSaved = ligneCommandeClientRepository.save(ligne);
+        eventPublisher.publishEvent(StockChangedEvent.of(article.getId()));
 
         LigneCommandeClientDTO ligneCommandeClientDTO = modelMapper.map(ligneSaved, LigneCommandeClientDTO.class);
 
@@ -151,13 +155,13 @@ public class LigneCommandeClientServiceImpl implements LigneCommandeClientServic
                 .orElseThrow(
                         () -> new ResourceNotFoundException("Article non trouvé avec l'id " + ligneDTO.getArticleId()));
 
+        Long ancienArticleId = ligne.getArticle().getId();
         ligne.setArticle(article);
         ligne.setQuantite(ligneDTO.getQuantite());
 
         BigDecimal prixHT = article.getPrixUnitaireHt();
         BigDecimal tauxTVA = article.getTauxTva();
-        BigDecimal tva = prixHT.multiply(tauxTVA).divide(BigDecimal.valueOf(100));
-        BigDecimal prixTTC = prixHT.add(tva);
+        BigDecimal prixTTC = PrixCalculator.prixTtc(prixHT, tauxTVA);
         BigDecimal prixTotal = prixTTC.multiply(ligneDTO.getQuantite());
 
         ligne.setPrixUnitaireHt(prixHT);
@@ -165,6 +169,7 @@ public class LigneCommandeClientServiceImpl implements LigneCommandeClientServic
         ligne.setPrixUnitaireTtc(prixTTC);
 
         LigneCommandeClient updatedLigne = ligneCommandeClientRepository.save(ligne);
+        eventPublisher.publishEvent(new StockChangedEvent(List.of(ancienArticleId, article.getId())));
 
         LigneCommandeClientDTO result = modelMapper.map(updatedLigne, LigneCommandeClientDTO.class);
         result.setCommandeClientId(commande.getId());
@@ -189,6 +194,7 @@ public class LigneCommandeClientServiceImpl implements LigneCommandeClientServic
         LigneCommandeClientDTO deletedLigne = modelMapper.map(ligneFromDb, LigneCommandeClientDTO.class);
 
         ligneCommandeClientRepository.delete(ligneFromDb);
+        eventPublisher.publishEvent(StockChangedEvent.of(ligneFromDb.getArticle().getId()));
         return deletedLigne;
     }
 
@@ -1,22 +1,30 @@
 package com.belvinard.gestionstock.service.impl;
 
 import com.belvinard.gestionstock.dto.LigneCommandeFournisseurDTO;
+import com.belvinard.gestionstock.dto.PageQuery;
+import com.belvinard.gestionstock.events.StockChangedEvent;
 import com.belvinard.gestionstock.exceptions.BusinessRuleException;
 import com.belvinard.gestionstock.exceptions.ResourceNotFoundException;
 import com.belvinard.gestionstock.models.*;
 import com.belvinard.gestionstock.models.EtatLigneCommandeFournisseur;
+import com.belvinard.gestionstock.pricing.PrixCalculator;
 import com.belvinard.gestionstock.repositories.ArticleRepository;
 import com.belvinard.gestionstock.repositories.CommandeFournisseurRepository;
 import com.belvinard.gestionstock.repositories.LigneCommandeFournisseurRepository;
+import com.belvinard.gestionstock.responses.PageResponse;
 import com.belvinard.gestionstock.service.LigneCommandeFournisseurService;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import org.modelmapper.ModelMapper;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
-import java.math.RoundingMode;
 import java.util.List;
+import java.util.Set;
 
 @Service
 @RequiredArgsConstructor
@@ -25,6 +33,9 @@ public class LigneCommandeFournisseurServiceImpl implements LigneCommandeFournis
     private final CommandeFournisseurRepository commandeFournisseurRepository;
     private final ArticleRepository articleRepository;
     private final ModelMapper modelMapper;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private static final Set<String> CHAMPS_TRIABLES = Set.of("id", "quantite", "prixUnitaireTtc", "etatLigne", "creationDate");
 
     
     @Override
@@ -59,9 +70,7 @@ public class LigneCommandeFournisseurServiceImpl implements LigneCommandeFournis
         // Calculs des prix
         BigDecimal prixHT = article.getPrixUnitaireHt();
         BigDecimal tauxTVA = article.getTauxTva();
-        BigDecimal tva = prixHT.multiply(tauxTVA)
-                .divide(BigDecimal.valueOf(100), 2, RoundingMode.HALF_UP);
-        BigDecimal prixTTC = prixHT.add(tva);
+        BigDecimal prixTTC = PrixCalculator.prixTtc(prixHT, tauxTVA);
         BigDecimal prixTotal = prixTTC.multiply(ligneCommandeFournisseurDTO.getQuantite());
 
         // Configuration des prix dans la ligne de commande
@@ -84,21 +93,22 @@ public class LigneCommandeFournisseurServiceImpl implements LigneCommandeFournis
     }
 
     @Override
-    public List<LigneCommandeFournisseurDTO> getAll() {
-        List<LigneCommandeFournisseur> lignes = ligneCommandeFournisseurRepository.findAll();
+    public PageResponse<LigneCommandeFournisseurDTO> getAll(PageQuery pageQuery) {
+        Pageable pageable = pageQuery.toPageable(CHAMPS_TRIABLES, Sort.by(Sort.Direction.DESC, "creationDate"));
+        Slice<LigneCommandeFournisseur> lignes = pageQuery.isWithTotal()
+                ? ligneCommandeFournisseurRepository.findAll(pageable)
+                : ligneCommandeFournisseurRepository.findAllBy(pageable);
         
-        return lignes.stream()
-                .map(ligne -> {
-                    // ENTITY TO DTO: Conversion de chaque entité vers DTO avec ModelMapper
-                    LigneCommandeFournisseurDTO dto = modelMapper.map(ligne, LigneCommandeFournisseurDTO.class);
-                    dto.setCommandeFournisseurId(ligne.getCommandeFournisseur().getId());
-                    dto.setCommandeFournisseurName(ligne.getCommandeFournisseur().getCode());
-                    dto.setArticleId(ligne.getArticle().getId());
-                    dto.setArticleName(ligne.getArticle().getDesignation());
-                    dto.setPrixTotal(ligne.getPrixUnitaireTtc().multiply(ligne.getQuantite()));
-                    return dto;
-                })
-                .toList();
+        return PageResponse.of(lignes, ligne -> {
+            // ENTITY TO DTO: Conversion de chaque entité vers DTO avec ModelMapper
+            LigneCommandeFournisseurDTO dto = modelMapper.map(ligne, LigneCommandeFournisseurDTO.class);
+            dto.setCommandeFournisseurId(ligne.getCommandeFournisseur().getId());
+            dto.setCommandeFournisseurName(ligne.getCommandeFournisseur().getCode());
+            dto.setArticleId(ligne.getArticle().getId());
+            dto.setArticleName(ligne.getArticle().getDesignation());
+            dto.setPrixTotal(ligne.getPrixUnitaireTtc().multiply(ligne.getQuantite()));
+            return dto;
+        });
     }
 
     @Override
@@ -142,6 +152,8 @@ public class LigneCommandeFournisseurServiceImpl implements LigneCommandeFournis
             throw new BusinessRuleException("La quantité ne peut pas être null");
         }
         
+        Long ancienArticleId = existingLigne.getArticle().getId();
+
         // Mise à jour de la quantité
         existingLigne.setQuantite(ligneCommandeFournisseurDTO.getQuantite());
         
@@ -155,9 +167,7 @@ public class LigneCommandeFournisseurServiceImpl implements LigneCommandeFournis
             // Recalcul des prix avec le nouvel article
             BigDecimal prixHT = nouvelArticle.getPrixUnitaireHt();
             BigDecimal tauxTVA = nouvelArticle.getTauxTva();
-            BigDecimal tva = prixHT.multiply(tauxTVA)
-                    .divide(BigDecimal.valueOf(100), 2, RoundingMode.HALF_UP);
-            BigDecimal prixTTC = prixHT.add(tva);
+            BigDecimal prixTTC = PrixCalculator.prixTtc(prixHT, tauxTVA);
             
             existingLigne.setPrixUnitaireHt(prixHT);
             existingLigne.setTauxTva(tauxTVA);
@@ -174,6 +184,7 @@ public class LigneCommandeFournisseurServiceImpl implements LigneCommandeFournis
         
         // Sauvegarde
         LigneCommandeFournisseur updatedLigne = ligneCommandeFournisseurRepository.save(existingLigne);
+        eventPublisher.publishEvent(new StockChangedEvent(List.of(ancienArticleId, updatedLigne.getArticle().getId())));
         
         // ENTITY TO DTO: Conversion de l'entité mise à jour vers DTO avec ModelMapper
         LigneCommandeFournisseurDTO dto = modelMapper.map(updatedLigne, LigneCommandeFournisseurDTO.class);
@@ -277,6 +288,8 @@ public class LigneCommandeFournisseurServiceImpl implements LigneCommandeFournis
         
         ligne.setEtatLigne(EtatLigneCommandeFournisseur.VALIDEE);
         LigneCommandeFournisseur updatedLigne = ligneCommandeFournisseurRepository.save(ligne);
+        // Une ligne validée compte désormais dans les quantités attendues
+        eventPublisher.publishEvent(StockChangedEvent.of(ligne.getArticle().getId()));
         
         // Vérifier si toutes les lignes de la commande sont validées
         CommandeFournisseur commande = ligne.getCommandeFournisseur();
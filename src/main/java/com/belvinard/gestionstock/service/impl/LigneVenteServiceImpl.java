@@ -1,15 +1,19 @@
 package com.belvinard.gestionstock.service.impl;
 
+import com.belvinard.gestionstock.concurrency.RetryOnConflict;
+import com.belvinard.gestionstock.concurrency.StripedLockManager;
 import com.belvinard.gestionstock.dto.LigneVenteDTO;
 import com.belvinard.gestionstock.exceptions.InvalidOperationException;
 import com.belvinard.gestionstock.exceptions.ResourceNotFoundException;
 import com.belvinard.gestionstock.models.Article;
+import com.belvinard.gestionstock.models.EtatVente;
 import com.belvinard.gestionstock.models.LigneVente;
 import com.belvinard.gestionstock.models.Vente;
 import com.belvinard.gestionstock.repositories.ArticleRepository;
 import com.belvinard.gestionstock.repositories.LigneVenteRepository;
 import com.belvinard.gestionstock.repositories.VenteRepository;
 import com.belvinard.gestionstock.service.LigneVenteService;
+import com.belvinard.gestionstock.service.ReservationStockService;
 import lombok.RequiredArgsConstructor;
 import org.modelmapper.ModelMapper;
 import org.springframework.stereotype.Service;
@@ -27,27 +31,28 @@ public class LigneVenteServiceImpl implements LigneVenteService {
     private final VenteRepository venteRepository;
     private final ArticleRepository articleRepository;
     private final ModelMapper modelMapper;
+    private final StripedLockManager stripedLockManager;
+    private final ReservationStockService reservationStockService;
 
     @Override
     @Transactional
+    @RetryOnConflict
     public LigneVenteDTO save(LigneVenteDTO dto, Long venteId) {
+        stripedLockManager.lockArticleForTransaction(dto.getIdArticle());
+
         // Validate vente
         Vente vente = venteRepository.findById(venteId)
                 .orElseThrow(() -> new ResourceNotFoundException("Vente", "id", venteId));
+        if (vente.getEtatVente() == EtatVente.FINALISEE) {
+            throw new InvalidOperationException("Impossible d'ajouter une ligne à une vente finalisée");
+        }
 
         // Validate article
         Article article = articleRepository.findById(dto.getIdArticle())
                 .orElseThrow(() -> new ResourceNotFoundException("Article", "id", dto.getIdArticle()));
 
-        // Check stock
-        if (!checkStockBeforeAdd(dto.getIdArticle(), dto.getQuantite())) {
-            throw new InvalidOperationException("Stock insuffisant pour l'article: " + article.getDesignation());
-        }
-
-        // Decrease article stock
-        Long newStock = article.getQuantiteEnStock() - dto.getQuantite().longValue();
-        article.setQuantiteEnStock(newStock);
-        articleRepository.save(article);
+        // Même chemin que l'ajout depuis la vente : le stock est réservé, il ne sort qu'à la finalisation
+        reservationStockService.reserver(article, dto.getQuantite().longValue(), article.getEntreprise().getId(), vente);
 
         LigneVente ligneVente = modelMapper.map(dto, LigneVente.class);
         ligneVente.setVente(vente);
@@ -80,11 +85,18 @@ public class LigneVenteServiceImpl implements LigneVenteService {
 
     @Override
     @Transactional
+    @RetryOnConflict
     public void delete(Long id) {
-        if (!ligneVenteRepository.existsById(id)) {
-            throw new ResourceNotFoundException("LigneVente", "id", id);
-        }
-        ligneVenteRepository.deleteById(id);
+        ligneVenteRepository.findArticleIdById(id)
+                .ifPresent(stripedLockManager::lockArticleForTransaction);
+
+        LigneVente ligneVente = ligneVenteRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("LigneVente", "id", id));
+
+        // La quantité de la ligne est rendue au stock libre (sans effet si la vente est finalisée)
+        reservationStockService.libererPourVente(ligneVente.getVente().getId(), ligneVente.getArticle(),
+                ligneVente.getQuantite().longValue());
+        ligneVenteRepository.delete(ligneVente);
     }
 
     @Override
@@ -96,31 +108,40 @@ public class LigneVenteServiceImpl implements LigneVenteService {
 
     @Override
     @Transactional
+    @RetryOnConflict
     public void deleteAllByVenteId(Long venteId) {
+        stripedLockManager.lockArticlesForTransaction(ligneVenteRepository.findArticleIdsByVenteId(venteId));
+        for (LigneVente ligneVente : ligneVenteRepository.findAllByVenteId(venteId)) {
+            reservationStockService.libererPourVente(venteId, ligneVente.getArticle(),
+                    ligneVente.getQuantite().longValue());
+        }
         ligneVenteRepository.deleteAllByVenteId(venteId);
     }
 
     @Override
     @Transactional
+    @RetryOnConflict
     public LigneVenteDTO updateQuantity(Long ligneVenteId, BigDecimal newQuantity) {
+        // Verrouiller l'article avant de charger la ligne pour lire un stock à jour
+        ligneVenteRepository.findArticleIdById(ligneVenteId)
+                .ifPresent(stripedLockManager::lockArticleForTransaction);
+
         LigneVente ligneVente = ligneVenteRepository.findById(ligneVenteId)
                 .orElseThrow(() -> new ResourceNotFoundException("LigneVente", "id", ligneVenteId));
 
         Article article = ligneVente.getArticle();
-        BigDecimal oldQuantity = ligneVente.getQuantite();
-        BigDecimal stockDifference = newQuantity.subtract(oldQuantity);
-
-        // Check if we have enough stock for the increase
-        if (stockDifference.compareTo(BigDecimal.ZERO) > 0) {
-            if (BigDecimal.valueOf(article.getQuantiteEnStock()).compareTo(stockDifference) < 0) {
-                throw new InvalidOperationException("Stock insuffisant pour cette quantité");
-            }
+        Vente vente = ligneVente.getVente();
+        if (vente.getEtatVente() == EtatVente.FINALISEE) {
+            throw new InvalidOperationException("Impossible de modifier une ligne d'une vente finalisée");
         }
 
-        // Update article stock
-        Long newStock = article.getQuantiteEnStock() - stockDifference.longValue();
-        article.setQuantiteEnStock(newStock);
-        articleRepository.save(article);
+        // Hausse réservée (refusée si le stock libre ne suffit pas), baisse rendue au stock libre
+        long difference = newQuantity.longValue() - ligneVente.getQuantite().longValue();
+        if (difference > 0) {
+            reservationStockService.reserver(article, difference, article.getEntreprise().getId(), vente);
+        } else if (difference < 0) {
+            reservationStockService.libererPourVente(vente.getId(), article, -difference);
+        }
 
         ligneVente.setQuantite(newQuantity);
         LigneVente updated = ligneVenteRepository.save(ligneVente);
@@ -139,6 +160,7 @@ public class LigneVenteServiceImpl implements LigneVenteService {
     public boolean checkStockBeforeAdd(Long articleId, BigDecimal quantite) {
         Article article = articleRepository.findById(articleId)
                 .orElseThrow(() -> new ResourceNotFoundException("Article", "id", articleId));
-        return article.getQuantiteEnStock() >= quantite.longValue();
+        long reservee = article.getQuantiteReservee() != null ? article.getQuantiteReservee() : 0L;
+        return article.getQuantiteEnStock() - reservee >= quantite.longValue();
     }
 }
\ No newline at end of file
@@ -0,0 +1,374 @@
+package com.belvinard.gestionstock.service.impl;
+
+import com.belvinard.gestionstock.dto.StorageObjectDTO;
+import com.belvinard.gestionstock.exceptions.APIException;
+import com.belvinard.gestionstock.exceptions.ResourceNotFoundException;
+import com.belvinard.gestionstock.exceptions.StorageUnavailableException;
+import com.belvinard.gestionstock.service.StorageBackend;
+import com.belvinard.gestionstock.storage.ObjectContent;
+import com.belvinard.gestionstock.storage.ObjectInfo;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URLEncoder;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Stockage des fichiers sur le disque local, actif avec le profil {@code local-storage} : sites
+ * sans MinIO et bancs d'essai sans réseau.
+ * <p>
+ * Les noms d'objets sont des chemins relatifs à {@code storage.local.directory}. Une écriture passe
+ * par un fichier temporaire du même répertoire renommé atomiquement : un lecteur voit l'ancien
+ * contenu ou le nouveau, jamais un fichier partiel. Le type de contenu est conservé à part, sous
+ * {@code .meta/}, et l'ETag dérive de la taille et de la date de modification.
+ * <p>
+ * Tout se fait dans le thread appelant ; les futures rendues sont déjà terminées. Les URL signées
+ * pointent vers {@code GET /storage/objects}, qui vérifie leur HMAC et leur date d'expiration.
+ */
+@Slf4j
+@Service
+@Profile("local-storage")
+public class LocalStorageBackend implements StorageBackend {
+
+    private static final String META = ".meta";
+    private static final String TYPE_PAR_DEFAUT = "application/octet-stream";
+    private static final int TAILLE_TAMPON = 64 * 1024;
+
+    private final Path racine;
+    private final Path metadonnees;
+    private final long mmapThresholdBytes;
+    private final String objectsUrl;
+    private final SecretKeySpec cleSignature;
+
+    public LocalStorageBackend(@Value("${storage.local.directory:./data/storage}") String directory,
+                               @Value("${storage.local.mmap-threshold-bytes:1048576}") long mmapThresholdBytes,
+                               @Value("${storage.local.base-url:http://localhost:8080}") String baseUrl,
+                               @Value("${storage.local.signing-key:}") String signingKey,
+                               @Value("${api.prefix}") String apiPrefix) {
+        this.racine = Paths.get(directory).toAbsolutePath().normalize();
+        this.metadonnees = racine.resolve(META);
+        this.mmapThresholdBytes = mmapThresholdBytes;
+        this.objectsUrl = baseUrl + "/" + apiPrefix + "/storage/objects?name=";
+
+        byte[] cle;
+        if (signingKey == null || signingKey.isBlank()) {
+            // Clé propre à ce démarrage : les URL déjà signées ne survivent pas à un redémarrage
+            cle = new byte[32];
+            new SecureRandom().nextBytes(cle);
+            log.warn("storage.local.signing-key is not set, pre-signed URLs will be invalidated on restart");
+        } else {
+            cle = signingKey.getBytes(StandardCharsets.UTF_8);
+        }
+        this.cleSignature = new SecretKeySpec(cle, "HmacSHA256");
+    }
+
+    @Override
+    public CompletableFuture<Void> ensureReady() {
+        return executer("ensureReady", "", () -> {
+            Files.createDirectories(metadonnees);
+            return null;
+        });
+    }
+
+    @Override
+    public CompletableFuture<Void> putObject(String objectName, InputStream stream, long size, String contentType) {
+        return executer("putObject", objectName, () -> {
+            Path cible = chemin(objectName);
+            Files.createDirectories(cible.getParent());
+            Path temporaire = Files.createTempFile(cible.getParent(), ".upload-", ".tmp");
+            try {
+                long ecrits = 0;
+                try (SeekableByteChannel canal = Files.newByteChannel(temporaire, StandardOpenOption.WRITE)) {
+                    byte[] tampon = new byte[TAILLE_TAMPON];
+                    ByteBuffer enveloppe = ByteBuffer.wrap(tampon);
+                    int lus;
+                    while ((lus = stream.read(tampon)) != -1) {
+                        enveloppe.clear().limit(lus);
+                        while (enveloppe.hasRemaining()) {
+                            canal.write(enveloppe);
+                        }
+                        ecrits += lus;
+                    }
+                }
+                if (size >= 0 && ecrits != size) {
+                    throw new APIException("Taille reçue (" + ecrits + " octets) différente de la taille annoncée ("
+                            + size + " octets)");
+                }
+                // Type écrit avant le contenu : un objet visible a toujours ses métadonnées
+                ecrireType(objectName, contentType != null ? contentType : TYPE_PAR_DEFAUT);
+                deplacer(temporaire, cible);
+                log.info("Object '{}' written to '{}' ({} bytes)", objectName, racine, ecrits);
+                return null;
+            } finally {
+                Files.deleteIfExists(temporaire);
+            }
+        });
+    }
+
+    @Override
+    public CompletableFuture<ObjectInfo> statObject(String objectName) {
+        return executer("statObject", objectName, () -> info(objectName, chemin(objectName)));
+    }
+
+    /**
+     * Au-delà de {@code storage.local.mmap-threshold-bytes}, le fichier est projeté en mémoire pour
+     * les lecteurs en flux ; en dessous, la projection coûte plus qu'elle ne rapporte.
+     */
+    @Override
+    public CompletableFuture<ObjectContent> getObject(String objectName) {
+        return executer("getObject", objectName, () -> {
+            Path fichier = chemin(objectName);
+            FileChannel canal = FileChannel.open(fichier, StandardOpenOption.READ);
+            try {
+                ObjectInfo info = info(objectName, fichier);
+                long taille = canal.size();
+                if (taille >= mmapThresholdBytes && taille <= Integer.MAX_VALUE) {
+                    return ObjectContent.fromMappedFile(info, canal, canal.map(FileChannel.MapMode.READ_ONLY, 0, taille));
+                }
+                return ObjectContent.fromFile(info, canal);
+            } catch (IOException | RuntimeException e) {
+                canal.close();
+                throw e;
+            }
+        });
+    }
+
+    // Même fichier ouvert, lu et recopié à partir de offset : ni copie ni lecture de ce qui précède
+    @Override
+    public CompletableFuture<ObjectContent> getObject(String objectName, long offset, long length) {
+        return getObject(objectName).thenApply(contenu -> {
+            try {
+                return contenu.range(offset, length);
+            } catch (IllegalArgumentException e) {
+                fermer(contenu);
+                throw e;
+            }
+        });
+    }
+
+    @Override
+    public CompletableFuture<Boolean> exists(String objectName) {
+        return executer("exists", objectName, () -> Files.isRegularFile(chemin(objectName)));
+    }
+
+    @Override
+    public CompletableFuture<Void> removeObject(String objectName) {
+        return executer("removeObject", objectName, () -> {
+            Files.deleteIfExists(chemin(objectName));
+            Files.deleteIfExists(cheminType(objectName));
+            log.info("File '{}' deleted from '{}'", objectName, racine);
+            return null;
+        });
+    }
+
+    @Override
+    public CompletableFuture<Void> copyObject(String sourceObjectName, String targetObjectName) {
+        return executer("copyObject", sourceObjectName, () -> {
+            Path source = chemin(sourceObjectName);
+            Path cible = chemin(targetObjectName);
+            Files.createDirectories(cible.getParent());
+            Path temporaire = Files.createTempFile(cible.getParent(), ".copy-", ".tmp");
+            try {
+                Files.copy(source, temporaire, StandardCopyOption.REPLACE_EXISTING);
+                ecrireType(targetObjectName, lireType(sourceObjectName));
+                deplacer(temporaire, cible);
+            } finally {
+                Files.deleteIfExists(temporaire);
+            }
+            log.info("Object '{}' copied to '{}'", sourceObjectName, targetObjectName);
+            return null;
+        });
+    }
+
+    /**
+     * Parcours complet de l'arborescence puis tri : adapté aux volumes d'un site isolé, pas à des
+     * millions de fichiers.
+     */
+    @Override
+    public List<StorageObjectDTO> listObjects(String prefix, String startAfter, int limit) {
+        if (!Files.isDirectory(racine)) {
+            return List.of();
+        }
+        try (Stream<Path> fichiers = Files.walk(racine)) {
+            return fichiers
+                    .filter(fichier -> !fichier.startsWith(metadonnees) && !fichier.getFileName().toString().startsWith("."))
+                    .filter(Files::isRegularFile)
+                    .map(fichier -> racine.relativize(fichier).toString().replace(File.separatorChar, '/'))
+                    .filter(nom -> prefix == null || nom.startsWith(prefix))
+                    .filter(nom -> startAfter == null || nom.compareTo(startAfter) > 0)
+                    .sorted(Comparator.naturalOrder())
+                    .limit(limit)
+                    .map(this::element)
+                    .filter(Objects::nonNull)
+                    .toList();
+        } catch (IOException | UncheckedIOException e) {
+            throw new StorageUnavailableException("Lecture du répertoire de stockage impossible", e);
+        }
+    }
+
+    @Override
+    public String presignedUrl(String objectName, int expiryMinutes) {
+        long expires = Instant.now().getEpochSecond() + expiryMinutes * 60L;
+        return objectUrl(objectName) + "&expires=" + expires + "&signature=" + signer(objectName, expires);
+    }
+
+    @Override
+    public String objectUrl(String objectName) {
+        return objectsUrl + URLEncoder.encode(objectName, StandardCharsets.UTF_8);
+    }
+
+    // Signature d'une URL rendue par presignedUrl, comparée en temps constant
+    public boolean verifierSignature(String objectName, long expires, String signature) {
+        if (signature == null || expires < Instant.now().getEpochSecond()) {
+            return false;
+        }
+        return MessageDigest.isEqual(signer(objectName, expires).getBytes(StandardCharsets.US_ASCII),
+                signature.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private String signer(String objectName, long expires) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(cleSignature);
+            return HexFormat.of().formatHex(mac.doFinal((objectName + "\n" + expires).getBytes(StandardCharsets.UTF_8)));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 indisponible", e);
+        }
+    }
+
+    /**
+     * Chemin d'un objet sous la racine ; un nom qui en sortirait ({@code ../}) ou viserait les
+     * métadonnées est refusé.
+     */
+    private Path chemin(String objectName) {
+        if (objectName == null || objectName.isBlank()) {
+            throw new APIException("Nom d'objet vide");
+        }
+        Path chemin = racine.resolve(objectName).normalize();
+        if (!chemin.startsWith(racine) || chemin.equals(racine) || chemin.startsWith(metadonnees)) {
+            throw new APIException("Nom d'objet invalide : " + objectName);
+        }
+        return chemin;
+    }
+
+    private Path cheminType(String objectName) {
+        return metadonnees.resolve(racine.relativize(chemin(objectName)));
+    }
+
+    private ObjectInfo info(String objectName, Path fichier) throws IOException {
+        BasicFileAttributes attributs = Files.readAttributes(fichier, BasicFileAttributes.class);
+        return new ObjectInfo(objectName, attributs.size(), etag(attributs), lireType(objectName));
+    }
+
+    // null si l'objet a été supprimé pendant le parcours
+    private StorageObjectDTO element(String objectName) {
+        try {
+            BasicFileAttributes attributs = Files.readAttributes(chemin(objectName), BasicFileAttributes.class);
+            return StorageObjectDTO.builder()
+                    .name(objectName)
+                    .size(attributs.size())
+                    .contentType(lireType(objectName))
+                    .etag(etag(attributs))
+                    .lastModified(attributs.lastModifiedTime().toInstant().atZone(ZoneOffset.UTC))
+                    .build();
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Change avec toute réécriture, même de taille identique, à la microseconde près
+    private static String etag(BasicFileAttributes attributs) {
+        return Long.toHexString(attributs.size()) + "-"
+                + Long.toHexString(attributs.lastModifiedTime().to(TimeUnit.MICROSECONDS));
+    }
+
+    private String lireType(String objectName) throws IOException {
+        try {
+            return Files.readString(cheminType(objectName), StandardCharsets.UTF_8);
+        } catch (NoSuchFileException e) {
+            return TYPE_PAR_DEFAUT;
+        }
+    }
+
+    private void ecrireType(String objectName, String contentType) throws IOException {
+        Path cible = cheminType(objectName);
+        Files.createDirectories(cible.getParent());
+        Path temporaire = Files.createTempFile(cible.getParent(), ".type-", ".tmp");
+        try {
+            Files.writeString(temporaire, contentType, StandardCharsets.UTF_8);
+            deplacer(temporaire, cible);
+        } finally {
+            Files.deleteIfExists(temporaire);
+        }
+    }
+
+    private static void fermer(ObjectContent contenu) {
+        try {
+            contenu.close();
+        } catch (IOException e) {
+            log.debug("Closing '{}' failed: {}", contenu.info().objectName(), e.getMessage());
+        }
+    }
+
+    private static void deplacer(Path source, Path cible) throws IOException {
+        try {
+            Files.move(source, cible, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            // Système de fichiers sans renommage atomique : remplacement simple
+            Files.move(source, cible, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    @FunctionalInterface
+    private interface Operation<T> {
+        T executer() throws IOException;
+    }
+
+    // Même contrat d'erreurs que MinIO : objet absent en 404, disque inaccessible en 503
+    private <T> CompletableFuture<T> executer(String operation, String objectName, Operation<T> corps) {
+        try {
+            return CompletableFuture.completedFuture(corps.executer());
+        } catch (NoSuchFileException e) {
+            return CompletableFuture.failedFuture(new ResourceNotFoundException("Fichier", "nom", objectName));
+        } catch (IOException e) {
+            log.warn("Local storage {} failed for '{}': {}", operation, objectName, e.getMessage());
+            return CompletableFuture.failedFuture(
+                    new StorageUnavailableException("Stockage local inaccessible (" + operation + ")", e));
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+}
@@ -1,171 +1,181 @@
 package com.belvinard.gestionstock.service.impl;
 
+import com.belvinard.gestionstock.exceptions.APIException;
+import com.belvinard.gestionstock.responses.ObjectListingResponse;
 import com.belvinard.gestionstock.service.MinioService;
-import io.minio.*;
-import io.minio.http.Method;
-
-import jakarta.annotation.PostConstruct;
+import com.belvinard.gestionstock.service.StorageBackend;
+import com.belvinard.gestionstock.storage.ChecksumInputStream;
+import com.belvinard.gestionstock.storage.ObjectInfo;
+import com.belvinard.gestionstock.storage.StoredObject;
+import com.belvinard.gestionstock.utils.BoundedLruCache;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.web.multipart.MultipartFile;
 
 import java.io.InputStream;
-import java.util.ArrayList;
-import java.util.List;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.UUID;
-
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Façade de stockage utilisée par les services : nommage des objets, taille maximale, empreinte des
+ * envois et cache des URL signées. Le contenu lui-même va au {@link StorageBackend} actif (MinIO,
+ * ou disque local avec le profil {@code local-storage}).
+ */
 @Service
 @Slf4j
 public class MinioServiceImpl implements MinioService {
 
-    private final MinioClient minioClient;
-
-    @Value("${minio.bucket-name}")
-    private String bucketName;
+    private final StorageBackend storageBackend;
+    private final int presignedExpiryMinutes;
+    private final long maxUploadBytes;
+    // Durée d'une fenêtre de signature : validité des URL moins la marge du cache
+    private final long fenetreMillis;
+    // URL signées par nom d'objet, retirées à la fin de la fenêtre où elles ont été signées
+    private final BoundedLruCache<String, String> presignedUrls;
+
+    public MinioServiceImpl(StorageBackend storageBackend,
+                            @Value("${minio.presigned-url.expiry-minutes:60}") int presignedExpiryMinutes,
+                            @Value("${minio.presigned-url.cache-margin-minutes:5}") int cacheMarginMinutes,
+                            @Value("${minio.presigned-url.cache-max-entries:50000}") int cacheMaxEntries,
+                            @Value("${minio.upload.max-size-bytes:5368709120}") long maxUploadBytes) {
+        if (cacheMarginMinutes >= presignedExpiryMinutes) {
+            throw new IllegalArgumentException("minio.presigned-url.cache-margin-minutes must be lower than expiry-minutes");
+        }
+        this.storageBackend = storageBackend;
+        this.presignedExpiryMinutes = presignedExpiryMinutes;
+        this.maxUploadBytes = maxUploadBytes;
+        this.fenetreMillis = Duration.ofMinutes(presignedExpiryMinutes - cacheMarginMinutes).toMillis();
+        this.presignedUrls = new BoundedLruCache<>(cacheMaxEntries);
+    }
 
-    public MinioServiceImpl(MinioClient minioClient) {
-        this.minioClient = minioClient;
+    @Override
+    public void uploadObject(String objectName, InputStream stream, long size, String contentType) {
+        attendre(storageBackend.putObject(objectName, stream, size, contentType));
     }
 
-    @PostConstruct
-    public void ensureBucketExists() {
+    /**
+     * Le flux est lu dans le thread de la requête au rythme du stockage (une partie à la fois pour
+     * MinIO) et compté au passage : un envoi sans taille annoncée est coupé dès qu'il dépasse
+     * {@code maxUploadBytes}.
+     */
+    @Override
+    public StoredObject uploadStream(InputStream stream, long size, String contentType, String extension) {
+        if (size > maxUploadBytes) {
+            throw new APIException("Le fichier dépasse la taille maximale de " + maxUploadBytes + " octets");
+        }
+        String objectName = UUID.randomUUID() + (extension != null ? extension : "");
+        ChecksumInputStream checksum = new ChecksumInputStream(stream, maxUploadBytes);
         try {
-            boolean found = minioClient.bucketExists(
-                    io.minio.BucketExistsArgs.builder().bucket(bucketName).build()
-            );
-
-            if (!found) {
-                minioClient.makeBucket(
-                        io.minio.MakeBucketArgs.builder().bucket(bucketName).build()
-                );
-                log.info("Bucket '{}' created successfully", bucketName);
-            } else {
-                log.info("Bucket '{}' already exists", bucketName);
+            attendre(storageBackend.putObject(objectName, checksum, size, contentType));
+        } catch (RuntimeException e) {
+            if (checksum.getCount() > maxUploadBytes) {
+                throw new APIException("Le fichier dépasse la taille maximale de " + maxUploadBytes + " octets");
             }
-        } catch (Exception e) {
-            log.error("Error checking/creating bucket", e);
+            log.error("Error streaming upload '{}' after {} bytes", objectName, checksum.getCount(), e);
+            throw e;
         }
+
+        log.info("File '{}' streamed to storage ({} bytes)", objectName, checksum.getCount());
+        return new StoredObject(objectName, checksum.getCount(), checksum.sha256Hex(), false);
     }
 
+    /**
+     * Une URL n'est servie que pendant la fenêtre où elle a été signée : elle reste donc valable au
+     * moins {@code cache-margin-minutes} après la fin de cette fenêtre. Les réponses qui la portent
+     * sont versionnées avec {@link #presignedUrlWindowStart()} et changent d'ETag à chaque fenêtre.
+     */
+    @Override
+    public String getPreSignedUrl(String objectName) {
+        String url = presignedUrls.get(objectName);
+        if (url == null) {
+            long maintenant = System.currentTimeMillis();
+            url = sign(objectName, presignedExpiryMinutes);
+            long finFenetre = (maintenant / fenetreMillis + 1) * fenetreMillis;
+            presignedUrls.put(objectName, url, Duration.ofMillis(finFenetre - maintenant));
+        }
+        return url;
+    }
 
     @Override
-    public String uploadImage(MultipartFile file) {
-        try {
-            String originalFileName = file.getOriginalFilename();
-            String extension = originalFileName.substring(originalFileName.lastIndexOf("."));
-            String fileName = UUID.randomUUID() + extension;
-
-            InputStream inputStream = file.getInputStream();
-
-            minioClient.putObject(
-                    PutObjectArgs.builder()
-                            .bucket(bucketName)
-                            .object(fileName)
-                            .stream(inputStream, file.getSize(), -1)
-                            .contentType(file.getContentType())
-                            .build()
-            );
-
-            log.info("File '{}' uploaded to bucket '{}'", fileName, bucketName);
-            return fileName;
-
-        } catch (Exception e) {
-            log.error("Error uploading file to MinIO", e);
-            throw new RuntimeException("File upload failed", e);
+    public long presignedUrlWindowStart() {
+        return System.currentTimeMillis() / fenetreMillis * fenetreMillis;
+    }
+
+    @Override
+    public Map<String, String> getPreSignedUrls(Collection<String> objectNames) {
+        Map<String, String> urls = new LinkedHashMap<>();
+        for (String objectName : objectNames) {
+            if (objectName != null && !urls.containsKey(objectName)) {
+                urls.put(objectName, getPreSignedUrl(objectName));
+            }
         }
+        return urls;
     }
 
     @Override
     public String getPreSignedUrl(String objectName, Integer expiryInMinutes) {
-        try {
-            return minioClient.getPresignedObjectUrl(
-                    GetPresignedObjectUrlArgs.builder()
-                            .bucket(bucketName)
-                            .object(objectName)
-                            .method(Method.GET)
-                            .expiry(expiryInMinutes * 60)
-                            .build()
-            );
-        } catch (Exception e) {
-            log.error("Failed to generate pre-signed URL", e);
-            throw new RuntimeException("Unable to generate pre-signed URL");
+        if (expiryInMinutes == null || expiryInMinutes == presignedExpiryMinutes) {
+            return getPreSignedUrl(objectName);
         }
+        return sign(objectName, expiryInMinutes);
+    }
+
+    private String sign(String objectName, int expiryInMinutes) {
+        return storageBackend.presignedUrl(objectName, expiryInMinutes);
     }
 
     @Override
     public void deleteFile(String objectName) {
-        try {
-            minioClient.removeObject(
-                    io.minio.RemoveObjectArgs.builder()
-                            .bucket(bucketName)
-                            .object(objectName)
-                            .build()
-            );
-            log.info("File '{}' deleted from bucket '{}'", objectName, bucketName);
-        } catch (Exception e) {
-            log.error("Error deleting file from MinIO", e);
-            throw new RuntimeException("File deletion failed", e);
-        }
+        presignedUrls.remove(objectName);
+        attendre(storageBackend.removeObject(objectName));
     }
 
     @Override
-    public InputStream downloadFile(String objectName) {
-        try {
-            return minioClient.getObject(
-                    io.minio.GetObjectArgs.builder()
-                            .bucket(bucketName)
-                            .object(objectName)
-                            .build()
-            );
-        } catch (Exception e) {
-            log.error("Error downloading file from MinIO", e);
-            throw new RuntimeException("File download failed", e);
-        }
+    public void copyObject(String sourceObjectName, String targetObjectName) {
+        attendre(storageBackend.copyObject(sourceObjectName, targetObjectName));
     }
 
     @Override
-    public List<String> listFiles() {
-        try {
-            List<String> fileNames = new ArrayList<>();
-            Iterable<io.minio.Result<io.minio.messages.Item>> results = minioClient.listObjects(
-                    io.minio.ListObjectsArgs.builder()
-                            .bucket(bucketName)
-                            .build()
-            );
-
-            for (io.minio.Result<io.minio.messages.Item> result : results) {
-                fileNames.add(result.get().objectName());
-            }
+    public InputStream downloadFile(String objectName) {
+        return attendre(storageBackend.getObject(objectName)).inputStream();
+    }
 
-            return fileNames;
-        } catch (Exception e) {
-            log.error("Error listing files from MinIO", e);
-            throw new RuntimeException("File listing failed", e);
-        }
+    // Un élément de plus que demandé : sa présence signale une page suivante
+    @Override
+    public ObjectListingResponse listObjects(String prefix, String startAfter, int maxKeys) {
+        return ObjectListingResponse.of(storageBackend.listObjects(prefix, startAfter, maxKeys + 1), maxKeys);
     }
 
     @Override
     public boolean fileExists(String objectName) {
+        return attendre(storageBackend.exists(objectName));
+    }
+
+    @Override
+    public ObjectInfo statObject(String objectName) {
+        return attendre(storageBackend.statObject(objectName));
+    }
+
+    // Appel bloquant sur le port asynchrone : délais et disjoncteur s'appliquent aussi aux appelants synchrones
+    private static <T> T attendre(CompletableFuture<T> appel) {
         try {
-            minioClient.statObject(
-                    io.minio.StatObjectArgs.builder()
-                            .bucket(bucketName)
-                            .object(objectName)
-                            .build()
-            );
-            return true;
-        } catch (Exception e) {
-            return false;
+            return appel.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new RuntimeException("Storage call failed", e.getCause());
         }
     }
 
-    @Value("${minio.url}")
-    private String minioUrl;
-
     @Override
     public String getFileUrl(String objectName) {
-        return String.format("%s/%s/%s", minioUrl, bucketName, objectName);
+        return storageBackend.objectUrl(objectName);
     }
 
 }
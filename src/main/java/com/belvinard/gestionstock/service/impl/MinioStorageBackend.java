@@ -0,0 +1,421 @@
+package com.belvinard.gestionstock.service.impl;
+
+import com.belvinard.gestionstock.dto.StorageObjectDTO;
+import com.belvinard.gestionstock.exceptions.ResourceNotFoundException;
+import com.belvinard.gestionstock.exceptions.StorageUnavailableException;
+import com.belvinard.gestionstock.service.StorageBackend;
+import com.belvinard.gestionstock.storage.ObjectContent;
+import com.belvinard.gestionstock.storage.ObjectInfo;
+import com.belvinard.gestionstock.utils.CircuitBreaker;
+import io.minio.BucketExistsArgs;
+import io.minio.CopyObjectArgs;
+import io.minio.CopySource;
+import io.minio.GetObjectArgs;
+import io.minio.GetObjectResponse;
+import io.minio.GetPresignedObjectUrlArgs;
+import io.minio.ListObjectsArgs;
+import io.minio.MakeBucketArgs;
+import io.minio.MinioAsyncClient;
+import io.minio.MinioClient;
+import io.minio.PutObjectArgs;
+import io.minio.RemoveObjectArgs;
+import io.minio.Result;
+import io.minio.StatObjectArgs;
+import io.minio.errors.ErrorResponseException;
+import io.minio.errors.ServerException;
+import io.minio.http.Method;
+import io.minio.messages.Item;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Stockage des fichiers dans MinIO, backend par défaut (tout profil sauf {@code local-storage}).
+ * <p>
+ * Les appels passent par {@link MinioAsyncClient} sans bloquer ; seuls l'envoi multipart, la liste
+ * et la signature des URL utilisent le client bloquant. L'envoi multipart et la liste tournent dans
+ * un pool dédié ({@code minio.blocking-pool-size} threads) : ils rendent une future comme les autres
+ * appels, et un appel qui dépasse son délai voit son thread interrompu.
+ * <p>
+ * Chaque appel est borné par {@code minio.call-timeout-ms} et passe par un disjoncteur : après
+ * plusieurs pannes consécutives (réseau, délai dépassé, erreur 5xx), les appels échouent aussitôt
+ * avec {@link StorageUnavailableException} au lieu d'occuper des threads en attendant le délai.
+ * Les réponses d'erreur métier du stockage (objet absent, accès refusé) ne comptent pas comme des
+ * pannes. Le bucket n'est vérifié qu'au premier appel, hors du démarrage de l'application.
+ */
+@Slf4j
+@Service
+@Profile("!local-storage")
+public class MinioStorageBackend implements StorageBackend {
+
+    @FunctionalInterface
+    private interface Appel<T> {
+        CompletableFuture<T> lancer() throws Exception;
+    }
+
+    private final MinioAsyncClient client;
+    private final MinioClient syncClient;
+    private final String minioUrl;
+    private final String bucketName;
+    private final long partSize;
+    private final long callTimeoutMs;
+    private final long uploadTimeoutMs;
+    private final CircuitBreaker circuitBreaker;
+    private final ThreadPoolExecutor executor;
+    // Vérification du bucket en cours ou réussie ; remplacée si elle a échoué
+    private final AtomicReference<CompletableFuture<Void>> bucketVerifie = new AtomicReference<>();
+
+    public MinioStorageBackend(MinioAsyncClient client,
+                               MinioClient syncClient,
+                               @Value("${minio.url}") String minioUrl,
+                               @Value("${minio.bucket-name}") String bucketName,
+                               @Value("${minio.upload.part-size-bytes:16777216}") long partSize,
+                               @Value("${minio.call-timeout-ms:60000}") long callTimeoutMs,
+                               @Value("${minio.upload.timeout-ms:1800000}") long uploadTimeoutMs,
+                               @Value("${minio.circuit-breaker.failure-threshold:5}") int failureThreshold,
+                               @Value("${minio.circuit-breaker.open-seconds:30}") long openSeconds,
+                               @Value("${minio.blocking-pool-size:8}") int blockingPoolSize) {
+        this.client = client;
+        this.syncClient = syncClient;
+        this.minioUrl = minioUrl;
+        this.bucketName = bucketName;
+        this.partSize = partSize;
+        this.callTimeoutMs = callTimeoutMs;
+        this.uploadTimeoutMs = Math.max(uploadTimeoutMs, callTimeoutMs);
+        this.circuitBreaker = new CircuitBreaker("minio", failureThreshold, Duration.ofSeconds(openSeconds));
+
+        // File non bornée : l'attente dans la file compte dans le délai de l'appel
+        AtomicInteger numero = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(blockingPoolSize, blockingPoolSize, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(),
+                tache -> {
+                    Thread thread = new Thread(tache, "minio-blocking-" + numero.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    @PreDestroy
+    public void arreter() {
+        executor.shutdownNow();
+    }
+
+    @Override
+    public CompletableFuture<Void> ensureReady() {
+        CompletableFuture<Void> courante = bucketVerifie.get();
+        if (courante != null && !courante.isCompletedExceptionally()) {
+            return courante;
+        }
+        CompletableFuture<Void> verification = new CompletableFuture<>();
+        if (!bucketVerifie.compareAndSet(courante, verification)) {
+            return bucketVerifie.get();
+        }
+
+        appeler("bucketExists", bucketName, () -> client.bucketExists(BucketExistsArgs.builder().bucket(bucketName).build()))
+                .thenCompose(existe -> existe
+                        ? CompletableFuture.<Void>completedFuture(null)
+                        : appeler("makeBucket", bucketName, () -> client.makeBucket(MakeBucketArgs.builder().bucket(bucketName).build()))
+                                .thenRun(() -> log.info("Bucket '{}' created successfully", bucketName)))
+                .whenComplete((ignore, e) -> {
+                    // Bucket créé entre-temps par une autre instance
+                    if (e == null || "BucketAlreadyOwnedByYou".equals(codeErreur(e))) {
+                        verification.complete(null);
+                    } else {
+                        log.warn("Bucket '{}' could not be checked, retrying on next call: {}", bucketName, racine(e).getMessage());
+                        verification.completeExceptionally(e);
+                    }
+                });
+        return verification;
+    }
+
+    /**
+     * Un objet de taille inconnue ou supérieure à une partie part en multipart par le client
+     * bloquant, dans le pool dédié, qui lit le flux une partie ({@code partSize} octets) à la fois :
+     * la mémoire reste bornée et un stockage lent ralentit d'autant la lecture. L'envoi entier est
+     * borné par {@code minio.upload.timeout-ms} (un gros fichier dépasse le délai d'un appel simple)
+     * et compte pour le disjoncteur.
+     */
+    @Override
+    public CompletableFuture<Void> putObject(String objectName, InputStream stream, long size, String contentType) {
+        String type = contentType != null ? contentType : "application/octet-stream";
+        if (size < 0 || size > partSize) {
+            return ensureReady().thenCompose(v -> appeler("putObject", objectName, uploadTimeoutMs, () -> this.<Void>bloquant(() -> {
+                syncClient.putObject(PutObjectArgs.builder()
+                        .bucket(bucketName)
+                        .object(objectName)
+                        .stream(stream, size, partSize)
+                        .contentType(type)
+                        .build());
+                log.info("Object '{}' streamed to bucket '{}'", objectName, bucketName);
+                return null;
+            })));
+        }
+        return ensureReady().thenCompose(v -> appeler("putObject", objectName, () -> client.putObject(
+                PutObjectArgs.builder()
+                        .bucket(bucketName)
+                        .object(objectName)
+                        .stream(stream, size, -1)
+                        .contentType(type)
+                        .build())))
+                .thenAccept(reponse -> log.info("Object '{}' uploaded to bucket '{}'", objectName, bucketName));
+    }
+
+    @Override
+    public CompletableFuture<ObjectInfo> statObject(String objectName) {
+        return ensureReady().thenCompose(v -> appeler("statObject", objectName, () -> client.statObject(
+                StatObjectArgs.builder().bucket(bucketName).object(objectName).build())))
+                .thenApply(stat -> new ObjectInfo(objectName, stat.size(), stat.etag(), stat.contentType()));
+    }
+
+    @Override
+    public CompletableFuture<ObjectContent> getObject(String objectName) {
+        return ensureReady().thenCompose(v -> appeler("getObject", objectName, () -> client.getObject(
+                GetObjectArgs.builder().bucket(bucketName).object(objectName).build())))
+                .thenApply(reponse -> {
+                    // Les en-têtes de la réponse GET évitent un statObject préalable
+                    String longueur = reponse.headers().get("Content-Length");
+                    return ObjectContent.fromStream(
+                            info(objectName, reponse, longueur != null ? Long.parseLong(longueur) : -1), reponse);
+                });
+    }
+
+    /**
+     * GET partiel : MinIO n'envoie que la plage demandée, la taille de l'objet entier est lue dans
+     * l'en-tête {@code Content-Range} de sa réponse ({@code bytes debut-fin/taille}).
+     */
+    @Override
+    public CompletableFuture<ObjectContent> getObject(String objectName, long offset, long length) {
+        return ensureReady().thenCompose(v -> appeler("getObject", objectName, () -> client.getObject(
+                GetObjectArgs.builder().bucket(bucketName).object(objectName).offset(offset).length(length).build())))
+                .thenApply(reponse -> {
+                    String plage = reponse.headers().get("Content-Range");
+                    int barre = plage != null ? plage.lastIndexOf('/') : -1;
+                    long taille = barre >= 0 && !plage.endsWith("*") ? Long.parseLong(plage.substring(barre + 1)) : -1;
+                    return ObjectContent.fromRangeStream(info(objectName, reponse, taille), reponse, offset, length);
+                });
+    }
+
+    private static ObjectInfo info(String objectName, GetObjectResponse reponse, long taille) {
+        String etag = reponse.headers().get("ETag");
+        return new ObjectInfo(objectName, taille, etag != null ? etag.replace("\"", "") : null,
+                reponse.headers().get("Content-Type"));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> exists(String objectName) {
+        return statObject(objectName)
+                .thenApply(info -> true)
+                .exceptionally(e -> {
+                    if (racine(e) instanceof ResourceNotFoundException) {
+                        return false;
+                    }
+                    throw e instanceof CompletionException completion ? completion : new CompletionException(e);
+                });
+    }
+
+    @Override
+    public CompletableFuture<Void> removeObject(String objectName) {
+        return ensureReady().thenCompose(v -> appeler("removeObject", objectName, () -> client.removeObject(
+                RemoveObjectArgs.builder().bucket(bucketName).object(objectName).build())))
+                .thenRun(() -> log.info("File '{}' deleted from bucket '{}'", objectName, bucketName));
+    }
+
+    @Override
+    public CompletableFuture<Void> copyObject(String sourceObjectName, String targetObjectName) {
+        return ensureReady().thenCompose(v -> appeler("copyObject", sourceObjectName, () -> client.copyObject(
+                CopyObjectArgs.builder()
+                        .bucket(bucketName)
+                        .object(targetObjectName)
+                        .source(CopySource.builder().bucket(bucketName).object(sourceObjectName).build())
+                        .build())))
+                .thenRun(() -> log.info("Object '{}' copied to '{}'", sourceObjectName, targetObjectName));
+    }
+
+    /**
+     * Une seule requête ListObjectsV2 de {@code limit} clés : l'itérateur du client n'est pas
+     * poussé au-delà, donc aucune page suivante n'est demandée.
+     */
+    @Override
+    public List<StorageObjectDTO> listObjects(String prefix, String startAfter, int limit) {
+        attendre(ensureReady());
+        ListObjectsArgs.Builder args = ListObjectsArgs.builder()
+                .bucket(bucketName)
+                .maxKeys(limit)
+                .recursive(true);
+        if (prefix != null && !prefix.isEmpty()) {
+            args.prefix(prefix);
+        }
+        if (startAfter != null && !startAfter.isEmpty()) {
+            args.startAfter(startAfter);
+        }
+        return attendre(appeler("listObjects", prefix, () -> bloquant(() -> {
+            List<StorageObjectDTO> objets = new ArrayList<>(limit);
+            for (Result<Item> result : syncClient.listObjects(args.build())) {
+                Item item = result.get();
+                objets.add(StorageObjectDTO.builder()
+                        .name(item.objectName())
+                        .size(item.size())
+                        .etag(item.etag() != null ? item.etag().replace("\"", "") : null)
+                        .lastModified(item.lastModified())
+                        .build());
+                if (objets.size() >= limit) {
+                    break;
+                }
+            }
+            return objets;
+        })));
+    }
+
+    // Signature locale par le client : aucun appel réseau une fois la région connue
+    @Override
+    public String presignedUrl(String objectName, int expiryMinutes) {
+        try {
+            return syncClient.getPresignedObjectUrl(
+                    GetPresignedObjectUrlArgs.builder()
+                            .bucket(bucketName)
+                            .object(objectName)
+                            .method(Method.GET)
+                            .expiry(expiryMinutes * 60)
+                            .build()
+            );
+        } catch (Exception e) {
+            log.error("Failed to generate pre-signed URL", e);
+            throw new RuntimeException("Unable to generate pre-signed URL");
+        }
+    }
+
+    @Override
+    public String objectUrl(String objectName) {
+        return String.format("%s/%s/%s", minioUrl, bucketName, objectName);
+    }
+
+    private static <T> T attendre(CompletableFuture<T> appel) {
+        try {
+            return appel.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new RuntimeException("MinIO call failed", e.getCause());
+        }
+    }
+
+    /**
+     * Exécute un appel du client bloquant dans le pool dédié. Si la future échoue avant la fin (délai
+     * dépassé), le thread est interrompu pour ne pas rester bloqué sur une connexion figée.
+     */
+    private <T> CompletableFuture<T> bloquant(Callable<T> corps) {
+        CompletableFuture<T> resultat = new CompletableFuture<>();
+        Future<?> tache = executor.submit(() -> {
+            try {
+                resultat.complete(corps.call());
+            } catch (Throwable e) {
+                resultat.completeExceptionally(e);
+            }
+        });
+        resultat.whenComplete((valeur, e) -> {
+            if (e != null) {
+                tache.cancel(true);
+            }
+        });
+        return resultat;
+    }
+
+    /**
+     * Lance un appel sous le disjoncteur et le délai maximal, puis traduit son échec : objet absent
+     * en {@link ResourceNotFoundException}, panne en {@link StorageUnavailableException}.
+     */
+    private <T> CompletableFuture<T> appeler(String operation, String objectName, Appel<T> appel) {
+        return appeler(operation, objectName, callTimeoutMs, appel);
+    }
+
+    private <T> CompletableFuture<T> appeler(String operation, String objectName, long delaiMs, Appel<T> appel) {
+        if (!circuitBreaker.autoriser()) {
+            return CompletableFuture.failedFuture(new StorageUnavailableException(
+                    "Stockage des fichiers indisponible, nouvel essai dans quelques instants"));
+        }
+
+        CompletableFuture<T> future;
+        try {
+            future = appel.lancer();
+        } catch (Exception e) {
+            future = CompletableFuture.failedFuture(e);
+        }
+        return future
+                .orTimeout(delaiMs, TimeUnit.MILLISECONDS)
+                .handle((resultat, e) -> {
+                    if (e == null || !panne(e)) {
+                        circuitBreaker.succes();
+                    } else {
+                        circuitBreaker.echec();
+                    }
+                    if (e != null) {
+                        throw traduire(operation, objectName, e);
+                    }
+                    return resultat;
+                });
+    }
+
+    // Réseau, délai dépassé ou erreur 5xx ; une erreur métier prouve au contraire que le stockage répond
+    private static boolean panne(Throwable e) {
+        Throwable cause = racine(e);
+        if (cause instanceof ErrorResponseException reponse) {
+            return reponse.response() != null && reponse.response().code() >= 500;
+        }
+        return cause instanceof IOException || cause instanceof TimeoutException || cause instanceof ServerException;
+    }
+
+    private static RuntimeException traduire(String operation, String objectName, Throwable e) {
+        Throwable cause = racine(e);
+        if ("NoSuchKey".equals(codeErreur(cause))) {
+            return new ResourceNotFoundException("Fichier", "nom", objectName);
+        }
+        if (cause instanceof TimeoutException) {
+            return new StorageUnavailableException("Le stockage des fichiers ne répond pas (" + operation + ")", cause);
+        }
+        if (panne(cause)) {
+            return new StorageUnavailableException("Stockage des fichiers injoignable (" + operation + ")", cause);
+        }
+        if (cause instanceof RuntimeException runtime) {
+            return runtime;
+        }
+        return new RuntimeException("MinIO " + operation + " failed for '" + objectName + "'", cause);
+    }
+
+    // Code d'erreur S3 (NoSuchKey...), cherché dans toute la chaîne des causes
+    private static String codeErreur(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ErrorResponseException reponse && reponse.errorResponse() != null) {
+                return reponse.errorResponse().code();
+            }
+        }
+        return null;
+    }
+
+    private static Throwable racine(Throwable e) {
+        Throwable cause = e;
+        while ((cause instanceof CompletionException || cause instanceof ExecutionException) && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause;
+    }
+}
@@ -1,6 +1,9 @@
 package com.belvinard.gestionstock.service.impl;
 
+import com.belvinard.gestionstock.concurrency.RetryOnConflict;
+import com.belvinard.gestionstock.concurrency.StripedLockManager;
 import com.belvinard.gestionstock.dto.MvtStkDTO;
+import com.belvinard.gestionstock.events.StockChangedEvent;
 import com.belvinard.gestionstock.exceptions.InvalidOperationException;
 import com.belvinard.gestionstock.exceptions.ResourceNotFoundException;
 import com.belvinard.gestionstock.models.*;
@@ -8,8 +11,10 @@ import com.belvinard.gestionstock.repositories.ArticleRepository;
 import com.belvinard.gestionstock.repositories.EntrepriseRepository;
 import com.belvinard.gestionstock.repositories.MvtStkRepository;
 import com.belvinard.gestionstock.service.MvtStkService;
+import com.belvinard.gestionstock.service.ReservationStockService;
 import lombok.RequiredArgsConstructor;
 import org.modelmapper.ModelMapper;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -26,13 +31,18 @@ public class MvtStkServiceImpl implements MvtStkService {
     private final ArticleRepository articleRepository;
     private final ModelMapper modelMapper;
     private final EntrepriseRepository entrepriseRepository;
+    private final StripedLockManager stripedLockManager;
+    private final ReservationStockService reservationStockService;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
     @Transactional
+    @RetryOnConflict
     public MvtStkDTO entreeStock(Long articleId, BigDecimal quantite, SourceMvtStk source, Long entrepriseId) {
         if (articleId == null || quantite == null || source == null || entrepriseId == null) {
             throw new InvalidOperationException("Tous les paramètres sont obligatoires");
         }
+        stripedLockManager.lockArticleForTransaction(articleId);
         
         // Vérifier que l'article existe
         Article article = articleRepository.findById(articleId)
@@ -47,13 +57,17 @@ public class MvtStkServiceImpl implements MvtStkService {
 
     @Override
     @Transactional
+    @RetryOnConflict
     public MvtStkDTO sortieStock(Long articleId, BigDecimal quantite, SourceMvtStk source, Long entrepriseId) {
+        stripedLockManager.lockArticleForTransaction(articleId);
         return createMvtStk(articleId, quantite, TypeMvtStk.SORTIE, source, entrepriseId);
     }
 
     @Override
     @Transactional
+    @RetryOnConflict
     public MvtStkDTO correctionStock(Long articleId, BigDecimal quantite, TypeMvtStk typeMvt, Long entrepriseId) {
+        stripedLockManager.lockArticleForTransaction(articleId);
         return createMvtStk(articleId, quantite, typeMvt, SourceMvtStk.COMMANDE_FOURNISSEUR, entrepriseId);
     }
 
@@ -120,14 +134,26 @@ public class MvtStkServiceImpl implements MvtStkService {
 
     @Override
     @Transactional
+    @RetryOnConflict
     public MvtStkDTO reserverStock(Long articleId, BigDecimal quantite, Long entrepriseId) {
-        return createMvtStk(articleId, quantite, TypeMvtStk.RESERVATION, SourceMvtStk.VENTE, entrepriseId);
+        stripedLockManager.lockArticleForTransaction(articleId);
+        Article article = articleRepository.findById(articleId)
+                .orElseThrow(() -> new ResourceNotFoundException("Article", "id", articleId));
+
+        MvtStk mvtStk = reservationStockService.reserver(article, quantite.longValue(), entrepriseId, null);
+        return modelMapper.map(mvtStk, MvtStkDTO.class);
     }
 
     @Override
     @Transactional
+    @RetryOnConflict
     public MvtStkDTO annulerReservation(Long articleId, BigDecimal quantite, Long entrepriseId) {
-        return createMvtStk(articleId, quantite, TypeMvtStk.ANNULATION_RESERVATION, SourceMvtStk.VENTE, entrepriseId);
+        stripedLockManager.lockArticleForTransaction(articleId);
+        Article article = articleRepository.findById(articleId)
+                .orElseThrow(() -> new ResourceNotFoundException("Article", "id", articleId));
+
+        MvtStk mvtStk = reservationStockService.annuler(article, quantite.longValue(), entrepriseId);
+        return modelMapper.map(mvtStk, MvtStkDTO.class);
     }
 
     private MvtStkDTO createMvtStk(Long articleId, BigDecimal quantite, TypeMvtStk typeMvt, SourceMvtStk source, Long entrepriseId) {
@@ -158,6 +184,7 @@ public class MvtStkServiceImpl implements MvtStkService {
         mvtStk.setDateMvt(LocalDateTime.now());
 
         MvtStk saved = mvtStkRepository.save(mvtStk);
+        eventPublisher.publishEvent(StockChangedEvent.of(articleId));
         return modelMapper.map(saved, MvtStkDTO.class);
     }
 
@@ -0,0 +1,124 @@
+package com.belvinard.gestionstock.service.impl;
+
+import com.belvinard.gestionstock.dto.PrixBulkRequest;
+import com.belvinard.gestionstock.dto.PrixBulkResultDTO;
+import com.belvinard.gestionstock.events.PrixArticlesChangedEvent;
+import com.belvinard.gestionstock.exceptions.APIException;
+import com.belvinard.gestionstock.exceptions.ResourceNotFoundException;
+import com.belvinard.gestionstock.pricing.PrixCalculator;
+import com.belvinard.gestionstock.repositories.EntrepriseRepository;
+import com.belvinard.gestionstock.service.PricingService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Modification des prix et taux de TVA en masse, par une seule instruction UPDATE.
+ * <p>
+ * Le TTC est recalculé dans la même instruction à partir des nouvelles valeurs, avec la règle de
+ * {@link PrixCalculator} : aucun article n'est chargé en mémoire, quel que soit le volume. Les
+ * lignes de commande et de vente gardent le prix en vigueur au moment de leur création.
+ * <p>
+ * Une forte baisse en pourcentage peut arrondir un petit prix à 0,00 : ces articles sont exclus de
+ * la mise à jour et comptés dans le résultat plutôt que de passer à un prix nul.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PricingServiceImpl implements PricingService {
+
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final EntrepriseRepository entrepriseRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Override
+    @Transactional
+    public PrixBulkResultDTO updatePrixEnMasse(PrixBulkRequest request) {
+        boolean parCategorie = request.getCategoryIds() != null && !request.getCategoryIds().isEmpty();
+        boolean parArticle = request.getArticleIds() != null && !request.getArticleIds().isEmpty();
+        if (parCategorie == parArticle) {
+            throw new APIException("Indiquer soit une liste de catégories, soit une liste d'articles");
+        }
+        if (request.getPrixUnitaireHt() != null && request.getVariationPrixHtPourcent() != null) {
+            throw new APIException("Le nouveau prix HT et la variation en pourcentage sont exclusifs");
+        }
+        if (request.getPrixUnitaireHt() == null && request.getVariationPrixHtPourcent() == null
+                && request.getTauxTva() == null) {
+            throw new APIException("Aucune modification demandée (prix HT, variation ou taux de TVA)");
+        }
+        if (!entrepriseRepository.existsById(request.getEntrepriseId())) {
+            throw new ResourceNotFoundException("Entreprise", "id", request.getEntrepriseId());
+        }
+
+        MapSqlParameterSource parametres = new MapSqlParameterSource()
+                .addValue("entrepriseId", request.getEntrepriseId())
+                .addValue("maintenant", Timestamp.valueOf(LocalDateTime.now()));
+
+        // Expressions des nouvelles valeurs : le TTC se calcule sur elles, pas sur les anciennes colonnes
+        String prixHt = "prix_unitaire_ht";
+        if (request.getPrixUnitaireHt() != null) {
+            BigDecimal nouveauPrix = PrixCalculator.arrondir(request.getPrixUnitaireHt());
+            if (nouveauPrix.signum() <= 0) {
+                throw new APIException("Le prix HT arrondi au centime doit être strictement positif");
+            }
+            prixHt = ":prixHt";
+            parametres.addValue("prixHt", nouveauPrix);
+        } else if (request.getVariationPrixHtPourcent() != null) {
+            prixHt = "ROUND(prix_unitaire_ht * :facteur, " + PrixCalculator.ECHELLE + ")";
+            parametres.addValue("facteur", BigDecimal.ONE.add(
+                    request.getVariationPrixHtPourcent().movePointLeft(2)));
+        }
+        String tauxTva = "taux_tva";
+        if (request.getTauxTva() != null) {
+            tauxTva = ":tauxTva";
+            parametres.addValue("tauxTva", request.getTauxTva());
+        }
+
+        String perimetre;
+        if (parCategorie) {
+            perimetre = "idcategory IN (:ids)";
+            parametres.addValue("ids", List.copyOf(request.getCategoryIds()));
+        } else {
+            perimetre = "id IN (:ids)";
+            parametres.addValue("ids", List.copyOf(request.getArticleIds()));
+        }
+
+        String selection = "entreprise_id = :entrepriseId AND deleted_at IS NULL AND " + perimetre;
+        int ignores = 0;
+        if (request.getVariationPrixHtPourcent() != null) {
+            // Le prix d'un article sans prix HT reste vide : seule la TVA change
+            String prixPositif = "(prix_unitaire_ht IS NULL OR " + prixHt + " > 0)";
+            ignores = namedParameterJdbcTemplate.queryForObject(
+                    "SELECT COUNT(*) FROM article WHERE " + selection + " AND NOT " + prixPositif,
+                    parametres, Integer.class);
+            selection += " AND " + prixPositif;
+        }
+
+        String sql = "UPDATE article SET "
+                + "prix_unitaire_ht = " + prixHt + ", "
+                + "taux_tva = " + tauxTva + ", "
+                + "prix_unitaire_ttc = " + String.format(PrixCalculator.TTC_SQL, prixHt, tauxTva) + ", "
+                + "version = version + 1, "
+                + "last_modified_date = :maintenant "
+                + "WHERE " + selection;
+
+        long debut = System.nanoTime();
+        int modifies = namedParameterJdbcTemplate.update(sql, parametres);
+        long dureeMs = (System.nanoTime() - debut) / 1_000_000;
+
+        eventPublisher.publishEvent(new PrixArticlesChangedEvent(request.getEntrepriseId()));
+        log.info("💶 Prix mis à jour en masse pour l'entreprise {} : {} article(s), {} ignoré(s) (prix nul) en {} ms",
+                request.getEntrepriseId(), modifies, ignores, dureeMs);
+
+        return new PrixBulkResultDTO(modifies, ignores, dureeMs);
+    }
+}
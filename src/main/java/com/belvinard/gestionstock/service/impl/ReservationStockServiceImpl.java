@@ -0,0 +1,225 @@
+package com.belvinard.gestionstock.service.impl;
+
+import com.belvinard.gestionstock.events.StockChangedEvent;
+import com.belvinard.gestionstock.exceptions.InvalidOperationException;
+import com.belvinard.gestionstock.models.*;
+import com.belvinard.gestionstock.repositories.ArticleRepository;
+import com.belvinard.gestionstock.repositories.MvtStkRepository;
+import com.belvinard.gestionstock.repositories.ReservationStockRepository;
+import com.belvinard.gestionstock.service.ReservationStockService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+@Slf4j
+@Service
+public class ReservationStockServiceImpl implements ReservationStockService {
+
+    private final ReservationStockRepository reservationStockRepository;
+    private final ArticleRepository articleRepository;
+    private final MvtStkRepository mvtStkRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Duration dureeReservation;
+
+    public ReservationStockServiceImpl(ReservationStockRepository reservationStockRepository,
+                                       ArticleRepository articleRepository,
+                                       MvtStkRepository mvtStkRepository,
+                                       ApplicationEventPublisher eventPublisher,
+                                       @Value("${stock.reservation.ttl-minutes:30}") long ttlMinutes) {
+        this.reservationStockRepository = reservationStockRepository;
+        this.articleRepository = articleRepository;
+        this.mvtStkRepository = mvtStkRepository;
+        this.eventPublisher = eventPublisher;
+        this.dureeReservation = Duration.ofMinutes(ttlMinutes);
+    }
+
+    @Override
+    @Transactional
+    public MvtStk reserver(Article article, Long quantite, Long entrepriseId, Vente vente) {
+        if (quantite == null || quantite <= 0) {
+            throw new InvalidOperationException("La quantité à réserver doit être positive");
+        }
+
+        long reservee = article.getQuantiteReservee() != null ? article.getQuantiteReservee() : 0L;
+        long disponible = article.getQuantiteEnStock() - reservee;
+        if (disponible < quantite) {
+            throw new InvalidOperationException("Stock insuffisant pour l'article: " + article.getDesignation());
+        }
+
+        article.setQuantiteReservee(reservee + quantite);
+        articleRepository.save(article);
+
+        ReservationStock reservation = new ReservationStock();
+        reservation.setArticle(article);
+        reservation.setVente(vente);
+        reservation.setEntrepriseId(entrepriseId);
+        reservation.setQuantite(quantite);
+        reservation.setStatut(StatutReservation.ACTIVE);
+        reservation.setExpiresAt(LocalDateTime.now().plus(dureeReservation));
+        reservationStockRepository.save(reservation);
+        eventPublisher.publishEvent(StockChangedEvent.of(article.getId()));
+
+        return mvtStkRepository.save(journal(article, quantite, TypeMvtStk.RESERVATION, entrepriseId));
+    }
+
+    /**
+     * Seules les réservations posées hors vente sont annulées (les plus anciennes en premier) : le
+     * panier d'une vente ouverte ne peut être libéré que par la vente elle-même. La part du compteur
+     * non couverte par des lignes de réservation (réservations antérieures) reste annulable.
+     */
+    @Override
+    @Transactional
+    public MvtStk annuler(Article article, Long quantite, Long entrepriseId) {
+        if (quantite == null || quantite <= 0) {
+            throw new InvalidOperationException("La quantité à annuler doit être positive");
+        }
+
+        List<ReservationStock> horsVente = reservationStockRepository
+                .findAllByArticleIdAndVenteIsNullAndStatutOrderByExpiresAtAsc(article.getId(), StatutReservation.ACTIVE);
+        long reservee = article.getQuantiteReservee() != null ? article.getQuantiteReservee() : 0L;
+        long sansLigne = Math.max(0L, reservee - reservationStockRepository
+                .sumQuantiteByArticleIdAndStatut(article.getId(), StatutReservation.ACTIVE));
+        long annulable = sansLigne + horsVente.stream().mapToLong(ReservationStock::getQuantite).sum();
+        if (annulable < quantite) {
+            throw new InvalidOperationException("Quantité à annuler supérieure au stock réservé hors vente pour l'article: "
+                    + article.getDesignation());
+        }
+
+        long restant = quantite;
+        for (ReservationStock reservation : horsVente) {
+            if (restant <= 0) {
+                break;
+            }
+            if (reservation.getQuantite() <= restant) {
+                restant -= reservation.getQuantite();
+                reservation.setStatut(StatutReservation.ANNULEE);
+            } else {
+                reservation.setQuantite(reservation.getQuantite() - restant);
+                restant = 0;
+            }
+        }
+
+        article.setQuantiteReservee(Math.max(0L, reservee - quantite));
+        articleRepository.save(article);
+        eventPublisher.publishEvent(StockChangedEvent.of(article.getId()));
+
+        return mvtStkRepository.save(journal(article, quantite, TypeMvtStk.ANNULATION_RESERVATION, entrepriseId));
+    }
+
+    /**
+     * Seules les réservations encore actives sont libérées : la part déjà expirée a été rendue au
+     * stock libre par le balayeur et n'est pas décomptée une seconde fois.
+     */
+    @Override
+    @Transactional
+    public void libererPourVente(Long venteId, Article article, Long quantite) {
+        long restant = quantite;
+        long liberee = 0;
+        for (ReservationStock reservation : reservationStockRepository
+                .findAllByVenteIdAndArticleIdAndStatutOrderByExpiresAtAsc(venteId, article.getId(), StatutReservation.ACTIVE)) {
+            if (restant <= 0) {
+                break;
+            }
+            long part = Math.min(reservation.getQuantite(), restant);
+            if (part == reservation.getQuantite()) {
+                reservation.setStatut(StatutReservation.ANNULEE);
+            } else {
+                reservation.setQuantite(reservation.getQuantite() - part);
+            }
+            restant -= part;
+            liberee += part;
+        }
+        if (liberee == 0) {
+            return;
+        }
+
+        long reservee = article.getQuantiteReservee() != null ? article.getQuantiteReservee() : 0L;
+        article.setQuantiteReservee(Math.max(0L, reservee - liberee));
+        articleRepository.save(article);
+        eventPublisher.publishEvent(StockChangedEvent.of(article.getId()));
+        mvtStkRepository.save(journal(article, liberee, TypeMvtStk.ANNULATION_RESERVATION, article.getEntreprise().getId()));
+    }
+
+    @Override
+    @Transactional
+    public Map<Long, Long> consommerPourVente(Long venteId) {
+        Map<Long, Long> consommees = new HashMap<>();
+        for (ReservationStock reservation : reservationStockRepository
+                .findAllByVenteIdAndStatut(venteId, StatutReservation.ACTIVE)) {
+            reservation.setStatut(StatutReservation.CONSOMMEE);
+            consommees.merge(reservation.getArticle().getId(), reservation.getQuantite(), Long::sum);
+        }
+        return consommees;
+    }
+
+    @Override
+    @Transactional
+    public void annulerPourVente(Long venteId) {
+        Set<Long> articleIds = new HashSet<>();
+        for (ReservationStock reservation : reservationStockRepository.findAllByVenteId(venteId)) {
+            if (reservation.getStatut() == StatutReservation.ACTIVE) {
+                reservation.setStatut(StatutReservation.ANNULEE);
+                articleRepository.decrementQuantiteReservee(reservation.getArticle().getId(), reservation.getQuantite());
+                articleIds.add(reservation.getArticle().getId());
+            }
+            // La vente va être supprimée : la réservation reste pour l'historique, sans lien
+            reservation.setVente(null);
+        }
+        if (!articleIds.isEmpty()) {
+            eventPublisher.publishEvent(new StockChangedEvent(articleIds));
+        }
+    }
+
+    @Override
+    @Transactional
+    public int libererReservationsExpirees(int batchSize) {
+        List<Long> ids = reservationStockRepository.lockExpiredBatch(LocalDateTime.now(), batchSize);
+        if (ids.isEmpty()) {
+            return 0;
+        }
+
+        Map<Long, Long> parArticle = new HashMap<>();
+        Map<Long, Long> entreprises = new HashMap<>();
+        for (ReservationStock reservation : reservationStockRepository.findAllById(ids)) {
+            reservation.setStatut(StatutReservation.EXPIREE);
+            Long articleId = reservation.getArticle().getId();
+            parArticle.merge(articleId, reservation.getQuantite(), Long::sum);
+            entreprises.putIfAbsent(articleId, reservation.getEntrepriseId());
+        }
+
+        List<MvtStk> mouvements = new ArrayList<>(parArticle.size());
+        parArticle.forEach((articleId, quantite) -> {
+            articleRepository.decrementQuantiteReservee(articleId, quantite);
+            mouvements.add(journal(articleRepository.getReferenceById(articleId), quantite,
+                    TypeMvtStk.ANNULATION_RESERVATION, entreprises.get(articleId)));
+        });
+        mvtStkRepository.saveAll(mouvements);
+        eventPublisher.publishEvent(new StockChangedEvent(parArticle.keySet()));
+
+        log.info("⏱️ {} réservation(s) expirée(s) libérée(s) sur {} article(s)", ids.size(), parArticle.size());
+        return ids.size();
+    }
+
+    private MvtStk journal(Article article, Long quantite, TypeMvtStk typeMvt, Long entrepriseId) {
+        MvtStk mvtStk = new MvtStk();
+        mvtStk.setArticle(article);
+        mvtStk.setQuantite(BigDecimal.valueOf(quantite));
+        mvtStk.setTypeMvt(typeMvt);
+        mvtStk.setSourceMvt(SourceMvtStk.VENTE);
+        mvtStk.setEntrepriseId(entrepriseId);
+        mvtStk.setDateMvt(LocalDateTime.now());
+        return mvtStk;
+    }
+}
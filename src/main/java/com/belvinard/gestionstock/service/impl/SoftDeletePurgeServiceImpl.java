@@ -0,0 +1,89 @@
+package com.belvinard.gestionstock.service.impl;
+
+import com.belvinard.gestionstock.service.SoftDeletePurgeService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Archivage des lignes supprimées logiquement au-delà de la rétention.
+ * <p>
+ * Chaque lot est déplacé par une seule instruction (sélection {@code SKIP LOCKED}, DELETE ...
+ * RETURNING, INSERT dans {@code soft_delete_archive}) et dans sa propre transaction. Une ligne
+ * encore référencée par l'historique (mouvements, ventes, commandes, sous-catégories) n'est pas
+ * candidate : elle reste supprimée logiquement dans sa table.
+ */
+@Slf4j
+@Service
+public class SoftDeletePurgeServiceImpl implements SoftDeletePurgeService {
+
+    private record Table(String nom, String nonReferencee) {
+    }
+
+    // Articles avant catégories : une catégorie n'est libérée qu'une fois ses articles archivés
+    private static final List<Table> TABLES = List.of(
+            new Table("article", "NOT EXISTS (SELECT 1 FROM mvtstk r WHERE r.idarticle = t.id) "
+                    + "AND NOT EXISTS (SELECT 1 FROM ligne_vente r WHERE r.idarticle = t.id) "
+                    + "AND NOT EXISTS (SELECT 1 FROM lignecommandeclient r WHERE r.idarticle = t.id) "
+                    + "AND NOT EXISTS (SELECT 1 FROM ligne_commande_fournisseurs r WHERE r.article_id = t.id) "
+                    + "AND NOT EXISTS (SELECT 1 FROM reservation_stock r WHERE r.idarticle = t.id)"),
+            new Table("categories", "NOT EXISTS (SELECT 1 FROM article r WHERE r.idcategory = t.id) "
+                    + "AND NOT EXISTS (SELECT 1 FROM categories r WHERE r.parent_id = t.id)"),
+            new Table("client", "NOT EXISTS (SELECT 1 FROM commandeclient r WHERE r.idclient = t.id) "
+                    + "AND NOT EXISTS (SELECT 1 FROM vente r WHERE r.idclient = t.id)"),
+            new Table("fournisseur", "NOT EXISTS (SELECT 1 FROM commandefournisseur r WHERE r.fournisseur_id = t.id)"));
+
+    private static final String ARCHIVAGE_SQL = "WITH lot AS ("
+            + "  SELECT t.id FROM %1$s t WHERE t.deleted_at < ? AND %2$s "
+            + "  ORDER BY t.deleted_at LIMIT ? FOR UPDATE SKIP LOCKED), "
+            + "supprimees AS (DELETE FROM %1$s t USING lot WHERE t.id = lot.id RETURNING t.*) "
+            + "INSERT INTO soft_delete_archive (table_name, entity_id, deleted_at, payload, creation_date, last_modified_date) "
+            + "SELECT '%1$s', s.id, s.deleted_at, row_to_json(s)::text, LOCALTIMESTAMP, LOCALTIMESTAMP FROM supprimees s";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration retention;
+
+    public SoftDeletePurgeServiceImpl(JdbcTemplate jdbcTemplate,
+                                      TransactionTemplate transactionTemplate,
+                                      @Value("${stock.soft-delete.retention-days:90}") long retentionJours) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.retention = Duration.ofDays(retentionJours);
+    }
+
+    @Override
+    public int archiveExpired(int batchSize, int maxBatches) {
+        Timestamp limite = Timestamp.valueOf(LocalDateTime.now().minus(retention));
+        int total = 0;
+        for (Table table : TABLES) {
+            String sql = String.format(ARCHIVAGE_SQL, table.nom(), table.nonReferencee());
+            int lots = 0;
+            int archivees;
+            do {
+                try {
+                    archivees = transactionTemplate.execute(status -> jdbcTemplate.update(sql, limite, batchSize));
+                } catch (DataAccessException e) {
+                    // Référence non prévue (clé étrangère) : la table est reprise au prochain passage
+                    log.warn("Archivage des lignes supprimées de {} interrompu : {}", table.nom(),
+                            e.getMostSpecificCause().getMessage());
+                    break;
+                }
+                total += archivees;
+                lots++;
+            } while (archivees == batchSize && lots < maxBatches);
+        }
+        if (total > 0) {
+            log.info("🗄️ Lignes supprimées archivées : {}", total);
+        }
+        return total;
+    }
+}
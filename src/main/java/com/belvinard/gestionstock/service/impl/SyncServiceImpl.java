@@ -0,0 +1,279 @@
+package com.belvinard.gestionstock.service.impl;
+
+import com.belvinard.gestionstock.exceptions.APIException;
+import com.belvinard.gestionstock.exceptions.ResourceNotFoundException;
+import com.belvinard.gestionstock.repositories.EntrepriseRepository;
+import com.belvinard.gestionstock.service.SyncService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.time.DateTimeException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Synchronisation différentielle du catalogue d'une entreprise vers les caisses hors ligne.
+ * <p>
+ * Le flux NDJSON contient une ligne par article, catégorie ou client créé ou modifié depuis le
+ * jeton, puis une ligne par suppression logique ({@code deleted_at}), et se termine par une ligne {@code end} portant le jeton
+ * suivant : une caisse dont la connexion tombe en cours de route ne retient pas de jeton et
+ * rejoue simplement la même demande. Toutes les lectures se font dans une transaction
+ * REPEATABLE READ, donc sur un même instantané, et les lignes sont lues par curseur.
+ * <p>
+ * La fenêtre suit l'ordre de validation, pas une horloge : chaque écriture (JPA, import JDBC, mise à
+ * jour de prix en masse, suppression logique) reçoit par déclencheur l'identifiant de sa transaction
+ * ({@code change_xid}), et le jeton retient le plus ancien identifiant encore en cours au moment de
+ * l'instantané. Toute transaction validée ensuite porte un identifiant au moins égal : elle est lue à
+ * la synchronisation suivante, quelle que soit sa durée. Une ligne déjà transmise peut être renvoyée,
+ * ce qui est sans effet pour une caisse qui applique des upserts.
+ * Sans jeton, ou avec un jeton antérieur à la rétention des lignes supprimées (au-delà, elles sont
+ * archivées), le flux commence par une ligne {@code reset} et contient le catalogue complet.
+ */
+@Slf4j
+@Service
+public class SyncServiceImpl implements SyncService {
+
+    private static final String FILTRE_FENETRE = " AND t.change_xid >= CAST(? AS xid8)";
+
+    private static final String XMIN_SQL = "SELECT pg_snapshot_xmin(pg_current_snapshot())::text";
+
+    private static final String ARTICLES_SQL = "SELECT t.id, t.code_article AS \"code\", t.designation, "
+            + "t.idcategory AS \"categoryId\", t.prix_unitaire_ht AS \"prixHt\", t.taux_tva AS \"tauxTva\", "
+            + "t.prix_unitaire_ttc AS \"prixTtc\", t.quantite_en_stock AS \"stock\", "
+            + "t.quantite_reservee AS \"reserve\", t.photo FROM article t "
+            + "WHERE t.entreprise_id = ? AND t.deleted_at IS NULL";
+    private static final String CATEGORIES_SQL = "SELECT t.id, t.code, t.designation, t.parent_id AS \"parentId\" "
+            + "FROM categories t WHERE t.entreprisei_id = ? AND t.deleted_at IS NULL";
+    private static final String CLIENTS_SQL = "SELECT t.id, t.nom, t.prenom, t.mail, t.num_tel AS \"numTel\", "
+            + "t.adresse1, t.adresse2, t.ville, t.code_postale AS \"codePostale\", t.pays "
+            + "FROM client t WHERE t.entreprise_id = ? AND t.deleted_at IS NULL";
+    private static final String SUPPRESSIONS_SQL =
+            "SELECT '" + TYPE_CATEGORY + "', t.id FROM categories t WHERE t.entreprisei_id = ? "
+                    + "AND t.deleted_at IS NOT NULL" + FILTRE_FENETRE
+            + " UNION ALL SELECT '" + TYPE_ARTICLE + "', t.id FROM article t WHERE t.entreprise_id = ? "
+                    + "AND t.deleted_at IS NOT NULL" + FILTRE_FENETRE
+            + " UNION ALL SELECT '" + TYPE_CLIENT + "', t.id FROM client t WHERE t.entreprise_id = ? "
+                    + "AND t.deleted_at IS NOT NULL" + FILTRE_FENETRE;
+
+    private static final int LIGNES_PAR_ENVOI = 500;
+
+    private final EntrepriseRepository entrepriseRepository;
+    private final ObjectMapper objectMapper;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate instantane;
+    private final Duration retention;
+
+    public SyncServiceImpl(EntrepriseRepository entrepriseRepository,
+                           ObjectMapper objectMapper,
+                           DataSource dataSource,
+                           PlatformTransactionManager transactionManager,
+                           @Value("${stock.sync.fetch-size:500}") int fetchSize,
+                           @Value("${stock.soft-delete.retention-days:90}") long retentionJours) {
+        this.entrepriseRepository = entrepriseRepository;
+        this.objectMapper = objectMapper;
+        // Curseur côté serveur : PostgreSQL ne l'ouvre que dans une transaction avec une taille de lot
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(fetchSize);
+        this.instantane = new TransactionTemplate(transactionManager);
+        this.instantane.setReadOnly(true);
+        this.instantane.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.retention = Duration.ofDays(retentionJours);
+    }
+
+    @Override
+    public StreamingResponseBody streamChanges(Long entrepriseId, String since) {
+        if (!entrepriseRepository.existsById(entrepriseId)) {
+            throw new ResourceNotFoundException("Entreprise", "id", entrepriseId);
+        }
+
+        Jeton jeton = since == null || since.isBlank() ? null : decoder(since);
+        // Lignes supprimées plus anciennes déjà archivées : seule une copie complète est sûre
+        boolean complet = jeton == null || jeton.emisLe().isBefore(LocalDateTime.now().minus(retention));
+        Long depuis = complet ? null : jeton.xmin();
+
+        return out -> ecrire(entrepriseId, depuis, out);
+    }
+
+    private void ecrire(Long entrepriseId, Long depuis, OutputStream out) throws IOException {
+        long debut = System.nanoTime();
+        JsonGenerator json = objectMapper.getFactory().createGenerator(out);
+        json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        // Les lignes sont séparées par '\n' uniquement, sans l'espace inséré par défaut entre valeurs racines
+        json.setRootValueSeparator(null);
+        long[] lignes = {0};
+        Jeton[] suivant = new Jeton[1];
+
+        try {
+            instantane.executeWithoutResult(status -> {
+                // Première lecture : fixe l'instantané dont le jeton suivant retient le xmin
+                String xmin = jdbcTemplate.queryForObject(XMIN_SQL, String.class);
+                suivant[0] = new Jeton(Long.parseLong(xmin), LocalDateTime.now());
+                if (depuis == null) {
+                    ecrireSansErreur(() -> {
+                        json.writeStartObject();
+                        json.writeStringField("type", "reset");
+                        json.writeEndObject();
+                    });
+                    finLigne(json, lignes);
+                }
+                // Catégories d'abord : les articles y font référence
+                lignesModifiees(json, lignes, TYPE_CATEGORY, CATEGORIES_SQL, entrepriseId, depuis);
+                lignesModifiees(json, lignes, TYPE_ARTICLE, ARTICLES_SQL, entrepriseId, depuis);
+                lignesModifiees(json, lignes, TYPE_CLIENT, CLIENTS_SQL, entrepriseId, depuis);
+                if (depuis != null) {
+                    jdbcTemplate.query(SUPPRESSIONS_SQL, rs -> {
+                        ecrireSansErreur(() -> {
+                            json.writeStartObject();
+                            json.writeStringField("type", rs.getString(1));
+                            json.writeStringField("op", "delete");
+                            json.writeNumberField("id", rs.getLong(2));
+                            json.writeEndObject();
+                        });
+                        finLigne(json, lignes);
+                    }, fenetre(entrepriseId, depuis, 3));
+                }
+            });
+        } catch (UncheckedIOException e) {
+            // Client déconnecté : il rejouera la demande avec son ancien jeton
+            throw e.getCause();
+        }
+
+        json.writeStartObject();
+        json.writeStringField("type", "end");
+        json.writeStringField("token", encoder(suivant[0]));
+        json.writeNumberField("count", lignes[0]);
+        json.writeEndObject();
+        json.writeRaw('\n');
+        json.flush();
+
+        log.info("🔄 Synchronisation de l'entreprise {} ({}) : {} ligne(s) en {} ms", entrepriseId,
+                depuis == null ? "complète" : "depuis la transaction " + depuis, lignes[0],
+                (System.nanoTime() - debut) / 1_000_000);
+    }
+
+    private void lignesModifiees(JsonGenerator json, long[] lignes, String type, String sql,
+                                 Long entrepriseId, Long depuis) {
+        List<Object> parametres = new ArrayList<>(List.of(entrepriseId));
+        if (depuis != null) {
+            sql += FILTRE_FENETRE;
+            parametres.add(Long.toString(depuis));
+        }
+        jdbcTemplate.query(sql + " ORDER BY t.id", rs -> {
+            ecrireSansErreur(() -> {
+                json.writeStartObject();
+                json.writeStringField("type", type);
+                json.writeStringField("op", "upsert");
+                colonnes(json, rs);
+                json.writeEndObject();
+            });
+            finLigne(json, lignes);
+        }, parametres.toArray());
+    }
+
+    // Colonnes non nulles uniquement, sous leur alias : la ligne reste courte
+    private static void colonnes(JsonGenerator json, ResultSet rs) throws SQLException, IOException {
+        ResultSetMetaData meta = rs.getMetaData();
+        for (int i = 1; i <= meta.getColumnCount(); i++) {
+            Object valeur = rs.getObject(i);
+            if (valeur == null) {
+                continue;
+            }
+            json.writeFieldName(meta.getColumnLabel(i));
+            if (valeur instanceof BigDecimal decimal) {
+                json.writeNumber(decimal);
+            } else if (valeur instanceof Number nombre) {
+                json.writeNumber(nombre.longValue());
+            } else {
+                json.writeString(valeur.toString());
+            }
+        }
+    }
+
+    private static void finLigne(JsonGenerator json, long[] lignes) {
+        ecrireSansErreur(() -> {
+            json.writeRaw('\n');
+            // Envoi régulier : une liaison lente reçoit les données au fil de la lecture
+            if (++lignes[0] % LIGNES_PAR_ENVOI == 0) {
+                json.flush();
+            }
+        });
+    }
+
+    @FunctionalInterface
+    private interface Ecriture {
+        void executer() throws IOException, SQLException;
+    }
+
+    private static void ecrireSansErreur(Ecriture ecriture) {
+        try {
+            ecriture.executer();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (SQLException e) {
+            throw new IllegalStateException("Lecture du catalogue impossible : " + e.getMessage(), e);
+        }
+    }
+
+    // Paramètres (entreprise, transaction de départ) répétés pour chaque table de la requête
+    private static Object[] fenetre(Long entrepriseId, Long depuis, int tables) {
+        Object[] parametres = new Object[tables * 2];
+        for (int i = 0; i < tables; i++) {
+            parametres[i * 2] = entrepriseId;
+            parametres[i * 2 + 1] = Long.toString(depuis);
+        }
+        return parametres;
+    }
+
+    /* ================== JETON ================== */
+
+    /**
+     * Plus ancienne transaction en cours lors de l'instantané, et date d'émission (seulement pour la
+     * rétention des suppressions).
+     */
+    private record Jeton(long xmin, LocalDateTime emisLe) {
+    }
+
+    // Jeton opaque : xmin et microsecondes d'émission, en base 36
+    private static String encoder(Jeton jeton) {
+        LocalDateTime emisLe = jeton.emisLe();
+        long micros = emisLe.toEpochSecond(ZoneOffset.UTC) * 1_000_000 + emisLe.getNano() / 1_000;
+        return Long.toString(jeton.xmin(), 36) + "." + Long.toString(micros, 36);
+    }
+
+    private static Jeton decoder(String jeton) {
+        try {
+            String[] parties = jeton.trim().split("\\.", -1);
+            if (parties.length != 2) {
+                throw new NumberFormatException(jeton);
+            }
+            long xmin = Long.parseLong(parties[0], 36);
+            long micros = Long.parseLong(parties[1], 36);
+            if (xmin < 0) {
+                throw new NumberFormatException(jeton);
+            }
+            return new Jeton(xmin, LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000),
+                    (int) Math.floorMod(micros, 1_000_000) * 1_000, ZoneOffset.UTC));
+        } catch (NumberFormatException | DateTimeException e) {
+            throw new APIException("Jeton de synchronisation invalide : " + jeton);
+        }
+    }
+}
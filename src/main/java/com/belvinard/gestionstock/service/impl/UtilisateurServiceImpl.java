@@ -1,6 +1,7 @@
 package com.belvinard.gestionstock.service.impl;
 
 import com.belvinard.gestionstock.dto.ChangerMotDePasseUtilisateurDTO;
+import com.belvinard.gestionstock.dto.PageQuery;
 import com.belvinard.gestionstock.dto.RolesDTO;
 import com.belvinard.gestionstock.dto.UtilisateurDTO;
 import com.belvinard.gestionstock.models.Entreprise;
@@ -10,16 +11,21 @@ import com.belvinard.gestionstock.models.Utilisateur;
 import com.belvinard.gestionstock.repositories.EntrepriseRepository;
 import com.belvinard.gestionstock.repositories.RolesRepository;
 import com.belvinard.gestionstock.repositories.UtilisateurRepository;
+import com.belvinard.gestionstock.responses.PageResponse;
 import com.belvinard.gestionstock.service.UtilisateurService;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
 import org.modelmapper.ModelMapper;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
@@ -32,6 +38,8 @@ public class UtilisateurServiceImpl implements UtilisateurService {
     private final ModelMapper modelMapper;
     private final PasswordEncoder passwordEncoder;
 
+    private static final Set<String> CHAMPS_TRIABLES = Set.of("id", "nom", "prenom", "email", "userName", "creationDate");
+
     @Override
     public UtilisateurDTO save(UtilisateurDTO dto, Long entrepriseId) {
         if (entrepriseId == null) {
@@ -114,10 +122,12 @@ public class UtilisateurServiceImpl implements UtilisateurService {
     }
 
     @Override
-    public List<UtilisateurDTO> findAll() {
-        return utilisateurRepository.findAll().stream()
-                .map(this::mapUserToDTO)
-                .collect(Collectors.toList());
+    public PageResponse<UtilisateurDTO> findAll(PageQuery pageQuery) {
+        Pageable pageable = pageQuery.toPageable(CHAMPS_TRIABLES, Sort.by("nom", "prenom"));
+        Slice<Utilisateur> utilisateurs = pageQuery.isWithTotal()
+                ? utilisateurRepository.findAll(pageable)
+                : utilisateurRepository.findAllBy(pageable);
+        return PageResponse.of(utilisateurs, this::mapUserToDTO);
     }
 
     /**
@@ -343,6 +353,6 @@ public class UtilisateurServiceImpl implements UtilisateurService {
 
     @Override
     public List<UtilisateurDTO> findAdminUsers() {
-        return findAll();
+        return findByRole(RoleType.ADMIN);
     }
 }
\ No newline at end of file
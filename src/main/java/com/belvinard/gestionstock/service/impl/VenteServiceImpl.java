@@ -1,20 +1,36 @@
 package com.belvinard.gestionstock.service.impl;
 
+import com.belvinard.gestionstock.concurrency.RetryOnConflict;
+import com.belvinard.gestionstock.concurrency.StripedLockManager;
+import com.belvinard.gestionstock.dto.PageQuery;
 import com.belvinard.gestionstock.dto.VenteDTO;
 import com.belvinard.gestionstock.dto.LigneVenteDTO;
+import com.belvinard.gestionstock.events.StockChangedEvent;
 import com.belvinard.gestionstock.exceptions.*;
 import com.belvinard.gestionstock.models.*;
 import com.belvinard.gestionstock.repositories.*;
+import com.belvinard.gestionstock.responses.PageResponse;
+import com.belvinard.gestionstock.responses.VenteResponse;
 import com.belvinard.gestionstock.service.VenteService;
 import com.belvinard.gestionstock.service.MvtStkService;
+import com.belvinard.gestionstock.service.ReservationStockService;
 import lombok.RequiredArgsConstructor;
 import org.modelmapper.ModelMapper;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
@@ -30,6 +46,11 @@ public class VenteServiceImpl implements VenteService {
     private final MvtStkService mvtStkService;
     private final MvtStkRepository mvtStkRepository;
     private final ModelMapper modelMapper;
+    private final StripedLockManager stripedLockManager;
+    private final ReservationStockService reservationStockService;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private static final Set<String> CHAMPS_TRIABLES = Set.of("id", "code", "dateVente", "etatVente", "creationDate");
 
     @Override
     public VenteDTO findById(Long id) {
@@ -46,23 +67,27 @@ public class VenteServiceImpl implements VenteService {
     }
 
     @Override
-    public List<VenteDTO> findAll() {
-        return venteRepository.findAll().stream()
-                .map(this::enrichVenteDTO)
-                .collect(Collectors.toList());
+    public VenteResponse findAll(PageQuery pageQuery) {
+        Pageable pageable = pageQuery.toPageable(CHAMPS_TRIABLES, Sort.by(Sort.Direction.DESC, "dateVente"));
+        Slice<Vente> ventes = pageQuery.isWithTotal()
+                ? venteRepository.findAll(pageable)
+                : venteRepository.findAllBy(pageable);
+        return PageResponse.fill(new VenteResponse(), ventes, this::enrichVenteDTO);
     }
 
     @Override
     @Transactional
+    @RetryOnConflict
     public void delete(Long id) {
         Vente vente = venteRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Vente", "id", id));
         if (vente.getEtatVente() == EtatVente.FINALISEE) {
             throw new InvalidOperationException("Impossible de supprimer une vente finalisée");
         }
-        
-        // Pas besoin de libérer le stock car il n'est pas réservé
-        
+
+        // Libérer les réservations du panier
+        reservationStockService.annulerPourVente(id);
+
         // Delete all line items first
         ligneVenteRepository.deleteAllByVenteId(id);
         venteRepository.delete(vente);
@@ -98,6 +123,7 @@ public class VenteServiceImpl implements VenteService {
 
     @Override
     @Transactional
+    @RetryOnConflict
     public VenteDTO updateVente(Long id, VenteDTO venteDTO) {
         Vente vente = venteRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Vente", "id", id));
@@ -111,6 +137,7 @@ public class VenteServiceImpl implements VenteService {
     }
 
     @Transactional
+    @RetryOnConflict
     public VenteDTO updateEtatVente(Long idVente, EtatVente etatVente) {
         Vente vente = venteRepository.findById(idVente)
                 .orElseThrow(() -> new ResourceNotFoundException("Vente", "id", idVente));
@@ -121,25 +148,57 @@ public class VenteServiceImpl implements VenteService {
 
     @Transactional
     @Override
+    @RetryOnConflict
     public VenteDTO finalizeVente(Long idVente) {
         Vente vente = venteRepository.findById(idVente)
                 .orElseThrow(() -> new ResourceNotFoundException("Vente", "id", idVente));
         if (vente.getEtatVente() == EtatVente.FINALISEE) {
             throw new InvalidOperationException("Vente déjà finalisée");
         }
+        // Verrouiller tous les articles (ordre déterministe) avant de charger les lignes
+        List<Long> articleIds = ligneVenteRepository.findArticleIdsByVenteId(idVente);
+        stripedLockManager.lockArticlesForTransaction(articleIds);
         List<LigneVente> lignes = ligneVenteRepository.findAllByVenteId(idVente);
         if (lignes.isEmpty()) {
             throw new InvalidOperationException("Impossible de finaliser une vente sans lignes");
         }
+        // Les réservations encore actives du panier sont consommées ; celles qui ont expiré (ou une
+        // ligne créée sans réservation) ne garantissent plus rien
+        Map<Long, Long> reservationsConsommees = reservationStockService.consommerPourVente(idVente);
+
+        // Quantité vendue par article, toutes lignes confondues
+        Map<Long, Article> articles = new LinkedHashMap<>();
+        Map<Long, Long> vendues = new HashMap<>();
+        for (LigneVente ligne : lignes) {
+            articles.putIfAbsent(ligne.getArticle().getId(), ligne.getArticle());
+            vendues.merge(ligne.getArticle().getId(), ligne.getQuantite().longValue(), Long::sum);
+        }
+
+        // Tout est vérifié avant la première écriture : une vente refusée ne touche à aucun stock
+        for (Article article : articles.values()) {
+            long quantiteReservee = article.getQuantiteReservee() != null ? article.getQuantiteReservee() : 0L;
+            long reserveeParLaVente = reservationsConsommees.getOrDefault(article.getId(), 0L);
+            // Stock libre une fois la réservation de cette vente rendue, sans empiéter sur celles des autres
+            long disponible = article.getQuantiteEnStock() - Math.max(0L, quantiteReservee - reserveeParLaVente);
+            if (disponible < vendues.get(article.getId())) {
+                throw new InvalidOperationException("Stock insuffisant pour l'article: " + article.getDesignation()
+                        + (reserveeParLaVente < vendues.get(article.getId()) ? " (réservation expirée)" : ""));
+            }
+        }
+
         vente.setEtatVente(EtatVente.FINALISEE);
         venteRepository.save(vente);
-        
+
         // Convertir les réservations en sorties réelles
         for (LigneVente ligne : lignes) {
             Article article = ligne.getArticle();
             Long quantite = ligne.getQuantite().longValue();
-            
-            // SEULEMENT diminuer le stock physique (les réservations restent pour traçabilité)
+
+            Long reservee = reservationsConsommees.remove(article.getId());
+            if (reservee != null) {
+                long quantiteReservee = article.getQuantiteReservee() != null ? article.getQuantiteReservee() : 0L;
+                article.setQuantiteReservee(Math.max(0L, quantiteReservee - reservee));
+            }
             article.setQuantiteEnStock(article.getQuantiteEnStock() - quantite);
             articleRepository.save(article);
             
@@ -156,6 +215,13 @@ public class VenteServiceImpl implements VenteService {
             
             mvtStkRepository.save(mvtStk);
         }
+
+        // Réservations d'articles retirés du panier entre-temps : simplement libérées
+        reservationsConsommees.forEach(articleRepository::decrementQuantiteReservee);
+
+        Set<Long> articlesModifies = new HashSet<>(articleIds);
+        articlesModifies.addAll(reservationsConsommees.keySet());
+        eventPublisher.publishEvent(new StockChangedEvent(articlesModifies));
         return enrichVenteDTO(vente);
     }
 
@@ -208,6 +274,7 @@ public class VenteServiceImpl implements VenteService {
 
     @Transactional
     @Override
+    @RetryOnConflict
     public LigneVenteDTO addLigneVente(Long venteId, LigneVenteDTO ligneVenteDTO) {
         // Récupérer la vente
         Vente vente = venteRepository.findById(venteId)
@@ -219,13 +286,13 @@ public class VenteServiceImpl implements VenteService {
         }
 
         // Récupérer l'article
+        stripedLockManager.lockArticleForTransaction(ligneVenteDTO.getIdArticle());
         Article article = articleRepository.findById(ligneVenteDTO.getIdArticle())
                 .orElseThrow(() -> new ResourceNotFoundException("Article", "id", ligneVenteDTO.getIdArticle()));
 
-        // Vérifier le stock disponible sans le réserver
-        if (article.getQuantiteEnStock() < ligneVenteDTO.getQuantite().longValue()) {
-            throw new APIException("Stock insuffisant pour l'article: " + article.getDesignation());
-        }
+        // Réserver le stock jusqu'à la finalisation (libéré automatiquement à expiration)
+        reservationStockService.reserver(article, ligneVenteDTO.getQuantite().longValue(),
+                article.getEntreprise().getId(), vente);
 
         // Mapper DTO vers entité
         LigneVente ligne = modelMapper.map(ligneVenteDTO, LigneVente.class);
@@ -241,6 +308,7 @@ public class VenteServiceImpl implements VenteService {
 
     @Override
     @Transactional
+    @RetryOnConflict
     public VenteDTO createVenteFromCommande(Long commandeClientId) {
         // 1. Récupérer la commande client
         CommandeClient commande = commandeClientRepository.findById(commandeClientId)
@@ -270,16 +338,19 @@ public class VenteServiceImpl implements VenteService {
 
         Vente savedVente = venteRepository.save(vente);
 
-        // 5. Créer les lignes de vente depuis les lignes de commande
+        // 5. Créer les lignes de vente depuis les lignes de commande, chacune réservée comme un ajout au panier
+        stripedLockManager.lockArticlesForTransaction(commande.getLigneCommandeClients().stream()
+                .map(ligne -> ligne.getArticle().getId())
+                .toList());
         for (LigneCommandeClient ligneCommande : commande.getLigneCommandeClients()) {
-            // Vérifier le stock disponible
-            if (ligneCommande.getArticle().getQuantiteEnStock() < ligneCommande.getQuantite().longValue()) {
-                throw new APIException("Stock insuffisant pour l'article: " + ligneCommande.getArticle().getDesignation());
-            }
+            Article article = articleRepository.findById(ligneCommande.getArticle().getId())
+                    .orElseThrow(() -> new ResourceNotFoundException("Article", "id", ligneCommande.getArticle().getId()));
+            reservationStockService.reserver(article, ligneCommande.getQuantite().longValue(),
+                    article.getEntreprise().getId(), savedVente);
 
             LigneVente ligneVente = new LigneVente();
             ligneVente.setVente(savedVente);
-            ligneVente.setArticle(ligneCommande.getArticle());
+            ligneVente.setArticle(article);
             ligneVente.setQuantite(ligneCommande.getQuantite());
             ligneVente.setPrixUnitaireHt(ligneCommande.getPrixUnitaireHt());
             ligneVente.setTauxTva(ligneCommande.getTauxTva());
@@ -291,6 +362,9 @@ public class VenteServiceImpl implements VenteService {
         // 6. Passer la commande à l'état LIVREE
         commande.setEtatCommande(EtatCommande.LIVREE);
         commandeClientRepository.save(commande);
+        eventPublisher.publishEvent(new StockChangedEvent(commande.getLigneCommandeClients().stream()
+                .map(ligne -> ligne.getArticle().getId())
+                .collect(Collectors.toSet())));
 
         // 7. Convertir et retourner le DTO
         VenteDTO venteDTO = modelMapper.map(savedVente, VenteDTO.class);
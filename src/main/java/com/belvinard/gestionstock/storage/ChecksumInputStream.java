@@ -0,0 +1,98 @@
+package com.belvinard.gestionstock.storage;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Flux qui calcule le SHA-256 et compte les octets au fur et à mesure de leur lecture.
+ * <p>
+ * Au-delà de {@code maxBytes}, la lecture échoue : un envoi trop gros est interrompu sans avoir
+ * été lu en entier. Le flux n'est pas marquable, afin que chaque octet ne soit compté qu'une fois.
+ */
+public class ChecksumInputStream extends FilterInputStream {
+
+    private final MessageDigest digest;
+    private final long maxBytes;
+    private long count;
+
+    public ChecksumInputStream(InputStream in, long maxBytes) {
+        super(in);
+        this.maxBytes = maxBytes;
+        try {
+            this.digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponible", e);
+        }
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = super.read();
+        if (b >= 0) {
+            compter(1);
+            digest.update((byte) b);
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        int n = super.read(buffer, offset, length);
+        if (n > 0) {
+            compter(n);
+            digest.update(buffer, offset, n);
+        }
+        return n;
+    }
+
+    // Les octets sautés sont lus pour rester dans l'empreinte
+    @Override
+    public long skip(long n) throws IOException {
+        byte[] buffer = new byte[8192];
+        long sautes = 0;
+        while (sautes < n) {
+            int lus = read(buffer, 0, (int) Math.min(buffer.length, n - sautes));
+            if (lus < 0) {
+                break;
+            }
+            sautes += lus;
+        }
+        return sautes;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    @Override
+    public synchronized void mark(int readlimit) {
+    }
+
+    @Override
+    public synchronized void reset() throws IOException {
+        throw new IOException("mark/reset non supporté");
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Empreinte hexadécimale des octets lus ; à n'appeler qu'une fois le flux entièrement consommé.
+     */
+    public String sha256Hex() {
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private void compter(int n) throws IOException {
+        count += n;
+        if (count > maxBytes) {
+            throw new IOException("Taille maximale dépassée (" + maxBytes + " octets)");
+        }
+    }
+}
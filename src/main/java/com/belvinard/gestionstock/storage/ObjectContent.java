@@ -0,0 +1,259 @@
+package com.belvinard.gestionstock.storage;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Contenu d'un objet prêt à être recopié vers une réponse, depuis une copie locale ou directement
+ * depuis le stockage. Doit être fermé une fois la copie terminée.
+ * <p>
+ * Le contenu peut n'être qu'une plage de l'objet (requête HTTP Range) : {@link #info()} décrit
+ * toujours l'objet entier, {@link #offset()} et {@link #length()} la partie délivrée.
+ */
+public final class ObjectContent implements Closeable {
+
+    private final ObjectInfo info;
+    private final FileChannel fichier;
+    private final InputStream flux;
+    private final MappedByteBuffer carte;
+    private final long debut;
+    // -1 : jusqu'à la fin de l'objet
+    private final long longueur;
+
+    private ObjectContent(ObjectInfo info, FileChannel fichier, InputStream flux, MappedByteBuffer carte,
+                          long debut, long longueur) {
+        this.info = info;
+        this.fichier = fichier;
+        this.flux = flux;
+        this.carte = carte;
+        this.debut = debut;
+        this.longueur = longueur;
+    }
+
+    /**
+     * La taille annoncée est celle du fichier ouvert, pas celle de métadonnées lues à part : un
+     * fichier réécrit ou tronqué entre-temps ne promet pas plus d'octets qu'il n'en contient.
+     */
+    public static ObjectContent fromFile(ObjectInfo info, FileChannel fichier) throws IOException {
+        return new ObjectContent(tailleOuverte(info, fichier), fichier, null, null, 0, -1);
+    }
+
+    /**
+     * Fichier projeté en mémoire : les lecteurs en flux parcourent les pages du fichier sans appel
+     * système par tampon, la recopie vers une réponse reste un {@code transferTo}.
+     */
+    public static ObjectContent fromMappedFile(ObjectInfo info, FileChannel fichier, MappedByteBuffer carte)
+            throws IOException {
+        return new ObjectContent(tailleOuverte(info, fichier), fichier, null, carte, 0, -1);
+    }
+
+    public static ObjectContent fromStream(ObjectInfo info, InputStream flux) {
+        return new ObjectContent(info, null, flux, null, 0, -1);
+    }
+
+    // Flux ne contenant que la plage [offset, offset + length) de l'objet décrit par info
+    public static ObjectContent fromRangeStream(ObjectInfo info, InputStream flux, long offset, long length) {
+        return new ObjectContent(info, null, flux, null, offset, length);
+    }
+
+    /**
+     * Même fichier local restreint à une plage, sans nouvelle ouverture : fermer l'un ferme l'autre.
+     * Un contenu lu en flux depuis le stockage ne peut pas être restreint après coup.
+     */
+    public ObjectContent range(long offset, long length) {
+        if (fichier == null) {
+            throw new IllegalStateException("Plage impossible sur un contenu lu en flux");
+        }
+        if (offset < 0 || length < 0 || (info.size() >= 0 && offset + length > info.size())) {
+            throw new IllegalArgumentException("Plage hors de l'objet : " + offset + "+" + length);
+        }
+        return new ObjectContent(info, fichier, null, carte, offset, length);
+    }
+
+    public ObjectInfo info() {
+        return info;
+    }
+
+    public boolean isLocal() {
+        return fichier != null;
+    }
+
+    public long offset() {
+        return debut;
+    }
+
+    // Octets délivrés ; -1 si le stockage n'a pas annoncé la taille
+    public long length() {
+        return longueur >= 0 ? longueur : info.size();
+    }
+
+    public boolean isPartial() {
+        return debut > 0 || (longueur >= 0 && longueur != info.size());
+    }
+
+    // Lecture séquentielle du contenu, pour les appelants qui attendent un flux
+    public InputStream inputStream() {
+        if (carte != null) {
+            ByteBuffer vue = carte.duplicate();
+            if (isPartial()) {
+                vue.position((int) debut).limit((int) (debut + longueur));
+            }
+            return new LectureProjetee(vue, fichier);
+        }
+        if (fichier == null) {
+            return flux;
+        }
+        try {
+            fichier.position(debut);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        InputStream lecture = Channels.newInputStream(fichier);
+        return longueur >= 0 ? new LectureBornee(lecture, longueur) : lecture;
+    }
+
+    /**
+     * Recopie tout le contenu ; une copie locale passe par {@link FileChannel#transferTo}, sans
+     * tampon intermédiaire côté application. Un fichier plus court que la longueur annoncée lève
+     * une {@link EOFException} au lieu de boucler.
+     */
+    public void writeTo(OutputStream sortie) throws IOException {
+        if (fichier == null) {
+            flux.transferTo(sortie);
+            return;
+        }
+        WritableByteChannel cible = Channels.newChannel(sortie);
+        long position = debut;
+        long fin = longueur >= 0 ? debut + longueur : fichier.size();
+        while (position < fin) {
+            long transferes = fichier.transferTo(position, fin - position, cible);
+            if (transferes == 0) {
+                throw new EOFException("Fichier tronqué : " + (fin - position) + " octet(s) manquant(s) pour '"
+                        + info.objectName() + "'");
+            }
+            position += transferes;
+        }
+    }
+
+    private static ObjectInfo tailleOuverte(ObjectInfo info, FileChannel fichier) throws IOException {
+        long taille = fichier.size();
+        return taille == info.size() ? info : new ObjectInfo(info.objectName(), taille, info.etag(), info.contentType());
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (fichier != null) {
+            fichier.close();
+        } else {
+            flux.close();
+        }
+    }
+
+    /**
+     * Flux sur une copie de la projection : sa position est indépendante des autres lecteurs. Le
+     * fermer ferme le fichier, comme le flux d'un canal ; la projection reste lisible jusqu'à ce
+     * qu'elle soit libérée par le ramasse-miettes.
+     */
+    private static final class LectureProjetee extends InputStream {
+
+        private final ByteBuffer tampon;
+        private final FileChannel fichier;
+
+        private LectureProjetee(ByteBuffer tampon, FileChannel fichier) {
+            this.tampon = tampon;
+            this.fichier = fichier;
+        }
+
+        @Override
+        public int read() {
+            return tampon.hasRemaining() ? tampon.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (len == 0) {
+                return 0;
+            }
+            if (!tampon.hasRemaining()) {
+                return -1;
+            }
+            int lus = Math.min(len, tampon.remaining());
+            tampon.get(b, off, lus);
+            return lus;
+        }
+
+        @Override
+        public long skip(long n) {
+            int sautes = (int) Math.max(0, Math.min(n, tampon.remaining()));
+            tampon.position(tampon.position() + sautes);
+            return sautes;
+        }
+
+        @Override
+        public int available() {
+            return tampon.remaining();
+        }
+
+        @Override
+        public void close() throws IOException {
+            fichier.close();
+        }
+    }
+
+    // Flux limité aux longueur premiers octets d'un autre
+    private static final class LectureBornee extends FilterInputStream {
+
+        private long restant;
+
+        private LectureBornee(InputStream source, long longueur) {
+            super(source);
+            this.restant = longueur;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (restant == 0) {
+                return -1;
+            }
+            int octet = super.read();
+            if (octet >= 0) {
+                restant--;
+            }
+            return octet;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (restant == 0) {
+                return len == 0 ? 0 : -1;
+            }
+            int lus = super.read(b, off, (int) Math.min(len, restant));
+            if (lus > 0) {
+                restant -= lus;
+            }
+            return lus;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long sautes = super.skip(Math.min(n, restant));
+            restant -= sautes;
+            return sautes;
+        }
+
+        @Override
+        public int available() throws IOException {
+            return (int) Math.min(super.available(), restant);
+        }
+    }
+}
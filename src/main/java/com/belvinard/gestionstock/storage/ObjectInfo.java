@@ -0,0 +1,9 @@
+package com.belvinard.gestionstock.storage;
+
+/**
+ * Métadonnées d'un objet stocké, lues sans en télécharger le contenu.
+ *
+ * @param etag ETag du stockage, sans guillemets
+ */
+public record ObjectInfo(String objectName, long size, String etag, String contentType) {
+}
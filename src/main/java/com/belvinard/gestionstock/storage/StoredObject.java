@@ -0,0 +1,9 @@
+package com.belvinard.gestionstock.storage;
+
+/**
+ * Objet écrit dans le stockage : nom attribué, taille réellement reçue et SHA-256 du contenu.
+ *
+ * @param deduplicated {@code true} si un objet de même contenu existait déjà et a été réutilisé
+ */
+public record StoredObject(String objectName, long size, String sha256, boolean deduplicated) {
+}
@@ -0,0 +1,122 @@
+package com.belvinard.gestionstock.utils;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Predicate;
+
+/**
+ * Cache mémoire borné (LRU) avec durée de vie optionnelle des entrées.
+ * <p>
+ * Thread-safe : toutes les opérations sont synchronisées sur l'instance, ce qui
+ * reste largement suffisant pour des caches de quelques milliers d'entrées.
+ * <p>
+ * Un écouteur optionnel est prévenu des entrées retirées par le cache lui-même (éviction LRU,
+ * expiration, {@link #removeIf}), pour tenir à jour un index annexe. Il est appelé sous le verrou
+ * du cache et ne doit pas y revenir.
+ */
+public class BoundedLruCache<K, V> {
+
+    private final int maxEntries;
+    private final long ttlNanos;
+    private final BiConsumer<K, V> surEviction;
+    private final LinkedHashMap<K, Entry<V>> entries;
+
+    public BoundedLruCache(int maxEntries) {
+        this(maxEntries, null);
+    }
+
+    public BoundedLruCache(int maxEntries, Duration ttl) {
+        this(maxEntries, ttl, null);
+    }
+
+    /**
+     * @param maxEntries  nombre maximal d'entrées conservées
+     * @param ttl         durée de vie d'une entrée, {@code null} pour ne jamais expirer
+     * @param surEviction appelé pour chaque entrée retirée par le cache, {@code null} si inutile
+     */
+    public BoundedLruCache(int maxEntries, Duration ttl, BiConsumer<K, V> surEviction) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("maxEntries doit être strictement positif");
+        }
+        this.maxEntries = maxEntries;
+        this.ttlNanos = ttl == null ? 0 : ttl.toNanos();
+        this.surEviction = surEviction;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                if (size() > BoundedLruCache.this.maxEntries) {
+                    evincee(eldest.getKey(), eldest.getValue());
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    public synchronized V get(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.isExpired(System.nanoTime())) {
+            entries.remove(key);
+            evincee(key, entry);
+            return null;
+        }
+        return entry.value;
+    }
+
+    public synchronized void put(K key, V value) {
+        long expiresAt = ttlNanos == 0 ? 0 : System.nanoTime() + ttlNanos;
+        entries.put(key, new Entry<>(value, expiresAt));
+    }
+
+    /**
+     * Insère une entrée avec une durée de vie spécifique (prioritaire sur la durée par défaut).
+     */
+    public synchronized void put(K key, V value, Duration ttl) {
+        entries.put(key, new Entry<>(value, System.nanoTime() + ttl.toNanos()));
+    }
+
+    public synchronized V remove(K key) {
+        Entry<V> entry = entries.remove(key);
+        return entry == null ? null : entry.value;
+    }
+
+    /**
+     * Supprime toutes les entrées dont la clé satisfait le prédicat.
+     */
+    public synchronized void removeIf(Predicate<K> predicate) {
+        Iterator<Map.Entry<K, Entry<V>>> iterateur = entries.entrySet().iterator();
+        while (iterateur.hasNext()) {
+            Map.Entry<K, Entry<V>> entree = iterateur.next();
+            if (predicate.test(entree.getKey())) {
+                iterateur.remove();
+                evincee(entree.getKey(), entree.getValue());
+            }
+        }
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private void evincee(K key, Entry<V> entry) {
+        if (surEviction != null) {
+            surEviction.accept(key, entry.value);
+        }
+    }
+
+    private record Entry<V>(V value, long expiresAt) {
+        boolean isExpired(long now) {
+            return expiresAt != 0 && now - expiresAt > 0;
+        }
+    }
+}
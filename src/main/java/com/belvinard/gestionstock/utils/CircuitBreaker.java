@@ -0,0 +1,69 @@
+package com.belvinard.gestionstock.utils;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+
+/**
+ * Disjoncteur simple pour un service distant.
+ * <p>
+ * Après {@code seuilEchecs} échecs consécutifs, les appels sont refusés sans être tentés pendant
+ * {@code dureeOuverture}. Un seul appel d'essai est ensuite autorisé : son succès referme le
+ * disjoncteur, son échec le rouvre pour la même durée. Thread-safe : l'état est protégé par
+ * l'instance, les appelants ne le consultent qu'avant et après un appel réseau.
+ */
+@Slf4j
+public class CircuitBreaker {
+
+    public enum Etat { FERME, OUVERT, SEMI_OUVERT }
+
+    private final String nom;
+    private final int seuilEchecs;
+    private final long dureeOuvertureNanos;
+
+    private Etat etat = Etat.FERME;
+    private int echecsConsecutifs;
+    private long ouvertLe;
+
+    public CircuitBreaker(String nom, int seuilEchecs, Duration dureeOuverture) {
+        if (seuilEchecs <= 0) {
+            throw new IllegalArgumentException("seuilEchecs doit être strictement positif");
+        }
+        this.nom = nom;
+        this.seuilEchecs = seuilEchecs;
+        this.dureeOuvertureNanos = dureeOuverture.toNanos();
+    }
+
+    /**
+     * {@code true} si l'appel peut être tenté ; l'appelant doit alors signaler son issue par
+     * {@link #succes()} ou {@link #echec()}.
+     */
+    public synchronized boolean autoriser() {
+        if (etat == Etat.OUVERT && System.nanoTime() - ouvertLe >= dureeOuvertureNanos) {
+            etat = Etat.SEMI_OUVERT;
+            return true;
+        }
+        return etat == Etat.FERME;
+    }
+
+    public synchronized void succes() {
+        if (etat != Etat.FERME) {
+            log.info("Disjoncteur '{}' refermé", nom);
+        }
+        etat = Etat.FERME;
+        echecsConsecutifs = 0;
+    }
+
+    public synchronized void echec() {
+        echecsConsecutifs++;
+        if (etat == Etat.SEMI_OUVERT || (etat == Etat.FERME && echecsConsecutifs >= seuilEchecs)) {
+            log.warn("Disjoncteur '{}' ouvert après {} échec(s) consécutif(s)", nom, echecsConsecutifs);
+            etat = Etat.OUVERT;
+            ouvertLe = System.nanoTime();
+        }
+    }
+
+    public synchronized Etat getEtat() {
+        return etat;
+    }
+}
@@ -0,0 +1,99 @@
+package com.belvinard.gestionstock.utils;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Lecteur CSV en flux (RFC 4180) : un enregistrement à la fois, sans charger le fichier.
+ * <p>
+ * Gère les champs entre guillemets (séparateur, guillemet doublé et retour à la ligne inclus)
+ * et les fins de ligne {@code \n} comme {@code \r\n}.
+ */
+public class CsvReader {
+
+    private final Reader reader;
+    private final char separateur;
+    private int ligne = 1;
+    private int ligneEnregistrement;
+    private int suivant = -2;
+
+    public CsvReader(Reader reader, char separateur) {
+        this.reader = reader;
+        this.separateur = separateur;
+    }
+
+    /**
+     * Enregistrement suivant, {@code null} en fin de fichier.
+     */
+    public List<String> next() throws IOException {
+        int c = lire();
+        if (c == -1) {
+            return null;
+        }
+        ligneEnregistrement = ligne;
+
+        List<String> champs = new ArrayList<>();
+        StringBuilder champ = new StringBuilder();
+        boolean entreGuillemets = false;
+        while (true) {
+            if (entreGuillemets) {
+                if (c == -1) {
+                    throw new IOException("Guillemet non fermé dans l'enregistrement de la ligne " + ligneEnregistrement);
+                }
+                if (c == '"') {
+                    int apres = lire();
+                    if (apres == '"') {
+                        champ.append('"');
+                    } else {
+                        entreGuillemets = false;
+                        c = apres;
+                        continue;
+                    }
+                } else {
+                    if (c == '\n') {
+                        ligne++;
+                    }
+                    champ.append((char) c);
+                }
+            } else if (c == '"' && champ.isEmpty()) {
+                entreGuillemets = true;
+            } else if (c == separateur) {
+                champs.add(champ.toString());
+                champ.setLength(0);
+            } else if (c == '\r' || c == '\n' || c == -1) {
+                if (c == '\r') {
+                    int apres = lire();
+                    if (apres != '\n') {
+                        suivant = apres;
+                    }
+                }
+                if (c != -1) {
+                    ligne++;
+                }
+                champs.add(champ.toString());
+                return champs;
+            } else {
+                champ.append((char) c);
+            }
+            c = lire();
+        }
+    }
+
+    /**
+     * Numéro de ligne (à partir de 1) où commence le dernier enregistrement lu.
+     */
+    public int getLigneEnregistrement() {
+        return ligneEnregistrement;
+    }
+
+    private int lire() throws IOException {
+        if (suivant != -2) {
+            int c = suivant;
+            suivant = -2;
+            return c;
+        }
+        return reader.read();
+    }
+}
@@ -0,0 +1,160 @@
+package com.belvinard.gestionstock.cache;
+
+import com.belvinard.gestionstock.exceptions.StorageUnavailableException;
+import com.belvinard.gestionstock.service.MinioService;
+import com.belvinard.gestionstock.storage.ObjectContent;
+import com.belvinard.gestionstock.storage.ObjectInfo;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Cache disque des objets, MinIO remplacé par une doublure : éviction au total d'octets,
+ * revalidation par ETag, copie servie pendant une panne et téléchargement unique par objet.
+ */
+class ObjectDiskCacheTest {
+
+    private final MinioService minioService = mock(MinioService.class);
+
+    @TempDir
+    Path dossier;
+
+    @Test
+    void leastRecentlyReadCopyIsEvictedBeyondMaxBytes() throws Exception {
+        ObjectDiskCache cache = cache(10, 60);
+        objet("a", "ea", "aaaa");
+        objet("b", "eb", "bbbb");
+        objet("c", "ec", "cccc");
+
+        lire(cache, "a");
+        lire(cache, "b");
+        // "a" relu : "b" devient la copie la moins récemment lue
+        lire(cache, "a");
+        lire(cache, "c");
+
+        assertThat(copies()).isEqualTo(2);
+        assertThat(lire(cache, "a")).isEqualTo("aaaa");
+        assertThat(lire(cache, "b")).isEqualTo("bbbb");
+        verify(minioService, times(1)).downloadFile("a");
+        verify(minioService, times(2)).downloadFile("b");
+    }
+
+    @Test
+    void unchangedEtagIsRevalidatedWithoutDownloading() throws Exception {
+        // Revalidation à chaque lecture
+        ObjectDiskCache cache = cache(1024, 0);
+        objet("a", "e1", "v1");
+
+        assertThat(lire(cache, "a")).isEqualTo("v1");
+        assertThat(lire(cache, "a")).isEqualTo("v1");
+
+        verify(minioService, times(2)).statObject("a");
+        verify(minioService, times(1)).downloadFile("a");
+    }
+
+    @Test
+    void changedEtagDownloadsTheNewVersion() throws Exception {
+        ObjectDiskCache cache = cache(1024, 0);
+        objet("a", "e1", "v1");
+        assertThat(lire(cache, "a")).isEqualTo("v1");
+
+        objet("a", "e2", "v2");
+        assertThat(lire(cache, "a")).isEqualTo("v2");
+
+        verify(minioService, times(2)).downloadFile("a");
+        assertThat(copies()).isEqualTo(1);
+    }
+
+    @Test
+    void existingCopyIsServedWhileStorageIsUnavailable() throws Exception {
+        ObjectDiskCache cache = cache(1024, 0);
+        objet("a", "e1", "v1");
+        lire(cache, "a");
+
+        when(minioService.statObject("a")).thenThrow(new StorageUnavailableException("MinIO injoignable"));
+
+        assertThat(lire(cache, "a")).isEqualTo("v1");
+        verify(minioService, times(1)).downloadFile("a");
+    }
+
+    @Test
+    void concurrentMissesDownloadOnce() throws Exception {
+        ObjectDiskCache cache = cache(1024, 60);
+        int lecteurs = 4;
+        CountDownLatch verifies = new CountDownLatch(lecteurs);
+        CountDownLatch liberer = new CountDownLatch(1);
+        when(minioService.statObject("a")).thenAnswer(invocation -> {
+            verifies.countDown();
+            return new ObjectInfo("a", 2, "e1", "image/jpeg");
+        });
+        when(minioService.downloadFile("a")).thenAnswer(invocation -> {
+            liberer.await(5, TimeUnit.SECONDS);
+            return new ByteArrayInputStream("v1".getBytes(StandardCharsets.UTF_8));
+        });
+
+        ExecutorService pool = Executors.newFixedThreadPool(lecteurs);
+        try {
+            List<Future<String>> lectures = new ArrayList<>();
+            for (int i = 0; i < lecteurs; i++) {
+                lectures.add(pool.submit(() -> lire(cache, "a")));
+            }
+            // Toutes les lectures ont constaté l'absence de copie avant la fin du téléchargement
+            assertThat(verifies.await(5, TimeUnit.SECONDS)).isTrue();
+            liberer.countDown();
+            for (Future<String> lecture : lectures) {
+                assertThat(lecture.get(5, TimeUnit.SECONDS)).isEqualTo("v1");
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        verify(minioService, times(1)).downloadFile("a");
+    }
+
+    private ObjectDiskCache cache(long maxBytes, long revalidationSecondes) throws Exception {
+        ObjectDiskCache cache = new ObjectDiskCache(minioService, true, dossier.toString(), maxBytes, maxBytes,
+                revalidationSecondes);
+        cache.charger();
+        return cache;
+    }
+
+    private void objet(String nom, String etag, String contenu) {
+        byte[] octets = contenu.getBytes(StandardCharsets.UTF_8);
+        when(minioService.statObject(nom)).thenReturn(new ObjectInfo(nom, octets.length, etag, "image/jpeg"));
+        when(minioService.downloadFile(nom)).thenAnswer(invocation -> new ByteArrayInputStream(octets));
+    }
+
+    private static String lire(ObjectDiskCache cache, String nom) throws Exception {
+        try (ObjectContent contenu = cache.open(nom)) {
+            assertThat(contenu).isNotNull();
+            ByteArrayOutputStream sortie = new ByteArrayOutputStream();
+            contenu.writeTo(sortie);
+            return sortie.toString(StandardCharsets.UTF_8);
+        }
+    }
+
+    private long copies() throws Exception {
+        try (Stream<Path> fichiers = Files.list(dossier)) {
+            return fichiers.count();
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.belvinard.gestionstock.concurrency;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Banc d'essai de contention : verrous par bandes contre un verrou global unique
+ * (un {@link StripedLockManager} à une seule bande), pour 1, 16 et 10 000 articles "chauds".
+ * La section critique simule un aller-retour base de données ({@value #SIMULATED_IO_MICROS} µs),
+ * comme dans les services de stock où le verrou couvre la transaction.
+ * <p>
+ * Programme autonome (hors suite de tests) :
+ * <pre>
+ * mvn -q test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=com.belvinard.gestionstock.concurrency.StripedLockManagerBenchmark
+ * </pre>
+ */
+public class StripedLockManagerBenchmark {
+
+    private static final int[] HOT_ARTICLES = {1, 16, 10_000};
+    private static final long WARMUP_MS = 1_000;
+    private static final long MEASURE_MS = 3_000;
+    private static final long SIMULATED_IO_MICROS = 100;
+
+    public static void main(String[] args) throws InterruptedException {
+        int threads = 32;
+        System.out.printf("Threads: %d%n%n", threads);
+        System.out.printf("%-14s %18s %18s %8s%n", "Articles", "Global (ops/s)", "Bandes (ops/s)", "Gain");
+
+        for (int hot : HOT_ARTICLES) {
+            double global = run(new StripedLockManager(1, 10_000), hot, threads);
+            double striped = run(new StripedLockManager(1024, 10_000), hot, threads);
+            System.out.printf("%-14d %18.0f %18.0f %7.1fx%n", hot, global, striped, striped / global);
+        }
+    }
+
+    private static double run(StripedLockManager lockManager, int hotArticles, int threads) throws InterruptedException {
+        long[] stock = new long[hotArticles];
+        measure(lockManager, stock, threads, WARMUP_MS);
+        return measure(lockManager, stock, threads, MEASURE_MS) * 1000.0 / MEASURE_MS;
+    }
+
+    private static long measure(StripedLockManager lockManager, long[] stock, int threads, long durationMs)
+            throws InterruptedException {
+        LongAdder operations = new LongAdder();
+        CountDownLatch done = new CountDownLatch(threads);
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(durationMs);
+
+        for (int t = 0; t < threads; t++) {
+            Thread worker = new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                while (System.nanoTime() < deadline) {
+                    int index = random.nextInt(stock.length);
+                    lockManager.withArticleLocks(List.of((long) index), () -> checkAndMutate(stock, index));
+                    operations.increment();
+                }
+                done.countDown();
+            });
+            worker.start();
+        }
+        done.await();
+        return operations.sum();
+    }
+
+    // Simule la section critique "lire le stock, attendre la base, écrire le stock"
+    private static Void checkAndMutate(long[] stock, int index) {
+        long current = stock[index];
+        LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(SIMULATED_IO_MICROS));
+        stock[index] = current + 1;
+        return null;
+    }
+}
@@ -0,0 +1,118 @@
+package com.belvinard.gestionstock.controller;
+
+import com.belvinard.gestionstock.service.FileService;
+import com.belvinard.gestionstock.storage.ObjectContent;
+import com.belvinard.gestionstock.storage.ObjectInfo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Téléchargement avec {@code Range}, {@code If-Range} et {@code If-None-Match} : seule la plage
+ * demandée est lue dans le stockage.
+ */
+class FileControllerRangeTest {
+
+    private static final String NOM = "cas-abc";
+    private static final byte[] CONTENU = "0123456789".getBytes(StandardCharsets.US_ASCII);
+    private static final ObjectInfo INFO = new ObjectInfo(NOM, CONTENU.length, "v1", "text/plain");
+
+    private final FileService fileService = mock(FileService.class);
+    private final FileController controller = new FileController(fileService);
+
+    @BeforeEach
+    void setUp() {
+        when(fileService.statFile(NOM)).thenReturn(CompletableFuture.completedFuture(INFO));
+        when(fileService.openFile(NOM)).thenAnswer(invocation -> CompletableFuture.completedFuture(
+                ObjectContent.fromStream(INFO, new ByteArrayInputStream(CONTENU))));
+        when(fileService.openFile(anyString(), anyLong(), anyLong())).thenAnswer(invocation -> {
+            long debut = invocation.getArgument(1);
+            long longueur = invocation.getArgument(2);
+            byte[] plage = Arrays.copyOfRange(CONTENU, (int) debut, (int) (debut + longueur));
+            return CompletableFuture.completedFuture(
+                    ObjectContent.fromRangeStream(INFO, new ByteArrayInputStream(plage), debut, longueur));
+        });
+    }
+
+    @Test
+    void singleRangeIsReadAndServedAsPartialContent() throws Exception {
+        ResponseEntity<StreamingResponseBody> reponse = controller.downloadFile(NOM, "bytes=2-5", null, null).get();
+
+        assertThat(reponse.getStatusCode()).isEqualTo(HttpStatus.PARTIAL_CONTENT);
+        assertThat(reponse.getHeaders().getFirst(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes 2-5/10");
+        assertThat(reponse.getHeaders().getContentLength()).isEqualTo(4);
+        assertThat(corps(reponse)).isEqualTo("2345");
+        verify(fileService).openFile(NOM, 2, 4);
+    }
+
+    @Test
+    void suffixRangeServesTheLastBytes() throws Exception {
+        ResponseEntity<StreamingResponseBody> reponse = controller.downloadFile(NOM, "bytes=-3", null, null).get();
+
+        assertThat(reponse.getStatusCode()).isEqualTo(HttpStatus.PARTIAL_CONTENT);
+        assertThat(reponse.getHeaders().getFirst(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes 7-9/10");
+        assertThat(corps(reponse)).isEqualTo("789");
+    }
+
+    @Test
+    void rangeBeyondTheFileIsNotSatisfiable() throws Exception {
+        ResponseEntity<StreamingResponseBody> reponse = controller.downloadFile(NOM, "bytes=10-", null, null).get();
+
+        assertThat(reponse.getStatusCode()).isEqualTo(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE);
+        assertThat(reponse.getHeaders().getFirst(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes */10");
+        verify(fileService, never()).openFile(anyString(), anyLong(), anyLong());
+    }
+
+    @Test
+    void staleIfRangeAndMultipleRangesGetTheWholeFile() throws Exception {
+        ResponseEntity<StreamingResponseBody> perimee = controller.downloadFile(NOM, "bytes=2-5", "\"v0\"", null).get();
+        ResponseEntity<StreamingResponseBody> multiple = controller.downloadFile(NOM, "bytes=0-1,4-5", null, null).get();
+
+        assertThat(perimee.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(corps(perimee)).isEqualTo("0123456789");
+        assertThat(multiple.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(multiple.getHeaders().getFirst(HttpHeaders.CONTENT_RANGE)).isNull();
+        verify(fileService, never()).openFile(anyString(), anyLong(), anyLong());
+    }
+
+    @Test
+    void matchingIfRangeServesTheRange() throws Exception {
+        ResponseEntity<StreamingResponseBody> reponse = controller.downloadFile(NOM, "bytes=0-0", "\"v1\"", null).get();
+
+        assertThat(reponse.getStatusCode()).isEqualTo(HttpStatus.PARTIAL_CONTENT);
+        assertThat(corps(reponse)).isEqualTo("0");
+    }
+
+    @Test
+    void matchingIfNoneMatchIsNotModifiedWithoutReadingTheContent() throws Exception {
+        ResponseEntity<StreamingResponseBody> reponse = controller.downloadFile(NOM, null, null, "W/\"v1\"").get();
+
+        assertThat(reponse.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(reponse.getHeaders().getETag()).isEqualTo("\"v1\"");
+        assertThat(reponse.getBody()).isNull();
+        verify(fileService, never()).openFile(NOM);
+    }
+
+    private static String corps(ResponseEntity<StreamingResponseBody> reponse) throws Exception {
+        ByteArrayOutputStream sortie = new ByteArrayOutputStream();
+        reponse.getBody().writeTo(sortie);
+        return sortie.toString(StandardCharsets.US_ASCII);
+    }
+}
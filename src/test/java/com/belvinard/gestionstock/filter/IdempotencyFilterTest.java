@@ -0,0 +1,124 @@
+package com.belvinard.gestionstock.filter;
+
+import com.belvinard.gestionstock.service.IdempotencyService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class IdempotencyFilterTest {
+
+    private final IdempotencyService idempotencyService = mock(IdempotencyService.class);
+    private final IdempotencyFilter filter = new IdempotencyFilter(idempotencyService,
+            new ObjectMapper().registerModule(new JavaTimeModule()), List.of("/api/v1/ventes"), 16);
+
+    @Test
+    void chunkedBodyOverLimitIsRejectedWithoutProcessing() throws Exception {
+        // Pas de Content-Length : seule la lecture peut détecter le dépassement
+        MockHttpServletRequest request = requete(new byte[17]);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+
+        filter.doFilter(request, response, chain);
+
+        assertThat(response.getStatus()).isEqualTo(413);
+        assertThat(chain.getRequest()).isNull();
+        verify(idempotencyService, never()).acquire(anyString(), anyString(), anyString(), anyString());
+    }
+
+    @Test
+    void bodyWithinLimitIsReadableAsynchronouslyByTheController() throws Exception {
+        when(idempotencyService.findResponse(anyString())).thenReturn(Optional.empty());
+        when(idempotencyService.acquire(anyString(), anyString(), anyString(), anyString())).thenReturn(Optional.of("jeton-1"));
+        AtomicReference<String> lu = new AtomicReference<>();
+        MockFilterChain chain = new MockFilterChain(new jakarta.servlet.http.HttpServlet() {
+        }, (req, res, suite) -> {
+            ServletInputStream entree = req.getInputStream();
+            ByteArrayOutputStream copie = new ByteArrayOutputStream();
+            entree.setReadListener(new ReadListener() {
+                @Override
+                public void onDataAvailable() throws IOException {
+                    while (entree.isReady() && !entree.isFinished()) {
+                        copie.write(entree.read());
+                    }
+                }
+
+                @Override
+                public void onAllDataRead() {
+                    lu.set(copie.toString());
+                }
+
+                @Override
+                public void onError(Throwable t) {
+                    throw new AssertionError(t);
+                }
+            });
+            res.getWriter().write("ok");
+        });
+
+        filter.doFilter(requete("{\"id\":1}".getBytes()), new MockHttpServletResponse(), chain);
+
+        assertThat(lu.get()).isEqualTo("{\"id\":1}");
+        verify(idempotencyService).saveResponse(anyString(), eq("jeton-1"), any());
+        verify(idempotencyService, never()).release(anyString(), anyString());
+    }
+
+    @Test
+    void keyClaimedElsewhereIsRejectedWithoutProcessing() throws Exception {
+        // Réservation posée par une autre instance, réponse pas encore enregistrée
+        when(idempotencyService.findResponse(anyString())).thenReturn(Optional.empty());
+        when(idempotencyService.acquire(anyString(), anyString(), anyString(), anyString())).thenReturn(Optional.empty());
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+
+        filter.doFilter(requete("{}".getBytes()), response, chain);
+
+        assertThat(response.getStatus()).isEqualTo(409);
+        assertThat(chain.getRequest()).isNull();
+        verify(idempotencyService, never()).release(anyString(), anyString());
+    }
+
+    @Test
+    void claimIsDroppedWhenTheResponseIsNotReplayable() throws Exception {
+        when(idempotencyService.findResponse(anyString())).thenReturn(Optional.empty());
+        when(idempotencyService.acquire(anyString(), anyString(), anyString(), anyString())).thenReturn(Optional.of("jeton-1"));
+        MockFilterChain chain = new MockFilterChain(new jakarta.servlet.http.HttpServlet() {
+        }, (req, res, suite) -> ((jakarta.servlet.http.HttpServletResponse) res).setStatus(500));
+
+        filter.doFilter(requete("{}".getBytes()), new MockHttpServletResponse(), chain);
+
+        verify(idempotencyService).release(anyString(), eq("jeton-1"));
+        verify(idempotencyService, never()).saveResponse(anyString(), anyString(), any());
+    }
+
+    private static MockHttpServletRequest requete(byte[] corps) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/v1/ventes/create") {
+            @Override
+            public long getContentLengthLong() {
+                return -1;
+            }
+        };
+        request.addHeader(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, "cle-1");
+        request.setContent(corps);
+        return request;
+    }
+}
@@ -0,0 +1,167 @@
+package com.belvinard.gestionstock.search;
+
+import com.belvinard.gestionstock.cache.ArticleCodeCache;
+import com.belvinard.gestionstock.cache.CatalogVersions;
+import com.belvinard.gestionstock.dto.ArticleImportReportDTO;
+import com.belvinard.gestionstock.repositories.CategoryRepository;
+import com.belvinard.gestionstock.repositories.EntrepriseRepository;
+import com.belvinard.gestionstock.service.ArticleSuggestService;
+import com.belvinard.gestionstock.service.AtpService;
+import com.belvinard.gestionstock.service.CategoryTreeService;
+import com.belvinard.gestionstock.service.impl.ArticleImportServiceImpl;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Débit de {@link ArticleImportServiceImpl} pour un fichier synthétique de 200 000 lignes,
+ * importé deux fois : créations puis mises à jour des mêmes codes (en minuscules la seconde fois,
+ * les codes étant comparés sans tenir compte de la casse). L'objectif est de 200 000 lignes par
+ * minute.
+ * <p>
+ * Sans base de données, les écritures JDBC sont simulées : le banc mesure alors la lecture CSV,
+ * la validation et la constitution des lots. Avec {@code -Dbench.url} (et {@code bench.user},
+ * {@code bench.password}, {@code bench.entreprise}, {@code bench.categorie}), les lots sont écrits
+ * dans une base PostgreSQL de test, qui conserve les articles créés.
+ * <p>
+ * Programme autonome (hors suite de tests) :
+ * <pre>
+ * mvn -q test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=com.belvinard.gestionstock.search.ArticleImportBenchmark
+ * </pre>
+ */
+public class ArticleImportBenchmark {
+
+    private static final int LIGNES = 200_000;
+    private static final String[] MOTS = {
+            "yaourt", "nature", "lait", "entier", "café", "moulu", "riz", "basmati", "pâtes", "sucre",
+            "farine", "huile", "savon", "eau", "minérale", "jus", "orange", "biscuit", "chocolat", "paquet"
+    };
+
+    public static void main(String[] args) throws Exception {
+        String url = System.getProperty("bench.url");
+        long entrepriseId = Long.getLong("bench.entreprise", 1L);
+        long categoryId = Long.getLong("bench.categorie", 1L);
+
+        JdbcTemplate jdbcTemplate;
+        PlatformTransactionManager transactions;
+        if (url != null) {
+            DriverManagerDataSource source = new DriverManagerDataSource(url,
+                    System.getProperty("bench.user", "postgres"), System.getProperty("bench.password", ""));
+            jdbcTemplate = new JdbcTemplate(source);
+            transactions = new DataSourceTransactionManager(source);
+        } else {
+            jdbcTemplate = new JdbcSimule();
+            transactions = mock(PlatformTransactionManager.class);
+        }
+
+        EntrepriseRepository entreprises = mock(EntrepriseRepository.class);
+        CategoryRepository categories = mock(CategoryRepository.class);
+        when(entreprises.existsById(anyLong())).thenReturn(true);
+        when(categories.findReferencesForEntreprise(anyLong()))
+                .thenReturn(List.<Object[]>of(new Object[]{categoryId, "CAT-BENCH", "Catégorie du banc"}));
+        ArticleImportServiceImpl service = new ArticleImportServiceImpl(entreprises, categories, jdbcTemplate,
+                new TransactionTemplate(transactions), mock(AtpService.class), mock(ArticleSuggestService.class),
+                mock(ArticleCodeCache.class), mock(CategoryTreeService.class), mock(CatalogVersions.class), 1000);
+
+        String prefixe = "BENCH-" + Long.toString(System.currentTimeMillis(), 36).toUpperCase();
+        System.out.printf("Base de données     : %s%n%n", url != null ? url : "simulée (sans écriture)");
+        mesurer("Création", service, entrepriseId, fichier(prefixe, categoryId, new Random(42)));
+        mesurer("Mise à jour", service, entrepriseId,
+                fichier(prefixe.toLowerCase(), categoryId, new Random(43)));
+    }
+
+    private static void mesurer(String passe, ArticleImportServiceImpl service, long entrepriseId, byte[] csv) {
+        long debut = System.nanoTime();
+        ArticleImportReportDTO rapport = service.importCsv(entrepriseId,
+                new MockMultipartFile("file", "articles.csv", "text/csv", csv));
+        double secondes = (System.nanoTime() - debut) / 1e9;
+        System.out.printf("%-12s : %,d créé(s), %,d mis à jour, %,d rejetée(s) en %.2f s, soit %,.0f lignes/minute%n",
+                passe, rapport.getCrees(), rapport.getMisAJour(), rapport.getRejetees(), secondes,
+                rapport.getLignesLues() / secondes * 60);
+    }
+
+    private static byte[] fichier(String prefixe, long categoryId, Random random) {
+        StringBuilder csv = new StringBuilder(LIGNES * 80);
+        csv.append("codeArticle;designation;prixUnitaireHt;tauxTva;quantiteEnStock;categorie\n");
+        for (int i = 0; i < LIGNES; i++) {
+            csv.append(prefixe).append('-').append(i).append(';');
+            for (int m = 0; m < 3; m++) {
+                csv.append(m == 0 ? "" : " ").append(MOTS[random.nextInt(MOTS.length)]);
+            }
+            csv.append(';').append(1 + random.nextInt(5000)).append(',').append(random.nextInt(100))
+                    .append(";19,25;").append(random.nextInt(1000)).append(';').append(categoryId).append('\n');
+        }
+        return csv.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * JdbcTemplate sans base : les paramètres de chaque ligne sont posés sur une requête factice et
+     * les codes créés sont renvoyés par la lecture des codes existants de l'import suivant.
+     */
+    private static final class JdbcSimule extends JdbcTemplate {
+
+        private final List<String> codes = new ArrayList<>();
+        private boolean insertion;
+        // Le code article est le premier paramètre de l'insertion
+        private final PreparedStatement requete = (PreparedStatement) Proxy.newProxyInstance(
+                ArticleImportBenchmark.class.getClassLoader(), new Class<?>[]{PreparedStatement.class},
+                (proxy, methode, arguments) -> {
+                    if (insertion && methode.getName().equals("setString") && (int) arguments[0] == 1) {
+                        codes.add((String) arguments[1]);
+                    }
+                    return null;
+                });
+
+        @Override
+        public <T> int[][] batchUpdate(String sql, Collection<T> lignes, int taille,
+                                       ParameterizedPreparedStatementSetter<T> parametres) {
+            insertion = sql.startsWith("INSERT");
+            for (T ligne : lignes) {
+                try {
+                    parametres.setValues(requete, ligne);
+                } catch (SQLException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+            return new int[][]{new int[lignes.size()]};
+        }
+
+        @Override
+        public void query(String sql, RowCallbackHandler lecteur, Object... arguments) {
+            int[] position = {-1};
+            ResultSet ligne = (ResultSet) Proxy.newProxyInstance(ArticleImportBenchmark.class.getClassLoader(),
+                    new Class<?>[]{ResultSet.class}, (proxy, methode, args) -> switch (methode.getName()) {
+                        case "getString" -> codes.get(position[0]);
+                        case "getLong" -> (long) position[0] + 1;
+                        default -> null;
+                    });
+            try {
+                for (position[0] = 0; position[0] < codes.size(); position[0]++) {
+                    lecteur.processRow(ligne);
+                }
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.belvinard.gestionstock.search;
+
+import com.belvinard.gestionstock.dto.ArticleSuggestionDTO;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Empreinte mémoire et latence de {@link ArticlePrefixIndex} pour un catalogue synthétique
+ * de 100 000 articles (code + désignation de trois à cinq mots).
+ * <p>
+ * La mémoire mesurée est celle de l'index seul (tableaux et textes normalisés), les objets
+ * ayant servi à le construire étant libérés avant la mesure.
+ * <p>
+ * Programme autonome (hors suite de tests) :
+ * <pre>
+ * mvn -q test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=com.belvinard.gestionstock.search.ArticlePrefixIndexBenchmark
+ * </pre>
+ */
+public class ArticlePrefixIndexBenchmark {
+
+    private static final int ARTICLES = 100_000;
+    private static final int LOOKUPS = 1_000_000;
+    private static final String[] MOTS = {
+            "yaourt", "nature", "lait", "entier", "demi", "écrémé", "café", "moulu", "thé", "vert",
+            "riz", "basmati", "pâtes", "sucre", "farine", "huile", "tournesol", "savon", "shampooing",
+            "eau", "minérale", "gazeuse", "jus", "orange", "pomme", "biscuit", "chocolat", "noir",
+            "bouteille", "paquet", "sachet", "boîte", "125g", "500g", "1kg", "1l", "50cl", "lot"
+    };
+
+    public static void main(String[] args) {
+        Random random = new Random(42);
+
+        long avant = usedMemory();
+        ArticlePrefixIndex index = ArticlePrefixIndex.build(catalogue(random));
+        long apres = usedMemory();
+
+        System.out.printf("Articles            : %,d%n", index.size());
+        System.out.printf("Mots indexés        : %,d%n", index.nombreDeCles());
+        System.out.printf("Mémoire de l'index  : %,.1f Mo (%,d octets/article)%n",
+                (apres - avant) / (1024.0 * 1024.0), (apres - avant) / index.size());
+
+        String[] saisies = new String[1024];
+        for (int i = 0; i < saisies.length; i++) {
+            String mot = MOTS[random.nextInt(MOTS.length)];
+            saisies[i] = mot.substring(0, Math.min(mot.length(), 2 + random.nextInt(3)));
+        }
+
+        // Préchauffage du JIT puis mesure
+        long resultats = lookups(index, saisies, LOOKUPS / 10);
+        long debut = System.nanoTime();
+        resultats += lookups(index, saisies, LOOKUPS);
+        long duree = System.nanoTime() - debut;
+
+        System.out.printf("Latence moyenne     : %.2f µs par suggestion (10 résultats, %,d recherches)%n",
+                duree / 1_000.0 / LOOKUPS, LOOKUPS);
+        System.out.printf("Résultats cumulés   : %,d%n", resultats);
+    }
+
+    private static long lookups(ArticlePrefixIndex index, String[] saisies, int count) {
+        long total = 0;
+        for (int i = 0; i < count; i++) {
+            total += index.suggest(saisies[i & (saisies.length - 1)], 10, Map.of()).size();
+        }
+        return total;
+    }
+
+    private static List<ArticleSuggestionDTO> catalogue(Random random) {
+        List<ArticleSuggestionDTO> articles = new ArrayList<>(ARTICLES);
+        for (int i = 1; i <= ARTICLES; i++) {
+            StringBuilder designation = new StringBuilder();
+            int mots = 3 + random.nextInt(3);
+            for (int m = 0; m < mots; m++) {
+                designation.append(m == 0 ? "" : " ").append(MOTS[random.nextInt(MOTS.length)]);
+            }
+            articles.add(new ArticleSuggestionDTO((long) i, String.format("ART-%06d", i), designation.toString()));
+        }
+        return articles;
+    }
+
+    private static long usedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,127 @@
+package com.belvinard.gestionstock.service.impl;
+
+import com.belvinard.gestionstock.cache.ArticleCodeCache;
+import com.belvinard.gestionstock.dto.ArticleDTO;
+import com.belvinard.gestionstock.events.ArticleChangedEvent;
+import com.belvinard.gestionstock.exceptions.APIException;
+import com.belvinard.gestionstock.models.Article;
+import com.belvinard.gestionstock.models.Entreprise;
+import com.belvinard.gestionstock.repositories.ArticleRepository;
+import com.belvinard.gestionstock.repositories.CategoryRepository;
+import com.belvinard.gestionstock.repositories.EntrepriseRepository;
+import com.belvinard.gestionstock.repositories.LigneCommandeClientRepository;
+import com.belvinard.gestionstock.repositories.LigneCommandeFournisseurRepository;
+import com.belvinard.gestionstock.repositories.LigneVenteRepository;
+import com.belvinard.gestionstock.repositories.MvtStkRepository;
+import com.belvinard.gestionstock.repositories.ReservationStockRepository;
+import com.belvinard.gestionstock.service.ContentStoreService;
+import com.belvinard.gestionstock.service.ImageVariantService;
+import com.belvinard.gestionstock.service.MinioService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.modelmapper.ModelMapper;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Suppression logique d'un article : refusée tant qu'il porte du stock ou qu'il est référencé.
+ */
+class ArticleDeleteTest {
+
+    private final ArticleRepository articleRepository = mock(ArticleRepository.class);
+    private final LigneCommandeClientRepository ligneCommandeClientRepository = mock(LigneCommandeClientRepository.class);
+    private final LigneCommandeFournisseurRepository ligneCommandeFournisseurRepository =
+            mock(LigneCommandeFournisseurRepository.class);
+    private final LigneVenteRepository ligneVenteRepository = mock(LigneVenteRepository.class);
+    private final MvtStkRepository mvtStkRepository = mock(MvtStkRepository.class);
+    private final ReservationStockRepository reservationStockRepository = mock(ReservationStockRepository.class);
+    private final ContentStoreService contentStoreService = mock(ContentStoreService.class);
+    private final ApplicationEventPublisher eventPublisher = mock(ApplicationEventPublisher.class);
+
+    private final ArticleServiceImpl service = new ArticleServiceImpl(articleRepository,
+            mock(EntrepriseRepository.class), mock(CategoryRepository.class), new ModelMapper(),
+            ligneCommandeClientRepository, ligneCommandeFournisseurRepository, ligneVenteRepository,
+            mvtStkRepository, reservationStockRepository, mock(MinioService.class), eventPublisher,
+            mock(ArticleCodeCache.class), mock(ImageVariantService.class), contentStoreService);
+
+    private Article article;
+
+    @BeforeEach
+    void setUp() {
+        Entreprise entreprise = new Entreprise();
+        entreprise.setId(1L);
+        article = new Article();
+        article.setId(5L);
+        article.setCodeArticle("ART-5");
+        article.setEntreprise(entreprise);
+        article.setQuantiteEnStock(0L);
+        article.setQuantiteReservee(0L);
+        article.setPhoto("cas-abc");
+        when(articleRepository.findById(5L)).thenReturn(Optional.of(article));
+    }
+
+    @Test
+    void unusedEmptyArticleIsDeleted() {
+        ArticleDTO supprime = service.deleteArticle(5L);
+
+        assertThat(supprime.getCodeArticle()).isEqualTo("ART-5");
+        verify(articleRepository).delete(article);
+        verify(contentStoreService).release("cas-abc");
+        verify(eventPublisher).publishEvent(ArticleChangedEvent.of(5L));
+    }
+
+    @Test
+    void articleWithStockIsNotDeleted() {
+        article.setQuantiteEnStock(3L);
+
+        assertRefuse("stock");
+    }
+
+    @Test
+    void articleWithReservedQuantityIsNotDeleted() {
+        article.setQuantiteReservee(2L);
+
+        assertRefuse("réservée");
+    }
+
+    @Test
+    void articleWithStockMovementsIsNotDeleted() {
+        when(mvtStkRepository.existsByArticleId(5L)).thenReturn(true);
+
+        assertRefuse("mouvements");
+    }
+
+    @Test
+    void articleSoldOrOrderedIsNotDeleted() {
+        when(ligneVenteRepository.existsByArticleId(5L)).thenReturn(true);
+        assertRefuse("ventes");
+
+        when(ligneVenteRepository.existsByArticleId(5L)).thenReturn(false);
+        when(ligneCommandeFournisseurRepository.existsByArticleId(5L)).thenReturn(true);
+        assertRefuse("commandes fournisseur");
+    }
+
+    @Test
+    void articleWithReservationsIsNotDeleted() {
+        when(reservationStockRepository.existsByArticleId(5L)).thenReturn(true);
+
+        assertRefuse("réservations");
+    }
+
+    private void assertRefuse(String motif) {
+        assertThatThrownBy(() -> service.deleteArticle(5L))
+                .isInstanceOf(APIException.class)
+                .hasMessageContaining(motif);
+        verify(articleRepository, never()).delete(any());
+        verify(contentStoreService, never()).release(any());
+    }
+}
@@ -0,0 +1,102 @@
+package com.belvinard.gestionstock.service.impl;
+
+import com.belvinard.gestionstock.dto.AtpDTO;
+import com.belvinard.gestionstock.repositories.ArticleRepository;
+import com.belvinard.gestionstock.repositories.LigneCommandeClientRepository;
+import com.belvinard.gestionstock.repositories.LigneCommandeFournisseurRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Latence de {@code POST /atp/batch} hors réseau : lecture de 1 000 articles dans la projection de
+ * {@link AtpServiceImpl} puis sérialisation JSON de la réponse, pour un catalogue synthétique de
+ * 100 000 articles. L'objectif est de rester sous 10 ms par lot.
+ * <p>
+ * Les dépôts sont simulés : seule la reconstruction initiale les interroge, les lots sont servis
+ * depuis la mémoire comme en production.
+ * <p>
+ * Programme autonome (hors suite de tests) :
+ * <pre>
+ * mvn -q test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=com.belvinard.gestionstock.service.impl.AtpServiceBenchmark
+ * </pre>
+ */
+public class AtpServiceBenchmark {
+
+    private static final int ARTICLES = 100_000;
+    private static final int LOT = 1_000;
+    private static final int LOTS = 20_000;
+
+    public static void main(String[] args) throws Exception {
+        Random random = new Random(42);
+        AtpServiceImpl atp = projection(random);
+        atp.rebuild();
+        ObjectMapper mapper = new ObjectMapper();
+
+        List<List<Long>> lots = new ArrayList<>(64);
+        for (int l = 0; l < 64; l++) {
+            List<Long> ids = new ArrayList<>(LOT);
+            for (int i = 0; i < LOT; i++) {
+                ids.add(1L + random.nextInt(ARTICLES));
+            }
+            lots.add(ids);
+        }
+
+        // Préchauffage du JIT puis mesure lot par lot
+        lots(atp, mapper, lots, new long[LOTS / 10]);
+        long[] durees = new long[LOTS];
+        long octets = lots(atp, mapper, lots, durees);
+        Arrays.sort(durees);
+
+        System.out.printf("Articles projetés   : %,d%n", ARTICLES);
+        System.out.printf("Lot                 : %,d articles, %,d octets JSON%n", LOT, octets / LOTS);
+        System.out.printf("Latence médiane     : %.3f ms%n", durees[LOTS / 2] / 1e6);
+        System.out.printf("Latence p99         : %.3f ms%n", durees[LOTS * 99 / 100] / 1e6);
+        System.out.printf("Latence max         : %.3f ms%n", durees[LOTS - 1] / 1e6);
+    }
+
+    private static long lots(AtpServiceImpl atp, ObjectMapper mapper, List<List<Long>> lots, long[] durees)
+            throws Exception {
+        long octets = 0;
+        for (int i = 0; i < durees.length; i++) {
+            long debut = System.nanoTime();
+            List<AtpDTO> reponse = atp.findByArticleIds(lots.get(i & 63));
+            byte[] json = mapper.writeValueAsBytes(reponse);
+            OutputStream.nullOutputStream().write(json);
+            durees[i] = System.nanoTime() - debut;
+            octets += json.length;
+        }
+        return octets;
+    }
+
+    private static AtpServiceImpl projection(Random random) {
+        List<Object[]> stocks = new ArrayList<>(ARTICLES);
+        List<Object[]> engagees = new ArrayList<>();
+        List<Object[]> entrantes = new ArrayList<>();
+        for (long id = 1; id <= ARTICLES; id++) {
+            stocks.add(new Object[]{id, 1L + id % 20, (long) random.nextInt(500), (long) random.nextInt(20)});
+            if (random.nextInt(4) == 0) {
+                engagees.add(new Object[]{id, (long) random.nextInt(50)});
+            }
+            if (random.nextInt(8) == 0) {
+                entrantes.add(new Object[]{id, (long) random.nextInt(200)});
+            }
+        }
+
+        ArticleRepository articles = mock(ArticleRepository.class);
+        LigneCommandeClientRepository clients = mock(LigneCommandeClientRepository.class);
+        LigneCommandeFournisseurRepository fournisseurs = mock(LigneCommandeFournisseurRepository.class);
+        when(articles.findStockProjection()).thenReturn(stocks);
+        when(clients.sumQuantiteEngageeParArticle()).thenReturn(engagees);
+        when(fournisseurs.sumQuantiteEntranteParArticle()).thenReturn(entrantes);
+        return new AtpServiceImpl(articles, clients, fournisseurs);
+    }
+}
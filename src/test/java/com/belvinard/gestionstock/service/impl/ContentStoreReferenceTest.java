@@ -0,0 +1,220 @@
+package com.belvinard.gestionstock.service.impl;
+
+import com.belvinard.gestionstock.cache.ArticleCodeCache;
+import com.belvinard.gestionstock.cache.ObjectDiskCache;
+import com.belvinard.gestionstock.models.Article;
+import com.belvinard.gestionstock.models.File;
+import com.belvinard.gestionstock.repositories.ArticleRepository;
+import com.belvinard.gestionstock.repositories.CategoryRepository;
+import com.belvinard.gestionstock.repositories.EntrepriseRepository;
+import com.belvinard.gestionstock.repositories.FileRepository;
+import com.belvinard.gestionstock.repositories.LigneCommandeClientRepository;
+import com.belvinard.gestionstock.repositories.LigneCommandeFournisseurRepository;
+import com.belvinard.gestionstock.repositories.LigneVenteRepository;
+import com.belvinard.gestionstock.repositories.MvtStkRepository;
+import com.belvinard.gestionstock.repositories.ReservationStockRepository;
+import com.belvinard.gestionstock.service.ContentStoreService;
+import com.belvinard.gestionstock.service.ImageVariantService;
+import com.belvinard.gestionstock.service.MinioService;
+import com.belvinard.gestionstock.storage.StoredObject;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.modelmapper.ModelMapper;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Références du stockage adressé par contenu : nom d'objet utilisable dans une URL, envoi hors
+ * transaction, référence rendue quand l'envoi ou l'enregistrement de l'entité échoue.
+ */
+class ContentStoreReferenceTest {
+
+    private static final byte[] CONTENU = "photo".getBytes(StandardCharsets.UTF_8);
+
+    private final MinioService minioService = mock(MinioService.class);
+    private final FileRepository fileRepository = mock(FileRepository.class);
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+
+    private final ContentStoreServiceImpl service = new ContentStoreServiceImpl(minioService,
+            mock(ObjectDiskCache.class), fileRepository, jdbcTemplate, new TransactionTemplate(transactionManager), 60);
+
+    private final List<String> envoisEnTransaction = new ArrayList<>();
+    private boolean enTransaction;
+    private String sha256;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        sha256 = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(CONTENU));
+        when(transactionManager.getTransaction(any())).thenAnswer(invocation -> {
+            enTransaction = true;
+            return new SimpleTransactionStatus();
+        });
+        doAnswer(invocation -> enTransaction = false).when(transactionManager).commit(any());
+        doAnswer(invocation -> enTransaction = false).when(transactionManager).rollback(any());
+        doAnswer(invocation -> {
+            if (enTransaction) {
+                envoisEnTransaction.add(invocation.getArgument(0));
+            }
+            return null;
+        }).when(minioService).uploadObject(anyString(), any(), anyLong(), any());
+        when(minioService.getFileUrl(anyString())).thenAnswer(invocation -> "http://minio/" + invocation.getArgument(0));
+    }
+
+    @Test
+    void newContentIsUploadedUnderAFlatNameOutsideAnyTransaction() {
+        references();
+
+        StoredObject stocke = service.store(CONTENU, "image/jpeg");
+
+        assertThat(stocke.objectName()).isEqualTo("cas-" + sha256).doesNotContain("/");
+        assertThat(stocke.deduplicated()).isFalse();
+        verify(minioService).uploadObject(eq("cas-" + sha256), any(), eq((long) CONTENU.length), eq("image/jpeg"));
+        assertThat(envoisEnTransaction).isEmpty();
+        verify(fileRepository).save(any(File.class));
+    }
+
+    @Test
+    void referencedContentIsNotUploadedAgain() {
+        references(new Object[]{"cas-" + sha256, 2});
+
+        StoredObject stocke = service.store(CONTENU, "image/jpeg");
+
+        assertThat(stocke.deduplicated()).isTrue();
+        verify(minioService, never()).uploadObject(anyString(), any(), anyLong(), any());
+        verify(fileRepository, never()).save(any(File.class));
+    }
+
+    @Test
+    void failedReuploadGivesTheReferenceBack() {
+        // Revenu de zéro référence sans son objet : il faut le renvoyer
+        references(new Object[]{"cas-" + sha256, 1});
+        when(minioService.fileExists("cas-" + sha256)).thenReturn(false);
+        doThrow(new IllegalStateException("stockage indisponible"))
+                .when(minioService).uploadObject(anyString(), any(), anyLong(), any());
+
+        assertThatThrownBy(() -> service.store(CONTENU, "image/jpeg")).isInstanceOf(IllegalStateException.class);
+
+        verify(jdbcTemplate).update(startsWith("UPDATE file SET reference_count = reference_count - 1"),
+                any(), eq("cas-" + sha256));
+    }
+
+    @Test
+    void streamIsCopiedOutsideAnyTransactionAndTemporaryObjectDeleted() {
+        references();
+        when(minioService.uploadStream(any(), anyLong(), any(), any()))
+                .thenReturn(new StoredObject("tmp-1", CONTENU.length, sha256, false));
+        List<Boolean> copiesEnTransaction = new ArrayList<>();
+        doAnswer(invocation -> copiesEnTransaction.add(enTransaction))
+                .when(minioService).copyObject("tmp-1", "cas-" + sha256);
+
+        StoredObject stocke = service.storeStream(null, CONTENU.length, "image/jpeg");
+
+        assertThat(stocke.objectName()).isEqualTo("cas-" + sha256);
+        assertThat(copiesEnTransaction).containsExactly(false);
+        verify(minioService).deleteFile("tmp-1");
+    }
+
+    @Test
+    void contentRevivedDuringItsPurgeIsUploadedUnderANewName() {
+        // Le ramasse-miettes supprime "cas-<sha>" hors transaction : il ne faut ni le réutiliser ni le réécrire
+        references(new Object[]{"cas-" + sha256, 1, true});
+
+        StoredObject stocke = service.store(CONTENU, "image/jpeg");
+
+        assertThat(stocke.objectName()).startsWith("cas-" + sha256 + "-").doesNotContain("/");
+        assertThat(stocke.deduplicated()).isFalse();
+        verify(jdbcTemplate).update(startsWith("UPDATE file SET file_name = ?"),
+                eq(stocke.objectName()), anyString(), eq("cas-" + sha256));
+        verify(minioService).uploadObject(eq(stocke.objectName()), any(), eq((long) CONTENU.length), eq("image/jpeg"));
+        verify(minioService, never()).uploadObject(eq("cas-" + sha256), any(), anyLong(), any());
+    }
+
+    @Test
+    void garbageIsDeletedOutsideAnyTransactionAndFailuresWaitForTheNextPass() {
+        when(jdbcTemplate.queryForList(startsWith("UPDATE file SET purge_started_at"), eq(String.class),
+                any(), any(), any(), any())).thenReturn(List.of("cas-a", "cas-b"));
+        List<Boolean> suppressionsEnTransaction = new ArrayList<>();
+        doAnswer(invocation -> suppressionsEnTransaction.add(enTransaction)).when(minioService).deleteFile(anyString());
+        doThrow(new IllegalStateException("stockage indisponible")).when(minioService).deleteFile("cas-b");
+
+        int supprimes = service.collectGarbage(10, 5);
+
+        assertThat(supprimes).isEqualTo(1);
+        assertThat(suppressionsEnTransaction).isNotEmpty().doesNotContain(true);
+        verify(transactionManager, never()).getTransaction(any());
+        verify(jdbcTemplate).update(startsWith("DELETE FROM file"), eq("cas-a"));
+        // Ligne restée marquée : reprise au prochain passage
+        verify(jdbcTemplate, never()).update(startsWith("DELETE FROM file"), eq("cas-b"));
+    }
+
+    @Test
+    void failedArticleSaveReleasesTheNewImage() throws Exception {
+        ArticleRepository articleRepository = mock(ArticleRepository.class);
+        ContentStoreService contentStoreService = mock(ContentStoreService.class);
+        ArticleServiceImpl articleService = new ArticleServiceImpl(articleRepository,
+                mock(EntrepriseRepository.class), mock(CategoryRepository.class), new ModelMapper(),
+                mock(LigneCommandeClientRepository.class), mock(LigneCommandeFournisseurRepository.class),
+                mock(LigneVenteRepository.class), mock(MvtStkRepository.class), mock(ReservationStockRepository.class),
+                minioService, mock(ApplicationEventPublisher.class), mock(ArticleCodeCache.class),
+                mock(ImageVariantService.class), contentStoreService);
+        Article article = new Article();
+        article.setId(5L);
+        article.setPhoto("cas-ancienne");
+        MockMultipartFile image = new MockMultipartFile("image", "photo.jpg", "image/jpeg", CONTENU);
+        when(articleRepository.findById(5L)).thenReturn(Optional.of(article));
+        when(contentStoreService.store(image)).thenReturn(new StoredObject("cas-nouvelle", CONTENU.length, sha256, true));
+        when(articleRepository.save(article)).thenThrow(new DataIntegrityViolationException("conflit"));
+
+        assertThatThrownBy(() -> articleService.updateArticleImage(5L, image))
+                .isInstanceOf(DataIntegrityViolationException.class);
+
+        verify(contentStoreService).release("cas-nouvelle");
+        verify(contentStoreService, never()).release("cas-ancienne");
+    }
+
+    // Lignes renvoyées par l'UPDATE ... RETURNING du compteur de références (file_name, reference_count[, en purge])
+    @SuppressWarnings("unchecked")
+    private void references(Object[]... lignes) {
+        when(jdbcTemplate.query(startsWith("UPDATE file"), any(RowMapper.class), eq(sha256))).thenAnswer(invocation -> {
+            RowMapper<Object> mapper = invocation.getArgument(1);
+            List<Object> resultat = new ArrayList<>();
+            for (Object[] ligne : lignes) {
+                ResultSet rs = mock(ResultSet.class);
+                when(rs.getString(1)).thenReturn((String) ligne[0]);
+                when(rs.getInt(2)).thenReturn((Integer) ligne[1]);
+                when(rs.getBoolean(3)).thenReturn(ligne.length > 2 && (Boolean) ligne[2]);
+                resultat.add(mapper.mapRow(rs, 0));
+            }
+            return resultat;
+        });
+    }
+}
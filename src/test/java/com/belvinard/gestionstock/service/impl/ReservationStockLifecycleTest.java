@@ -0,0 +1,219 @@
+package com.belvinard.gestionstock.service.impl;
+
+import com.belvinard.gestionstock.concurrency.StripedLockManager;
+import com.belvinard.gestionstock.exceptions.InvalidOperationException;
+import com.belvinard.gestionstock.models.Article;
+import com.belvinard.gestionstock.models.Entreprise;
+import com.belvinard.gestionstock.models.EtatVente;
+import com.belvinard.gestionstock.models.LigneVente;
+import com.belvinard.gestionstock.models.ReservationStock;
+import com.belvinard.gestionstock.models.StatutReservation;
+import com.belvinard.gestionstock.models.Vente;
+import com.belvinard.gestionstock.repositories.ArticleRepository;
+import com.belvinard.gestionstock.repositories.CommandeClientRepository;
+import com.belvinard.gestionstock.repositories.EntrepriseRepository;
+import com.belvinard.gestionstock.repositories.LigneVenteRepository;
+import com.belvinard.gestionstock.repositories.MvtStkRepository;
+import com.belvinard.gestionstock.repositories.ReservationStockRepository;
+import com.belvinard.gestionstock.repositories.VenteRepository;
+import com.belvinard.gestionstock.service.MvtStkService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.modelmapper.ModelMapper;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Cycle de vie d'une réservation de stock : réservation à l'ajout d'une ligne, expiration par le
+ * balayeur, puis finalisation de la vente. La table des réservations est simulée en mémoire.
+ */
+class ReservationStockLifecycleTest {
+
+    private final ReservationStockRepository reservationRepository = mock(ReservationStockRepository.class);
+    private final ArticleRepository articleRepository = mock(ArticleRepository.class);
+    private final VenteRepository venteRepository = mock(VenteRepository.class);
+    private final LigneVenteRepository ligneVenteRepository = mock(LigneVenteRepository.class);
+    private final List<ReservationStock> table = new ArrayList<>();
+    private final List<LigneVente> lignes = new ArrayList<>();
+
+    private ReservationStockServiceImpl reservations;
+    private VenteServiceImpl ventes;
+    private Article article;
+    private Vente vente;
+
+    @BeforeEach
+    void setUp() {
+        Entreprise entreprise = new Entreprise();
+        entreprise.setId(1L);
+        article = new Article();
+        article.setId(1L);
+        article.setDesignation("Stylo");
+        article.setEntreprise(entreprise);
+        article.setQuantiteEnStock(10L);
+        article.setQuantiteReservee(0L);
+        vente = vente(7L, entreprise);
+
+        when(reservationRepository.save(any())).thenAnswer(invocation -> {
+            ReservationStock reservation = invocation.getArgument(0);
+            if (reservation.getId() == null) {
+                reservation.setId(table.size() + 1L);
+                table.add(reservation);
+            }
+            return reservation;
+        });
+        when(reservationRepository.findAllByVenteIdAndStatut(anyLong(), any())).thenAnswer(invocation -> table.stream()
+                .filter(r -> r.getVente() != null && r.getVente().getId().equals(invocation.getArgument(0)))
+                .filter(r -> r.getStatut() == invocation.getArgument(1))
+                .toList());
+        when(reservationRepository.lockExpiredBatch(any(), anyInt())).thenAnswer(invocation -> table.stream()
+                .filter(r -> r.getStatut() == StatutReservation.ACTIVE)
+                .filter(r -> r.getExpiresAt().isBefore(invocation.getArgument(0)))
+                .map(ReservationStock::getId)
+                .toList());
+        when(reservationRepository.findAllById(any())).thenAnswer(invocation -> {
+            Collection<Long> ids = invocation.getArgument(0);
+            return table.stream().filter(r -> ids.contains(r.getId())).toList();
+        });
+        when(reservationRepository.findAllByArticleIdAndVenteIsNullAndStatutOrderByExpiresAtAsc(anyLong(), any()))
+                .thenAnswer(invocation -> table.stream()
+                        .filter(r -> r.getVente() == null && r.getStatut() == invocation.getArgument(1))
+                        .toList());
+        when(reservationRepository.sumQuantiteByArticleIdAndStatut(anyLong(), any())).thenAnswer(invocation -> table.stream()
+                .filter(r -> r.getStatut() == invocation.getArgument(1))
+                .mapToLong(ReservationStock::getQuantite)
+                .sum());
+        doAnswer(invocation -> {
+            long quantite = invocation.getArgument(1);
+            article.setQuantiteReservee(Math.max(0L, article.getQuantiteReservee() - quantite));
+            return 1;
+        }).when(articleRepository).decrementQuantiteReservee(anyLong(), anyLong());
+        when(articleRepository.getReferenceById(anyLong())).thenReturn(article);
+
+        when(venteRepository.findById(7L)).thenReturn(Optional.of(vente));
+        when(ligneVenteRepository.findArticleIdsByVenteId(7L)).thenReturn(List.of(1L));
+        when(ligneVenteRepository.findAllByVenteId(7L)).thenReturn(lignes);
+
+        ApplicationEventPublisher events = mock(ApplicationEventPublisher.class);
+        reservations = new ReservationStockServiceImpl(reservationRepository, articleRepository,
+                mock(MvtStkRepository.class), events, 30);
+        ventes = new VenteServiceImpl(venteRepository, ligneVenteRepository, articleRepository,
+                mock(EntrepriseRepository.class), mock(CommandeClientRepository.class), mock(MvtStkService.class),
+                mock(MvtStkRepository.class), new ModelMapper(), mock(StripedLockManager.class), reservations, events);
+    }
+
+    @Test
+    void finalizingConsumesTheLiveReservation() {
+        ajouterLigne(4);
+
+        ventes.finalizeVente(7L);
+
+        assertThat(article.getQuantiteEnStock()).isEqualTo(6L);
+        assertThat(article.getQuantiteReservee()).isZero();
+        assertThat(table.get(0).getStatut()).isEqualTo(StatutReservation.CONSOMMEE);
+        assertThat(vente.getEtatVente()).isEqualTo(EtatVente.FINALISEE);
+    }
+
+    @Test
+    void reservationCannotExceedFreeStock() {
+        reservations.reserver(article, 8L, 1L, vente(8L, article.getEntreprise()));
+
+        assertThatThrownBy(() -> reservations.reserver(article, 3L, 1L, vente))
+                .isInstanceOf(InvalidOperationException.class);
+        assertThat(article.getQuantiteReservee()).isEqualTo(8L);
+    }
+
+    @Test
+    void sweeperReleasesExpiredReservations() {
+        ajouterLigne(4);
+        expirer();
+
+        assertThat(reservations.libererReservationsExpirees(100)).isEqualTo(1);
+
+        assertThat(table.get(0).getStatut()).isEqualTo(StatutReservation.EXPIREE);
+        assertThat(article.getQuantiteReservee()).isZero();
+        assertThat(reservations.libererReservationsExpirees(100)).isZero();
+    }
+
+    @Test
+    void finalizingAfterExpiryIsRefusedWhenStockWasReservedByAnotherSale() {
+        ajouterLigne(4);
+        expirer();
+        reservations.libererReservationsExpirees(100);
+        // Le stock libéré est reparti dans un autre panier
+        reservations.reserver(article, 8L, 1L, vente(8L, article.getEntreprise()));
+
+        assertThatThrownBy(() -> ventes.finalizeVente(7L))
+                .isInstanceOf(InvalidOperationException.class)
+                .hasMessageContaining("réservation expirée");
+
+        assertThat(article.getQuantiteEnStock()).isEqualTo(10L);
+        assertThat(article.getQuantiteReservee()).isEqualTo(8L);
+        assertThat(vente.getEtatVente()).isEqualTo(EtatVente.EN_COURS);
+    }
+
+    @Test
+    void finalizingAfterExpirySucceedsWhenFreeStockStillCoversTheSale() {
+        ajouterLigne(4);
+        expirer();
+        reservations.libererReservationsExpirees(100);
+
+        ventes.finalizeVente(7L);
+
+        assertThat(article.getQuantiteEnStock()).isEqualTo(6L);
+        assertThat(article.getQuantiteReservee()).isZero();
+    }
+
+    @Test
+    void cancellingAReservationLeavesTheHoldsOfOpenSalesAlone() {
+        ajouterLigne(4);
+        reservations.reserver(article, 3L, 1L, vente(8L, article.getEntreprise()));
+        reservations.reserver(article, 2L, 1L, null);
+
+        reservations.annuler(article, 2L, 1L);
+
+        assertThat(article.getQuantiteReservee()).isEqualTo(7L);
+        assertThat(table).extracting(ReservationStock::getStatut).containsExactly(
+                StatutReservation.ACTIVE, StatutReservation.ACTIVE, StatutReservation.ANNULEE);
+        // Il ne reste plus rien hors vente : les paniers des deux ventes ne sont pas libérables ainsi
+        assertThatThrownBy(() -> reservations.annuler(article, 1L, 1L))
+                .isInstanceOf(InvalidOperationException.class);
+        assertThat(article.getQuantiteReservee()).isEqualTo(7L);
+    }
+
+    private void ajouterLigne(long quantite) {
+        reservations.reserver(article, quantite, 1L, vente);
+        LigneVente ligne = new LigneVente();
+        ligne.setArticle(article);
+        ligne.setVente(vente);
+        ligne.setQuantite(BigDecimal.valueOf(quantite));
+        lignes.add(ligne);
+    }
+
+    private void expirer() {
+        table.forEach(r -> r.setExpiresAt(LocalDateTime.now().minusMinutes(1)));
+    }
+
+    private static Vente vente(Long id, Entreprise entreprise) {
+        Vente vente = new Vente();
+        vente.setId(id);
+        vente.setCode("VTE-" + id);
+        vente.setEntreprise(entreprise);
+        vente.setEtatVente(EtatVente.EN_COURS);
+        return vente;
+    }
+}
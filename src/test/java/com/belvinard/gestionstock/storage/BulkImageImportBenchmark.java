@@ -0,0 +1,269 @@
+package com.belvinard.gestionstock.storage;
+
+import com.belvinard.gestionstock.dto.ArticleImageImportReportDTO;
+import com.belvinard.gestionstock.images.ImageVariant;
+import com.belvinard.gestionstock.repositories.EntrepriseRepository;
+import com.belvinard.gestionstock.service.ContentStoreService;
+import com.belvinard.gestionstock.service.ImageVariantService;
+import com.belvinard.gestionstock.service.impl.ArticleImageImportServiceImpl;
+import com.belvinard.gestionstock.service.impl.MinioServiceImpl;
+import com.belvinard.gestionstock.service.impl.MinioStorageBackend;
+import com.sun.net.httpserver.HttpServer;
+import io.minio.MinioAsyncClient;
+import io.minio.MinioClient;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Proxy;
+import java.net.InetSocketAddress;
+import java.security.MessageDigest;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Banc d'essai de l'import ZIP des photos : débit (photos/s) selon la taille du pool d'envoi.
+ * <p>
+ * Le stockage est une doublure MinIO locale : un serveur HTTP du JDK qui accepte les PUT S3 après
+ * une latence fixe ({@code -Dlatence.ms}, 20 ms par défaut), ce qui reproduit l'aller-retour vers
+ * un stockage distant sans dépendre d'un conteneur. Les envois passent par le vrai client MinIO
+ * et {@link MinioServiceImpl} ; la base est remplacée par des doublures en mémoire, le lot SQL
+ * n'étant qu'une requête par {@code batch-size} photos.
+ * <p>
+ * Programme autonome (hors suite de tests) :
+ * <pre>
+ * mvn -q test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=com.belvinard.gestionstock.storage.BulkImageImportBenchmark
+ * </pre>
+ */
+public class BulkImageImportBenchmark {
+
+    private static final int PHOTOS = 2000;
+    private static final int TAILLE_PHOTO = 64 * 1024;
+
+    public static void main(String[] args) throws Exception {
+        long latenceMs = Long.getLong("latence.ms", 20);
+        HttpServer doublure = demarrerDoublureMinio(latenceMs);
+        String url = "http://localhost:" + doublure.getAddress().getPort();
+
+        // Région fixée : pas de requête de localisation du bucket avant chaque envoi
+        MinioClient client = MinioClient.builder()
+                .endpoint(url)
+                .region("us-east-1")
+                .credentials("minioadmin", "minioadmin")
+                .build();
+        MinioAsyncClient asyncClient = MinioAsyncClient.builder()
+                .endpoint(url)
+                .region("us-east-1")
+                .credentials("minioadmin", "minioadmin")
+                .build();
+        MinioServiceImpl minio = new MinioServiceImpl(
+                new MinioStorageBackend(asyncClient, client, url, "benchmark", 16L * 1024 * 1024, 60_000, 1_800_000, 5, 30, 8),
+                60, 5, 100, Long.MAX_VALUE);
+
+        byte[] archive = genererArchive();
+        System.out.printf("Archive : %d photos de %d Ko (%d Mo), latence du stockage : %d ms%n%n",
+                PHOTOS, TAILLE_PHOTO >> 10, archive.length >> 20, latenceMs);
+        System.out.printf("%-6s %12s %10s %10s%n", "Pool", "Importées", "Durée (s)", "Photos/s");
+
+        try {
+            for (int pool : new int[]{1, 4, 8, 16, 32}) {
+                ArticleImageImportServiceImpl service = new ArticleImageImportServiceImpl(
+                        entrepriseExistante(), stockage(minio), sansDeclinaisons(), evenement -> { },
+                        new ArticlesEnMemoire(), new TransactionTemplate(new SansTransaction()),
+                        pool, pool * 2, 200, 10 * 1024 * 1024);
+                try {
+                    ArticleImageImportReportDTO rapport = service.importZip(1L, new ByteArrayInputStream(archive));
+                    System.out.printf("%-6d %12d %10.1f %10.1f%n", pool, rapport.getImportees(),
+                            rapport.getDureeMs() / 1000.0, rapport.getImagesParSeconde());
+                } finally {
+                    service.arreter();
+                }
+            }
+        } finally {
+            doublure.stop(0);
+        }
+    }
+
+    private static HttpServer demarrerDoublureMinio(long latenceMs) throws Exception {
+        HttpServer serveur = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        serveur.setExecutor(Executors.newCachedThreadPool());
+        serveur.createContext("/", echange -> {
+            try (InputStream corps = echange.getRequestBody()) {
+                corps.transferTo(OutputStream.nullOutputStream());
+            }
+            try {
+                Thread.sleep(latenceMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            boolean envoi = "PUT".equals(echange.getRequestMethod());
+            echange.getResponseHeaders().add("ETag", "\"" + Long.toHexString(System.nanoTime()) + "\"");
+            echange.sendResponseHeaders(envoi ? 200 : 404, -1);
+            echange.close();
+        });
+        serveur.start();
+        return serveur;
+    }
+
+    private static byte[] genererArchive() throws Exception {
+        ByteArrayOutputStream octets = new ByteArrayOutputStream(PHOTOS * TAILLE_PHOTO + (1 << 20));
+        try (ZipOutputStream zip = new ZipOutputStream(octets)) {
+            // Contenu déjà compressé comme un JPEG : l'entrée est stockée telle quelle
+            zip.setLevel(0);
+            byte[] photo = new byte[TAILLE_PHOTO];
+            for (int i = 0; i < PHOTOS; i++) {
+                ThreadLocalRandom.current().nextBytes(photo);
+                zip.putNextEntry(new ZipEntry(String.format("photos/ART-%05d.jpg", i)));
+                zip.write(photo);
+                zip.closeEntry();
+            }
+        }
+        return octets.toByteArray();
+    }
+
+    // Stockage adressé par contenu réduit à l'envoi : pas de base, donc pas de déduplication
+    private static ContentStoreService stockage(MinioServiceImpl minio) {
+        return new ContentStoreService() {
+            @Override
+            public StoredObject store(byte[] content, String contentType) {
+                try {
+                    String sha256 = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+                    minio.uploadObject("cas-" + sha256, new ByteArrayInputStream(content), content.length, contentType);
+                    return new StoredObject("cas-" + sha256, content.length, sha256, false);
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+
+            @Override
+            public StoredObject store(MultipartFile file) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public StoredObject storeStream(InputStream stream, long size, String contentType) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public boolean release(String objectName) {
+                return objectName != null;
+            }
+
+            @Override
+            public int collectGarbage(int batchSize, int maxBatches) {
+                return 0;
+            }
+        };
+    }
+
+    private static ImageVariantService sansDeclinaisons() {
+        return new ImageVariantService() {
+            @Override
+            public void planifier(String objetOriginal) {
+            }
+
+            @Override
+            public void generer(String objetOriginal) {
+            }
+
+            @Override
+            public Map<ImageVariant, String> urls(String objetOriginal) {
+                return Map.of();
+            }
+
+            @Override
+            public Map<String, Map<ImageVariant, String>> urls(Collection<String> objetsOriginaux) {
+                return Map.of();
+            }
+        };
+    }
+
+    private static EntrepriseRepository entrepriseExistante() {
+        return (EntrepriseRepository) Proxy.newProxyInstance(EntrepriseRepository.class.getClassLoader(),
+                new Class<?>[]{EntrepriseRepository.class},
+                (proxy, methode, arguments) -> "existsById".equals(methode.getName()) ? Boolean.TRUE : null);
+    }
+
+    /**
+     * Doublure des deux requêtes de l'import : les articles ART-00000 à ART-01999 existent, sans
+     * photo, et chaque mise à jour réussit.
+     */
+    private static final class ArticlesEnMemoire extends JdbcTemplate {
+
+        @Override
+        public void query(String sql, RowCallbackHandler rch, Object... args) {
+            try {
+                if (sql.startsWith("SELECT code_article")) {
+                    for (long id = 0; id < PHOTOS; id++) {
+                        rch.processRow(ligne(String.format("ART-%05d", id), id));
+                    }
+                } else {
+                    for (Long id : (Long[]) args[0]) {
+                        rch.processRow(ligne(null, id));
+                    }
+                }
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public <T> int[][] batchUpdate(String sql, Collection<T> batchArgs, int batchSize,
+                                       ParameterizedPreparedStatementSetter<T> pss) {
+            int[] comptes = new int[batchArgs.size()];
+            Arrays.fill(comptes, 1);
+            return new int[][]{comptes};
+        }
+
+        // (code, id) pour le chargement des articles, (id, photo nulle) pour le verrouillage du lot
+        private static ResultSet ligne(String code, long id) {
+            List<Object> colonnes = code != null ? List.of(code, id) : Arrays.asList(id, null);
+            return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(), new Class<?>[]{ResultSet.class},
+                    (proxy, methode, arguments) -> switch (methode.getName()) {
+                        case "getString" -> (String) colonnes.get((Integer) arguments[0] - 1);
+                        case "getLong" -> (Long) colonnes.get((Integer) arguments[0] - 1);
+                        default -> throw new UnsupportedOperationException(methode.getName());
+                    });
+        }
+    }
+
+    private static final class SansTransaction extends AbstractPlatformTransactionManager {
+
+        @Override
+        protected Object doGetTransaction() {
+            return new Object();
+        }
+
+        @Override
+        protected void doBegin(Object transaction, TransactionDefinition definition) {
+        }
+
+        @Override
+        protected void doCommit(DefaultTransactionStatus status) {
+        }
+
+        @Override
+        protected void doRollback(DefaultTransactionStatus status) {
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.belvinard.gestionstock.storage;
+
+import com.belvinard.gestionstock.service.impl.LocalStorageBackend;
+import com.belvinard.gestionstock.service.impl.MinioServiceImpl;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Stream;
+
+/**
+ * Banc d'essai du stockage local, tel que l'utilisent les services (envoi de photo d'article,
+ * envoi en flux et téléchargement de {@code FileServiceImpl}) : sans MinIO ni réseau, il mesure ce
+ * que coûte la couche de stockage elle-même.
+ * <p>
+ * Les lectures de gros fichiers sont mesurées deux fois : projetées en mémoire puis par le canal
+ * seul (seuil de projection au maximum). Le répertoire est créé dans {@code java.io.tmpdir}
+ * ({@code -Dstorage.dir} pour un autre disque) et supprimé à la fin.
+ * <p>
+ * Programme autonome (hors suite de tests) :
+ * <pre>
+ * mvn -q test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=com.belvinard.gestionstock.storage.LocalStorageBenchmark
+ * </pre>
+ */
+public class LocalStorageBenchmark {
+
+    private static final int PHOTOS = 2000;
+    private static final int TAILLE_PHOTO = 64 * 1024;
+    private static final long TAILLE_GROS = 256L * 1024 * 1024;
+    private static final int LECTURES = 5;
+
+    public static void main(String[] args) throws Exception {
+        Path repertoire = Files.createTempDirectory(
+                Path.of(System.getProperty("storage.dir", System.getProperty("java.io.tmpdir"))), "local-storage-");
+        try {
+            MinioServiceImpl projete = stockage(repertoire, 1024 * 1024);
+            MinioServiceImpl sansProjection = stockage(repertoire, Long.MAX_VALUE);
+            System.out.printf("Répertoire : %s%n%n", repertoire);
+
+            byte[] photo = new byte[TAILLE_PHOTO];
+            ThreadLocalRandom.current().nextBytes(photo);
+            long debut = System.nanoTime();
+            for (int i = 0; i < PHOTOS; i++) {
+                projete.uploadObject(String.format("cas-%05d", i), new ByteArrayInputStream(photo), photo.length, "image/jpeg");
+            }
+            afficher("Envoi photo 64 Ko", PHOTOS, (long) PHOTOS * TAILLE_PHOTO, debut);
+
+            debut = System.nanoTime();
+            for (int i = 0; i < PHOTOS; i++) {
+                projete.statObject(String.format("cas-%05d", i));
+            }
+            afficher("Métadonnées", PHOTOS, 0, debut);
+
+            debut = System.nanoTime();
+            for (int i = 0; i < PHOTOS; i++) {
+                try (InputStream flux = projete.downloadFile(String.format("cas-%05d", i))) {
+                    flux.transferTo(OutputStream.nullOutputStream());
+                }
+            }
+            afficher("Lecture photo", PHOTOS, (long) PHOTOS * TAILLE_PHOTO, debut);
+
+            debut = System.nanoTime();
+            StoredObject gros = projete.uploadStream(new Aleatoire(TAILLE_GROS), -1, "application/octet-stream", ".bin");
+            afficher("Envoi en flux 256 Mo", 1, gros.size(), debut);
+
+            for (MinioServiceImpl stockage : new MinioServiceImpl[]{projete, sansProjection, projete, sansProjection}) {
+                debut = System.nanoTime();
+                for (int i = 0; i < LECTURES; i++) {
+                    try (InputStream flux = stockage.downloadFile(gros.objectName())) {
+                        flux.transferTo(OutputStream.nullOutputStream());
+                    }
+                }
+                afficher(stockage == projete ? "Lecture 256 Mo (mmap)" : "Lecture 256 Mo (canal)",
+                        LECTURES, LECTURES * TAILLE_GROS, debut);
+            }
+        } finally {
+            try (Stream<Path> fichiers = Files.walk(repertoire)) {
+                fichiers.sorted(Comparator.reverseOrder()).forEach(fichier -> fichier.toFile().delete());
+            }
+        }
+    }
+
+    private static MinioServiceImpl stockage(Path repertoire, long seuilProjection) {
+        LocalStorageBackend backend = new LocalStorageBackend(repertoire.toString(), seuilProjection,
+                "http://localhost:8080", "benchmark", "api/v1");
+        return new MinioServiceImpl(backend, 60, 5, 100, Long.MAX_VALUE);
+    }
+
+    private static void afficher(String operation, int nombre, long octets, long debut) {
+        double secondes = (System.nanoTime() - debut) / 1e9;
+        System.out.printf("%-24s %10.0f op/s %10s%n", operation, nombre / secondes,
+                octets > 0 ? String.format("%.0f Mo/s", octets / secondes / (1 << 20)) : "");
+    }
+
+    // Contenu généré à la volée, répété par blocs : rien n'est gardé en mémoire
+    private static final class Aleatoire extends InputStream {
+
+        private final byte[] bloc = new byte[1 << 20];
+        private long restant;
+
+        private Aleatoire(long taille) {
+            this.restant = taille;
+            ThreadLocalRandom.current().nextBytes(bloc);
+        }
+
+        @Override
+        public int read() {
+            if (restant == 0) {
+                return -1;
+            }
+            restant--;
+            return bloc[(int) (restant % bloc.length)] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (restant == 0) {
+                return -1;
+            }
+            int lus = (int) Math.min(Math.min(len, restant), bloc.length);
+            System.arraycopy(bloc, 0, b, off, lus);
+            restant -= lus;
+            return lus;
+        }
+    }
+}
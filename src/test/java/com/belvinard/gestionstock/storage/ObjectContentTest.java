@@ -0,0 +1,49 @@
+package com.belvinard.gestionstock.storage;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ObjectContentTest {
+
+    @TempDir
+    Path dossier;
+
+    @Test
+    void lengthComesFromTheOpenFileRatherThanMetadata() throws Exception {
+        Path fichier = Files.write(dossier.resolve("objet"), new byte[40]);
+
+        // Métadonnées lues avant une réécriture : elles annoncent plus que le fichier ouvert
+        try (ObjectContent contenu = ObjectContent.fromFile(new ObjectInfo("objet", 100, "e", null),
+                FileChannel.open(fichier, StandardOpenOption.READ))) {
+            ByteArrayOutputStream sortie = new ByteArrayOutputStream();
+            contenu.writeTo(sortie);
+
+            assertThat(contenu.length()).isEqualTo(40);
+            assertThat(sortie.size()).isEqualTo(40);
+        }
+    }
+
+    @Test
+    void fileTruncatedWhileOpenEndsWithEofInsteadOfSpinning() throws Exception {
+        Path fichier = Files.write(dossier.resolve("objet"), new byte[100]);
+
+        try (ObjectContent contenu = ObjectContent.fromFile(new ObjectInfo("objet", 100, "e", null),
+                FileChannel.open(fichier, StandardOpenOption.READ)).range(0, 100);
+             FileChannel ecriture = FileChannel.open(fichier, StandardOpenOption.WRITE)) {
+            ecriture.truncate(50);
+
+            assertThatThrownBy(() -> contenu.writeTo(new ByteArrayOutputStream()))
+                    .isInstanceOf(EOFException.class);
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.belvinard.gestionstock.storage;
+
+import com.belvinard.gestionstock.service.impl.MinioServiceImpl;
+import com.belvinard.gestionstock.service.impl.MinioStorageBackend;
+import io.minio.MinioAsyncClient;
+import io.minio.MinioClient;
+
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Banc d'essai de l'envoi en flux : 500 Mo générés à la volée sont envoyés à un MinIO local par
+ * {@link MinioServiceImpl#uploadStream}, taille connue puis inconnue (corps « chunked »). Le pic de
+ * tas reste de l'ordre de la taille d'une partie quelle que soit la taille du fichier, ce que
+ * vérifie l'exécution avec un tas volontairement petit.
+ * <p>
+ * Programme autonome (hors suite de tests), MinIO local requis
+ * ({@code docker run -p 9000:9000 minio/minio server /data}) :
+ * <pre>
+ * mvn -q test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=com.belvinard.gestionstock.storage.StreamingUploadBenchmark \
+ *     -Dminio.url=http://localhost:9000 -Dexec.jvmArgs=-Xmx128m
+ * </pre>
+ */
+public class StreamingUploadBenchmark {
+
+    private static final long TAILLE = 500L * 1024 * 1024;
+    private static final long PART_SIZE = 16L * 1024 * 1024;
+
+    public static void main(String[] args) throws Exception {
+        String url = System.getProperty("minio.url", "http://localhost:9000");
+        String accessKey = System.getProperty("minio.access-key", "minioadmin");
+        String secretKey = System.getProperty("minio.secret-key", "minioadmin");
+        String bucket = System.getProperty("minio.bucket", "benchmark");
+        MinioClient client = MinioClient.builder().endpoint(url).credentials(accessKey, secretKey).build();
+        MinioAsyncClient asyncClient = MinioAsyncClient.builder().endpoint(url).credentials(accessKey, secretKey).build();
+
+        // Bucket créé au premier envoi
+        MinioServiceImpl minio = new MinioServiceImpl(
+                new MinioStorageBackend(asyncClient, client, url, bucket, PART_SIZE, 60_000, 1_800_000, 5, 30, 8),
+                60, 5, 100, Long.MAX_VALUE);
+
+        System.out.printf("Fichier : %d Mo, partie : %d Mo, tas max : %d Mo%n%n",
+                TAILLE >> 20, PART_SIZE >> 20, Runtime.getRuntime().maxMemory() >> 20);
+        System.out.printf("%-16s %10s %10s %14s%n", "Taille annoncée", "Durée (s)", "Mo/s", "Pic de tas (Mo)");
+
+        for (boolean tailleConnue : new boolean[]{true, false}) {
+            reinitialiserPics();
+            long debut = System.nanoTime();
+            StoredObject stored = minio.uploadStream(new FluxGenere(TAILLE), tailleConnue ? TAILLE : -1,
+                    "application/octet-stream", ".bin");
+            double secondes = (System.nanoTime() - debut) / 1e9;
+
+            System.out.printf("%-16s %10.1f %10.1f %14d%n", tailleConnue ? "oui" : "non (-1)", secondes,
+                    (stored.size() >> 20) / secondes, picDeTas() >> 20);
+            minio.deleteFile(stored.objectName());
+        }
+    }
+
+    private static void reinitialiserPics() {
+        System.gc();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                pool.resetPeakUsage();
+            }
+        }
+    }
+
+    private static long picDeTas() {
+        long total = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                total += pool.getPeakUsage().getUsed();
+            }
+        }
+        return total;
+    }
+
+    // Contenu pseudo-aléatoire produit à la demande : seul un bloc de 64 Ko est alloué
+    private static final class FluxGenere extends InputStream {
+
+        private final byte[] bloc = new byte[64 * 1024];
+        private long restant;
+
+        FluxGenere(long taille) {
+            ThreadLocalRandom.current().nextBytes(bloc);
+            this.restant = taille;
+        }
+
+        @Override
+        public int read() {
+            if (restant <= 0) {
+                return -1;
+            }
+            return bloc[(int) (restant-- % bloc.length)] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) {
+            if (restant <= 0) {
+                return -1;
+            }
+            int n = (int) Math.min(Math.min(length, restant), bloc.length);
+            System.arraycopy(bloc, 0, buffer, offset, n);
+            restant -= n;
+            return n;
+        }
+    }
+}